@@ -4,7 +4,19 @@ package com.ibm.ta.jam;
 import static com.ibm.ta.jam.build.BuildToolFactory.BuildToolType.UNKNOWN;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import org.tinylog.Logger;
 import org.tinylog.configuration.Configuration;
@@ -15,14 +27,27 @@ import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
 import com.ibm.ta.jam.build.BuildTool;
 import com.ibm.ta.jam.build.BuildToolFactory;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
+import com.ibm.ta.jam.build.CompileClasspath;
+import com.ibm.ta.jam.build.IncrementalCompiler;
+import com.ibm.ta.jam.build.TestImpactIndex;
 import com.ibm.ta.jam.bundle.ExpandedBundle;
 import com.ibm.ta.jam.bundle.InvalidBundleException;
 import com.ibm.ta.jam.bundle.MigrationBundle;
+import com.ibm.ta.jam.event.BuildStepResult;
+import com.ibm.ta.jam.event.DependencyChange;
+import com.ibm.ta.jam.event.JamEvent;
+import com.ibm.ta.jam.event.JamListener;
+import com.ibm.ta.jam.instrument.Phase;
+import com.ibm.ta.jam.instrument.SessionRecording;
+import com.ibm.ta.jam.instrument.Span;
+import com.ibm.ta.jam.instrument.Tracer;
 import com.ibm.ta.jam.recipe.RecipeAutomation;
 import com.ibm.ta.jam.recipe.RecipeAutomationFactory;
 import com.ibm.ta.jam.recipe.RecipeAutomationInitializationException;
+import com.ibm.ta.jam.recipe.RecipeRunResult;
 import com.ibm.ta.jam.utils.JamUtils;
 import com.ibm.ta.jam.utils.IOUtils;
+import com.ibm.ta.jam.utils.Lazy;
 import com.ibm.ta.jam.utils.MavenCoords;
 
 //
@@ -37,15 +62,40 @@ public class Jam {
     private String applicationDir;
     private String migrationBundleZip;
 
-    private BuildTool buildTool;
-    private ExpandedBundle expandedBundle;
-    private Application application;
-    private RecipeAutomation recipeAutomation;
+    // Created on first use, so short sessions only pay for the parts they need
+    private Lazy<BuildTool> buildTool;
+    private Lazy<ExpandedBundle> expandedBundle;
+    private Lazy<Application> application;
+    private Lazy<RecipeAutomation> recipeAutomation;
+    private JamOptions options;
+    // Steps run on the threads of runSteps, so state shared between steps is volatile or guarded by untestedSources
+    private volatile RecipeRunResult lastRecipeRunResult;
+    // Files changed by the last recipe run, restored from the journal when a resumed session skips the recipes step
+    private volatile Set<Path> recipeChangedFiles = Collections.emptySet();
+    private Lazy<CompileClasspath> compileClasspath;
+    // Sources changed by recipes since tests last passed, and if a change not tracked by source was made
+    private final Set<Path> untestedSources = new TreeSet<>();
+    private boolean allTestsNeeded;
+    // Tests selected by the last build that ran impacted tests only, null if it skipped tests or ran all tests
+    private volatile Set<String> impactedTests;
+    private final List<JamListener> listeners = new CopyOnWriteArrayList<>();
+    // Parent of the spans of this session, ended by close
+    private final Span sessionSpan;
+    // Flight recording of this session, null if not recording
+    private final SessionRecording recording;
+    // Journal of the steps run on the application, null unless resuming
+    private final StepJournal journal;
+    private String bundleHash;
 
 
     // TODO: make the migratino bundle optional - will need to make sure no methods crash and burn because of that
     public Jam (String applicationDir, String migrationBundleZip, boolean debugMode) 
             throws InvalidApplicationDirectoryException, InvalidMigrationBundleException, InitializationException{
+        this(applicationDir, migrationBundleZip, debugOptions(debugMode));
+    }
+
+    public Jam (String applicationDir, String migrationBundleZip, JamOptions options) 
+            throws InvalidApplicationDirectoryException, InvalidMigrationBundleException, InitializationException{
         
         if (!IOUtils.isValidDirectory (applicationDir)) {
             throw new InvalidApplicationDirectoryException("Application directory is not valid");
@@ -57,9 +107,28 @@ public class Jam {
 
         this.applicationDir = applicationDir;
         this.migrationBundleZip = migrationBundleZip;
-
-
-        if (!initialize(debugMode)) {
+        this.options = options;
+        this.journal = options.isResume() ? new StepJournal(applicationDir) : null;
+
+        recording = options.getFlightRecordingDir() == null ? null
+            : SessionRecording.start(Path.of(options.getFlightRecordingDir()), Path.of(applicationDir));
+        sessionSpan = Tracer.get().startDetachedSpan("Jam session")
+            .setAttribute("jam.application", new File(applicationDir).getName())
+            .setAttribute("jam.application.dir", applicationDir);
+        boolean initialized;
+        try (Span span = Tracer.get().startSpan("Jam.initialize", sessionSpan);
+                Phase.ApplicationScope scope = Phase.forApplication(applicationDir)) {
+            initialized = initialize(options.isDebugMode());
+            if (!initialized) {
+                span.setError("initialization failed");
+            }
+        }
+        if (!initialized) {
+            sessionSpan.setError("initialization failed");
+            sessionSpan.close();
+            if (recording != null) {
+                recording.close();
+            }
             throw new InitializationException("Initialization of migration automation failed");
         }
     }
@@ -72,8 +141,9 @@ public class Jam {
     }
 
     // Note: this needs to be added before the dependencies are added (at least in the case of Maven) because the dependencies need to be added to copyDependencies.
+    // runSteps orders them so, see MigrationStep.
     public boolean addLibertyDevPlugin() {
-        return buildTool.addLibertyDevPlugin();
+        return forApplication(() -> buildTool.get().addLibertyDevPlugin());
     }
 
     
@@ -89,11 +159,69 @@ public class Jam {
     }
 
     public boolean runBasicBuild(boolean skipTests) {
-        return buildTool.runBasicBuild(skipTests);
+        return forApplication(() -> basicBuild(skipTests));
+    }
+
+    private boolean basicBuild(boolean skipTests) {
+        impactedTests = null;
+        if (skipTests) {
+            return buildTool.get().runBasicBuild(true);
+        }
+        Set<Path> testedSources;
+        boolean testedAll;
+        synchronized (untestedSources) {
+            testedSources = new TreeSet<>(untestedSources);
+            testedAll = allTestsNeeded;
+        }
+        boolean buildSucceeded = options.isTestImpact() ? runImpactedTests(testedSources, testedAll) : buildTool.get().runBasicBuild(false);
+        if (buildSucceeded) {
+            // Changes made while the build ran are still untested
+            synchronized (untestedSources) {
+                untestedSources.removeAll(testedSources);
+                if (testedAll) {
+                    allTestsNeeded = false;
+                }
+            }
+        }
+        return buildSucceeded;
+    }
+
+    /**
+     * Run a build that only runs the tests referencing the sources changed by recipes since tests last passed.
+     * All tests run when there are no tracked changes, dependencies were changed, a change is not to a Java source,
+     * or there are no compiled tests to select from. The classes are indexed before the build, as the build cleans them.
+     */
+    private boolean runImpactedTests(Set<Path> untestedSources, boolean allTestsNeeded) {
+        if (allTestsNeeded || untestedSources.isEmpty()) {
+            Logger.debug("No recipe changes to select tests for, running all tests");
+            return buildTool.get().runBasicBuild(false);
+        }
+        TestImpactIndex index;
+        try {
+            index = TestImpactIndex.build(buildTool.get().getTestClassesDirectories(), buildTool.get().getClassesDirectories());
+        } catch (IOException e) {
+            Logger.warn("Unable to index test classes, running all tests: " + e.getMessage());
+            return buildTool.get().runBasicBuild(false);
+        }
+        if (index.isEmpty()) {
+            Logger.info("No compiled test classes to select from, running all tests");
+            return buildTool.get().runBasicBuild(false);
+        }
+
+        Set<String> changedClasses = TestImpactIndex.getChangedClasses(buildTool.get().getSourceDirectories(), untestedSources);
+        if (changedClasses == null) {
+            Logger.info("Recipes changed files other than Java sources, running all tests");
+            return buildTool.get().runBasicBuild(false);
+        }
+        Set<String> tests = index.selectTests(changedClasses);
+        Logger.info("Running " + tests.size() + " tests impacted by changes to " + changedClasses.size() + " classes");
+        Logger.debug("Impacted tests: " + tests);
+        impactedTests = tests;
+        return tests.isEmpty() ? buildTool.get().runBasicBuild(true) : buildTool.get().runBasicBuild(tests);
     }
 
     public boolean runLibertyDevMode() {
-        return buildTool.runLibertyDevMode();
+        return forApplication(() -> buildTool.get().runLibertyDevMode());
     }
 
 
@@ -101,34 +229,52 @@ public class Jam {
     // Application
     //
     public boolean addLibertyServerConfigToApplication() {
-        return application.addServerConfigFromBundle(expandedBundle.getServerXmlPath());
+        return forApplication(() -> application.get().addServerConfigFromBundle(expandedBundle.get().getServerXmlPath()));
     }
 
     public boolean addLocalDependenciesToApplication(List<String> dependencyPaths) {
-        // Update the build tool config
-        if (buildTool.addLocalDependencies(dependencyPaths)) {
-            // Update the application itself with the local libs
-            return application.addLocalDependencies(dependencyPaths);
-        } else {
-            Logger.error("Failed to add local dependencies to build tool configuration");
-            return false;
-        }
+        return forApplication(() -> {
+            // Update the build tool config
+            if (buildTool.get().addLocalDependencies(dependencyPaths)) {
+                requireAllTests();
+                // Update the application itself with the local libs
+                return application.get().addLocalDependencies(dependencyPaths);
+            } else {
+                Logger.error("Failed to add local dependencies to build tool configuration");
+                return false;
+            }
+        });
     }
 
     public boolean addPlaceholderDependenciesToApplication(List<String> deps) {
-        return false;//application.addPlaceholderDependencies(deps);
+        return false;//application.get().addPlaceholderDependencies(deps);
     }
 
     //
     // Dependencies, jar files that the application depends on
     //
     public List<String> getAllLibDependencies() {
-        return expandedBundle.getLibDependencyNames();
+        return forApplication(() -> expandedBundle.get().getLibDependencyNames());
     }
 
     public boolean addRemoteDependenciesToApplication(List<MavenCoords> dependencyCoords) {
-        // Update the build tool config
-        return buildTool.addRemoteDependencies(dependencyCoords);
+        return forApplication(() -> {
+            // Update the build tool config
+            if (buildTool.get().addRemoteDependencies(dependencyCoords)) {
+                requireAllTests();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Run all tests in the next build that runs tests, as a change was made that tests cannot be selected for
+     */
+    private void requireAllTests() {
+        synchronized (untestedSources) {
+            allTestsNeeded = true;
+        }
     }
 
 
@@ -136,15 +282,326 @@ public class Jam {
     // Recipes
     //
     public List<String> getAllAvailableRecipes() {
-        return recipeAutomation.getAllRecipes();
+        return forApplication(() -> recipeAutomation.get().getAllRecipes());
     }
 
     public boolean runRecipes(List<String> recipes) {
-        return recipeAutomation.runRecipes(recipes);
+        return recordRecipeRun(() -> recipeAutomation.get().runRecipes(recipes));
     }
 
     public boolean runAllRecipes() {
-        return recipeAutomation.runAllRecipes();
+        return recordRecipeRun(() -> recipeAutomation.get().runAllRecipes());
+    }
+
+    /**
+     * Write a unified diff of the changes the given recipes would make, without modifying the application
+     * @param recipes the recipes to run
+     * @param patch writer the diff is streamed to
+     * @return true if the recipes ran successfully
+     */
+    public boolean dryRunRecipes(List<String> recipes, Writer patch) {
+        return recordRecipeRun(() -> recipeAutomation.get().dryRunRecipes(recipes, patch));
+    }
+
+    /**
+     * Write a unified diff of the changes all recipes would make, without modifying the application
+     * @param patch writer the diff is streamed to
+     * @return true if the recipes ran successfully
+     */
+    public boolean dryRunAllRecipes(Writer patch) {
+        return recordRecipeRun(() -> recipeAutomation.get().dryRunAllRecipes(patch));
+    }
+
+    /**
+     * Get the result of the last recipe run, with timings and change counts for each recipe
+     * @return the result, or null if no recipes have run, or the last recipes step failed before running recipes
+     */
+    public RecipeRunResult getLastRecipeRunResult() {
+        return lastRecipeRunResult;
+    }
+
+    /**
+     * Compile the sources changed by the last recipe run, and the sources that depend on them, to check the
+     * recipes did not introduce compile errors. Much faster than a full build, which is still needed before deploying.
+     * @return true if the changed sources compiled, or no sources were changed
+     */
+    public boolean compileRecipeChanges() {
+        return forApplication(this::compileChanges);
+    }
+
+    private boolean compileChanges() {
+        Set<Path> changedFiles = recipeChangedFiles;
+        if (changedFiles.isEmpty()) {
+            Logger.info("No sources changed by recipes to compile");
+            return true;
+        }
+        // Resolving the classpath needs a run of the build tool, so it is only resolved again when recipes changed
+        // the build configuration or Liberty libs, e.g. by adding dependencies
+        BuildTool tool = buildTool.get();
+        return new IncrementalCompiler(tool.getSourceDirectories(), compileClasspath.get().get()).compile(changedFiles);
+    }
+
+    private boolean recordRecipeRun(Supplier<RecipeRunResult> recipeRun) {
+        return forApplication(() -> recordRecipeRunResult(recipeRun));
+    }
+
+    private boolean recordRecipeRunResult(Supplier<RecipeRunResult> recipeRun) {
+        RecipeRunResult runResult;
+        try (Phase phase = Phase.start(Phase.RECIPE_RUN)) {
+            runResult = recipeRun.get();
+            phase.result(runResult.isSuccessful());
+            traceRecipes(phase.getSpan(), runResult);
+        }
+        lastRecipeRunResult = runResult;
+        recipeChangedFiles = runResult.getChangedSources();
+        synchronized (untestedSources) {
+            untestedSources.addAll(runResult.getChangedSources());
+        }
+        Logger.info(runResult);
+        if (options.getRecipeRunLog() != null) {
+            try {
+                runResult.appendTo(Path.of(options.getRecipeRunLog()));
+            } catch (IOException e) {
+                Logger.warn("Unable to write recipe run log: " + options.getRecipeRunLog());
+                if (Logger.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return runResult.isSuccessful();
+    }
+
+    /**
+     * Add a span for each recipe under the span of the run. Recipes run one after the other and their
+     * results only have durations, so each span starts where the previous one ended.
+     */
+    private static void traceRecipes(Span runSpan, RecipeRunResult runResult) {
+        if (!runSpan.isRecording()) {
+            return;
+        }
+        runSpan.setAttribute("jam.recipe", runResult.getRecipeName())
+            .setAttribute("jam.recipe.mode", runResult.getMode());
+        long start = runSpan.getStartEpochNanos();
+        for (RecipeRunResult.RecipeStats stats : runResult.getRecipeStats()) {
+            long end = start + stats.getWallTimeMillis() * 1_000_000L;
+            Tracer.get().startDetachedSpan(stats.getRecipe(), runSpan, start)
+                .setAttribute("jam.recipe", stats.getRecipe())
+                .setAttribute("jam.recipe.files_scanned", stats.getFilesScanned())
+                .setAttribute("jam.recipe.files_changed", stats.getFilesChanged())
+                .end(end);
+            start = end;
+        }
+    }
+
+
+    //
+    // Steps
+    //
+
+    /**
+     * Run work of this session with its application set for the phases it starts, see {@link Phase#forApplication},
+     * so the events and spans of methods called directly, not through {@link #runStep}, name the application
+     */
+    private <T> T forApplication(Supplier<T> work) {
+        try (Phase.ApplicationScope scope = Phase.forApplication(applicationDir)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Run migration steps, steps that do not read or write the same parts of the application run at the same time
+     * and the others in {@link MigrationStep} order. Steps that depend on a step that did not succeed are skipped.
+     * @param steps the steps to run
+     * @param inputs answers the steps need
+     * @return the status of each step
+     */
+    public Map<MigrationStep, StepGraph.Status> runSteps(Collection<MigrationStep> steps, StepInputs inputs) {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            return new StepGraph(steps).run(step -> runStep(step, inputs), executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Run one migration step, publishing its events to the listeners. When resuming, a step that completed in an
+     * earlier session and is still valid is not run again, see {@link StepJournal}.
+     * @param step the step to run
+     * @param inputs answers the step needs
+     * @return true if the step was successful
+     */
+    public boolean runStep(MigrationStep step, StepInputs inputs) {
+        long start = System.currentTimeMillis();
+        publish(JamEvent.Type.STEP_STARTED, step, start, null, null);
+        String inputsFingerprint = getInputsFingerprint(step, inputs);
+        if (inputsFingerprint != null) {
+            Map<MigrationStep.Resource, String> resources = fingerprintResources(step);
+            if (resources != null && journal.isComplete(step, inputsFingerprint, resources)) {
+                Logger.info("Step " + step.getName() + " completed in an earlier session, skipping it");
+                restoreSkippedStep(step);
+                publish(JamEvent.Type.STEP_FINISHED, step, start, "Completed in an earlier session", null);
+                return true;
+            }
+            journal.started(step, resources != null ? resources : Collections.emptyMap());
+        }
+        boolean succeeded;
+        // Steps run on the threads of runSteps, so their spans name the session as their parent
+        try (Span span = Tracer.get().startSpan("step " + step.getName(), sessionSpan);
+                Phase.ApplicationScope scope = Phase.forApplication(applicationDir)) {
+            try {
+                succeeded = executeStep(step, inputs, start);
+            } catch (RuntimeException e) {
+                span.setError(e.toString());
+                publish(JamEvent.Type.STEP_FAILED, step, start, e.toString(), null);
+                throw e;
+            }
+            if (!succeeded) {
+                span.setError("step failed");
+            }
+        }
+        if (succeeded && inputsFingerprint != null) {
+            Map<MigrationStep.Resource, String> resources = fingerprintResources(step);
+            if (resources != null) {
+                journal.completed(step, inputsFingerprint, resources,
+                    step == MigrationStep.RECIPES ? recipeChangedFiles : Collections.emptySet());
+            }
+        }
+        publish(succeeded ? JamEvent.Type.STEP_FINISHED : JamEvent.Type.STEP_FAILED, step, start, null, getStepPayload(step, inputs, succeeded));
+        return succeeded;
+    }
+
+    /**
+     * Restore what later steps need from a step skipped as completed in an earlier session. The files the recipes
+     * changed are still to be compiled and tested, e.g. when the earlier session failed at the compile step.
+     */
+    private void restoreSkippedStep(MigrationStep step) {
+        if (step == MigrationStep.RECIPES) {
+            List<Path> changedFiles = journal.getChangedFiles(step);
+            recipeChangedFiles = new TreeSet<>(changedFiles);
+            synchronized (untestedSources) {
+                untestedSources.addAll(changedFiles);
+            }
+        }
+    }
+
+    private boolean executeStep(MigrationStep step, StepInputs inputs, long start) {
+        switch (step) {
+            case BUILD:
+                return runBasicBuild(inputs.isSkipTests());
+            case LIBERTY_PLUGIN:
+                return addLibertyDevPlugin();
+            case SERVER_CONFIG:
+                return addLibertyServerConfigToApplication();
+            case DEPENDENCIES:
+                if (!inputs.getRemoteDependencies().isEmpty()) {
+                    if (!addRemoteDependenciesToApplication(inputs.getRemoteDependencies())) {
+                        Logger.error("Failed to add remote dependencies to application");
+                        return false;
+                    }
+                    publish(JamEvent.Type.STEP_PROGRESS, step, start, "Added " + inputs.getRemoteDependencies().size() + " remote dependencies",
+                        new DependencyChange(inputs.getRemoteDependencies(), Collections.emptyList()));
+                }
+                if (!inputs.getLocalDependencies().isEmpty() && !addLocalDependenciesToApplication(inputs.getLocalDependencies())) {
+                    Logger.error("Failed to add local dependencies to application");
+                    return false;
+                }
+                return true;
+            case RECIPES:
+                // The step reports the result of its own run, not one of an earlier step if it fails before running recipes
+                lastRecipeRunResult = null;
+                recipeChangedFiles = Collections.emptySet();
+                if (inputs.getDryRunPatch() != null) {
+                    return inputs.getRecipes() == null ? dryRunAllRecipes(inputs.getDryRunPatch())
+                        : dryRunRecipes(inputs.getRecipes(), inputs.getDryRunPatch());
+                }
+                return inputs.getRecipes() == null ? runAllRecipes() : runRecipes(inputs.getRecipes());
+            case COMPILE:
+                return compileRecipeChanges();
+            case DEV_MODE:
+                return runLibertyDevMode();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the fingerprint of the step inputs for the journal
+     * @return the fingerprint, or null if the step is not journaled
+     */
+    private String getInputsFingerprint(MigrationStep step, StepInputs inputs) {
+        // Dry runs do not change the application, and dev mode runs until it is stopped
+        if (journal == null || step == MigrationStep.DEV_MODE || (step == MigrationStep.RECIPES && inputs.getDryRunPatch() != null)) {
+            return null;
+        }
+        try {
+            synchronized (this) {
+                if (bundleHash == null) {
+                    bundleHash = IOUtils.sha256(Path.of(migrationBundleZip));
+                }
+            }
+            return StepJournal.fingerprintInputs(step, inputs, bundleHash);
+        } catch (IOException e) {
+            Logger.warn("Unable to fingerprint the inputs of step " + step.getName() + ", not journaling it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<MigrationStep.Resource, String> fingerprintResources(MigrationStep step) {
+        try {
+            return journal.fingerprintResources(StepJournal.getFingerprintedResources(step));
+        } catch (IOException e) {
+            Logger.warn("Unable to fingerprint the application for step " + step.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Object getStepPayload(MigrationStep step, StepInputs inputs, boolean succeeded) {
+        switch (step) {
+            case BUILD:
+                return new BuildStepResult(succeeded, inputs.isSkipTests(), impactedTests, buildTool.get().getLastBuildTaskDurations());
+            case DEPENDENCIES:
+                return succeeded ? new DependencyChange(inputs.getRemoteDependencies(), inputs.getLocalDependencies()) : null;
+            case RECIPES:
+                return lastRecipeRunResult;
+            default:
+                return null;
+        }
+    }
+
+
+    //
+    // Events
+    //
+
+    /**
+     * Add a listener for the events of the steps run with {@link #runStep} and {@link #runSteps}
+     */
+    public void addListener(JamListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(JamListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(JamEvent.Type type, MigrationStep step, long start, String message, Object payload) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long durationMillis = type == JamEvent.Type.STEP_STARTED ? 0 : System.currentTimeMillis() - start;
+        JamEvent event = new JamEvent(type, applicationDir, step, durationMillis, message, payload);
+        for (JamListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                // A broken listener must not fail the migration
+                Logger.warn("Event listener failed on " + event + ": " + e);
+                if (Logger.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
 
@@ -153,11 +610,15 @@ public class Jam {
     //
 
     /**
-     * Tinylog configuration. Must be done before first log out.
+     * Tinylog configuration. Must be done before first log out, later calls are ignored, e.g. when a migration
+     * plan creates a Jam for each application.
      * 
      * @param debugMode
      */
-    public void configureLogging(boolean debugMode) {
+    public static void configureLogging(boolean debugMode) {
+        if (Configuration.isFrozen()) {
+            return;
+        }
         Configuration.set("writer", "console");
         // Configuration.set("writer.format", "{date} [{thread}] {class}.{method}() {level}: {message}");
         Configuration.set("writer.format", "{level}: {message}");
@@ -170,7 +631,10 @@ public class Jam {
 
     /**
      * Initialize the auto migration objects. 
-     * This will involve understanding the build tool, unzipping the bundle, and creating an application object.
+     * Only the build tool type is determined here. The build tool, the unzipped bundle, the application and the
+     * recipe automation are created on first use, as creating them runs the build tool, unzips the bundle and
+     * parses the build configuration. A failure to create one is thrown as a SubsystemInitializationException
+     * from the method that first needs it.
      * 
      * @param debugMode
      * @return a boolean indicating if initialization succeeded.
@@ -187,61 +651,83 @@ public class Jam {
             Logger.error("Unable to determine the build tool type. Exiting.");
             return false;
         }
+        sessionSpan.setAttribute("jam.build_tool", buildSysType.name());
 
         //
         // Create the BuildTool object
         //
-        buildTool = BuildToolFactory.getBuildTool(applicationDir, buildSysType);
-        if (!buildTool.backupBuildConfig()) {
-            // TODO: consider if this should be error here and return
-            Logger.warn("Unable to backup the build configuration");
-        }
+        buildTool = new Lazy<>(() -> {
+            BuildTool tool = Tracer.get().traced(BuildTool.class, BuildToolFactory.getBuildTool(applicationDir, buildSysType),
+                "jam.application", new File(applicationDir).getName(), "jam.build_tool", buildSysType.name());
+            if (!tool.backupBuildConfig()) {
+                // TODO: consider if this should be error here and return
+                Logger.warn("Unable to backup the build configuration");
+            }
+            return tool;
+        });
 
         //
         // Validate and unzip the bundle
         //
-        MigrationBundle bundle = new MigrationBundle(new File(migrationBundleZip));
-        try {
-            expandedBundle = bundle.validateAndUnzip();
-        } catch (InvalidBundleException ibe) {
-            Logger.error("Migration bundle is invalid. Exiting.");
-            return false;
-        }
+        expandedBundle = new Lazy<>(() -> {
+            MigrationBundle bundle = new MigrationBundle(new File(migrationBundleZip));
+            try {
+                return bundle.validateAndUnzip();
+            } catch (InvalidBundleException ibe) {
+                Logger.error("Migration bundle is invalid.");
+                throw new SubsystemInitializationException("Migration bundle is invalid");
+            }
+        });
 
         //
-        // Determine the type of application (maven/gradle), bail if its unknown
+        // Create Application object, determining the type of application (war/ear), bail if its unknown
         //
-        ApplicationType appType = buildTool.getPackagingType();
-        if (appType == ApplicationType.UNKNOWN) {
-            Logger.error("Unable to determine the application type. Exiting.");
-            return false;
-        }
-
-        //
-        // Create Application object
-        //
-        application = ApplicationFactory.getApplication(applicationDir, appType);
-
+        application = new Lazy<>(() -> {
+            ApplicationType appType = buildTool.get().getPackagingType();
+            if (appType == ApplicationType.UNKNOWN) {
+                Logger.error("Unable to determine the application type.");
+                throw new SubsystemInitializationException("Unable to determine the application type");
+            }
+            return ApplicationFactory.getApplication(applicationDir, appType);
+        });
 
         //
         // Create recipe automation object
         //
-        try {
-            recipeAutomation = RecipeAutomationFactory.getRecipeAutomation(expandedBundle, buildTool);
-        } catch (RecipeAutomationInitializationException re) {
-            Logger.error("RecipeAutomation could not be initialized.");
-            return false;
-        }    
+        recipeAutomation = new Lazy<>(() -> {
+            try {
+                return RecipeAutomationFactory.getRecipeAutomation(applicationDir, expandedBundle.get(), buildTool.get(), options);
+            } catch (RecipeAutomationInitializationException re) {
+                Logger.error("RecipeAutomation could not be initialized.");
+                throw new SubsystemInitializationException("RecipeAutomation could not be initialized");
+            }
+        });
+
+        compileClasspath = new Lazy<>(() -> new CompileClasspath(Path.of(applicationDir), buildTool.get()));
 
         return true;
     }
     
+    private static JamOptions debugOptions(boolean debugMode) {
+        JamOptions options = new JamOptions();
+        options.setDebugMode(debugMode);
+        return options;
+    }
+
     /**
-     * Call when finished with Jam to remove temporary files
+     * Call when finished with Jam to remove temporary files and release build tool connections
      */
     public void close () {
-        if (expandedBundle != null) {
-            expandedBundle.cleanUpExpandedBundle();
+        if (expandedBundle != null && expandedBundle.isInitialized()) {
+            expandedBundle.get().cleanUpExpandedBundle();
+        }
+        if (buildTool != null && buildTool.isInitialized()) {
+            buildTool.get().close();
+        }
+        sessionSpan.close();
+        Tracer.get().flush();
+        if (recording != null) {
+            recording.close();
         }
     }
 }
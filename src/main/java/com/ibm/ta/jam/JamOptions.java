@@ -0,0 +1,53 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Options that control how a Jam session runs. {@link Jam#Jam(String, String, boolean)} uses the defaults for all but debugMode.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class JamOptions {
+
+    /**
+     * Include debug information in the output
+     */
+    private boolean debugMode;
+
+    /**
+     * Run recipes with the OpenRewrite engine inside the JAM JVM, instead of forking a build of the rewrite plugin
+     */
+    private boolean inProcessRecipes;
+
+    /**
+     * Maximum number of modules of a multi-module Maven project to run recipes on concurrently. The default of 1 runs
+     * recipes over the whole reactor in a single build. More workers fork a Maven build per module, each outside the
+     * memory budget of the step, when no module depends on another module of the reactor.
+     */
+    private int recipeWorkers = 1;
+
+    /**
+     * File to append the result of each recipe run to as a JSON line, or null to not log recipe runs
+     */
+    private String recipeRunLog;
+
+    /**
+     * Only run the tests that reference the sources changed by recipes when a build runs tests
+     */
+    private boolean testImpact;
+
+    /**
+     * Directory to write a Java Flight Recorder recording of each session to, or null to not record sessions
+     */
+    private String flightRecordingDir;
+
+    /**
+     * Record the steps run on the application in a journal, and skip steps that completed in an earlier session
+     * and are still valid, see {@link StepJournal}
+     */
+    private boolean resume;
+}
@@ -0,0 +1,119 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import static com.ibm.ta.jam.MigrationStep.Resource.BUILD_CONFIG;
+import static com.ibm.ta.jam.MigrationStep.Resource.BUILD_OUTPUT;
+import static com.ibm.ta.jam.MigrationStep.Resource.LIBS;
+import static com.ibm.ta.jam.MigrationStep.Resource.SOURCES;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Steps of migrating an application. Each step declares the parts of the application it reads and writes, so
+ * {@link Jam#runSteps} can run steps that do not touch the same parts concurrently. Steps that do are run in the
+ * order they are declared here, e.g. the Liberty plugin is added before dependencies, as Maven dependencies are
+ * added to the plugin's copyDependencies.
+ */
+public enum MigrationStep {
+    BUILD("build", true, EnumSet.of(BUILD_CONFIG, SOURCES, LIBS, Resource.SERVER_CONFIG), EnumSet.of(BUILD_OUTPUT)),
+    LIBERTY_PLUGIN("liberty-plugin", false, EnumSet.of(BUILD_CONFIG), EnumSet.of(BUILD_CONFIG)),
+    SERVER_CONFIG("server-config", false, EnumSet.noneOf(Resource.class), EnumSet.of(Resource.SERVER_CONFIG)),
+    DEPENDENCIES("dependencies", false, EnumSet.of(BUILD_CONFIG), EnumSet.of(BUILD_CONFIG, LIBS)),
+    // Forked recipe runs compile the application, in-process runs resolve its classpath, which includes the libs.
+    // Recipes change sources, XML files and resources and the pom.xml, but not the server.xml JAM adds, so the
+    // server config step can run during the recipe run. The dependencies step edits the build config recipes read
+    // and change, so it always runs first.
+    RECIPES("recipes", true, EnumSet.of(BUILD_CONFIG, SOURCES, LIBS), EnumSet.of(SOURCES, BUILD_OUTPUT, BUILD_CONFIG)),
+    // Resolving the classpath runs the build tool
+    COMPILE("compile", true, EnumSet.of(BUILD_CONFIG, SOURCES, BUILD_OUTPUT), EnumSet.of(BUILD_OUTPUT)),
+    // Runs until it is stopped, so it is always the last step
+    DEV_MODE("dev-mode", true, EnumSet.allOf(Resource.class), EnumSet.of(BUILD_OUTPUT));
+
+    /**
+     * Parts of the application that steps read and write
+     */
+    public enum Resource {
+        /**
+         * pom.xml or Gradle build scripts
+         */
+        BUILD_CONFIG,
+        /**
+         * Java sources, resources and other files of the application
+         */
+        SOURCES,
+        /**
+         * Library files copied into the application
+         */
+        LIBS,
+        /**
+         * Liberty server.xml
+         */
+        SERVER_CONFIG,
+        /**
+         * Build directories, e.g. target or build
+         */
+        BUILD_OUTPUT
+    }
+
+    private final String name;
+
+    private final boolean build;
+
+    private final Set<Resource> reads;
+
+    private final Set<Resource> writes;
+
+    MigrationStep(String name, boolean build, Set<Resource> reads, Set<Resource> writes) {
+        this.name = name;
+        this.build = build;
+        this.reads = Collections.unmodifiableSet(reads);
+        this.writes = Collections.unmodifiableSet(writes);
+    }
+
+    /**
+     * Name of the step in a migration plan
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * True if the step runs the build tool or a build-sized workload, false if it only changes files
+     */
+    public boolean isBuild() {
+        return build;
+    }
+
+    public Set<Resource> getReads() {
+        return reads;
+    }
+
+    public Set<Resource> getWrites() {
+        return writes;
+    }
+
+    /**
+     * True if this step and the other step cannot run at the same time, because one writes a part of the
+     * application the other reads or writes
+     */
+    public boolean conflictsWith(MigrationStep other) {
+        return !Collections.disjoint(writes, other.reads) || !Collections.disjoint(writes, other.writes)
+            || !Collections.disjoint(reads, other.writes);
+    }
+
+    /**
+     * Get the step with the given name in a migration plan
+     * @param name name of the step, e.g. server-config
+     * @return the step, or null if there is no step with the name
+     */
+    public static MigrationStep fromName(String name) {
+        for (MigrationStep step : values()) {
+            if (step.name.equalsIgnoreCase(name)) {
+                return step;
+            }
+        }
+        return null;
+    }
+}
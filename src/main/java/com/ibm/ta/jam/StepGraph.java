@@ -0,0 +1,109 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import org.tinylog.Logger;
+
+/**
+ * Migration steps to run, ordered by the parts of the application they read and write. A step depends on every step
+ * declared before it in {@link MigrationStep} that it conflicts with, so it starts once they have finished, and steps
+ * with no dependency between them run at the same time.
+ */
+public class StepGraph {
+
+    /**
+     * Outcome of a step
+     */
+    public enum Status {
+        SUCCEEDED,
+        FAILED,
+        /**
+         * Not run because a step it depends on did not succeed
+         */
+        SKIPPED
+    }
+
+    private final Map<MigrationStep, Set<MigrationStep>> dependencies = new EnumMap<>(MigrationStep.class);
+
+    /**
+     * Create the StepGraph
+     * @param steps the steps to run, in any order
+     */
+    public StepGraph(Collection<MigrationStep> steps) {
+        // EnumSet iterates in declaration order, so dependencies are always declared before the steps that need them
+        List<MigrationStep> ordered = new ArrayList<>(steps.isEmpty() ? EnumSet.noneOf(MigrationStep.class) : EnumSet.copyOf(steps));
+        for (int i = 0; i < ordered.size(); i++) {
+            Set<MigrationStep> stepDependencies = EnumSet.noneOf(MigrationStep.class);
+            for (int j = 0; j < i; j++) {
+                if (ordered.get(i).conflictsWith(ordered.get(j))) {
+                    stepDependencies.add(ordered.get(j));
+                }
+            }
+            dependencies.put(ordered.get(i), stepDependencies);
+        }
+    }
+
+    /**
+     * Get the steps that must finish before the given step starts
+     */
+    public Set<MigrationStep> getDependencies(MigrationStep step) {
+        return Collections.unmodifiableSet(dependencies.getOrDefault(step, EnumSet.noneOf(MigrationStep.class)));
+    }
+
+    /**
+     * Run the steps, each as soon as the steps it depends on have succeeded. A step that fails or throws is FAILED,
+     * and the steps that depend on it are SKIPPED.
+     * @param action runs a step, returning true if it succeeded
+     * @param executor runs the steps, it needs a thread for each step that can run at the same time
+     * @return the status of each step, in step order
+     */
+    public Map<MigrationStep, Status> run(Predicate<MigrationStep> action, Executor executor) {
+        Map<MigrationStep, CompletableFuture<Status>> futures = new EnumMap<>(MigrationStep.class);
+        for (Map.Entry<MigrationStep, Set<MigrationStep>> entry : dependencies.entrySet()) {
+            MigrationStep step = entry.getKey();
+            List<CompletableFuture<Status>> stepDependencies = new ArrayList<>();
+            for (MigrationStep dependency : entry.getValue()) {
+                stepDependencies.add(futures.get(dependency));
+            }
+            CompletableFuture<Status> future = CompletableFuture.allOf(stepDependencies.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    if (stepDependencies.stream().anyMatch(dependency -> dependency.join() != Status.SUCCEEDED)) {
+                        Logger.warn("Skipping step " + step.getName() + " as a step it depends on did not succeed");
+                        return Status.SKIPPED;
+                    }
+                    return runStep(step, action);
+                }, executor);
+            futures.put(step, future);
+        }
+
+        Map<MigrationStep, Status> statuses = new EnumMap<>(MigrationStep.class);
+        for (Map.Entry<MigrationStep, CompletableFuture<Status>> entry : futures.entrySet()) {
+            statuses.put(entry.getKey(), entry.getValue().join());
+        }
+        return statuses;
+    }
+
+    private static Status runStep(MigrationStep step, Predicate<MigrationStep> action) {
+        Logger.info("Running step " + step.getName());
+        try {
+            return action.test(step) ? Status.SUCCEEDED : Status.FAILED;
+        } catch (RuntimeException e) {
+            Logger.error("Step " + step.getName() + " failed: " + e);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return Status.FAILED;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.ta.jam.utils.MavenCoords;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Answers the migration steps need, gathered before the steps run so they can run without prompting
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class StepInputs {
+
+    /**
+     * Skip tests in the build step
+     */
+    private boolean skipTests = true;
+
+    /**
+     * Recipes to run, or null to run all recipes in the migration bundle
+     */
+    private List<String> recipes;
+
+    /**
+     * Writer for a diff of the changes recipes would make, or null to run the recipes on the application
+     */
+    private Writer dryRunPatch;
+
+    /**
+     * Maven coordinates of the dependencies to add
+     */
+    private List<MavenCoords> remoteDependencies = new ArrayList<>();
+
+    /**
+     * Paths of the local dependency files to add
+     */
+    private List<String> localDependencies = new ArrayList<>();
+}
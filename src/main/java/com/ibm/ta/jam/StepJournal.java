@@ -0,0 +1,506 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.Yaml;
+
+import com.ibm.ta.jam.MigrationStep.Resource;
+import com.ibm.ta.jam.app.Application;
+import com.ibm.ta.jam.utils.IOUtils;
+import com.ibm.ta.jam.utils.JamUtils;
+import com.ibm.ta.jam.utils.JsonUtils;
+import com.ibm.ta.jam.utils.MavenCoords;
+import com.ibm.ta.jam.utils.SourceSnapshot;
+
+/**
+ * Durable journal of the migration steps run on an application, so a later session can resume from the first step
+ * that did not complete or whose inputs changed. Each step is recorded when it starts and when it completes, as JSON
+ * lines in a file per application in the JAM cache directory.
+ * <p>
+ * A started step records a fingerprint of the parts of the application it reads and writes as they were before it
+ * ran, and a completed step records them as they were when it completed, with a fingerprint of its inputs, e.g. the
+ * recipes it ran. A step is still complete in a later session if its inputs are the same, those parts of the
+ * application are as it left them or were only changed by the steps journaled after it, and no step before it that
+ * it conflicts with has started since, see {@link MigrationStep#conflictsWith}. Build output is not fingerprinted,
+ * as builds recreate it. A completed step also records the files it changed, so a later session that skips it can
+ * still check and test those changes.
+ * <p>
+ * Only the last run of each step is kept, a step that starts again replaces the records of its earlier runs, so the
+ * journal does not grow with the number of sessions. The fingerprints an earlier run left are moved to the record
+ * before it, so the steps journaled before and after it still chain. The application is fingerprinted at every step boundary, each
+ * snapshot reusing the hashes of the one before for the files that were not modified since.
+ */
+public class StepJournal {
+
+    private static final String JOURNAL_DIR_NAME = "journals";
+
+    private static final String STEP = "step";
+    private static final String STATE = "state";
+    private static final String INPUTS = "inputs";
+    private static final String RESOURCES = "resources";
+    private static final String CHANGED_FILES = "changedFiles";
+    private static final String TIME = "time";
+    private static final String APPLICATION_DIR = "applicationDir";
+    private static final String STARTED = "started";
+    private static final String COMPLETED = "completed";
+
+    private static final String TEMP_EXTN = ".tmp";
+
+    private static final Set<String> BUILD_CONFIG_FILES = Set.of("pom.xml", "build.gradle", "build.gradle.kts",
+        "settings.gradle", "settings.gradle.kts", "gradle.properties");
+
+    /**
+     * Backups of the build configuration made by JAM, see {@link IOUtils#backupFile}
+     */
+    private static final Pattern BACKUP_FILE = Pattern.compile(".*\\.bak\\.\\d+");
+
+    private static final String SERVER_XML = Application.RELATIVE_SERVER_XML_LOCATION.replace(File.separatorChar, '/');
+
+    private static final String LIB_DIR = Application.RELATIVE_LIB_DIR.replace(File.separatorChar, '/') + "/";
+
+    /**
+     * A line of the journal
+     */
+    private static class Record {
+        private final MigrationStep step;
+        private final boolean completed;
+        private final String inputs;
+        private final Map<Resource, String> resources;
+        private final List<String> changedFiles;
+
+        private String time = Instant.now().toString();
+
+        private Record(MigrationStep step, boolean completed, String inputs, Map<Resource, String> resources, List<String> changedFiles) {
+            this.step = step;
+            this.completed = completed;
+            this.inputs = inputs;
+            this.resources = resources;
+            this.changedFiles = changedFiles;
+        }
+    }
+
+    private final Path applicationDir;
+
+    private final Path file;
+
+    /**
+     * Records in the order they were written
+     */
+    private final List<Record> records = new ArrayList<>();
+
+    /**
+     * Snapshot of the application at the last step boundary, the next snapshot only hashes files modified since
+     */
+    private SourceSnapshot lastSnapshot;
+
+    /**
+     * Open the journal of an application in the JAM cache directory
+     * @param applicationDir the application directory
+     */
+    public StepJournal(String applicationDir) {
+        this(Path.of(applicationDir), journalFile(Path.of(applicationDir)));
+    }
+
+    /**
+     * Open a journal, reading the records already in the file
+     * @param applicationDir the application directory
+     * @param file the journal file
+     */
+    StepJournal(Path applicationDir, Path file) {
+        this.applicationDir = applicationDir.toAbsolutePath().normalize();
+        this.file = file;
+        load();
+    }
+
+    private static Path journalFile(Path applicationDir) {
+        String key = IOUtils.sha256(applicationDir.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        return JamUtils.getCacheDir().toPath().resolve(JOURNAL_DIR_NAME).resolve(key + ".jsonl");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Logger.warn("Unable to read step journal " + file + ", running all steps");
+            return;
+        }
+        Yaml yaml = new Yaml();
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Map<String, Object> values = yaml.load(line);
+                MigrationStep step = MigrationStep.fromName((String)values.get(STEP));
+                if (step == null) {
+                    continue;
+                }
+                Map<Resource, String> resources = new EnumMap<>(Resource.class);
+                Map<String, Object> resourceValues = (Map<String, Object>)values.get(RESOURCES);
+                if (resourceValues != null) {
+                    resourceValues.forEach((resource, hash) -> resources.put(Resource.valueOf(resource), (String)hash));
+                }
+                List<String> changedFiles = (List<String>)values.get(CHANGED_FILES);
+                Record record = new Record(step, COMPLETED.equals(values.get(STATE)), (String)values.get(INPUTS), resources,
+                    changedFiles != null ? changedFiles : Collections.emptyList());
+                if (values.get(TIME) != null) {
+                    record.time = values.get(TIME).toString();
+                }
+                records.add(record);
+            } catch (RuntimeException e) {
+                // A line cut short by a crash, the step it records is treated as incomplete
+                Logger.warn("Ignoring unreadable line in step journal " + file);
+            }
+        }
+    }
+
+    /**
+     * Check if a step completed in an earlier session and is still valid
+     * @param step the step
+     * @param inputs fingerprint of the step inputs, from {@link #fingerprintInputs}
+     * @param resources fingerprints of the parts of the application the step reads and writes, from {@link #fingerprintResources}
+     * @return true if the step does not need to run again
+     */
+    public synchronized boolean isComplete(MigrationStep step, String inputs, Map<Resource, String> resources) {
+        int index = lastIndexOf(step);
+        if (index < 0 || !records.get(index).completed || !records.get(index).inputs.equals(inputs)) {
+            return false;
+        }
+        for (int i = index + 1; i < records.size(); i++) {
+            MigrationStep later = records.get(i).step;
+            if (later.ordinal() < step.ordinal() && later.conflictsWith(step)) {
+                // A step this one depends on has run again since
+                return false;
+            }
+        }
+        for (Map.Entry<Resource, String> resource : resources.entrySet()) {
+            if (!resource.getValue().equals(expectedFingerprint(index, resource.getKey()))) {
+                // Changed outside the steps in the journal, or by a step that did not complete
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lastIndexOf(MigrationStep step) {
+        for (int i = records.size() - 1; i >= 0; i--) {
+            if (records.get(i).step == step) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the fingerprint a part of the application should have if it was only changed by the steps journaled after
+     * a completed step. Starting from the step's own record, each later step must have started from the fingerprint
+     * the step before it left, and its completion gives the next fingerprint.
+     * @param index index of the completed record of the step
+     * @param resource the part of the application
+     * @return the fingerprint, or null if the part was changed outside the journaled steps
+     */
+    private String expectedFingerprint(int index, Resource resource) {
+        String expected = records.get(index).resources.get(resource);
+        for (int i = index + 1; i < records.size() && expected != null; i++) {
+            Record later = records.get(i);
+            String fingerprint = later.resources.get(resource);
+            if (fingerprint == null) {
+                continue;
+            }
+            if (later.completed) {
+                expected = fingerprint;
+            } else if (!fingerprint.equals(expected)) {
+                return null;
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Get the files changed by the last completed run of a step
+     * @param step the step
+     * @return absolute paths of the changed files, empty if the step has not completed or changed no files
+     */
+    public synchronized List<Path> getChangedFiles(MigrationStep step) {
+        int index = lastIndexOf(step);
+        if (index < 0 || !records.get(index).completed) {
+            return Collections.emptyList();
+        }
+        List<Path> changedFiles = new ArrayList<>();
+        for (String changedFile : records.get(index).changedFiles) {
+            changedFiles.add(applicationDir.resolve(changedFile));
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Record that a step started, it is incomplete until it is recorded as completed
+     * @param step the step
+     * @param resources fingerprints of the parts of the application the step reads and writes, before it runs
+     */
+    public synchronized void started(MigrationStep step, Map<Resource, String> resources) {
+        append(new Record(step, false, null, new EnumMap<>(resources), Collections.emptyList()));
+    }
+
+    /**
+     * Record that a step completed
+     * @param step the step
+     * @param inputs fingerprint of the step inputs
+     * @param resources fingerprints of the parts of the application the step reads and writes, after it ran
+     * @param changedFiles absolute paths of the files the step changed
+     */
+    public synchronized void completed(MigrationStep step, String inputs, Map<Resource, String> resources, Collection<Path> changedFiles) {
+        List<String> relativePaths = new ArrayList<>();
+        for (Path changedFile : changedFiles) {
+            Path path = changedFile.toAbsolutePath().normalize();
+            relativePaths.add((path.startsWith(applicationDir) ? applicationDir.relativize(path) : path).toString().replace(File.separatorChar, '/'));
+        }
+        append(new Record(step, true, inputs, new EnumMap<>(resources), relativePaths));
+    }
+
+    /**
+     * Add a record and write the journal. A started record replaces the records of the earlier runs of its step.
+     */
+    private void append(Record record) {
+        if (!record.completed) {
+            compact(record.step);
+        }
+        records.add(record);
+        write();
+    }
+
+    /**
+     * Remove the records of the earlier runs of a step that is starting again. A run that cannot be folded into the
+     * records before it is kept, with the runs after it.
+     */
+    private void compact(MigrationStep step) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).step == step) {
+                if (!fold(i)) {
+                    return;
+                }
+                records.remove(i--);
+            }
+        }
+    }
+
+    /**
+     * Fold a record into the records before it, so that without it every step still gets the same expected
+     * fingerprints, see {@link #expectedFingerprint}. A started record is redundant when the record before it left the
+     * fingerprints it started from. A completed record moves its fingerprints to the completed record before it, the
+     * fingerprints a chain through either record had after it.
+     * @param index index of the record
+     * @return true if the record can be removed, false if the application changed outside the journaled steps before
+     * it started or a step was running when it completed
+     */
+    private boolean fold(int index) {
+        Record record = records.get(index);
+        Map<Resource, Record> previousRecords = new EnumMap<>(Resource.class);
+        for (Map.Entry<Resource, String> resource : record.resources.entrySet()) {
+            Record previous = null;
+            for (int i = index - 1; i >= 0 && previous == null; i--) {
+                if (records.get(i).resources.containsKey(resource.getKey())) {
+                    previous = records.get(i);
+                }
+            }
+            if (previous == null) {
+                // No chain reaches the record
+                continue;
+            }
+            if (record.completed ? !previous.completed : !resource.getValue().equals(previous.resources.get(resource.getKey()))) {
+                return false;
+            }
+            previousRecords.put(resource.getKey(), previous);
+        }
+        if (record.completed) {
+            previousRecords.forEach((resource, previous) -> previous.resources.put(resource, record.resources.get(resource)));
+        }
+        return true;
+    }
+
+    private String toJson(Record record) {
+        StringBuilder json = new StringBuilder("{\"").append(STEP).append("\":").append(JsonUtils.quote(record.step.getName()))
+            .append(",\"").append(STATE).append("\":").append(JsonUtils.quote(record.completed ? COMPLETED : STARTED))
+            .append(",\"").append(TIME).append("\":").append(JsonUtils.quote(record.time))
+            .append(",\"").append(APPLICATION_DIR).append("\":").append(JsonUtils.quote(applicationDir.toString()));
+        if (record.completed) {
+            json.append(",\"").append(INPUTS).append("\":").append(JsonUtils.quote(record.inputs));
+        }
+        json.append(",\"").append(RESOURCES).append("\":{");
+        boolean first = true;
+        for (Map.Entry<Resource, String> resource : record.resources.entrySet()) {
+            json.append(first ? "" : ",").append(JsonUtils.quote(resource.getKey().name())).append(':').append(JsonUtils.quote(resource.getValue()));
+            first = false;
+        }
+        json.append('}');
+        if (record.completed) {
+            json.append(",\"").append(CHANGED_FILES).append("\":").append(JsonUtils.array(record.changedFiles));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Write all records to the journal file, replacing it so a crash never leaves a partly written journal
+     */
+    private void write() {
+        Path tempFile = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMP_EXTN);
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Record record : records) {
+                    writer.write(toJson(record));
+                    writer.write(System.lineSeparator());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.warn("Unable to write step journal " + file + ", a later session will run this step again");
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException deleteException) {
+                    Logger.debug("Unable to delete " + tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the parts of the application whose fingerprints tell if a step is still valid
+     */
+    public static Set<Resource> getFingerprintedResources(MigrationStep step) {
+        Set<Resource> resources = EnumSet.noneOf(Resource.class);
+        resources.addAll(step.getReads());
+        resources.addAll(step.getWrites());
+        resources.remove(Resource.BUILD_OUTPUT);
+        return resources;
+    }
+
+    /**
+     * Compute a fingerprint of each part of the application at a step boundary. Only the files modified since the
+     * last step boundary are hashed again.
+     * @param resources the parts of the application to fingerprint
+     * @return the fingerprint of each part
+     * @throws IOException if a file cannot be read
+     */
+    public synchronized Map<Resource, String> fingerprintResources(Set<Resource> resources) throws IOException {
+        if (resources.isEmpty()) {
+            return new EnumMap<>(Resource.class);
+        }
+        lastSnapshot = SourceSnapshot.take(applicationDir, lastSnapshot);
+        return fingerprintResources(lastSnapshot, resources);
+    }
+
+    /**
+     * Compute a fingerprint of each part of the application, from the content of its files. Files are classified
+     * as the build configuration, the Liberty server.xml, the Liberty libs, or otherwise sources.
+     * @param applicationDir the application directory
+     * @param resources the parts of the application to fingerprint
+     * @return the fingerprint of each part
+     * @throws IOException if a file cannot be read
+     */
+    public static Map<Resource, String> fingerprintResources(Path applicationDir, Set<Resource> resources) throws IOException {
+        if (resources.isEmpty()) {
+            return new EnumMap<>(Resource.class);
+        }
+        return fingerprintResources(SourceSnapshot.take(applicationDir), resources);
+    }
+
+    private static Map<Resource, String> fingerprintResources(SourceSnapshot snapshot, Set<Resource> resources) {
+        Map<Resource, String> fingerprints = new EnumMap<>(Resource.class);
+        Map<Resource, StringBuilder> contents = new EnumMap<>(Resource.class);
+        for (Resource resource : resources) {
+            contents.put(resource, new StringBuilder());
+        }
+        // Sorted so the fingerprint does not depend on the order files are found in
+        for (Map.Entry<Path, String> file : new TreeMap<>(snapshot.getHashes()).entrySet()) {
+            String path = file.getKey().toString().replace(File.separatorChar, '/');
+            if (BACKUP_FILE.matcher(path).matches()) {
+                continue;
+            }
+            StringBuilder content = contents.get(classify(path));
+            if (content != null) {
+                content.append(path).append('\u0000').append(file.getValue()).append('\n');
+            }
+        }
+        contents.forEach((resource, content) -> fingerprints.put(resource, IOUtils.sha256(content.toString().getBytes(StandardCharsets.UTF_8))));
+        return fingerprints;
+    }
+
+    private static Resource classify(String path) {
+        if (path.equals(SERVER_XML)) {
+            return Resource.SERVER_CONFIG;
+        }
+        if (path.startsWith(LIB_DIR)) {
+            return Resource.LIBS;
+        }
+        if (BUILD_CONFIG_FILES.contains(path.substring(path.lastIndexOf('/') + 1))) {
+            return Resource.BUILD_CONFIG;
+        }
+        return Resource.SOURCES;
+    }
+
+    /**
+     * Compute a fingerprint of the inputs of a step, other than the application itself
+     * @param step the step
+     * @param inputs the answers the step runs with
+     * @param bundleHash hash of the migration bundle, which the server.xml, dependencies and recipes come from
+     * @return the fingerprint
+     * @throws IOException if a local dependency cannot be read
+     */
+    public static String fingerprintInputs(MigrationStep step, StepInputs inputs, String bundleHash) throws IOException {
+        StringBuilder fingerprint = new StringBuilder(step.getName()).append('\n');
+        switch (step) {
+            case BUILD:
+                fingerprint.append("skipTests=").append(inputs.isSkipTests()).append('\n');
+                break;
+            case SERVER_CONFIG:
+                fingerprint.append("bundle=").append(bundleHash).append('\n');
+                break;
+            case DEPENDENCIES:
+                for (MavenCoords coords : inputs.getRemoteDependencies()) {
+                    fingerprint.append("remote=").append(coords.getGroupId()).append(':').append(coords.getArtifactId())
+                        .append(':').append(coords.getVersion()).append('\n');
+                }
+                for (String dependency : inputs.getLocalDependencies()) {
+                    fingerprint.append("local=").append(dependency).append('=').append(IOUtils.sha256(Path.of(dependency))).append('\n');
+                }
+                break;
+            case RECIPES:
+                fingerprint.append("bundle=").append(bundleHash).append('\n')
+                    .append("recipes=").append(inputs.getRecipes() == null ? "all" : String.join(",", inputs.getRecipes())).append('\n');
+                break;
+            default:
+                break;
+        }
+        return IOUtils.sha256(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,12 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+/**
+ * Thrown on first use of a part of the auto migration, e.g. the migration bundle, that could not be initialized.
+ * Jam initializes these parts when they are first needed rather than when it is created.
+ */
+public class SubsystemInitializationException extends RuntimeException {
+    public SubsystemInitializationException(String statement){
+        super(statement);
+    }
+}
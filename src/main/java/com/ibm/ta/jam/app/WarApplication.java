@@ -8,6 +8,8 @@ import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.tinylog.Logger;
 
+import com.ibm.ta.jam.instrument.Phase;
+
 /**
  * Model of an Application that builds to a WAR archive
  */
@@ -100,13 +102,15 @@ public class WarApplication implements Application {
             String depName = new File(dep).getName();
             String newLocation = libDirPath + File.separator + depName;
 
-		    try {
+		    try (Phase phase = Phase.start(Phase.DEPENDENCY_COPY)) {
                 File newFile = new File(newLocation);
                 if (newFile.exists()) {
                     Logger.warn("File already exists, overwriting: " + newLocation);
                 }
 
                 FileUtils.copyFile(new File(dep), newFile);
+                phase.addBytes(newFile.length());
+                phase.result(true);
             } catch (IOException ioe) {
                 Logger.error("Error occurred copying library to new location: " + depName + " " + newLocation);
                 return false;
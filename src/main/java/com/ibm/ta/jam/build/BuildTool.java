@@ -1,9 +1,13 @@
 // (C) Copyright IBM Corp. 2024
 package com.ibm.ta.jam.build;
 
-
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
@@ -24,6 +28,8 @@ public interface BuildTool {
 	boolean runBasicBuild(boolean skipTests);
 
     boolean runBasicBuild();
+
+    boolean runBasicBuild(Collection<String> testClasses);
 	
 	boolean runLibertyDevMode();
 
@@ -31,9 +37,46 @@ public interface BuildTool {
 
     boolean addLibertyDevPlugin();
 
-    boolean runRecipesFromRewriteYaml(Map<String, Object> rewriteYaml, RewritePlugin rewritePlugin);
+    /**
+     * Run recipes with the rewrite plugin of the build tool
+     * @param affectedSources Java sources the recipes can change, relative to a source directory, or null if they can
+     * change any source. Other Java sources are excluded from the run so the plugin does not parse them.
+     */
+    boolean runRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources);
+
+    /**
+     * Run recipes, split into concurrent runs by module where the build tool supports it
+     * @param workers the maximum number of modules to run recipes on concurrently
+     */
+    default boolean runRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, int workers) {
+        return runRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources);
+    }
+
+    boolean dryRunRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, Writer patch);
 
     boolean addLocalDependencies(List<String> dependencyPaths);
 
     boolean addRemoteDependencies(List<MavenCoords> dependencyCoords);
+
+    List<Path> getSourceDirectories();
+
+    List<Path> getCompileClasspath();
+
+    /**
+     * Get the build configuration files the compile classpath is resolved from, e.g. the pom.xml of each module
+     */
+    List<Path> getBuildConfigurationFiles() throws IOException;
+
+    List<Path> getTestClassesDirectories();
+
+    List<Path> getClassesDirectories();
+
+    /**
+     * Get the duration of each task of the most recent build, for build tools that report them
+     * @return task path to duration in milliseconds, in order of completion, empty if no build has run or the build
+     * tool does not report its tasks
+     */
+    Map<String, Long> getLastBuildTaskDurations();
+
+    void close();
 }
@@ -0,0 +1,86 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.app.Application;
+import com.ibm.ta.jam.utils.IOUtils;
+
+/**
+ * Compile classpath of an application, resolved through the build tool and reused until the build configuration
+ * or the Liberty libs change. Resolving the classpath runs the build tool, so it is too slow to do for every recipe
+ * run or compile check, but adding dependencies to the application changes it.
+ */
+public class CompileClasspath {
+
+    private final Path applicationDir;
+
+    private final BuildTool buildTool;
+
+    /**
+     * Hash of the build configuration the classpath was resolved from
+     */
+    private String configurationHash;
+
+    private List<Path> classpath;
+
+    /**
+     * Create the CompileClasspath for an application
+     * @param applicationDir root directory of the application
+     * @param buildTool BuildTool object for the application
+     */
+    public CompileClasspath(Path applicationDir, BuildTool buildTool) {
+        this.applicationDir = applicationDir.toAbsolutePath().normalize();
+        this.buildTool = buildTool;
+    }
+
+    /**
+     * Get the compile classpath, resolving it again if the build configuration changed since it was last resolved.
+     * The same list is returned for as long as the classpath is reused.
+     * @return list of classpath entries
+     */
+    public synchronized List<Path> get() {
+        String hash = hashConfiguration();
+        if (classpath == null || hash == null || !hash.equals(configurationHash)) {
+            if (classpath != null) {
+                Logger.debug("Build configuration changed, resolving the compile classpath again");
+            }
+            classpath = buildTool.getCompileClasspath();
+            configurationHash = hash;
+        }
+        return classpath;
+    }
+
+    /**
+     * Hash the build configuration files by content and the Liberty libs by name, size and modification time
+     * @return the hash, or null if the files cannot be read
+     */
+    private String hashConfiguration() {
+        try {
+            StringBuilder libs = new StringBuilder(IOUtils.sha256(applicationDir, buildTool.getBuildConfigurationFiles())).append('\n');
+            Path libDir = applicationDir.resolve(Application.RELATIVE_LIB_DIR);
+            if (Files.isDirectory(libDir)) {
+                List<Path> libFiles;
+                try (Stream<Path> paths = Files.walk(libDir)) {
+                    libFiles = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path libFile : libFiles) {
+                    libs.append(libDir.relativize(libFile)).append('\u0000').append(Files.size(libFile))
+                        .append('\u0000').append(Files.getLastModifiedTime(libFile).toMillis()).append('\n');
+                }
+            }
+            return IOUtils.sha256(libs.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Logger.warn("Unable to hash the build configuration, resolving the compile classpath again: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Structured result of a Gradle build run through the Tooling API. Task level information is
+ * collected from the progress events published by Gradle while the build runs.
+ */
+@Getter
+@Setter(AccessLevel.PACKAGE)
+public class GradleBuildResult {
+
+    /**
+     * Tasks requested for the build
+     */
+    private List<String> tasks;
+
+    /**
+     * Whether the build completed successfully
+     */
+    private boolean successful;
+
+    /**
+     * Wall time of the whole build, from launch to completion, in milliseconds
+     */
+    private long totalTimeMillis;
+
+    /**
+     * Duration of each task that ran, keyed by task path, in order of completion
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> taskDurations = new LinkedHashMap<>();
+
+    private int upToDateCount;
+    private int fromCacheCount;
+    private int executedCount;
+    private int skippedCount;
+    private int failedCount;
+
+    /**
+     * Earliest project configuration start and latest project configuration end, in epoch millis
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long configurationStart = Long.MAX_VALUE;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long configurationEnd = Long.MIN_VALUE;
+
+    GradleBuildResult(List<String> tasks) {
+        this.tasks = tasks;
+    }
+
+    synchronized void recordTask(String taskPath, long durationMillis, boolean upToDate, boolean fromCache, boolean skipped, boolean failed) {
+        taskDurations.put(taskPath, durationMillis);
+        if (failed) {
+            failedCount++;
+        } else if (skipped) {
+            skippedCount++;
+        } else if (fromCache) {
+            fromCacheCount++;
+        } else if (upToDate) {
+            upToDateCount++;
+        } else {
+            executedCount++;
+        }
+    }
+
+    synchronized void recordProjectConfiguration(long startTime, long endTime) {
+        configurationStart = Math.min(configurationStart, startTime);
+        configurationEnd = Math.max(configurationEnd, endTime);
+    }
+
+    /**
+     * Get the duration of each task that ran
+     * @return an unmodifiable map of task path to duration in milliseconds
+     */
+    public synchronized Map<String, Long> getTaskDurations() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(taskDurations));
+    }
+
+    /**
+     * Get the time spent configuring projects before task execution started
+     * @return configuration time in milliseconds, 0 if no configuration events were received
+     */
+    public synchronized long getConfigurationTimeMillis() {
+        if (configurationEnd < configurationStart) {
+            return 0;
+        }
+        return configurationEnd - configurationStart;
+    }
+
+    /**
+     * Get the time spent outside project configuration, which is mostly task execution
+     * @return execution time in milliseconds
+     */
+    public long getExecutionTimeMillis() {
+        return Math.max(0, totalTimeMillis - getConfigurationTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return "Gradle build " + tasks + (successful ? " succeeded" : " failed")
+            + " in " + totalTimeMillis + "ms (configuration " + getConfigurationTimeMillis() + "ms"
+            + ", execution " + getExecutionTimeMillis() + "ms)"
+            + ", tasks executed=" + executedCount
+            + " up-to-date=" + upToDateCount
+            + " from-cache=" + fromCacheCount
+            + " skipped=" + skippedCount
+            + " failed=" + failedCount;
+    }
+}
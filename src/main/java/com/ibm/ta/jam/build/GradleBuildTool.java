@@ -3,145 +3,1024 @@ package com.ibm.ta.jam.build;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.apache.commons.io.FileUtils;
 import org.gradle.tooling.BuildLauncher;
+import org.gradle.tooling.CancellationTokenSource;
 import org.gradle.tooling.GradleConnectionException;
 import org.gradle.tooling.GradleConnector;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.ResultHandler;
+import org.gradle.tooling.events.OperationType;
+import org.gradle.tooling.events.ProgressEvent;
+import org.gradle.tooling.events.ProgressListener;
+import org.gradle.tooling.events.configuration.ProjectConfigurationFinishEvent;
+import org.gradle.tooling.events.configuration.ProjectConfigurationOperationResult;
+import org.gradle.tooling.events.task.TaskFailureResult;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.gradle.tooling.model.GradleProject;
+import org.gradle.tooling.model.GradleTask;
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.gradle.tooling.model.eclipse.EclipseExternalDependency;
+import org.gradle.tooling.model.eclipse.EclipseProject;
+import org.gradle.tooling.model.eclipse.EclipseSourceDirectory;
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.Yaml;
 
+import com.ibm.ta.jam.app.Application;
 import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
+import com.ibm.ta.jam.instrument.Phase;
+import com.ibm.ta.jam.plugin.GradleLibertyPlugin;
 import com.ibm.ta.jam.plugin.RewritePlugin;
+import com.ibm.ta.jam.recipe.RecipeAutomation;
+import com.ibm.ta.jam.recipe.RecipeScoping;
+import com.ibm.ta.jam.utils.IOUtils;
 import com.ibm.ta.jam.utils.MavenCoords;
 
+/**
+ * Model of the Gradle build tool for the Java application. This class handles all interactions
+ * with the build script, which may use the Groovy (build.gradle) or Kotlin (build.gradle.kts) DSL.
+ * Builds run through the Gradle Tooling API on a pooled connection {@link GradleConnectionPool}.
+ */
 public class GradleBuildTool implements BuildTool {
-    private String applicationDir;
 
-    public GradleBuildTool(String applicationDir) {
-        this.applicationDir = applicationDir;
-    }
-    @Override
-	public boolean backupBuildConfig() { return false; }
+	private static final String BUILD_GRADLE = "build.gradle";
+	private static final String BUILD_GRADLE_KTS = "build.gradle.kts";
+	private static final String SETTINGS_GRADLE = "settings.gradle";
+	private static final String SETTINGS_GRADLE_KTS = "settings.gradle.kts";
+	private static final String REWRITE_INIT_SCRIPT_NAME = "jam-rewrite.init.gradle";
+	private static final String TEST_FILTER_INIT_SCRIPT_NAME = "jam-test-filter.init.gradle";
+	private static final String REWRITE_RUN_TASK = "rewriteRun";
+	private static final String REWRITE_DRY_RUN_TASK = "rewriteDryRun";
+	private static final String REWRITE_PATCH_PATH = "build/reports/rewrite/rewrite.patch";
+	private static final String WAR_TASK = "war";
+	private static final String EAR_TASK = "ear";
+	private static final String CLASSES_DIR = "build/classes/java/main";
+	private static final String TEST_CLASSES_DIR = "build/classes/java/test";
+	private static final String TEST_TASK = "test";
+	private static final String TEST_FILTER_OPTION = "--tests";
 
+	/**
+	 * Directories that never contain build scripts, skipped when hashing the build scripts
+	 */
+	private static final List<String> BUILD_SCRIPT_IGNORED_DIRS = Arrays.asList("build", ".gradle", ".git", "src", "node_modules");
+
+	/**
+	 * Name of the task and configuration added to the build script to copy dependencies to the Liberty shared library directory
+	 */
+	private static final String JAM_COPY_LIBS_TASK = "jamCopyLibertyLibs";
+	private static final String JAM_LIBERTY_LIB_CONFIGURATION = "jamLibertyLib";
+
+	/**
+	 * Gradle command line options that take a value as the following argument
+	 */
+	private static final List<String> OPTIONS_WITH_VALUE = Arrays.asList("-x", "--exclude-task", "-I", "--init-script", "-p", "--project-dir");
+
+	private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+	private static final Pattern LINE_COMMENT = Pattern.compile("(?m)^\\s*//.*$");
+	private static final Pattern BUILDSCRIPT_BLOCK = Pattern.compile("(?m)^\\s*buildscript\\s*\\{[ \\t]*\\n?");
+	private static final Pattern INCLUDE_STATEMENT = Pattern.compile("(?m)^\\s*include\\s*[('\"]");
+	private static final Pattern LIBERTY_PLUGIN_APPLIED = Pattern.compile(
+		"apply\\s*\\(?\\s*plugin\\s*[:=]\\s*['\"]" + GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_SHORT_ID + "['\"]"
+		+ "|id\\s*\\(?\\s*['\"]" + Pattern.quote(GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_ID) + "['\"]");
+
+	private static final String JAM_COPY_LIBS_GROOVY =
+		"\n// Added by JAM: copy dependencies to the Liberty shared library directory\n" +
+		"configurations {\n" +
+		"    " + JAM_LIBERTY_LIB_CONFIGURATION + "\n" +
+		"}\n" +
+		"tasks.register('" + JAM_COPY_LIBS_TASK + "', Copy) {\n" +
+		"    from '%s'\n" +
+		"    from configurations." + JAM_LIBERTY_LIB_CONFIGURATION + "\n" +
+		"    into layout.buildDirectory.dir('" + GradleLibertyPlugin.LIBERTY_GLOBAL_LIB_DIR + "')\n" +
+		"}\n" +
+		"tasks.matching { it.name == 'libertyCreate' }.configureEach { finalizedBy '" + JAM_COPY_LIBS_TASK + "' }\n";
+	private static final String JAM_COPY_LIBS_KOTLIN =
+		"\n// Added by JAM: copy dependencies to the Liberty shared library directory\n" +
+		"val " + JAM_LIBERTY_LIB_CONFIGURATION + " by configurations.creating\n" +
+		"tasks.register<Copy>(\"" + JAM_COPY_LIBS_TASK + "\") {\n" +
+		"    from(\"%s\")\n" +
+		"    from(" + JAM_LIBERTY_LIB_CONFIGURATION + ")\n" +
+		"    into(layout.buildDirectory.dir(\"" + GradleLibertyPlugin.LIBERTY_GLOBAL_LIB_DIR + "\"))\n" +
+		"}\n" +
+		"tasks.matching { it.name == \"libertyCreate\" }.configureEach { finalizedBy(\"" + JAM_COPY_LIBS_TASK + "\") }\n";
+	private static final String DEPENDENCY_GROOVY = "    %s '%s:%s:%s'\n";
+	private static final String DEPENDENCY_KOTLIN = "    \"%s\"(\"%s:%s:%s\")\n";
+
+	/**
+	 * Init script used to run recipes without editing the build script. It applies the rewrite
+	 * plugin to the root project and points it at a rewrite.yml outside the application.
+	 */
+	private static final String REWRITE_INIT_SCRIPT =
+		"initscript {\n" +
+		"    repositories {\n" +
+		"        gradlePluginPortal()\n" +
+		"    }\n" +
+		"    dependencies {\n" +
+		"        classpath '%s:%s:%s'\n" +
+		"    }\n" +
+		"}\n" +
+		"rootProject {\n" +
+		"    apply plugin: org.openrewrite.gradle.RewritePlugin\n" +
+		"    repositories {\n" +
+		"        mavenCentral()\n" +
+		"    }\n" +
+		"    dependencies {\n" +
+		"        rewrite '%s:%s:%s'\n" +
+		"    }\n" +
+		"    rewrite {\n" +
+		"        activeRecipe('%s')\n" +
+		"        configFile = file('%s')\n" +
+		"%s" +
+		"    }\n" +
+		"}\n";
+
+	/**
+	 * Init script for test filtered builds. The test filter applies to the test task of every subproject, and most
+	 * subprojects have none of the selected tests, which fails the build by default.
+	 */
+	private static final String TEST_FILTER_INIT_SCRIPT =
+		"allprojects {\n" +
+		"    tasks.withType(Test).configureEach {\n" +
+		"        filter.failOnNoMatchingTests = false\n" +
+		"    }\n" +
+		"}\n";
+
+	/**
+	 * Root directory of the application this BuildTool is a part of
+	 */
+	private String applicationDir;
+
+	/**
+	 * Full path to the build script (build.gradle or build.gradle.kts)
+	 */
+	private String buildFile;
+
+	/**
+	 * Whether the build script uses the Kotlin DSL
+	 */
+	private boolean kotlinDsl;
+
+	/**
+	 * Version of Gradle used by the application, looked up once through the Tooling API
+	 */
+	private volatile String gradleVersion;
+
+	/**
+	 * Result of the most recent build, written by the thread that ran the build
+	 */
+	private volatile GradleBuildResult lastBuildResult;
+
+	/**
+	 * Whether this BuildTool has released its use of the pooled connection
+	 */
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * Create a GradleBuildTool object. Detects whether the build script uses the Groovy or Kotlin DSL.
+	 * @param applicationDir
+	 */
+	public GradleBuildTool(String applicationDir) {
+		this.applicationDir = applicationDir;
+		File kotlinBuildFile = new File(applicationDir, BUILD_GRADLE_KTS);
+		kotlinDsl = !new File(applicationDir, BUILD_GRADLE).exists() && kotlinBuildFile.exists();
+		buildFile = applicationDir + File.separator + (kotlinDsl ? BUILD_GRADLE_KTS : BUILD_GRADLE);
+		GradleConnectionPool.acquire(applicationDir);
+	}
+
+	/**
+	 * Backup the build configuration (build.gradle or build.gradle.kts)
+	 * @return a boolean indicating if the backup was successful or not
+	 */
+	@Override
+	public boolean backupBuildConfig() {
+		try {
+			String backupFile = IOUtils.backupFile(buildFile);
+			Logger.debug("Backed up file to: " + backupFile);
+			return true;
+		} catch (IOException ioe) {
+			Logger.error("IO exception when backing up the build config (" + new File(buildFile).getName() + ")");
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Return the current build tool type
+	 * @return a BuildToolType indicating a gradle build tool
+	 */
 	@Override
 	public BuildToolType getBuildToolType() {
 		return BuildToolType.GRADLE;
 	}
 
-    @Override
-	public ApplicationType getPackagingType() { return null; }
+	/**
+	 * Gets the full path to the build script
+	 * @return a String representing the full path to build.gradle or build.gradle.kts
+	 */
+	@Override
+	public String getBuildToolConfiguration() {
+		return buildFile;
+	}
+
+	/**
+	 * Get the packaging type of the application from the plugins applied in the build. The war and ear plugins are
+	 * detected from the tasks they add, through a Tooling API model query. The result is cached keyed by a hash of the
+	 * build scripts {@link GradlePackagingCache}, so later sessions on an unchanged application skip Gradle configuration.
+	 * @return ApplicationType representing the packaging type for the application. Returns UNKNOWN if not a recognised type.
+	 */
+	@Override
+	public ApplicationType getPackagingType() {
+		String buildScriptsHash = null;
+		try {
+			buildScriptsHash = IOUtils.sha256(Path.of(applicationDir), getBuildConfigurationFiles());
+			ApplicationType cachedType = GradlePackagingCache.get(buildScriptsHash);
+			if (cachedType != null) {
+				Logger.debug("Using cached packaging type " + cachedType + " for " + applicationDir);
+				return cachedType;
+			}
+		} catch (IOException ioe) {
+			Logger.warn("Unable to hash the build scripts, packaging type will not be cached");
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+		}
+
+		ApplicationType type;
+		try {
+			GradleProject project = GradleConnectionPool.getConnection(applicationDir).getModel(GradleProject.class);
+			type = getPackagingType(project);
+		} catch (GradleConnectionException | IllegalStateException e) {
+			Logger.error("Exception when getting packaging type from the Gradle build");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return ApplicationType.UNKNOWN;
+		}
+
+		if (buildScriptsHash != null && type != ApplicationType.UNKNOWN) {
+			GradlePackagingCache.put(buildScriptsHash, type);
+		}
+		return type;
+	}
+
+	/**
+	 * Get the packaging type of a project from the tasks added by the ear and war plugins. An ear anywhere in the
+	 * project hierarchy makes the application an EAR, otherwise a war in the root project or a subproject makes it a WAR.
+	 * @param project the Gradle project model
+	 * @return the packaging type, or UNKNOWN if neither plugin is applied
+	 */
+	private static ApplicationType getPackagingType(GradleProject project) {
+		boolean hasWar = false;
+		for (GradleTask task : project.getTasks()) {
+			if (EAR_TASK.equals(task.getName())) {
+				return ApplicationType.EAR;
+			} else if (WAR_TASK.equals(task.getName())) {
+				hasWar = true;
+			}
+		}
+		for (GradleProject child : project.getChildren()) {
+			ApplicationType childType = getPackagingType(child);
+			if (childType == ApplicationType.EAR) {
+				return ApplicationType.EAR;
+			} else if (childType == ApplicationType.WAR) {
+				hasWar = true;
+			}
+		}
+		return hasWar ? ApplicationType.WAR : ApplicationType.UNKNOWN;
+	}
+
+	/**
+	 * Get the build scripts and settings scripts of the application and its subprojects, in a stable order
+	 * @return the list of script files
+	 * @throws IOException if the application directory cannot be walked
+	 */
+	@Override
+	public List<Path> getBuildConfigurationFiles() throws IOException {
+		Path root = Path.of(applicationDir);
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths
+				.filter(path -> !isIgnoredForBuildScripts(root.relativize(path)))
+				.filter(path -> {
+					String name = path.getFileName().toString();
+					return Files.isRegularFile(path) && (name.endsWith(".gradle") || name.endsWith(".gradle.kts"));
+				})
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
 
-    @Override
+	private static boolean isIgnoredForBuildScripts(Path relativePath) {
+		for (Path part : relativePath) {
+			if (BUILD_SCRIPT_IGNORED_DIRS.contains(part.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs a basic gradle build ("clean build"). Skips tests by default.
+	 * @return a boolean indicating success or failure of the build
+	 */
+	@Override
 	public boolean runBasicBuild() {
-		List<String> args = Arrays.asList("clean", "build");
-      	return runBuild(args);
+		return runBasicBuild(true);
 	}
 
-    @Override
-    public boolean addLibertyDevPlugin() { return false; }
+	/**
+	 * Runs a basic gradle build ("clean build") with the migration build options {@link #getMigrationBuildArgs()}.
+	 * @param skipTests boolean indicating if the test should be skipped or not
+	 * @return a boolean indicating success or failure of the build
+	 */
+	@Override
+	public boolean runBasicBuild(boolean skipTests) {
+		List<String> args = new ArrayList<>(Arrays.asList("clean", "build"));
+		if (skipTests) {
+			args.addAll(Arrays.asList("-x", "test"));
+		}
+		args.addAll(getMigrationBuildArgs());
+		return runBuild(args);
+	}
 
+	/**
+	 * Runs a basic gradle build ("clean build") that only runs the given tests, through the test task filter.
+	 * Subprojects without any of the tests do not fail the build.
+	 * @param testClasses fully qualified names of the test classes to run
+	 * @return a boolean indicating success or failure of the build
+	 */
+	@Override
+	public boolean runBasicBuild(Collection<String> testClasses) {
+		File tempDir = null;
+		try {
+			tempDir = Files.createTempDirectory("jam-test-filter-").toFile();
+			File initScriptFile = new File(tempDir, TEST_FILTER_INIT_SCRIPT_NAME);
+			Files.writeString(initScriptFile.toPath(), TEST_FILTER_INIT_SCRIPT);
+
+			List<String> args = new ArrayList<>(Arrays.asList("clean", "build", TEST_TASK));
+			for (String testClass : testClasses) {
+				args.addAll(Arrays.asList(TEST_FILTER_OPTION, testClass));
+			}
+			args.addAll(Arrays.asList("--init-script", initScriptFile.getAbsolutePath()));
+			args.addAll(getMigrationBuildArgs());
+			return runBuild(args);
+		} catch (IOException e) {
+			Logger.error("Failed to create the test filter configuration for Gradle");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		} finally {
+			if (tempDir != null) {
+				FileUtils.deleteQuietly(tempDir);
+			}
+		}
+	}
+
+	/**
+	 * Get the options used for migration builds. Migration builds are repeated after each step, so they opt in
+	 * to the local build cache and the configuration cache, and to parallel execution for multi-project builds.
+	 * Options are only added when supported by the Gradle version of the application.
+	 * @return list of Gradle command line options
+	 */
+	List<String> getMigrationBuildArgs() {
+		List<String> args = new ArrayList<>();
+		if (isGradleVersionAtLeast(3, 5)) {
+			args.add("--build-cache");
+		}
+		if (isGradleVersionAtLeast(6, 6)) {
+			// Problems are reported but do not fail the build, as not all plugins support the configuration cache
+			args.add("--configuration-cache");
+			args.add("--configuration-cache-problems=warn");
+		}
+		if (isMultiProject()) {
+			args.add("--parallel");
+		}
+		return args;
+	}
+
+	/**
+	 * Runs the liberty dev mode. Will first check that the Liberty plugin has been added to the application.
+	 * Runs as an external process so that user input reaches dev mode.
+	 * @return a boolean indicating if the Liberty Dev mode ran sucessfully.
+	 */
 	@Override
 	public boolean runLibertyDevMode() {
-		// TODO implement this.
-		return false;
+		if (!hasLibertyDevPlugin()) {
+			Logger.error("Liberty Dev plugin is not installed, so Liberty Dev mode cannot be run.");
+			return false;
+		}
+		Logger.debug("Start gradle libertyDev as a process");
+		boolean isWindows = System.getProperty("os.name").toLowerCase().startsWith("windows");
+		boolean hasWrapper = new File(applicationDir, isWindows ? "gradlew.bat" : "gradlew").exists();
+
+		ProcessBuilder builder = new ProcessBuilder().inheritIO().directory(new File(applicationDir));
+		if (isWindows) {
+			builder.command("cmd.exe", "/c", (hasWrapper ? "gradlew.bat" : "gradle") + " libertyDev");
+		} else {
+			builder.command("sh", "-c", (hasWrapper ? "./gradlew" : "gradle") + " libertyDev");
+		}
+
+		try {
+			Process process = builder.start();
+			process.waitFor();
+		} catch (Exception e) {
+			Logger.warn("Exception was encountered when running gradle libertyDev");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		}
+		Logger.debug("Finish gradle libertyDev as a process");
+		return true;
 	}
 
+	/**
+	 * Run a Gradle build with the given tasks and options on the pooled connection for this application.
+	 * Completion is signalled by the Tooling API result handler, and task and project configuration
+	 * progress events are collected into a {@link GradleBuildResult}, available from {@link #getLastBuildResult()}.
+	 * @param buildArgs the tasks and options to run, e.g. "clean build -x test"
+	 * @return a boolean indicating success or failure of the build
+	 */
 	@Override
-	public boolean runBuild(List<String> tasks) {
-		ProjectConnection connection = GradleConnector.newConnector()
-    			.forProjectDirectory(new File(applicationDir))
-    			.connect();
-		
-		final BuildRunInfo buildRunInfo = new BuildRunInfo();
-		ResultHandler<Object> resultHandler = new ResultHandler<Object>() {
-			
+	public boolean runBuild(List<String> buildArgs) {
+		Logger.debug("Start runBuild for " + applicationDir + " with build args: " + buildArgs);
+		ProjectConnection connection;
+		try {
+			connection = GradleConnectionPool.getConnection(applicationDir);
+		} catch (IllegalStateException e) {
+			Logger.error("Unable to run Gradle build: " + e.getMessage());
+			return false;
+		}
+
+		// The Tooling API takes tasks and command line options separately
+		List<String> tasks = new ArrayList<>();
+		List<String> arguments = new ArrayList<>();
+		boolean optionValueExpected = false;
+		for (String arg : buildArgs) {
+			if (optionValueExpected || arg.startsWith("-")) {
+				arguments.add(arg);
+				optionValueExpected = OPTIONS_WITH_VALUE.contains(arg);
+			} else {
+				tasks.add(arg);
+			}
+		}
+
+		final GradleBuildResult buildResult = new GradleBuildResult(tasks);
+		final CompletableFuture<Boolean> completion = new CompletableFuture<>();
+		ResultHandler<Void> resultHandler = new ResultHandler<Void>() {
+
 			@Override
 			public void onFailure(GradleConnectionException failure) {
-				buildRunInfo.setFinished(true);
-				buildRunInfo.setSuccessful(false);
+				Logger.error("Gradle build failed: " + failure.getMessage());
+				if (Logger.isDebugEnabled()) {
+					failure.printStackTrace();
+				}
+				completion.complete(false);
 			}
-			
+
 			@Override
-			public void onComplete(Object result) {
-				buildRunInfo.setFinished(true);
-				buildRunInfo.setSuccessful(true);
+			public void onComplete(Void result) {
+				completion.complete(true);
 			}
 		};
-		
-		BuildLauncher buildLauncher = connection.newBuild().forTasks(tasks.toArray(new String[]{}));
-		buildLauncher.run(resultHandler);
-		
-		waitForBuild(buildRunInfo);
-		
-		return buildRunInfo.isSuccessful();
-	}
-	
-	synchronized void waitForBuild(final BuildRunInfo buildRunInfo) {
-		while (!buildRunInfo.isFinished()) {
+
+		CancellationTokenSource cancellation = GradleConnector.newCancellationTokenSource();
+		BuildLauncher buildLauncher = connection.newBuild()
+			.forTasks(tasks.toArray(new String[]{}))
+			.withArguments(arguments)
+			.withCancellationToken(cancellation.token())
+			.addProgressListener(new BuildProgressListener(buildResult),
+				EnumSet.of(OperationType.TASK, OperationType.PROJECT_CONFIGURATION));
+
+		long startTime = System.currentTimeMillis();
+		boolean successful;
+		try (Phase phase = Phase.start(Phase.GRADLE_INVOCATION)) {
+			buildLauncher.run(resultHandler);
 			try {
-				wait(100L);
+				successful = completion.get();
 			} catch (InterruptedException e) {
-				
+				Logger.warn("Interrupted while waiting for Gradle build, cancelling build");
+				cancellation.cancel();
+				Thread.currentThread().interrupt();
+				successful = false;
+			} catch (ExecutionException e) {
+				successful = false;
 			}
+			phase.result(successful);
+		}
+
+		buildResult.setSuccessful(successful);
+		buildResult.setTotalTimeMillis(System.currentTimeMillis() - startTime);
+		lastBuildResult = buildResult;
+		Logger.info(buildResult.toString());
+		if (Logger.isDebugEnabled()) {
+			buildResult.getTaskDurations().forEach((task, duration) -> Logger.debug("  " + task + ": " + duration + "ms"));
 		}
+
+		Logger.debug("Finish runBuild for " + applicationDir);
+		return successful;
+	}
+
+	/**
+	 * Get the result of the most recent build run by this build tool
+	 * @return the GradleBuildResult of the last build, or null if no build has run yet
+	 */
+	public GradleBuildResult getLastBuildResult() {
+		return lastBuildResult;
 	}
-	
-	class BuildRunInfo {
-		private boolean isFinished;
-		private boolean isSuccessful;
 
-		public boolean isFinished() {
-			return isFinished;
+	@Override
+	public Map<String, Long> getLastBuildTaskDurations() {
+		GradleBuildResult buildResult = lastBuildResult;
+		return buildResult != null ? buildResult.getTaskDurations() : Collections.emptyMap();
+	}
+
+	/**
+	 * Records task outcomes and project configuration times from Tooling API progress events
+	 */
+	private static class BuildProgressListener implements ProgressListener {
+		private final GradleBuildResult buildResult;
+
+		BuildProgressListener(GradleBuildResult buildResult) {
+			this.buildResult = buildResult;
 		}
 
-		public void setFinished(boolean isFinished) {
-			this.isFinished = isFinished;
+		@Override
+		public void statusChanged(ProgressEvent event) {
+			if (event instanceof TaskFinishEvent) {
+				TaskFinishEvent taskEvent = (TaskFinishEvent) event;
+				TaskOperationResult result = taskEvent.getResult();
+				boolean upToDate = false;
+				boolean fromCache = false;
+				if (result instanceof TaskSuccessResult) {
+					upToDate = ((TaskSuccessResult) result).isUpToDate();
+					fromCache = ((TaskSuccessResult) result).isFromCache();
+				}
+				buildResult.recordTask(taskEvent.getDescriptor().getTaskPath(),
+					result.getEndTime() - result.getStartTime(),
+					upToDate,
+					fromCache,
+					result instanceof TaskSkippedResult,
+					result instanceof TaskFailureResult);
+			} else if (event instanceof ProjectConfigurationFinishEvent) {
+				ProjectConfigurationOperationResult result = ((ProjectConfigurationFinishEvent) event).getResult();
+				buildResult.recordProjectConfiguration(result.getStartTime(), result.getEndTime());
+			}
 		}
+	}
 
-		public boolean isSuccessful() {
-			return isSuccessful;
+	/**
+	 * Check if the Liberty Dev plugin is applied in the build script, either through the plugins block or apply
+	 * @return a boolean indicating if the Liberty Dev plugin is already added
+	 */
+	@Override
+	public boolean hasLibertyDevPlugin() {
+		try {
+			return LIBERTY_PLUGIN_APPLIED.matcher(getBuildScriptWithoutComments()).find();
+		} catch (IOException ioe) {
+			Logger.error("IOException when reading " + buildFile);
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+			return false;
 		}
+	}
 
-		public void setSuccessful(boolean isSuccessful) {
-			this.isSuccessful = isSuccessful;
+	/**
+	 * Add the Liberty Dev plugin to build script. The plugin is added to the buildscript classpath, creating the
+	 * buildscript block if needed, and applied at the end of the script. Check first to see if its already added and does not re-add.
+	 * @return a boolean indicating if plugin was sucessfully added.
+	 */
+	@Override
+	public boolean addLibertyDevPlugin() {
+		Logger.debug("Start add liberty dev plugin to " + buildFile);
+		if (hasLibertyDevPlugin()) {
+			Logger.info(new File(buildFile).getName() + " already has liberty dev plugin");
+			return true;
 		}
+
+		Logger.info(new File(buildFile).getName() + " does not have liberty dev plugin. Adding now");
+		try {
+			String script = readBuildScript();
+			String classpath = String.format(kotlinDsl ? GradleLibertyPlugin.LIBERTY_PLUGIN_CLASSPATH_KOTLIN : GradleLibertyPlugin.LIBERTY_PLUGIN_CLASSPATH_GROOVY,
+				GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_GROUP_ID,
+				GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_ARTIFACT_ID,
+				GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_VERSION);
+
+			// The buildscript block must come first in the script, so add to the existing one when there is one
+			Matcher buildscript = BUILDSCRIPT_BLOCK.matcher(script);
+			if (buildscript.find()) {
+				script = script.substring(0, buildscript.end()) + classpath + script.substring(buildscript.end());
+			} else {
+				script = "buildscript {\n" + classpath + "}\n\n" + script;
+			}
+
+			if (!script.endsWith("\n")) {
+				script += "\n";
+			}
+			script += "\n" + String.format(kotlinDsl ? GradleLibertyPlugin.LIBERTY_PLUGIN_APPLY_KOTLIN : GradleLibertyPlugin.LIBERTY_PLUGIN_APPLY_GROOVY,
+				GradleLibertyPlugin.LIBERTY_GRADLE_PLUGIN_SHORT_ID);
+			writeBuildScript(script);
+		} catch (IOException ioe) {
+			Logger.debug("IO exception when adding plugin to " + buildFile);
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+			return false;
+		}
+
+		Logger.debug("Finish add liberty dev plugin to " + buildFile);
+		return true;
 	}
 
-    @Override
-    public boolean addLocalDependencies(List<String> dependencyPaths) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'addLocalDependencies'");
-    }
-    @Override
-    public boolean addRemoteDependencies(List<MavenCoords> dependencyCoords) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'addRemoteDependencies'");
-    }
+	/**
+	 * Add support for local dependencies to the build script. Adds a copy task that copies the jars in the application
+	 * lib directory (Application.RELATIVE_LIB_DIR) to the Liberty shared library directory when the Liberty server is created.
+	 * Dependency jar files must be copied to the correct location {@link com.ibm.ta.jam.app.Application#addLocalDependencies(List)}
+	 * @param dependencyPaths Not used right now in Gradle as the copy task copies the whole lib directory
+	 * @return a boolean indicating if the copy task was sucessfully added or not.
+	 */
 	@Override
-	public boolean hasLibertyDevPlugin() {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("Unimplemented method 'hasLibertyDevPlugin'");
+	public boolean addLocalDependencies(List<String> dependencyPaths) {
+		Logger.debug("Start adding local dependencies to " + buildFile);
+		try {
+			addCopyLibsTask();
+		} catch (IOException ioe) {
+			Logger.debug("IO exception when adding local dependencies to " + buildFile);
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+			return false;
+		}
+		Logger.debug("Finish adding local dependencies to " + buildFile);
+		return true;
 	}
+
+	/**
+	 * Add remote dependencies to the build script. The dependencies are added to the implementation configuration,
+	 * and to a configuration copied to the Liberty shared library directory so they are available in Liberty Dev Mode.
+	 * Dependencies already in the build script are not re-added.
+	 * @param dependencyCoords list of dependency maven coordinates to add as dependencies
+	 * @return boolean indicating if the adding of dependencies was successful or not.
+	 */
 	@Override
-	public String getBuildToolConfiguration() {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("Unimplemented method 'getBuildToolConfiguration'");
+	public boolean addRemoteDependencies(List<MavenCoords> dependencyCoords) {
+		Logger.debug("Start adding remote dependencies to " + buildFile);
+		try {
+			addCopyLibsTask();
+
+			String script = readBuildScript();
+			StringBuilder dependencies = new StringBuilder();
+			for (MavenCoords coords : dependencyCoords) {
+				if (script.contains(coords.getGroupId() + ":" + coords.getArtifactId() + ":")) {
+					Logger.warn("Dependency is already in " + new File(buildFile).getName() + ". Not adding now. " + coords.getArtifactId());
+					continue;
+				}
+				for (String configuration : Arrays.asList("implementation", JAM_LIBERTY_LIB_CONFIGURATION)) {
+					dependencies.append(String.format(kotlinDsl ? DEPENDENCY_KOTLIN : DEPENDENCY_GROOVY,
+						configuration, coords.getGroupId(), coords.getArtifactId(), coords.getVersion()));
+				}
+			}
+			if (dependencies.length() > 0) {
+				writeBuildScript(script + "\ndependencies {\n" + dependencies + "}\n");
+			}
+		} catch (IOException ioe) {
+			Logger.debug("IO exception when adding remote dependencies to " + buildFile);
+			if (Logger.isDebugEnabled()) {
+				ioe.printStackTrace();
+			}
+			return false;
+		}
+		Logger.debug("Finish adding remote dependencies to " + buildFile);
+		return true;
 	}
-	
+
+	/**
+	 * Using the build tool to run recipies from the rewriteYaml.
+	 * The rewrite plugin and the active recipe are injected through a generated init script, and the rewrite.yml is written
+	 * to a temporary location, so the build script and the application root are never modified.
+	 * @param rewriteYaml a Map representing the rewrite.yml from the migration bundle
+	 * @param rewritePlugin a RewritePlugin representing the GradleRewritePlugin. Used to retrive plugin details needed for the init script.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
+	 * @return a boolean indicating if the recipe running was successful
+	 */
 	@Override
-	public  boolean runRecipesFromRewriteYaml(Map<String, Object> rewriteYaml, RewritePlugin rewritePlugin) {
-		// TODO Auto-generated method stu
-		throw new UnsupportedOperationException("Unimplemented method 'runRecipesInExternal'");
+	public boolean runRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources) {
+		return runRewriteTask(rewriteYaml, rewritePlugin, affectedSources, REWRITE_RUN_TASK);
 	}
+
+	/**
+	 * Using the rewriteDryRun task to produce a patch of the changes the recipes would make, without modifying the
+	 * application sources. The task writes the patch to the root project build directory, which is streamed to the given writer.
+	 * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+	 * @param rewritePlugin a RewritePlugin representing the GradleRewritePlugin. Used to retrive plugin details needed for the init script.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
+	 * @param patch writer the unified diff is written to
+	 * @return a boolean indicating if the dry run was successful
+	 */
 	@Override
-	public boolean runBasicBuild(boolean skipTests) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("Unimplemented method 'runBasicBuild'");
+	public boolean dryRunRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, Writer patch) {
+		File patchFile = new File(applicationDir, REWRITE_PATCH_PATH);
+		// Remove a patch left by an earlier run, no patch is written when the recipes make no changes
+		FileUtils.deleteQuietly(patchFile);
+		if (!runRewriteTask(rewriteYaml, rewritePlugin, affectedSources, REWRITE_DRY_RUN_TASK)) {
+			return false;
+		}
+		if (!patchFile.exists()) {
+			return true;
+		}
+		try (Reader reader = Files.newBufferedReader(patchFile.toPath(), StandardCharsets.UTF_8)) {
+			reader.transferTo(patch);
+			return true;
+		} catch (IOException e) {
+			Logger.error("Failed to write the recipe patch");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		} finally {
+			FileUtils.deleteQuietly(patchFile);
+		}
+	}
+
+	/**
+	 * Run a task of the rewrite plugin, applied through a generated init script, with the recipes from the rewriteYaml.
+	 * Java sources the recipes cannot change are added to the plugin exclusions, so it does not parse them.
+	 */
+	private boolean runRewriteTask(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, String task) {
+		String rewriteYamlRecipeName = (String)rewriteYaml.get(0).get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
+
+		File tempDir = null;
+		try {
+			tempDir = Files.createTempDirectory("jam-rewrite-").toFile();
+			File rewriteYamlFile = new File(tempDir, RecipeAutomation.REWRITE_YAML_FILE_NAME);
+			try (Writer writer = Files.newBufferedWriter(rewriteYamlFile.toPath(), StandardCharsets.UTF_8)) {
+				new Yaml().dumpAll(rewriteYaml.iterator(), writer);
+			}
+
+			String initScript = String.format(REWRITE_INIT_SCRIPT,
+				rewritePlugin.getGroupId(),
+				rewritePlugin.getArtifactId(),
+				rewritePlugin.getVersion(),
+				rewritePlugin.getRewriteLibertyGroupId(),
+				rewritePlugin.getRewriteLibertyArtifactId(),
+				rewritePlugin.getRewriteLibertyVersion(),
+				rewriteYamlRecipeName,
+				toGradlePath(rewriteYamlFile),
+				toExclusions(RecipeScoping.getExclusions(Path.of(applicationDir), getSourceDirectories(), affectedSources)));
+			File initScriptFile = new File(tempDir, REWRITE_INIT_SCRIPT_NAME);
+			Files.writeString(initScriptFile.toPath(), initScript);
+
+			List<String> args = Arrays.asList(task, "--init-script", initScriptFile.getAbsolutePath());
+			return runBuild(args);
+		} catch (IOException e) {
+			Logger.error("Failed to create rewrite configuration for Gradle");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		} finally {
+			if (tempDir != null) {
+				FileUtils.deleteQuietly(tempDir);
+			}
+		}
+	}
+
+	/**
+	 * Get the Java source directories of the application and its subprojects from the Tooling API Eclipse model
+	 * @return list of existing source directories
+	 */
+	@Override
+	public List<Path> getSourceDirectories() {
+		List<Path> sourceDirs = new ArrayList<>();
+		EclipseProject project = getEclipseProject();
+		if (project != null) {
+			addSourceDirectories(project, sourceDirs);
+		}
+		return sourceDirs;
 	}
 
+	private static void addSourceDirectories(EclipseProject project, List<Path> sourceDirs) {
+		for (EclipseSourceDirectory sourceDir : project.getSourceDirectories()) {
+			Path dir = sourceDir.getDirectory().toPath();
+			if (Files.isDirectory(dir) && !sourceDirs.contains(dir)) {
+				sourceDirs.add(dir);
+			}
+		}
+		for (EclipseProject child : project.getChildren()) {
+			addSourceDirectories(child, sourceDirs);
+		}
+	}
+
+	/**
+	 * Get the compile classpath of the application and its subprojects from the Tooling API Eclipse model.
+	 * Compiled classes of each project are included when they exist.
+	 * @return list of classpath entries, empty if the model could not be built
+	 */
+	@Override
+	public List<Path> getCompileClasspath() {
+		Set<Path> classpath = new LinkedHashSet<>();
+		EclipseProject project = getEclipseProject();
+		if (project != null) {
+			addClasspath(project, classpath);
+		}
+		return new ArrayList<>(classpath);
+	}
+
+	/**
+	 * Get the compiled test class directories of the application and its subprojects
+	 * @return list of existing test class directories, empty if tests have not been compiled
+	 */
+	@Override
+	public List<Path> getTestClassesDirectories() {
+		return getClassesDirectories(TEST_CLASSES_DIR);
+	}
+
+	/**
+	 * Get the compiled main class directories of the application and its subprojects
+	 * @return list of existing class directories, empty if the application has not been compiled
+	 */
+	@Override
+	public List<Path> getClassesDirectories() {
+		return getClassesDirectories(CLASSES_DIR);
+	}
+
+	private List<Path> getClassesDirectories(String relativeDir) {
+		List<Path> classesDirs = new ArrayList<>();
+		EclipseProject project = getEclipseProject();
+		if (project != null) {
+			addClassesDirectories(project, relativeDir, classesDirs);
+		}
+		return classesDirs;
+	}
+
+	private static void addClassesDirectories(EclipseProject project, String relativeDir, List<Path> classesDirs) {
+		Path classesDir = project.getProjectDirectory().toPath().resolve(relativeDir);
+		if (Files.isDirectory(classesDir)) {
+			classesDirs.add(classesDir);
+		}
+		for (EclipseProject child : project.getChildren()) {
+			addClassesDirectories(child, relativeDir, classesDirs);
+		}
+	}
+
+	private static void addClasspath(EclipseProject project, Set<Path> classpath) {
+		for (EclipseExternalDependency dependency : project.getClasspath()) {
+			if (dependency.getFile() != null) {
+				classpath.add(dependency.getFile().toPath());
+			}
+		}
+		Path classesDir = project.getProjectDirectory().toPath().resolve(CLASSES_DIR);
+		if (Files.isDirectory(classesDir)) {
+			classpath.add(classesDir);
+		}
+		for (EclipseProject child : project.getChildren()) {
+			addClasspath(child, classpath);
+		}
+	}
+
+	private EclipseProject getEclipseProject() {
+		try {
+			return GradleConnectionPool.getConnection(applicationDir).getModel(EclipseProject.class);
+		} catch (GradleConnectionException | IllegalStateException e) {
+			Logger.error("Exception when getting the project model from the Gradle build");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Release the pooled Gradle connection for this application, it stays open while other sessions use it
+	 */
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true)) {
+			GradleConnectionPool.release(applicationDir);
+		}
+	}
+
+	/**
+	 * Add the task that copies local and remote dependencies to the Liberty shared library directory, if not already added
+	 * @throws IOException if the build script cannot be read or written
+	 */
+	private void addCopyLibsTask() throws IOException {
+		String script = readBuildScript();
+		if (script.contains(JAM_COPY_LIBS_TASK)) {
+			Logger.debug("Copy libs task is already in " + buildFile);
+			return;
+		}
+		String libDir = Application.RELATIVE_LIB_DIR.replace(File.separatorChar, '/');
+		writeBuildScript(script + String.format(kotlinDsl ? JAM_COPY_LIBS_KOTLIN : JAM_COPY_LIBS_GROOVY, libDir));
+	}
+
+	/**
+	 * Check if the application is a multi-project build, i.e. the settings script includes subprojects
+	 * @return a boolean indicating if the build has subprojects
+	 */
+	private boolean isMultiProject() {
+		for (String settingsFileName : Arrays.asList(SETTINGS_GRADLE, SETTINGS_GRADLE_KTS)) {
+			File settingsFile = new File(applicationDir, settingsFileName);
+			if (settingsFile.exists()) {
+				try {
+					String settings = stripComments(Files.readString(settingsFile.toPath()));
+					return INCLUDE_STATEMENT.matcher(settings).find();
+				} catch (IOException e) {
+					Logger.warn("Unable to read " + settingsFile);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check the Gradle version used by the application. The version is looked up once through the Tooling API.
+	 * @return true if the version is at least major.minor, false if older or the version could not be determined
+	 */
+	private boolean isGradleVersionAtLeast(int major, int minor) {
+		if (gradleVersion == null) {
+			try {
+				BuildEnvironment environment = GradleConnectionPool.getConnection(applicationDir).getModel(BuildEnvironment.class);
+				gradleVersion = environment.getGradle().getGradleVersion();
+				Logger.debug("Gradle version for " + applicationDir + " is " + gradleVersion);
+			} catch (GradleConnectionException | IllegalStateException e) {
+				Logger.warn("Unable to determine the Gradle version of the application");
+				if (Logger.isDebugEnabled()) {
+					e.printStackTrace();
+				}
+				return false;
+			}
+		}
+		String[] parts = gradleVersion.split("[.-]");
+		try {
+			int versionMajor = Integer.parseInt(parts[0]);
+			int versionMinor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+			return versionMajor > major || (versionMajor == major && versionMinor >= minor);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private String getBuildScriptWithoutComments() throws IOException {
+		return stripComments(readBuildScript());
+	}
+
+	private static String stripComments(String script) {
+		return LINE_COMMENT.matcher(BLOCK_COMMENT.matcher(script).replaceAll("")).replaceAll("");
+	}
+
+	private String readBuildScript() throws IOException {
+		return Files.readString(Path.of(buildFile));
+	}
+
+	private void writeBuildScript(String script) throws IOException {
+		Files.writeString(Path.of(buildFile), script);
+	}
+
+	/**
+	 * Path of a file in the form used in a Gradle script, which always uses forward slashes
+	 */
+	private static String toGradlePath(File file) {
+		return file.getAbsolutePath().replace('\\', '/');
+	}
+
+	/**
+	 * Statements of the init script rewrite block excluding the given globs from the recipe run
+	 */
+	private static String toExclusions(List<String> exclusions) {
+		StringBuilder statements = new StringBuilder();
+		for (String exclusion : exclusions) {
+			statements.append("        exclusion('").append(exclusion.replace("\\", "\\\\").replace("'", "\\'")).append("')\n");
+		}
+		return statements.toString();
+	}
 }
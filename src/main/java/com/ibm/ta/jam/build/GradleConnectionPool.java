@@ -0,0 +1,125 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+import org.tinylog.Logger;
+
+/**
+ * Pool of Gradle Tooling API connections, one per project directory.
+ * Reusing a single connection for all builds and recipe runs on a project keeps the Gradle daemon
+ * warm, so only the first build in a Jam session pays the daemon startup and configuration cost.
+ * Several Jam sessions may work on the same project, e.g. in daemon mode, so each session
+ * {@link #acquire(String)}s the project and {@link #release(String)}s it when finished. The connection
+ * is closed when the last session releases it.
+ */
+public class GradleConnectionPool {
+
+    /**
+     * Pooled projects keyed by the canonical path of the project directory
+     */
+    private static final Map<String, PooledConnection> connections = new HashMap<>();
+
+    private static class PooledConnection {
+        private int references;
+        private ProjectConnection connection;
+    }
+
+    private GradleConnectionPool() {
+    }
+
+    /**
+     * Register a user of the connection for the given project directory, the connection is opened on first use
+     * @param projectDir root directory of the Gradle project
+     */
+    public static synchronized void acquire(String projectDir) {
+        connections.computeIfAbsent(getKey(projectDir), key -> new PooledConnection()).references++;
+    }
+
+    /**
+     * Get the connection for the given project directory, opening one if none is open yet. The project must have been
+     * acquired, as a connection opened for a project nobody acquired would never be released, leaking it and its daemon.
+     * @param projectDir root directory of the Gradle project
+     * @return the pooled ProjectConnection for the project
+     * @throws IllegalStateException if the project is not acquired, or was released by its last user
+     */
+    public static synchronized ProjectConnection getConnection(String projectDir) {
+        PooledConnection pooled = connections.get(getKey(projectDir));
+        if (pooled == null) {
+            throw new IllegalStateException("Gradle connection for " + getKey(projectDir) + " is not acquired");
+        }
+        if (pooled.connection == null) {
+            Logger.debug("Opening Gradle connection for " + getKey(projectDir));
+            pooled.connection = GradleConnector.newConnector()
+                .forProjectDirectory(new File(getKey(projectDir)))
+                .connect();
+        }
+        return pooled.connection;
+    }
+
+    /**
+     * Release a user of the connection for the given project directory, closing the connection when it was the last
+     * @param projectDir root directory of the Gradle project
+     */
+    public static void release(String projectDir) {
+        ProjectConnection connection = null;
+        synchronized (GradleConnectionPool.class) {
+            String key = getKey(projectDir);
+            PooledConnection pooled = connections.get(key);
+            if (pooled == null) {
+                return;
+            }
+            if (--pooled.references <= 0) {
+                connections.remove(key);
+                connection = pooled.connection;
+            }
+        }
+        if (connection != null) {
+            closeConnection(projectDir, connection);
+        }
+    }
+
+    /**
+     * Close all pooled connections, whether released or not. Call at exit.
+     */
+    public static void closeAll() {
+        List<Map.Entry<String, PooledConnection>> pooled;
+        synchronized (GradleConnectionPool.class) {
+            pooled = new ArrayList<>(connections.entrySet());
+            connections.clear();
+        }
+        for (Map.Entry<String, PooledConnection> entry : pooled) {
+            if (entry.getValue().connection != null) {
+                closeConnection(entry.getKey(), entry.getValue().connection);
+            }
+        }
+    }
+
+    private static void closeConnection(String projectDir, ProjectConnection connection) {
+        Logger.debug("Closing Gradle connection for " + projectDir);
+        try {
+            connection.close();
+        } catch (RuntimeException e) {
+            Logger.warn("Failed to close Gradle connection for " + projectDir);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String getKey(String projectDir) {
+        File dir = new File(projectDir);
+        try {
+            return dir.getCanonicalPath();
+        } catch (IOException e) {
+            return dir.getAbsolutePath();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
+import com.ibm.ta.jam.utils.JamUtils;
+
+/**
+ * Persistent cache of Gradle packaging types, keyed by a hash of the application's build scripts.
+ * Determining the packaging type needs Gradle to configure the build, so caching it lets later
+ * Jam sessions on an unchanged application skip Gradle configuration entirely.
+ */
+public class GradlePackagingCache {
+
+    private static final String CACHE_FILE_NAME = "gradle-packaging.properties";
+
+    private GradlePackagingCache() {
+    }
+
+    /**
+     * Get the cached packaging type for the given build scripts hash
+     * @param buildScriptsHash hash of the build scripts and settings script
+     * @return the cached ApplicationType, or null if there is no valid entry
+     */
+    public static synchronized ApplicationType get(String buildScriptsHash) {
+        String value = load().getProperty(buildScriptsHash);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ApplicationType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            Logger.debug("Ignoring invalid cached packaging type: " + value);
+            return null;
+        }
+    }
+
+    /**
+     * Store the packaging type for the given build scripts hash. Failing to store is not an error, the packaging
+     * type will be determined again by the next session.
+     * @param buildScriptsHash hash of the build scripts and settings script
+     * @param type packaging type determined from the build
+     */
+    public static synchronized void put(String buildScriptsHash, ApplicationType type) {
+        Properties cache = load();
+        cache.setProperty(buildScriptsHash, type.name());
+
+        File cacheFile = getCacheFile();
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            // Write to a temporary file and move it into place so concurrent sessions never read a partial file
+            Path tempFile = Files.createTempFile(cacheFile.getParentFile().toPath(), CACHE_FILE_NAME, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                cache.store(out, "JAM Gradle packaging types keyed by build scripts hash");
+            }
+            Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.warn("Unable to store Gradle packaging type in cache: " + cacheFile);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static Properties load() {
+        Properties cache = new Properties();
+        File cacheFile = getCacheFile();
+        if (cacheFile.exists()) {
+            try (InputStream in = Files.newInputStream(cacheFile.toPath())) {
+                cache.load(in);
+            } catch (IOException e) {
+                Logger.warn("Unable to read Gradle packaging cache: " + cacheFile);
+            }
+        }
+        return cache;
+    }
+
+    private static File getCacheFile() {
+        return new File(JamUtils.getCacheDir(), CACHE_FILE_NAME);
+    }
+}
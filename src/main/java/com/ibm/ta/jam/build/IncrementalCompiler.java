@@ -0,0 +1,222 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.tinylog.Logger;
+
+/**
+ * Compiles the sources changed by recipes, and the sources that directly depend on them, inside the JAM JVM with
+ * the project's compile classpath. This reports compile errors introduced by recipes in seconds, where a full
+ * package build of the application can take minutes. Classes are compiled to a temporary directory, the build
+ * output of the application is not changed.
+ */
+public class IncrementalCompiler {
+
+    private static final String JAVA_EXTENSION = ".java";
+
+    private final List<Path> sourceDirs;
+
+    private final List<Path> classpath;
+
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+
+    /**
+     * Create the IncrementalCompiler for an application
+     * @param sourceDirs Java source directories of the application
+     * @param classpath compile classpath of the application, including its compiled classes when they exist
+     */
+    public IncrementalCompiler(List<Path> sourceDirs, List<Path> classpath) {
+        this.sourceDirs = sourceDirs;
+        this.classpath = classpath;
+    }
+
+    /**
+     * Compile the changed sources and their direct dependents. Compiler errors are logged.
+     * @param changedSources absolute paths of the sources that changed, including deleted sources
+     * @return true if the sources compiled without errors
+     */
+    public boolean compile(Collection<Path> changedSources) {
+        diagnostics.clear();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            Logger.error("No Java compiler is available, JAM must be run with a JDK to compile changed sources");
+            return false;
+        }
+
+        Set<Path> toCompile;
+        try {
+            toCompile = findDependents(sourceDirs, changedSources);
+        } catch (IOException e) {
+            Logger.error("Unable to read application sources");
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+        for (Path changedSource : changedSources) {
+            if (isJavaSource(changedSource) && Files.isRegularFile(changedSource)) {
+                toCompile.add(changedSource);
+            }
+        }
+        if (toCompile.isEmpty()) {
+            Logger.debug("No Java sources changed, nothing to compile");
+            return true;
+        }
+
+        Logger.debug("Compiling " + toCompile.size() + " sources with " + classpath.size() + " classpath entries");
+        long start = System.currentTimeMillis();
+        File outputDir = null;
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8)) {
+            outputDir = Files.createTempDirectory("jam-compile-").toFile();
+            List<String> options = List.of(
+                "-d", outputDir.getAbsolutePath(),
+                "-classpath", joinPaths(classpath),
+                "-sourcepath", joinPaths(sourceDirs),
+                "-implicit:none",
+                "-proc:none",
+                "-nowarn");
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(
+                toCompile.stream().map(Path::toFile).collect(Collectors.toList()));
+            boolean compiled = compiler.getTask(null, fileManager, collector, options, null, units).call();
+
+            for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    diagnostics.add(diagnostic);
+                    String source = diagnostic.getSource() != null ? diagnostic.getSource().getName() : "";
+                    Logger.error(source + ":" + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(null));
+                }
+            }
+            Logger.info("Compiled " + toCompile.size() + " changed and dependent sources in " + (System.currentTimeMillis() - start)
+                + "ms" + (compiled ? "" : " with " + diagnostics.size() + " errors"));
+            return compiled;
+        } catch (IOException | RuntimeException e) {
+            Logger.error("Unable to compile changed sources: " + e.getMessage());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        } finally {
+            if (outputDir != null) {
+                FileUtils.deleteQuietly(outputDir);
+            }
+        }
+    }
+
+    /**
+     * Get the compiler errors from the last compile
+     */
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Find the sources that directly reference a class declared in one of the changed sources. A source references a
+     * class if it uses its simple name and is in the same package or imports the class or its package, or if it uses
+     * the fully qualified name. This is a textual check, so it can include sources that do not really depend on the class.
+     * @param sourceDirs Java source directories of the application
+     * @param changedSources absolute paths of the sources that changed
+     * @return absolute paths of the dependent sources that still exist, excluding the changed sources themselves
+     */
+    static Set<Path> findDependents(List<Path> sourceDirs, Collection<Path> changedSources) throws IOException {
+        List<String> changedClasses = new ArrayList<>();
+        for (Path changedSource : changedSources) {
+            String className = getClassName(sourceDirs, changedSource);
+            if (className != null) {
+                changedClasses.add(className);
+            }
+        }
+
+        Set<Path> dependents = new TreeSet<>();
+        if (changedClasses.isEmpty()) {
+            return dependents;
+        }
+        for (Path sourceDir : sourceDirs) {
+            List<Path> javaSources;
+            try (Stream<Path> paths = Files.walk(sourceDir)) {
+                javaSources = paths.filter(path -> Files.isRegularFile(path) && isJavaSource(path)).collect(Collectors.toList());
+            }
+            for (Path javaSource : javaSources) {
+                Path source = javaSource.toAbsolutePath().normalize();
+                if (changedSources.contains(source)) {
+                    continue;
+                }
+                String content = Files.readString(source, StandardCharsets.ISO_8859_1);
+                String sourcePackage = getPackageName(getClassName(sourceDirs, source));
+                for (String changedClass : changedClasses) {
+                    if (references(content, sourcePackage, changedClass)) {
+                        dependents.add(source);
+                        break;
+                    }
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private static boolean references(String content, String sourcePackage, String className) {
+        if (content.contains(className)) {
+            return true;
+        }
+        String packageName = getPackageName(className);
+        String simpleName = className.substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        if (!Pattern.compile("\\b" + Pattern.quote(simpleName) + "\\b").matcher(content).find()) {
+            return false;
+        }
+        return packageName.equals(sourcePackage) || content.contains("import " + packageName + ".*");
+    }
+
+    /**
+     * Get the fully qualified name of the class declared in a source from its path in a source directory
+     * @return the class name, or null if the source is not a Java source in one of the source directories
+     */
+    static String getClassName(List<Path> sourceDirs, Path source) {
+        if (!isJavaSource(source)) {
+            return null;
+        }
+        for (Path sourceDir : sourceDirs) {
+            Path dir = sourceDir.toAbsolutePath().normalize();
+            if (source.startsWith(dir)) {
+                String relativePath = dir.relativize(source).toString();
+                return relativePath.substring(0, relativePath.length() - JAVA_EXTENSION.length()).replace(File.separatorChar, '.');
+            }
+        }
+        return null;
+    }
+
+    private static String getPackageName(String className) {
+        if (className == null || className.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return className.substring(0, className.lastIndexOf('.'));
+    }
+
+    private static boolean isJavaSource(Path path) {
+        return path.getFileName().toString().endsWith(JAVA_EXTENSION);
+    }
+
+    private static String joinPaths(List<Path> paths) {
+        return paths.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator));
+    }
+}
@@ -5,15 +5,31 @@ import static com.ibm.ta.jam.utils.AnsiConsts.*;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Build;
@@ -22,7 +38,6 @@ import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.Resource;
 
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
@@ -39,10 +54,14 @@ import org.yaml.snakeyaml.Yaml;
 import com.ibm.ta.jam.app.Application;
 import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
+import com.ibm.ta.jam.instrument.Phase;
 import com.ibm.ta.jam.plugin.MavenLibertyPlugin;
 import com.ibm.ta.jam.plugin.RewritePlugin;
 import com.ibm.ta.jam.recipe.RecipeAutomation;
+import com.ibm.ta.jam.recipe.RecipeScoping;
+import com.ibm.ta.jam.utils.IOUtils;
 import com.ibm.ta.jam.utils.MavenCoords;
+import com.ibm.ta.jam.utils.SourceSnapshot;
 
 /**
  * Model of the Maven build tool for the Java application. This class handles all interactions 
@@ -51,11 +70,33 @@ import com.ibm.ta.jam.utils.MavenCoords;
 public class MavenBuildTool implements BuildTool {
 
 	private final String MVN_OPEN_REWRITE_ARG = "%s:%s:%s:run";
+	private final String MVN_OPEN_REWRITE_DRY_RUN_ARG = "%s:%s:%s:dryRun";
+	private final String MVN_REPORT_OUTPUT_DIR_ARG = "-DreportOutputDirectory=%s";
+	private final String REWRITE_PATCH_FILE = "rewrite.patch";
+	private final String MVN_EXCLUSIONS_ARG = "-Drewrite.exclusions=%s";
 	private final String MVN_RECIPE_ARTIFACT_COORDS_ARG = "-Drewrite.recipeArtifactCoordinates=%s:%s:%s";
 	private final String MVN_RECIPE_NAME_ARG = "-Drewrite.activeRecipes=%s";
+	private final String MVN_CONFIG_LOCATION_ARG = "-Drewrite.configLocation=%s";
     private final String POM_FILE = "pom.xml";
     private final String WAR_PACKAGING = "war";
     private final String EAR_PACKAGING = "ear";
+    private final String POM_PACKAGING = "pom";
+	private final String DEFAULT_SOURCE_DIR = "src/main/java";
+	private final String BASEDIR_PROPERTY = "${project.basedir}/";
+	private final String CLASSES_DIR = "target/classes";
+	private final String TEST_CLASSES_DIR = "target/test-classes";
+	private final String MVN_TEST_FILTER_ARG = "-Dtest=%s";
+	private final String MVN_NO_SPECIFIED_TESTS_ARG = "-Dsurefire.failIfNoSpecifiedTests=false";
+	/**
+	 * Name of the classpath file of each module, Maven expands the module coordinates when the plugin reads it
+	 */
+	private final String CLASSPATH_OUTPUT_FILE = "${project.groupId}.${project.artifactId}.classpath";
+
+	/**
+	 * Maven home found by the first MavenBuildTool created in this JVM. Finding it may fork mvn --version, so later
+	 * sessions, e.g. in the daemon or a migration plan, reuse it.
+	 */
+	private static String cachedMavenHome;
 
 	/**
 	 * Root directory of the applicatino this BuildTool is a part of
@@ -81,7 +122,7 @@ public class MavenBuildTool implements BuildTool {
 		this.applicationDir = applicationDir;
 		pomXmlFile = applicationDir + File.separator + POM_FILE;
 
-		String mavenHome = getMavenHome();
+		String mavenHome = getCachedMavenHome();
 		if (mavenHome == null) {
 			Logger.error("Could not find maven home location. Tried system property, mvn --version, maven.home, environment variables MAVEN_HOME and M2_HOME");
 			throw new RuntimeException("Could not find maven home");
@@ -107,12 +148,12 @@ public class MavenBuildTool implements BuildTool {
 		// request.setInputStream(System.in); // Unable to get this working. using ProcessBuilder instead where input to maven is required, e.g. liberty:dev
 	
         InvocationResult result;
-		try {
+		try (Phase phase = Phase.start(Phase.MAVEN_INVOCATION)) {
 			System.out.println(ANSI_BLUE);
 			result = invoker.execute(request);
 			System.out.println(ANSI_RESET);
 			Logger.debug("Finish runBuild for " + applicationDir);
-			return result.getExitCode() == 0;
+			return phase.result(result.getExitCode() == 0);
 		} catch (MavenInvocationException e) {
 			Logger.error("Exception encountered when running build");
 			if (Logger.isDebugEnabled()) {
@@ -142,6 +183,20 @@ public class MavenBuildTool implements BuildTool {
 		}
       	return runBuild(args);
     }
+
+	/**
+	 * Runs a basic maven build ("clean package") that only runs the given tests, through the Surefire test filter.
+	 * Modules that have none of the tests do not fail the build.
+	 * @param testClasses fully qualified names of the test classes to run
+	 * @return a boolean indicating success or failure of the build
+	 */
+	@Override
+	public boolean runBasicBuild(Collection<String> testClasses) {
+		List<String> args = Arrays.asList("clean", "package",
+			String.format(MVN_TEST_FILTER_ARG, String.join(",", testClasses)),
+			MVN_NO_SPECIFIED_TESTS_ARG);
+		return runBuild(args);
+	}
 	
 	/**
 	 * Runs the liberty dev mode. Will first check that the Liberty plugin has been added to the application
@@ -213,7 +268,7 @@ public class MavenBuildTool implements BuildTool {
     @Override
 	public boolean backupBuildConfig() {
 		try {	
-			String backupFile = backupFile(applicationDir + File.separator + POM_FILE);
+			String backupFile = IOUtils.backupFile(applicationDir + File.separator + POM_FILE);
 			Logger.debug("Backed up file to: " + backupFile);
 			return true;
 		} catch (IOException ioe) {
@@ -226,40 +281,206 @@ public class MavenBuildTool implements BuildTool {
 	}
 
 	/**
-	 * Backup a file using a numbered backup scheme (...bak.1 ...bak.2 etc)
-	 * @param file path of file to be backed up
-	 * @return the path to the backup
-	 * @throws IOException when backup fails
+	 * Returns the POM Model for the pom file {@link org.apache.maven.model.Model}
+	 * @return org.apache.maven.model.Model for the pom.xml
+	 * @throws IOException if fails to read the pom.xml
+	 * @throws XmlPullParserException if fails to parse the pom.xml
+	 */
+    private Model getPomModel() throws IOException, XmlPullParserException{
+		return getPomModel(new File(pomXmlFile));
+	}
+
+	/**
+	 * Returns the POM Model for the given pom file {@link org.apache.maven.model.Model}
+	 * @param pomFile the pom.xml to read
+	 * @return org.apache.maven.model.Model for the pom.xml
+	 * @throws IOException if fails to read the pom.xml
+	 * @throws XmlPullParserException if fails to parse the pom.xml
 	 */
-	private String backupFile(String file) throws IOException {
-		Logger.debug("Start make backup of: " + file);
+	private Model getPomModel(File pomFile) throws IOException, XmlPullParserException {
+		return PomModelCache.read(pomFile);
+	}
 
-		int backupNumber = 1;
-		String backupFileName = file + ".bak." + backupNumber;
-		File backupFile = new File(backupFileName);
-		while (backupFile.exists()) {
-			backupNumber++;
-			backupFileName = file + ".bak." + backupNumber;
-			backupFile = new File(backupFileName);
+	/**
+	 * Write the POM Model to the pom file
+	 * @param model the model to write
+	 * @throws IOException if fails to write the pom.xml
+	 */
+	private void writePomModel(Model model) throws IOException {
+		try (Phase phase = Phase.start(Phase.POM_WRITE);
+				FileOutputStream out = new FileOutputStream(pomXmlFile)) {
+			new MavenXpp3Writer().write(out, model);
+			phase.addBytes(out.getChannel().position());
+			phase.result(true);
 		}
+	}
 
-		FileUtils.copyFile(new File(file), backupFile);
-		Logger.debug("Finish make backup of: " + file);
-		return backupFileName;
+	/**
+	 * Get the directories of the application and all its modules, following the modules listed in each pom.xml
+	 * @return list of module directories, starting with the application root
+	 */
+	public List<Path> getModuleDirectories() {
+		List<Path> moduleDirs = new ArrayList<>();
+		addModuleDirectories(Path.of(applicationDir), moduleDirs);
+		return moduleDirs;
 	}
 
+	private void addModuleDirectories(Path moduleDir, List<Path> moduleDirs) {
+		File modulePom = moduleDir.resolve(POM_FILE).toFile();
+		if (!modulePom.exists() || moduleDirs.contains(moduleDir)) {
+			return;
+		}
+		moduleDirs.add(moduleDir);
+		try {
+			for (String module : getPomModel(modulePom).getModules()) {
+				addModuleDirectories(moduleDir.resolve(module).normalize(), moduleDirs);
+			}
+		} catch (IOException | XmlPullParserException e) {
+			Logger.warn("Unable to read modules from " + modulePom);
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+		}
+	}
 
 	/**
-	 * Returns the POM Model for the pom file {@link org.apache.maven.model.Model}
-	 * @return org.apache.maven.model.Model for the pom.xml
-	 * @throws IOException if fails to read the pom.xml
-	 * @throws XmlPullParserException if fails to parse the pom.xml
+	 * Get the Java source directories of the application and its modules. Uses the sourceDirectory in each
+	 * pom.xml, or the Maven default of src/main/java.
+	 * @return list of existing source directories
 	 */
-    private Model getPomModel() throws IOException, XmlPullParserException{
-		FileReader reader = new FileReader(pomXmlFile);
-		MavenXpp3Reader mavenreader = new MavenXpp3Reader();
-		Model model = mavenreader.read(reader);
-		return model;
+	@Override
+	public List<Path> getSourceDirectories() {
+		List<Path> sourceDirs = new ArrayList<>();
+		for (Path moduleDir : getModuleDirectories()) {
+			String sourceDir = DEFAULT_SOURCE_DIR;
+			try {
+				Build build = getPomModel(moduleDir.resolve(POM_FILE).toFile()).getBuild();
+				if (build != null && build.getSourceDirectory() != null) {
+					sourceDir = build.getSourceDirectory().replace(BASEDIR_PROPERTY, "");
+				}
+			} catch (IOException | XmlPullParserException e) {
+				Logger.warn("Unable to read source directory from pom.xml in " + moduleDir + ", using default");
+			}
+			Path sourcePath = moduleDir.resolve(sourceDir).normalize();
+			if (Files.isDirectory(sourcePath)) {
+				sourceDirs.add(sourcePath);
+			}
+		}
+		return sourceDirs;
+	}
+
+	/**
+	 * Get the compile classpath of the application and its modules. Dependencies are resolved with the maven
+	 * dependency plugin, which writes the classpath of each module to a file in its build directory. Compiled classes
+	 * of each module are included when they exist.
+	 * @return list of classpath entries, empty if the dependencies could not be resolved
+	 */
+	@Override
+	public List<Path> getCompileClasspath() {
+		Logger.debug("Start resolving compile classpath for " + applicationDir);
+		Set<Path> classpath = new LinkedHashSet<>();
+		File outputDir = null;
+		try {
+			// Each module writes its classpath to its own file in a new temporary directory, so the application is not
+			// changed and a failed build never leaves the output of an earlier run to be read
+			outputDir = Files.createTempDirectory("jam-classpath-").toFile();
+			List<String> args = Arrays.asList(
+				"-q",
+				"dependency:build-classpath",
+				"-Dmdep.includeScope=compile",
+				"-Dmdep.outputFile=" + new File(outputDir, CLASSPATH_OUTPUT_FILE).getAbsolutePath());
+			if (!runBuild(args)) {
+				Logger.warn("Unable to resolve the compile classpath. Type information will be incomplete.");
+			}
+
+			List<Path> classpathFiles;
+			try (Stream<Path> files = Files.list(outputDir.toPath())) {
+				classpathFiles = files.sorted().collect(Collectors.toList());
+			}
+			for (Path classpathFile : classpathFiles) {
+				for (String entry : Files.readString(classpathFile).trim().split(File.pathSeparator)) {
+					if (!entry.isBlank()) {
+						classpath.add(Path.of(entry));
+					}
+				}
+			}
+		} catch (IOException e) {
+			Logger.warn("Unable to read the compile classpath. Type information will be incomplete.");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+		} finally {
+			if (outputDir != null) {
+				FileUtils.deleteQuietly(outputDir);
+			}
+		}
+
+		for (Path moduleDir : getModuleDirectories()) {
+			Path classesDir = moduleDir.resolve(CLASSES_DIR);
+			if (Files.isDirectory(classesDir)) {
+				classpath.add(classesDir);
+			}
+		}
+		Logger.debug("Finish resolving compile classpath, " + classpath.size() + " entries");
+		return new ArrayList<>(classpath);
+	}
+
+	/**
+	 * Get the pom.xml of the application and each of its modules
+	 * @return list of pom.xml files
+	 */
+	@Override
+	public List<Path> getBuildConfigurationFiles() {
+		List<Path> pomFiles = new ArrayList<>();
+		for (Path moduleDir : getModuleDirectories()) {
+			pomFiles.add(moduleDir.resolve(POM_FILE));
+		}
+		return pomFiles;
+	}
+
+	/**
+	 * Get the compiled test class directories of the application and its modules
+	 * @return list of existing test class directories, empty if tests have not been compiled
+	 */
+	@Override
+	public List<Path> getTestClassesDirectories() {
+		return getClassesDirectories(TEST_CLASSES_DIR);
+	}
+
+	/**
+	 * Get the compiled main class directories of the application and its modules
+	 * @return list of existing class directories, empty if the application has not been compiled
+	 */
+	@Override
+	public List<Path> getClassesDirectories() {
+		return getClassesDirectories(CLASSES_DIR);
+	}
+
+	/**
+	 * Maven invocations do not report the time of each goal
+	 * @return an empty map
+	 */
+	@Override
+	public Map<String, Long> getLastBuildTaskDurations() {
+		return Collections.emptyMap();
+	}
+
+	private List<Path> getClassesDirectories(String relativeDir) {
+		List<Path> classesDirs = new ArrayList<>();
+		for (Path moduleDir : getModuleDirectories()) {
+			Path classesDir = moduleDir.resolve(relativeDir);
+			if (Files.isDirectory(classesDir)) {
+				classesDirs.add(classesDir);
+			}
+		}
+		return classesDirs;
+	}
+
+	private static synchronized String getCachedMavenHome() {
+		if (cachedMavenHome == null) {
+			cachedMavenHome = getMavenHome();
+		}
+		return cachedMavenHome;
 	}
 
     /**
@@ -267,7 +488,7 @@ public class MavenBuildTool implements BuildTool {
 	 * its likely to be most reliable. Fallback to system properties and environment variables.
 	 * @return
 	 */
-	private String getMavenHome() {
+	private static String getMavenHome() {
 		// Try a number of fallback options if the maven home property is not given
 		String mvnHomeFromExe = getMavenHomeFromMvnExecution();
 		if (mvnHomeFromExe != null && !mvnHomeFromExe.isBlank()) {
@@ -335,7 +556,7 @@ public class MavenBuildTool implements BuildTool {
 	 * 
 	 * @return A string representing the maven home location, or null if a problem is encountered
 	 */
-	private String getMavenHomeFromMvnExecution() {
+	private static String getMavenHomeFromMvnExecution() {
 		Logger.debug("Start get maven home value from the mvn execution");
 		String mavenHome = null;
 		boolean isWindows = System.getProperty("os.name").toLowerCase().startsWith("windows");
@@ -455,8 +676,7 @@ public class MavenBuildTool implements BuildTool {
             
             build.addResource(res);
 
-            MavenXpp3Writer writer = new MavenXpp3Writer();
-            writer.write(new FileOutputStream(new File(pomXmlFile)), model);
+            writePomModel(model);
 
 			Logger.debug("Finish adding resource to pom.xml");
             return true;
@@ -502,8 +722,7 @@ public class MavenBuildTool implements BuildTool {
 			    model.getDependencies().add(dep);
             }
 
-			MavenXpp3Writer writer = new MavenXpp3Writer();
-			writer.write(new FileOutputStream(new File(pomXmlFile)), model);
+			writePomModel(model);
 
         } catch (IOException ioe)  {
 			Logger.debug("IO exception when adding remte dependencies");
@@ -586,8 +805,7 @@ public class MavenBuildTool implements BuildTool {
 					}
 					copyDependencies.addChild(depGroup);
 
-					MavenXpp3Writer writer = new MavenXpp3Writer();
-					writer.write(new FileOutputStream(new File(pomXmlFile)), model);
+					writePomModel(model);
 				}
 			}
 		} catch (Exception e){
@@ -647,8 +865,7 @@ public class MavenBuildTool implements BuildTool {
 		try {
             Model model = getPomModel();
 		    model.getBuild().addPlugin(plugin);
-		    MavenXpp3Writer writer = new MavenXpp3Writer();
-		    writer.write(new FileOutputStream(new File(pomXmlFile)), model);
+		    writePomModel(model);
         } catch (IOException ioe)  {
 			Logger.debug("IO exception when adding plugin to pom.xml");
 			if (Logger.isDebugEnabled()) {
@@ -669,22 +886,86 @@ public class MavenBuildTool implements BuildTool {
 	/**
 	 * Using the build tool to run recipies from the rewriteYaml. 
 	 * This is the preferred way to run the recipes over adding or modifying the ReWrite plugin in the pom.xml.
-	 * Will check for an existing rewrite.yml in the applicatoin root. If it exists, it will be backed up, and 
-	 * restored after running the recipes.
-	 * @param rewriteYaml a Map representing the rewrite.yml from the migration bundle
+	 * The rewrite.yml is written to a temporary location for the run and passed to the plugin with rewrite.configLocation,
+	 * so an existing rewrite.yml in the application root is left untouched.
+	 * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
 	 * @param rewritePlugin a RewritePlugin representing the MavenRewritePlugin. Used to retrive plugin details needed to run the mvn command.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
 	 * @return a boolean indicating if the recipe running was successful
 	 */
 	@Override
-	public  boolean runRecipesFromRewriteYaml(Map<String, Object> rewriteYaml, RewritePlugin rewritePlugin) {
-		
+	public  boolean runRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources) {
+		return runRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources, 1);
+	}
+
+	/**
+	 * Using the build tool to run recipies from the rewriteYaml, splitting the run by module for multi-module projects.
+	 * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+	 * @param rewritePlugin a RewritePlugin representing the MavenRewritePlugin. Used to retrive plugin details needed to run the mvn command.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
+	 * @param workers the maximum number of modules to run recipes on concurrently, 1 runs a single build over the whole reactor
+	 * @return a boolean indicating if the recipe running was successful
+	 */
+	@Override
+	public boolean runRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, int workers) {
+		return runRewriteGoal(rewriteYaml, rewritePlugin, affectedSources, MVN_OPEN_REWRITE_ARG, Collections.emptyList(), workers);
+	}
+
+	/**
+	 * Using the rewrite plugin dryRun goal to produce a patch of the changes the recipes would make, without modifying
+	 * the application. The plugin writes the patch to a temporary report directory, which is streamed to the given writer.
+	 * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+	 * @param rewritePlugin a RewritePlugin representing the MavenRewritePlugin. Used to retrive plugin details needed to run the mvn command.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
+	 * @param patch writer the unified diff is written to
+	 * @return a boolean indicating if the dry run was successful
+	 */
+	@Override
+	public boolean dryRunRecipesFromRewriteYaml(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, Writer patch) {
+		File reportDir = null;
+		try {
+			reportDir = Files.createTempDirectory("jam-rewrite-report-").toFile();
+			List<String> dryRunArgs = Arrays.asList(String.format(MVN_REPORT_OUTPUT_DIR_ARG, reportDir.getAbsolutePath()));
+			if (!runRewriteGoal(rewriteYaml, rewritePlugin, affectedSources, MVN_OPEN_REWRITE_DRY_RUN_ARG, dryRunArgs, 1)) {
+				return false;
+			}
+			// No patch is written when the recipes make no changes
+			File patchFile = new File(reportDir, REWRITE_PATCH_FILE);
+			if (patchFile.exists()) {
+				try (Reader reader = Files.newBufferedReader(patchFile.toPath(), StandardCharsets.UTF_8)) {
+					reader.transferTo(patch);
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			Logger.error("Failed to write the recipe patch");
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		} finally {
+			if (reportDir != null) {
+				FileUtils.deleteQuietly(reportDir);
+			}
+		}
+	}
+
+	/**
+	 * Run a goal of the rewrite plugin with the recipes from the rewriteYaml. Java sources the recipes cannot change
+	 * are passed to the plugin as exclusions, so it does not parse them.
+	 * @param affectedSources Java sources the recipes can change, or null if they can change any source
+	 * @param goalFormat format of the plugin goal, given the plugin group, artifact and version
+	 * @param extraArgs additional arguments for the goal
+	 * @param workers the maximum number of modules to run concurrently, 1 runs a single build over the whole reactor
+	 */
+	private boolean runRewriteGoal(List<Map<String, Object>> rewriteYaml, RewritePlugin rewritePlugin, Set<String> affectedSources, String goalFormat, List<String> extraArgs, int workers) {
 		String rewritePluginArtifactId = rewritePlugin.getArtifactId();
 		String rewritePluginGroupId = rewritePlugin.getGroupId();
 		String rewritePluginVersion = rewritePlugin.getVersion();
 		String libertyRewriteArtifactId = rewritePlugin.getRewriteLibertyArtifactId();
 		String libertyRewritePluginGroupId = rewritePlugin.getRewriteLibertyGroupId();
 		String libertyRewritePluginVersion = rewritePlugin.getRewriteLibertyVersion();
-		String rewriteYamlRecipeName = (String)rewriteYaml.get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
+		String rewriteYamlRecipeName = (String)rewriteYaml.get(0).get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
 		
 
 		// mvn -U org.openrewrite.maven:rewrite-maven-plugin:run 
@@ -692,65 +973,302 @@ public class MavenBuildTool implements BuildTool {
 		//		-Drewrite.activeRecipes=com.ibm.testRecipe
 		List<String> args = Arrays.asList(
 			"-U",
-			String.format(MVN_OPEN_REWRITE_ARG, rewritePluginGroupId, rewritePluginArtifactId, rewritePluginVersion),
+			String.format(goalFormat, rewritePluginGroupId, rewritePluginArtifactId, rewritePluginVersion),
 			String.format(MVN_RECIPE_ARTIFACT_COORDS_ARG, libertyRewritePluginGroupId, libertyRewriteArtifactId, libertyRewritePluginVersion),
 			String.format(MVN_RECIPE_NAME_ARG, rewriteYamlRecipeName)
 		);
 
-		// Backup an existing rewrite.yaml if it exists.
-		File rootRewriteYaml = new File(applicationDir + File.separator + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-		boolean origRewriteYamlExists = rootRewriteYaml.exists();
-		String backupFile = null;
-		if (origRewriteYamlExists) {
+		// Write the rewrite.yml to a temporary location for this run only, so the application root is never touched
+		// and concurrent runs on the same checkout each use their own configuration
+		File tempDir = null;
+		try {
+			tempDir = Files.createTempDirectory("jam-rewrite-").toFile();
+			File rewriteYamlFile = new File(tempDir, RecipeAutomation.REWRITE_YAML_FILE_NAME);
+			try (Writer writer = Files.newBufferedWriter(rewriteYamlFile.toPath(), StandardCharsets.UTF_8)) {
+				new Yaml().dumpAll(rewriteYaml.iterator(), writer);
+			}
+
+			List<String> runArgs = new ArrayList<>(args);
+			runArgs.add(String.format(MVN_CONFIG_LOCATION_ARG, rewriteYamlFile.getAbsolutePath()));
+			List<String> exclusions = RecipeScoping.getExclusions(Path.of(applicationDir), getSourceDirectories(), affectedSources);
+			if (!exclusions.isEmpty()) {
+				runArgs.add(String.format(MVN_EXCLUSIONS_ARG, String.join(",", exclusions)));
+			}
+			runArgs.addAll(extraArgs);
+
+			// Run the recipes
+			return workers > 1 ? runRecipesPerModule(runArgs, workers) : runBuild(runArgs);
+		} catch (IOException e) {
+			Logger.error("Failed to create file " + RecipeAutomation.REWRITE_YAML_FILE_NAME);
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		} finally {
+			if (tempDir != null) {
+				FileUtils.deleteQuietly(tempDir);
+			}
+		}
+	}
+
+	/**
+	 * Run the rewrite plugin on each module of a multi-module project concurrently. Each build is limited to one module
+	 * with -pl, so it only changes files in that module. The modules a build depends on are not built with it, so only
+	 * projects whose modules do not depend on each other are run per module. Projects with modules that depend on a
+	 * sibling, or with nested modules, where one build could change files of another module, run in a single build
+	 * instead. The files changed by all builds are compared against a snapshot taken before the run, and changes that
+	 * cannot be attributed to exactly one module are restored and fail the run.
+	 * @param args the rewrite plugin arguments
+	 * @param workers the maximum number of modules to run concurrently
+	 * @return a boolean indicating if the recipe running was successful
+	 */
+	private boolean runRecipesPerModule(List<String> args, int workers) {
+		Path rootDir = Path.of(applicationDir).toAbsolutePath().normalize();
+		List<Path> modules = getRecipeModules();
+		if (modules.size() < 2) {
+			return runBuild(args);
+		}
+		for (Path module : modules) {
+			for (Path other : modules) {
+				if (!module.equals(other) && other.startsWith(module)) {
+					Logger.info("Module " + rootDir.relativize(other) + " is nested in module " + rootDir.relativize(module) + ", running recipes over the whole reactor");
+					return runBuild(args);
+				}
+			}
+		}
+		if (hasReactorDependencies(rootDir, modules)) {
+			return runBuild(args);
+		}
+
+		SourceSnapshot before;
+		Map<Path, byte[]> outsideModules;
+		try {
+			before = SourceSnapshot.take(rootDir);
+			outsideModules = readFilesOutsideModules(before, modules);
+		} catch (IOException e) {
+			Logger.warn("Unable to snapshot application sources, running recipes over the whole reactor");
+			return runBuild(args);
+		}
+
+		int poolSize = Math.min(workers, modules.size());
+		Logger.info("Running recipes on " + modules.size() + " modules with " + poolSize + " workers");
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+		List<Path> failedModules = new ArrayList<>();
+		try {
+			Map<Path, Future<Boolean>> moduleRuns = new LinkedHashMap<>();
+			for (Path module : modules) {
+				String modulePath = rootDir.relativize(module).toString().replace(File.separatorChar, '/');
+				List<String> moduleArgs = new ArrayList<>(args);
+				moduleArgs.add("-pl");
+				moduleArgs.add(modulePath);
+				moduleRuns.put(module, executor.submit(Phase.propagate(() -> runModuleBuild(modulePath, moduleArgs))));
+			}
+
+			for (Map.Entry<Path, Future<Boolean>> moduleRun : moduleRuns.entrySet()) {
+				try {
+					if (!moduleRun.getValue().get()) {
+						failedModules.add(rootDir.relativize(moduleRun.getKey()));
+					}
+				} catch (ExecutionException e) {
+					failedModules.add(rootDir.relativize(moduleRun.getKey()));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+			return false;
+		} finally {
+			executor.shutdown();
+		}
+
+		if (!reportModuleChanges(before, modules, outsideModules)) {
+			return false;
+		}
+
+		if (!failedModules.isEmpty()) {
+			Logger.error("Recipes failed on modules " + failedModules);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check if a module recipes run on depends on another module of the reactor. A build limited to the module with -pl
+	 * would resolve the other module from the local repository, failing when it is not installed and using a stale jar
+	 * when it is.
+	 * @param rootDir root directory of the application
+	 * @param modules the modules recipes run on
+	 * @return true if a module depends on another module, or the modules could not be read
+	 */
+	private boolean hasReactorDependencies(Path rootDir, List<Path> modules) {
+		Map<String, Path> reactorModules = new HashMap<>();
+		Map<Path, Model> models = new LinkedHashMap<>();
+		for (Path moduleDir : getModuleDirectories()) {
+			Path module = moduleDir.toAbsolutePath().normalize();
 			try {
-				backupFile = backupFile(applicationDir + File.separator + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-			} catch (IOException e) {
-				Logger.error("Failed to create backup of " + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-				if (Logger.isDebugEnabled()) {
-					e.printStackTrace();
+				Model model = getPomModel(module.resolve(POM_FILE).toFile());
+				models.put(module, model);
+				reactorModules.put(getGroupId(model) + ":" + model.getArtifactId(), module);
+			} catch (IOException | XmlPullParserException e) {
+				Logger.warn("Unable to read module " + rootDir.relativize(module) + ", running recipes over the whole reactor");
+				return true;
+			}
+		}
+
+		for (Path module : modules) {
+			Model model = models.get(module);
+			if (model == null) {
+				continue;
+			}
+			for (Dependency dependency : model.getDependencies()) {
+				String groupId = "${project.groupId}".equals(dependency.getGroupId()) ? getGroupId(model) : dependency.getGroupId();
+				Path dependencyModule = reactorModules.get(groupId + ":" + dependency.getArtifactId());
+				if (dependencyModule != null && !dependencyModule.equals(module)) {
+					Logger.info("Module " + rootDir.relativize(module) + " depends on module " + rootDir.relativize(dependencyModule) + ", running recipes over the whole reactor");
+					return true;
 				}
-				return false;
 			}
 		}
+		return false;
+	}
 
-		// Write rewrite.yaml to file in app root
+	/**
+	 * Get the groupId of a module, inherited from its parent when the module does not declare one
+	 */
+	private static String getGroupId(Model model) {
+		if (model.getGroupId() == null && model.getParent() != null) {
+			return model.getParent().getGroupId();
+		}
+		return model.getGroupId();
+	}
+
+	/**
+	 * Read the content of the files in a snapshot that are outside every module, so changes a module build makes to
+	 * them can be restored
+	 * @return the content of each file, keyed by its path relative to the root directory of the snapshot
+	 */
+	private static Map<Path, byte[]> readFilesOutsideModules(SourceSnapshot snapshot, List<Path> modules) throws IOException {
+		Map<Path, byte[]> contents = new HashMap<>();
+		for (Path file : snapshot.getHashes().keySet()) {
+			Path absoluteFile = snapshot.getRootDir().resolve(file);
+			if (modules.stream().noneMatch(absoluteFile::startsWith)) {
+				contents.put(file, Files.readAllBytes(absoluteFile));
+			}
+		}
+		return contents;
+	}
+
+	/**
+	 * Run a build limited to one module. Output goes to the debug log, prefixed by the module, so concurrent
+	 * builds do not interleave on the console.
+	 */
+	private boolean runModuleBuild(String modulePath, List<String> buildArgs) {
+		Logger.debug("Start recipe run for module " + modulePath);
+		InvocationRequest request = new DefaultInvocationRequest();
+		request.setPomFile(new File(applicationDir));
+		request.setGoals(buildArgs);
+		request.setBatchMode(true);
+		request.setOutputHandler(line -> Logger.debug("[" + modulePath + "] " + line));
+		request.setErrorHandler(line -> Logger.warn("[" + modulePath + "] " + line));
+		try (Phase phase = Phase.start(Phase.MAVEN_INVOCATION)) {
+			phase.getSpan().setAttribute("jam.module", modulePath);
+			boolean success = phase.result(invoker.execute(request).getExitCode() == 0);
+			Logger.debug("Finish recipe run for module " + modulePath + (success ? "" : " with errors"));
+			return success;
+		} catch (MavenInvocationException e) {
+			Logger.warn("Exception encountered when running recipes for module " + modulePath);
+			if (Logger.isDebugEnabled()) {
+				e.printStackTrace();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Log the files changed in each module, and report changes that are outside every module as conflicts, as no
+	 * single module build should have made them. Conflicting changes are restored, files created outside every
+	 * module are deleted.
+	 * @param before the snapshot taken before the module builds
+	 * @param modules the modules the builds ran on
+	 * @param outsideModules the content before the builds of each file outside every module
+	 * @return false if any change conflicts, or the changes could not be checked
+	 */
+	private boolean reportModuleChanges(SourceSnapshot before, List<Path> modules, Map<Path, byte[]> outsideModules) {
+		Set<Path> changed;
 		try {
-			Yaml yaml = new Yaml();
-			FileWriter writer = new FileWriter(applicationDir + File.separator + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-			yaml.dump(rewriteYaml, writer);
+			changed = SourceSnapshot.take(before.getRootDir(), before).changedSince(before);
 		} catch (IOException e) {
-			Logger.error("Failed to create file " + RecipeAutomation.REWRITE_YAML_FILE_NAME);
+			Logger.error("Unable to snapshot application sources, changes made by recipes cannot be checked for conflicts");
 			if (Logger.isDebugEnabled()) {
 				e.printStackTrace();
 			}
 			return false;
 		}
 
-		// Run the recipes
-		boolean runSuccess = runBuild(args);
+		Map<Path, Integer> changesPerModule = new LinkedHashMap<>();
+		List<Path> conflicts = new ArrayList<>();
+		for (Path file : changed) {
+			Path absoluteFile = before.getRootDir().resolve(file);
+			// Modules are never nested when run separately, so a file belongs to at most one
+			Path owner = modules.stream().filter(absoluteFile::startsWith).findFirst().orElse(null);
+			if (owner != null) {
+				changesPerModule.merge(owner, 1, Integer::sum);
+			} else {
+				Logger.error("Conflict: " + file + " was changed by recipes but is outside the modules they ran on");
+				conflicts.add(file);
+			}
+		}
+		for (Map.Entry<Path, Integer> moduleChanges : changesPerModule.entrySet()) {
+			Logger.info("Recipes changed " + moduleChanges.getValue() + " files in module " + before.getRootDir().relativize(moduleChanges.getKey()));
+		}
+		if (conflicts.isEmpty()) {
+			return true;
+		}
 
-		// Restore the backup
-		if (origRewriteYamlExists) {
+		List<Path> unrestored = new ArrayList<>();
+		for (Path file : conflicts) {
+			Path absoluteFile = before.getRootDir().resolve(file);
+			byte[] content = outsideModules.get(file);
 			try {
-				rootRewriteYaml.delete();
-				FileUtils.moveFile(new File(backupFile), rootRewriteYaml);
-			} catch (IOException e) {
-				Logger.warn("Failed to restore backup of " + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-				if (Logger.isDebugEnabled()) {
-					e.printStackTrace();
+				if (content != null) {
+					Files.createDirectories(absoluteFile.getParent());
+					Files.write(absoluteFile, content);
+				} else {
+					Files.deleteIfExists(absoluteFile);
 				}
+			} catch (IOException e) {
+				unrestored.add(file);
 			}
-		} else {
-			// Remove the rewrite.yml
+		}
+		Logger.error("Recipes run on separate modules made " + conflicts.size() + " conflicting changes, restored " + (conflicts.size() - unrestored.size())
+			+ " of them, run recipes with a single worker");
+		if (!unrestored.isEmpty()) {
+			Logger.error("Unable to restore " + unrestored + ", review them before running recipes again");
+		}
+		return false;
+	}
+
+	/**
+	 * Get the modules recipes run on separately, all modules except those with pom packaging which hold no sources
+	 */
+	private List<Path> getRecipeModules() {
+		List<Path> recipeModules = new ArrayList<>();
+		for (Path moduleDir : getModuleDirectories()) {
 			try {
-				rootRewriteYaml.delete();
-			} catch (SecurityException e) {
-				Logger.warn("Failed to delete file: " + RecipeAutomation.REWRITE_YAML_FILE_NAME);
-				if (Logger.isDebugEnabled()) {
-					e.printStackTrace();
+				if (!POM_PACKAGING.equals(getPomModel(moduleDir.resolve(POM_FILE).toFile()).getPackaging())) {
+					recipeModules.add(moduleDir.toAbsolutePath().normalize());
 				}
+			} catch (IOException | XmlPullParserException e) {
+				Logger.warn("Unable to read packaging of module " + moduleDir);
 			}
 		}
-		return runSuccess;
+		return recipeModules;
+	}
+
+	/**
+	 * Nothing to release for Maven, each build runs in its own process
+	 */
+	@Override
+	public void close() {
 	}
 }
@@ -0,0 +1,80 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.instrument.MetricsRegistry;
+import com.ibm.ta.jam.instrument.Phase;
+import com.ibm.ta.jam.utils.IOUtils;
+
+/**
+ * JVM wide cache of parsed pom.xml files, keyed by path and validated by a hash of the file content, so a pom
+ * changed on disk is parsed again. Callers get a copy of the cached model, which they can change and write without
+ * affecting the cache. Lets a long running JAM, e.g. the daemon, skip parsing poms it has already seen.
+ */
+class PomModelCache {
+
+    /**
+     * The cache is emptied when it grows past this many poms, poms are small so this is only a guard for daemons
+     * that see many applications
+     */
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final String REQUESTS_METRIC = "jam_pom_cache_requests_total";
+
+    private static final Map<Path, CachedModel> models = new ConcurrentHashMap<>();
+
+    private PomModelCache() {
+    }
+
+    private static class CachedModel {
+        private final String contentHash;
+        private final Model model;
+
+        private CachedModel(String contentHash, Model model) {
+            this.contentHash = contentHash;
+            this.model = model;
+        }
+    }
+
+    /**
+     * Get the model of a pom.xml, parsing it if it is not cached or has changed
+     * @param pomFile the pom.xml to read
+     * @return a copy of the model
+     * @throws IOException if fails to read the pom.xml
+     * @throws XmlPullParserException if fails to parse the pom.xml
+     */
+    static Model read(File pomFile) throws IOException, XmlPullParserException {
+        Path path = pomFile.toPath().toAbsolutePath().normalize();
+        byte[] content = Files.readAllBytes(path);
+        String contentHash = IOUtils.sha256(content);
+        CachedModel cached = models.get(path);
+        if (cached == null || !cached.contentHash.equals(contentHash)) {
+            Logger.debug("Parsing " + path);
+            MetricsRegistry.get().counter(REQUESTS_METRIC, "pom.xml reads by cache result", "result", "miss").increment(1);
+            try (Phase phase = Phase.start(Phase.POM_PARSE)) {
+                phase.addBytes(content.length);
+                cached = new CachedModel(contentHash, new MavenXpp3Reader().read(new ByteArrayInputStream(content)));
+                phase.result(true);
+            }
+            if (models.size() >= MAX_ENTRIES) {
+                models.clear();
+            }
+            models.put(path, cached);
+        } else {
+            MetricsRegistry.get().counter(REQUESTS_METRIC, "pom.xml reads by cache result", "result", "hit").increment(1);
+        }
+        return cached.model.clone();
+    }
+}
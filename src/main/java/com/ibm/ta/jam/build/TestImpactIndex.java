@@ -0,0 +1,236 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of the classes referenced by each compiled test and application class, read from the constant pool of the
+ * class files. Used to select the tests that reference the classes changed by a migration step, directly or through
+ * other classes, so only those tests need to run. Classes are indexed by their top level class, references from
+ * nested and anonymous classes count for the class they are declared in.
+ */
+public class TestImpactIndex {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    /**
+     * Simple names of the classes Surefire and Gradle run as tests by default
+     */
+    private static final Pattern TEST_CLASS_NAME = Pattern.compile("Test.*|.*Test|.*Tests|.*TestCase");
+
+    /**
+     * Class types in field and method descriptors, signatures and annotations
+     */
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([\\w/$]+)[;<]");
+
+    /**
+     * Top level classes in the test and main class directories, mapped to the top level classes they reference
+     */
+    private final Map<String, Set<String>> references;
+
+    /**
+     * Top level classes in the test class directories
+     */
+    private final Set<String> testClasses;
+
+    private TestImpactIndex(Map<String, Set<String>> references, Set<String> testClasses) {
+        this.references = references;
+        this.testClasses = testClasses;
+    }
+
+    /**
+     * Build the index from the compiled test and main classes
+     * @param testClassesDirs the test class directories
+     * @param classesDirs the main class directories
+     * @return the index, empty if there are no compiled test classes
+     * @throws IOException if a class file cannot be read
+     */
+    public static TestImpactIndex build(List<Path> testClassesDirs, List<Path> classesDirs) throws IOException {
+        Map<String, Set<String>> references = new HashMap<>();
+        Set<String> testClasses = new HashSet<>();
+        for (Path testClassesDir : testClassesDirs) {
+            testClasses.addAll(index(testClassesDir, references));
+        }
+        for (Path classesDir : classesDirs) {
+            index(classesDir, references);
+        }
+        return new TestImpactIndex(references, testClasses);
+    }
+
+    /**
+     * Add the references of the classes in a class directory to the index
+     * @return names of the top level classes in the directory
+     */
+    private static Set<String> index(Path classesDir, Map<String, Set<String>> references) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> paths = Files.walk(classesDir)) {
+            classFiles = paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(CLASS_EXTENSION))
+                .collect(Collectors.toList());
+        }
+        Set<String> classNames = new HashSet<>();
+        for (Path classFile : classFiles) {
+            String relativePath = classesDir.relativize(classFile).toString();
+            String className = toTopLevelClass(relativePath.substring(0, relativePath.length() - CLASS_EXTENSION.length())
+                .replace(classFile.getFileSystem().getSeparator(), "."));
+            references.computeIfAbsent(className, name -> new HashSet<>()).addAll(getReferencedClasses(Files.readAllBytes(classFile)));
+            classNames.add(className);
+        }
+        return classNames;
+    }
+
+    public boolean isEmpty() {
+        return testClasses.isEmpty();
+    }
+
+    /**
+     * Select the tests impacted by changes to the given classes. A test is impacted if it references a changed class,
+     * or references another indexed class that does, directly or transitively, e.g. a shared test fixture or an
+     * application class that calls the changed class.
+     * @param changedClasses fully qualified names of the changed top level classes
+     * @return fully qualified names of the impacted test classes, in sorted order
+     */
+    public Set<String> selectTests(Collection<String> changedClasses) {
+        Map<String, Set<String>> referencedBy = new HashMap<>();
+        for (Map.Entry<String, Set<String>> indexedClass : references.entrySet()) {
+            for (String referencedClass : indexedClass.getValue()) {
+                referencedBy.computeIfAbsent(referencedClass, name -> new HashSet<>()).add(indexedClass.getKey());
+            }
+        }
+
+        Set<String> impacted = new HashSet<>(changedClasses);
+        Deque<String> toVisit = new ArrayDeque<>(changedClasses);
+        while (!toVisit.isEmpty()) {
+            for (String referencingClass : referencedBy.getOrDefault(toVisit.pop(), Collections.emptySet())) {
+                if (impacted.add(referencingClass)) {
+                    toVisit.push(referencingClass);
+                }
+            }
+        }
+
+        Set<String> tests = new TreeSet<>();
+        for (String className : impacted) {
+            if (testClasses.contains(className) && isTestClass(className)) {
+                tests.add(className);
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * Get the names of the top level classes declared in the changed sources
+     * @param sourceDirs Java source directories of the application
+     * @param changedSources absolute paths of the changed files
+     * @return fully qualified class names, or null if a changed file is not a Java source in a source directory,
+     * e.g. a pom.xml, server.xml or resource, as the tests impacted by such a change cannot be selected
+     */
+    public static Set<String> getChangedClasses(List<Path> sourceDirs, Collection<Path> changedSources) {
+        Set<String> changedClasses = new TreeSet<>();
+        for (Path changedSource : changedSources) {
+            String className = IncrementalCompiler.getClassName(sourceDirs, changedSource);
+            if (className == null) {
+                return null;
+            }
+            changedClasses.add(className);
+        }
+        return changedClasses;
+    }
+
+    /**
+     * Get the top level classes referenced from a class file, from the class entries and descriptors in its constant pool
+     */
+    static Set<String> getReferencedClasses(byte[] classBytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classBytes));
+        if (in.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        List<Integer> classNameIndexes = new ArrayList<>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNameIndexes.add(in.readUnsignedShort());
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        Set<String> classes = new HashSet<>();
+        for (int classNameIndex : classNameIndexes) {
+            String className = utf8[classNameIndex];
+            if (className != null && !className.startsWith("[")) {
+                classes.add(toTopLevelClass(className.replace('/', '.')));
+            }
+        }
+        for (String value : utf8) {
+            if (value != null && value.indexOf(';') > 0) {
+                Matcher matcher = DESCRIPTOR_CLASS.matcher(value);
+                while (matcher.find()) {
+                    classes.add(toTopLevelClass(matcher.group(1).replace('/', '.')));
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static String toTopLevelClass(String className) {
+        int nested = className.indexOf('$');
+        return nested < 0 ? className : className.substring(0, nested);
+    }
+
+    private static boolean isTestClass(String className) {
+        return TEST_CLASS_NAME.matcher(className.substring(className.lastIndexOf('.') + 1)).matches();
+    }
+}
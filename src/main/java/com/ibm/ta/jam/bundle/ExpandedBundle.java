@@ -39,11 +39,21 @@ public class ExpandedBundle {
 	 */
 	private String rewritePluginConfigPath;
 
+	/**
+	 * Full path to gradle rewrite plugin configuration (recipes.gradle)
+	 */
+	private String gradleRewritePluginConfigPath;
+
 	/**
 	 * Full path to the rewrite.yml
 	 */
 	private String rewriteYamlPath;
 
+	/**
+	 * Full path to the analysis metadata (metadata.json)
+	 */
+	private String metadataPath;
+
 	/**
 	 * Full path to the dependencies listed in the migration bundle
 	 */
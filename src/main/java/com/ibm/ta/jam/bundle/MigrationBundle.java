@@ -15,6 +15,7 @@ import java.util.zip.ZipInputStream;
 
 import org.tinylog.Logger;
 
+import com.ibm.ta.jam.instrument.Phase;
 import com.ibm.ta.jam.utils.IOUtils;
 
 /**
@@ -46,22 +47,25 @@ public class MigrationBundle {
 			throw new InvalidBundleException("Bundle does not exist or is a directory");
 		}
 		
-		try {
+		try (Phase phase = Phase.start(Phase.BUNDLE_EXTRACT)) {
 			InputStream inputStream = new FileInputStream(migrationBundleZip);
 			boolean isUploadFileZipFile = IOUtils.isUploadFileZipFile(inputStream);
 			if (!isUploadFileZipFile) {
+                phase.result(false);
                 throw new InvalidBundleException("Bundle is not a valid Transformation Advisor migration bundle zip file.");
 			}
 			
 			String expandTmpDir = Files.createTempDirectory("ta-").toFile().getAbsolutePath();
-			ExpandedBundle expandBundle = unzipBundle(migrationBundleZip.getAbsolutePath(), expandTmpDir);
+			ExpandedBundle expandBundle = unzipBundle(migrationBundleZip.getAbsolutePath(), expandTmpDir, phase);
 			if (expandBundle.getServerXmlPath() == null) {
                 expandBundle.cleanUpExpandedBundle();
+                phase.result(false);
                 throw new InvalidBundleException("Bundle does not contain a server.xml file.");
 			}
 
 			Logger.info("Bundle is valid.");
 			Logger.debug("Finish validate and unzip bundle");
+			phase.result(true);
 			return expandBundle;
 	    } catch (FileNotFoundException fnfe) {
             if (Logger.isDebugEnabled()) {
@@ -80,15 +84,18 @@ public class MigrationBundle {
 	 * Unzip the zip file to a given directory location
 	 * @param zipFilePath
 	 * @param destDir
+	 * @param phase counts the bytes extracted
 	 * @return
 	 * @throws IOException
 	 */
-	private static ExpandedBundle unzipBundle(String zipFilePath, String destDir) throws IOException {
+	private static ExpandedBundle unzipBundle(String zipFilePath, String destDir, Phase phase) throws IOException {
 		Logger.debug("Start unzipping bundle at " + zipFilePath);
 		ExpandedBundle expandedBundle = new ExpandedBundle();
 		String serverXmlPath = null;
 		String rewriteYamlPath = null;
 		String rewritePluginConfigPath = null;
+		String gradleRewritePluginConfigPath = null;
+		String metadataPath = null;
 		List<String> libDependencies = new ArrayList();
 
 		File dir = new File(destDir);
@@ -116,9 +123,15 @@ public class MigrationBundle {
 			if (fileName.endsWith("recipes.pom")) {
 				rewritePluginConfigPath = filePath;
 			}
+			if (fileName.endsWith("recipes.gradle")) {
+				gradleRewritePluginConfigPath = filePath;
+			}
 			if (fileName.endsWith("rewrite.yml")) {
 				rewriteYamlPath = filePath;
 			}
+			if (fileName.endsWith("metadata.json")) {
+				metadataPath = filePath;
+			}
 
 			File newFile = new File(filePath);
 			if (ze.isDirectory()) {
@@ -130,6 +143,7 @@ public class MigrationBundle {
 				int len;
 				while ((len = zis.read(buffer)) > 0) {
 					fos.write(buffer, 0, len);
+					phase.addBytes(len);
 				}
 				fos.close();
 			}
@@ -146,7 +160,9 @@ public class MigrationBundle {
 		expandedBundle.setServerXmlPath(serverXmlPath);
 		expandedBundle.setLibDependenciesPaths(libDependencies);
 		expandedBundle.setRewritePluginConfigPath(rewritePluginConfigPath);
+		expandedBundle.setGradleRewritePluginConfigPath(gradleRewritePluginConfigPath);
 		expandedBundle.setRewriteYamlPath(rewriteYamlPath);
+		expandedBundle.setMetadataPath(metadataPath);
 		
 		Logger.debug("Finish unzipping bundle at " + zipFilePath);
 		return expandedBundle;
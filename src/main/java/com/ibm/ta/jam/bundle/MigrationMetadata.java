@@ -0,0 +1,112 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Model of the analysis metadata (metadata.json) in the migration bundle. For each rule Transformation Advisor
+ * lists the files where the issue occurs, which lets recipes be scoped to just those files.
+ */
+public class MigrationMetadata {
+
+    private static final String CLASS_EXTN = ".class";
+    private static final String JAVA_EXTN = ".java";
+    private static final String CLASSES_DIR = "classes/";
+
+    /**
+     * metadata.json can be large for applications with many issues, allow more than the SnakeYAML default
+     */
+    private static final int MAX_METADATA_CODE_POINTS = 64 * 1024 * 1024;
+
+    /**
+     * Java sources affected by each rule, as paths relative to a source directory, keyed by rule id
+     */
+    private Map<String, Set<String>> sourcesByRule = new HashMap<>();
+
+    /**
+     * Create the MigrationMetadata by reading metadata.json
+     * @param metadataPath full path to metadata.json from the migration bundle
+     * @throws InvalidBundleException when metadata.json cannot be read
+     */
+    public MigrationMetadata(String metadataPath) throws InvalidBundleException {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(MAX_METADATA_CODE_POINTS);
+        try (InputStream in = Files.newInputStream(Path.of(metadataPath))) {
+            // JSON is a subset of YAML, so the YAML parser reads metadata.json as well
+            Map<String, Object> metadata = new Yaml(loaderOptions).load(in);
+            initialize(metadata);
+        } catch (IOException | RuntimeException e) {
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            throw new InvalidBundleException("Unable to read migration bundle metadata: " + metadataPath);
+        }
+    }
+
+    /**
+     * Get the Java sources where the rule for a recipe has occurrences. The rule id is matched against the simple name
+     * of the recipe, e.g. rule ServerName for recipe org.openrewrite.java.liberty.ServerName.
+     * @param recipe fully qualified name of the recipe
+     * @return paths of the affected sources relative to a source directory (e.g. com/acme/Foo.java), or null if the
+     * metadata has no Java occurrences for the recipe and it should run unscoped
+     */
+    public Set<String> getAffectedSources(String recipe) {
+        String ruleId = recipe.substring(recipe.lastIndexOf('.') + 1);
+        Set<String> sources = sourcesByRule.get(ruleId);
+        if (sources == null || sources.isEmpty()) {
+            return null;
+        }
+        return Collections.unmodifiableSet(sources);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initialize(Map<String, Object> metadata) {
+        for (Map<String, Object> target : (List<Map<String, Object>>)metadata.getOrDefault("targets", Collections.emptyList())) {
+            for (Map<String, Object> issue : (List<Map<String, Object>>)target.getOrDefault("issues", Collections.emptyList())) {
+                Set<String> sources = sourcesByRule.computeIfAbsent((String)issue.get("ruleId"), k -> new TreeSet<>());
+                for (Map<String, Object> artifact : (List<Map<String, Object>>)issue.getOrDefault("occurrences", Collections.emptyList())) {
+                    for (Map<String, Object> occurrence : (List<Map<String, Object>>)artifact.getOrDefault("occurrences", Collections.emptyList())) {
+                        String source = toSourcePath((String)occurrence.get("fileName"));
+                        if (source != null) {
+                            sources.add(source);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Map the name of a class in the analysed archive to the source that declares it, e.g.
+     * WEB-INF/classes/com/acme/Foo$Bar.class to com/acme/Foo.java
+     * @return the source path, or null if the file is not a class
+     */
+    static String toSourcePath(String fileName) {
+        if (fileName == null || !fileName.endsWith(CLASS_EXTN)) {
+            return null;
+        }
+        String className = fileName.substring(0, fileName.length() - CLASS_EXTN.length());
+        int classesDir = className.lastIndexOf(CLASSES_DIR);
+        if (classesDir >= 0) {
+            className = className.substring(classesDir + CLASSES_DIR.length());
+        }
+        int innerClass = className.indexOf('$', className.lastIndexOf('/') + 1);
+        if (innerClass >= 0) {
+            className = className.substring(0, innerClass);
+        }
+        return className + JAVA_EXTN;
+    }
+}
@@ -7,9 +7,16 @@ import static com.ibm.ta.jam.utils.AnsiConsts.ANSI_BLUE;
 import static com.ibm.ta.jam.utils.AnsiConsts.ANSI_GREEN;
 import static com.ibm.ta.jam.utils.AnsiConsts.ANSI_RESET;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 
 import org.tinylog.Logger;
 
@@ -17,12 +24,31 @@ import com.ibm.ta.jam.Jam;
 import com.ibm.ta.jam.InitializationException;
 import com.ibm.ta.jam.InvalidApplicationDirectoryException;
 import com.ibm.ta.jam.InvalidMigrationBundleException;
+import com.ibm.ta.jam.JamOptions;
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepGraph;
+import com.ibm.ta.jam.StepInputs;
+import com.ibm.ta.jam.SubsystemInitializationException;
+import com.ibm.ta.jam.build.GradleConnectionPool;
+import com.ibm.ta.jam.instrument.MetricsRegistry;
+import com.ibm.ta.jam.instrument.Span;
+import com.ibm.ta.jam.instrument.Tracer;
+import com.ibm.ta.jam.plan.FleetScheduler;
+import com.ibm.ta.jam.plan.InvalidPlanException;
+import com.ibm.ta.jam.plan.MigrationPlan;
+import com.ibm.ta.jam.plan.PlanResult;
+import com.ibm.ta.jam.plan.PlanRunner;
+import com.ibm.ta.jam.plan.ResourceBudget;
+import com.ibm.ta.jam.server.JamServer;
 import com.ibm.ta.jam.utils.MavenCoords;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
 
 /**
  * CLI to demonstrate the Jam API
@@ -33,184 +59,250 @@ import picocli.CommandLine.Parameters;
     "@|blue  | || _ \\ |\\/| | | || / _ \\| |\\/| | | || / _` | '_||@",
     "@|blue |___|___/_|  |_|  \\__/_/ \\_\\_|  |_|  \\__/\\__,_|_|  |@",
     "@|blue |@"})
-public class JamJarCli implements Runnable {
+public class JamJarCli implements Callable<Integer> {
 
-    @Option(names = {"-a", "--application-directory"}, paramLabel = "APPLICATION DIRECTORY", required = true, echo = true, description = "Location of application to migrate")
+    @Spec
+    private CommandSpec spec;
+
+    @Option(names = {"-a", "--application-directory"}, paramLabel = "APPLICATION DIRECTORY", echo = true, description = "Location of application to migrate")
     private String appDir;
 
-    @Option(names = {"-m", "--migration-bundle"}, paramLabel = "MIGRATION BUNDLE", required = true, echo = true, description = "Location of migration bundle from Transformation Advisor")
+    @Option(names = {"-m", "--migration-bundle"}, paramLabel = "MIGRATION BUNDLE", echo = true, description = "Location of migration bundle from Transformation Advisor")
     private String migrationBundle;
 
     @Option(names = {"-d", "--debug"}, defaultValue = "false", description = "Include debug information in the output")
     private static boolean debugMode;
 
+    @Option(names = {"--in-process-recipes"}, defaultValue = "false", description = "Run recipes inside the JAM JVM instead of forking the build tool")
+    private boolean inProcessRecipes;
+
+    @Option(names = {"--recipe-workers"}, paramLabel = "WORKERS", description = "Maximum number of modules to run recipes on concurrently, each in its own Maven build, when no module depends on another. Defaults to 1, a single build over the whole reactor")
+    private Integer recipeWorkers;
+
+    @Option(names = {"--recipe-run-log"}, paramLabel = "LOG FILE", description = "Append timings and change counts of each recipe run to this file as JSON lines")
+    private String recipeRunLog;
+
+    @Option(names = {"--test-impact"}, defaultValue = "false", description = "When a build runs tests after recipes, only run the tests that reference the changed sources")
+    private boolean testImpact;
+
+    @Option(names = {"--dry-run-patch"}, paramLabel = "PATCH FILE", description = "Write the changes recipes would make to this file as a unified diff, instead of changing the application")
+    private String dryRunPatch;
+
+    @Option(names = {"--plan"}, paramLabel = "PLAN FILE", description = "Migrate the applications in this YAML or JSON migration plan without prompting")
+    private String plan;
+
+    @Option(names = {"--plan-report"}, paramLabel = "REPORT FILE", description = "Write the result of each application in the migration plan to this file as JSON lines")
+    private String planReport;
+
+    @Option(names = {"--concurrent-apps"}, paramLabel = "APPS", defaultValue = "1", description = "Maximum number of applications in the migration plan to migrate concurrently. Builds are limited by a memory and CPU budget, see the jam.fleet system properties")
+    private int concurrentApps;
+
+    @Option(names = {"--serve"}, paramLabel = "PORT", description = "Run as a daemon serving the Jam API over HTTP on this localhost port, 0 picks a free port")
+    private Integer servePort;
+
+    @Option(names = {"--resume"}, defaultValue = "false", description = "Journal the steps run on each application and skip steps that completed in an earlier run, unless their inputs or the parts of the application they use have changed since")
+    private boolean resume;
+
+    @Option(names = {"--metrics"}, paramLabel = "METRICS FILE", description = "Write timings, counts and byte totals of bundle extraction, pom reads and writes, builds, recipe runs and file copies to this file at exit, as JSON if it ends with .json and in the Prometheus text format otherwise")
+    private String metricsFile;
+
+    @Option(names = {"--trace"}, paramLabel = "TRACE FILE", description = "Append spans of the session initialization, steps, build tool calls, bundle extraction and recipe runs to this file in the OTLP JSON format, for tracing UIs to load")
+    private String traceFile;
+
+    @Option(names = {"--jfr"}, paramLabel = "RECORDING DIRECTORY", description = "Record each Jam session with Java Flight Recorder, including JAM phase events, and write the recording to this directory when the session closes")
+    private String flightRecordingDir;
+
     @Option(names = { "-h", "--help", "-?", "-help"}, usageHelp = true, description = "Display this help and exit")
     private boolean helpRequested;
 
     @Option(names = { "-v", "--version"}, versionHelp = true, description = "Display the version")
     private boolean versionRequested;
 
+    // One scanner for all prompts, a scanner per prompt can buffer input meant for the next prompt
+    private final Scanner scanner = new Scanner(System.in);
+
     @Override
-    public void run() {
+    public Integer call() {
+        Span runSpan = startTracing();
+        try {
+            return migrate();
+        } finally {
+            // Sessions release their connections, this closes any a failed session left open
+            GradleConnectionPool.closeAll();
+            runSpan.close();
+            Tracer.get().flush();
+            writeMetrics();
+        }
+    }
+
+    /**
+     * Turn on tracing if a trace file is given. The spans of a run are grouped under one span, so the applications
+     * of a migration plan are in one trace. The daemon has no such span, each of its sessions is a trace.
+     */
+    private Span startTracing() {
+        if (traceFile == null) {
+            return Span.NOOP;
+        }
+        Tracer.get().enable(Path.of(traceFile));
+        if (servePort != null) {
+            return Span.NOOP;
+        }
+        Span runSpan = Tracer.get().startDetachedSpan(plan != null ? "JAM plan" : "JAM")
+            .setAttribute("jam.plan", plan);
+        Tracer.get().setDefaultParent(runSpan);
+        return runSpan;
+    }
+
+    private int migrate() {
+        JamOptions options = new JamOptions();
+        options.setDebugMode(debugMode);
+        options.setInProcessRecipes(inProcessRecipes);
+        if (recipeWorkers != null) {
+            options.setRecipeWorkers(recipeWorkers);
+        }
+        options.setRecipeRunLog(recipeRunLog);
+        options.setTestImpact(testImpact);
+        options.setFlightRecordingDir(flightRecordingDir);
+        options.setResume(resume);
+
+        if (plan != null) {
+            return runPlan(options);
+        }
+        if (servePort != null) {
+            return serve(options);
+        }
+        if (appDir == null || migrationBundle == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required options: --application-directory and --migration-bundle, --plan or --serve");
+        }
 
         //
         // Create Jam instance - checking for errors in the inputs
         //
         Jam jam;
         try {
-            jam = new Jam(appDir, migrationBundle, debugMode);
+            jam = new Jam(appDir, migrationBundle, options);
         } catch (InvalidApplicationDirectoryException ade) {
             Logger.error("Application directory specified is not valid");
-            return;
+            return 1;
         } catch (InvalidMigrationBundleException mbe) {
             Logger.error("Migration bundle specified is not valid");
-            return;
+            return 1;
         } catch (InitializationException ie) {
             Logger.error("Error occurred when initializing the auto migration. Enable debug mode and check logs");
-            return;
+            return 1;
         }
 
         int option = getUserOption();
         while (option != 0) {
 
-            if (option == 1 || option == 7) {
-                //
-                // Run a basic build to ensure all is OK before we make any changes
-                //
-                Logger.info("Running a basic build...");
-                boolean skipTests = false;
-                String skipTestsResp = promptUser("Skip tests when running build? [Y|N]", "Y");
-                if (skipTestsResp.toUpperCase().equals("Y")) {
-                    skipTests = true;
-                }
-                boolean buildSuccess = jam.runBasicBuild(skipTests);
-                if (buildSuccess) {
-                    Logger.info("Basic build succeeded");
-                } else {
-                    Logger.error("Basic build failed. Fix build before proceeding.");
+            try {
+                if (option == 1) {
+                    //
+                    // Run a basic build to ensure all is OK before we make any changes
+                    //
+                    Logger.info("Running a basic build...");
+                    boolean buildSuccess = jam.runBasicBuild(promptSkipTests());
+                    if (buildSuccess) {
+                        Logger.info("Basic build succeeded");
+                    } else {
+                        Logger.error("Basic build failed. Fix build before proceeding.");
+                    }
                 }
-            }
 
             
-            if (option == 2 || option == 7) {
-                //
-                // Add server.xml config
-                //
-                Logger.info("Adding server.xml from migration bundle...");
-                boolean addServerXmlOK = jam.addLibertyServerConfigToApplication();
-                if (addServerXmlOK) {
-                    Logger.info("server.xml successfully added to application");
-                }
-            }
-
-            if (option == 3 || option == 7) {
-                //
-                // Add dependencies to application
-                //
-                Logger.info("Checking for required dependencies");
-                List<MavenCoords> remoteDependencies = new ArrayList<>();
-                List<String> localDependencies = new ArrayList<>();
-                List<String> placeholderDependencies = new ArrayList<>();
-                List<String> libDependencies = jam.getAllLibDependencies();
-                for (String dep : libDependencies) {
-                    System.out.print("Found dependency: ");
-                    System.out.print(ANSI_GREEN);
-                    System.out.println(dep);
-                    System.out.print(ANSI_RESET);
-                    String locationOrCoords = promptUser(
-                        "Specify maven coordinates OR a path to the local file OR skip\n" +
-                        "Skipping this step may result in application not starting.\n" +
-                        "[M(Maven coordinates) | L(Local path) | S(Skip)]",
-                        "L");
-                    if (locationOrCoords.equals("S")) {
-                        Logger.warn("Skipping adding dependency " + dep + ". Application may fail to start or function");
-                        placeholderDependencies.add(dep);
-                    } else if (locationOrCoords.equals("M")) {
-                        String artifactId = promptUser("artifactId: ", "");
-                        String groupId = promptUser("groupId: ", "");
-                        String version = promptUser("version: ", "");
-
-                        MavenCoords coords = new MavenCoords(artifactId, groupId, version);
-                        remoteDependencies.add(coords);
-                    } else if (locationOrCoords.equals("L")) {
-                        String location = promptUser("Enter location of " + dep + ": ", "");
-                        localDependencies.add(location);
+                if (option == 2) {
+                    //
+                    // Add server.xml config
+                    //
+                    Logger.info("Adding server.xml from migration bundle...");
+                    boolean addServerXmlOK = jam.addLibertyServerConfigToApplication();
+                    if (addServerXmlOK) {
+                        Logger.info("server.xml successfully added to application");
                     }
                 }
-                if (remoteDependencies.size() > 0) {
-                    if (!jam.addRemoteDependenciesToApplication(remoteDependencies)) {
-                        Logger.error("Failed to add remote dependencies to application");
-                    } else {
-                        Logger.info("Sucessfully added remote dependencies to application");
-                    }
-                }
-                if (localDependencies.size() > 0) {
-                    if (!jam.addLocalDependenciesToApplication(localDependencies)) {
-                        Logger.error("Failed to add local dependencies to application");
-                    } else {
-                        Logger.info("Sucessfully added local dependencies to application");
+
+                if (option == 3) {
+                    //
+                    // Add dependencies to application
+                    //
+                    StepInputs inputs = new StepInputs();
+                    promptDependencies(jam, inputs);
+                    if (jam.runStep(MigrationStep.DEPENDENCIES, inputs)) {
+                        Logger.info("Sucessfully added dependencies to application");
                     }
                 }
-                if (placeholderDependencies.size() > 0) {
-                    if (!jam.addPlaceholderDependenciesToApplication(localDependencies)) {
-                        Logger.error("Failed to add placeholders for dependencies to application");
+            
+                if (option == 4) {
+                    //
+                    // Run recipes
+                    //
+                    Logger.info("Running recipes to fix code issues");
+                    StepInputs inputs = new StepInputs();
+                    promptRecipes(jam, inputs);
+                    List<MigrationStep> steps = dryRunPatch != null ? Arrays.asList(MigrationStep.RECIPES)
+                        : Arrays.asList(MigrationStep.RECIPES, MigrationStep.COMPILE);
+                    Map<MigrationStep, StepGraph.Status> statuses = runSteps(jam, steps, inputs);
+                    if (statuses == null || statuses.get(MigrationStep.RECIPES) != StepGraph.Status.SUCCEEDED) {
+                        Logger.error("There was an error running recipes. Review logs.");
+                    } else if (dryRunPatch != null) {
+                        Logger.info("Changes recipes would make written to " + dryRunPatch);
+                    } else if (statuses.get(MigrationStep.COMPILE) != StepGraph.Status.SUCCEEDED) {
+                        Logger.error("Sources changed by recipes do not compile. Review logs.");
                     } else {
-                        Logger.info("Sucessfully added placeholder dependencies to application");
+                        Logger.info("Recipe running has finished successfully.");
                     }
                 }
-            }
             
-            if (option == 4 || option == 7) {
-                //
-                // Run recipes
-                //
-                Logger.info("Running recipes to fix code issues");
-
-                boolean recipeSuccess = false;
-                List<String> recipes = jam.getAllAvailableRecipes();
-                System.out.println("The following recipes are available to fix migration issues: ");
-                System.out.print(ANSI_GREEN);
-                for (String recipe : recipes) {
-                    System.out.println(recipe);
-                }
-                System.out.print(ANSI_RESET);
-                String resp = promptUser("Run all recipes, or select a recipe: [A(All) | S(Select)]", "A");
-                if (resp.toUpperCase().equals("A")) {
-                    recipeSuccess = jam.runAllRecipes();
-                } else {
-                    String recipe = promptUser("Enter recipe to run: ", "");
-                    List<String> userRecipes = Arrays.asList(recipe);
-                    recipeSuccess = jam.runRecipes(userRecipes);
+                if (option == 5) {
+                    //
+                    // Add liberty dev plugin
+                    //
+                    Logger.info("Adding liberty dev plugin");
+                    boolean libPluginAdded = jam.addLibertyDevPlugin();
+                    if (libPluginAdded) {
+                        Logger.info("Liberty Dev plugin added");
+                    }
                 }
 
-                if (recipeSuccess) {
-                    Logger.info("Recipe running has finished successfully.");
-                } else {
-                    Logger.error("There was an error running recipes. Review logs.");
-                }
-            }
-            
-            if (option == 5 || option == 7) {
-                //
-                // Add liberty dev plugin
-                //
-                Logger.info("Adding liberty dev plugin");
-                boolean libPluginAdded = jam.addLibertyDevPlugin();
-                if (libPluginAdded) {
-                    Logger.info("Liberty Dev plugin added");
+                if (option == 6) {
+                    //
+                    // Run liberty dev mode
+                    // Note: if run here will have to quit in order to proceed and run the recipes. OR run in bg, but don't get the term.
+                    //
+                    Logger.info("Running Liberty Dev mode");
+                    boolean devModeSucceeded = jam.runLibertyDevMode();
+                    if (devModeSucceeded) {
+                        Logger.info("Liberty Dev mode finished");
+                    }
                 }
-            }
 
-            if (option == 6 || option == 17) {
-                //
-                // Run liberty dev mode
-                // Note: if run here will have to quit in order to proceed and run the recipes. OR run in bg, but don't get the term.
-                //
-                Logger.info("Running Liberty Dev mode");
-                boolean devModeSucceeded = jam.runLibertyDevMode();
-                if (devModeSucceeded) {
-                    Logger.info("Liberty Dev mode finished");
+                if (option == 7) {
+                    //
+                    // Gather all answers up front, then run the steps, independent steps at the same time
+                    //
+                    StepInputs inputs = new StepInputs();
+                    inputs.setSkipTests(promptSkipTests());
+                    promptDependencies(jam, inputs);
+                    promptRecipes(jam, inputs);
+                    List<MigrationStep> steps = new ArrayList<>(Arrays.asList(MigrationStep.BUILD, MigrationStep.SERVER_CONFIG,
+                        MigrationStep.DEPENDENCIES, MigrationStep.RECIPES, MigrationStep.LIBERTY_PLUGIN));
+                    if (dryRunPatch == null) {
+                        steps.add(MigrationStep.COMPILE);
+                    }
+                    Map<MigrationStep, StepGraph.Status> statuses = runSteps(jam, steps, inputs);
+                    if (statuses != null) {
+                        for (Map.Entry<MigrationStep, StepGraph.Status> status : statuses.entrySet()) {
+                            if (status.getValue() == StepGraph.Status.SUCCEEDED) {
+                                Logger.info("Step " + status.getKey().getName() + ": " + status.getValue());
+                            } else {
+                                Logger.error("Step " + status.getKey().getName() + ": " + status.getValue() + ". Review logs.");
+                            }
+                        }
+                    }
                 }
+            } catch (SubsystemInitializationException sie) {
+                // Parts of the migration are initialized on first use, so a broken bundle or build only fails the options that need it
+                Logger.error(sie.getMessage() + ". Enable debug mode and check logs");
             }
 
             option = getUserOption();
@@ -224,6 +316,175 @@ public class JamJarCli implements Runnable {
         jam.close();
 
         Logger.info("Exiting");
+        return 0;
+    }
+
+    /**
+     * Migrate the applications in the plan without prompting
+     * @return 0 if all applications were migrated successfully, 1 otherwise
+     */
+    private int runPlan(JamOptions options) {
+        Jam.configureLogging(debugMode);
+        MigrationPlan migrationPlan;
+        try {
+            migrationPlan = new MigrationPlan(plan);
+        } catch (InvalidPlanException e) {
+            Logger.error(e.getMessage());
+            return 1;
+        }
+
+        List<PlanResult> results = concurrentApps > 1
+            ? new FleetScheduler(options, ResourceBudget.forHost(), concurrentApps).run(migrationPlan)
+            : new PlanRunner(options).run(migrationPlan);
+        long failed = results.stream().filter(result -> !result.isSuccessful()).count();
+        Logger.info("Migrated " + (results.size() - failed) + " of " + results.size() + " applications successfully");
+        for (PlanResult result : results) {
+            if (result.isSuccessful()) {
+                Logger.info(result);
+            } else {
+                Logger.error(result);
+            }
+        }
+
+        if (planReport != null) {
+            try (Writer report = Files.newBufferedWriter(Path.of(planReport), StandardCharsets.UTF_8)) {
+                for (PlanResult result : results) {
+                    report.write(result.toJson());
+                    report.write(System.lineSeparator());
+                }
+            } catch (IOException e) {
+                Logger.error("Unable to write plan report " + planReport);
+                if (Logger.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+                return 1;
+            }
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * Host Jam sessions in this JVM until the daemon is shut down
+     * @return 0 when the daemon has stopped, 1 if it cannot start
+     */
+    private int serve(JamOptions options) {
+        Jam.configureLogging(debugMode);
+        JamServer server;
+        try {
+            server = new JamServer(servePort, options);
+        } catch (IOException e) {
+            Logger.error("Unable to listen on port " + servePort + ": " + e.getMessage());
+            return 1;
+        }
+        // Close the sessions, removing their unzipped bundles, when the daemon is interrupted
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "jam-server-close"));
+        server.start();
+        try {
+            server.awaitStop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+        }
+        Logger.info("JAM daemon stopped");
+        return 0;
+    }
+
+    private void writeMetrics() {
+        if (metricsFile == null) {
+            return;
+        }
+        try {
+            MetricsRegistry.get().writeTo(Path.of(metricsFile));
+        } catch (IOException e) {
+            Logger.error("Unable to write metrics file " + metricsFile);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private boolean promptSkipTests() {
+        String skipTestsResp = promptUser("Skip tests when running build? [Y|N]", "Y");
+        return skipTestsResp.toUpperCase().equals("Y");
+    }
+
+    /**
+     * Ask for a resolution of each dependency of the application, and add them to the inputs
+     */
+    private void promptDependencies(Jam jam, StepInputs inputs) {
+        Logger.info("Checking for required dependencies");
+        List<String> placeholderDependencies = new ArrayList<>();
+        List<String> libDependencies = jam.getAllLibDependencies();
+        for (String dep : libDependencies) {
+            System.out.print("Found dependency: ");
+            System.out.print(ANSI_GREEN);
+            System.out.println(dep);
+            System.out.print(ANSI_RESET);
+            String locationOrCoords = promptUser(
+                "Specify maven coordinates OR a path to the local file OR skip\n" +
+                "Skipping this step may result in application not starting.\n" +
+                "[M(Maven coordinates) | L(Local path) | S(Skip)]",
+                "L");
+            if (locationOrCoords.equals("S")) {
+                Logger.warn("Skipping adding dependency " + dep + ". Application may fail to start or function");
+                placeholderDependencies.add(dep);
+            } else if (locationOrCoords.equals("M")) {
+                String artifactId = promptUser("artifactId: ", "");
+                String groupId = promptUser("groupId: ", "");
+                String version = promptUser("version: ", "");
+
+                MavenCoords coords = new MavenCoords(artifactId, groupId, version);
+                inputs.getRemoteDependencies().add(coords);
+            } else if (locationOrCoords.equals("L")) {
+                String location = promptUser("Enter location of " + dep + ": ", "");
+                inputs.getLocalDependencies().add(location);
+            }
+        }
+        if (placeholderDependencies.size() > 0) {
+            if (!jam.addPlaceholderDependenciesToApplication(placeholderDependencies)) {
+                Logger.error("Failed to add placeholders for dependencies to application");
+            } else {
+                Logger.info("Sucessfully added placeholder dependencies to application");
+            }
+        }
+    }
+
+    /**
+     * Ask which recipes to run, and add them to the inputs
+     */
+    private void promptRecipes(Jam jam, StepInputs inputs) {
+        List<String> recipes = jam.getAllAvailableRecipes();
+        System.out.println("The following recipes are available to fix migration issues: ");
+        System.out.print(ANSI_GREEN);
+        for (String recipe : recipes) {
+            System.out.println(recipe);
+        }
+        System.out.print(ANSI_RESET);
+        String resp = promptUser("Run all recipes, or select a recipe: [A(All) | S(Select)]", "A");
+        if (!resp.toUpperCase().equals("A")) {
+            String recipe = promptUser("Enter recipe to run: ", "");
+            inputs.setRecipes(Arrays.asList(recipe));
+        }
+    }
+
+    /**
+     * Run the steps, writing the patch of a recipe dry run when --dry-run-patch is given
+     * @return the status of each step, or null if the patch file cannot be written
+     */
+    private Map<MigrationStep, StepGraph.Status> runSteps(Jam jam, List<MigrationStep> steps, StepInputs inputs) {
+        if (dryRunPatch == null || !steps.contains(MigrationStep.RECIPES)) {
+            return jam.runSteps(steps, inputs);
+        }
+        try (Writer patch = Files.newBufferedWriter(Path.of(dryRunPatch), StandardCharsets.UTF_8)) {
+            inputs.setDryRunPatch(patch);
+            return jam.runSteps(steps, inputs);
+        } catch (IOException e) {
+            Logger.error("Unable to write patch file " + dryRunPatch);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return null;
+        }
     }
     
     private String promptUser(String prompt, String defaultValue) {
@@ -236,7 +497,6 @@ public class JamJarCli implements Runnable {
         System.out.print(ANSI_BLUE);
 		System.out.print(fullPrompt);
         System.out.print(ANSI_RESET);
-		Scanner scanner = new Scanner(System.in);
 		String response = scanner.nextLine();
 
         if (defaultGiven && (response.isBlank() || response.isEmpty())) {
@@ -261,7 +521,6 @@ public class JamJarCli implements Runnable {
         System.out.println("Q - Quit");
         System.out.println(ANSI_RESET);
 
-        Scanner scanner = new Scanner(System.in);
         String response = scanner.nextLine();
         if (response.isBlank() || response.isEmpty()) {
             return getUserOption();
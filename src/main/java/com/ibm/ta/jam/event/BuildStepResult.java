@@ -0,0 +1,36 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * Result of a build step, the payload of its finished or failed event
+ */
+@Getter
+public class BuildStepResult {
+
+    private final boolean successful;
+
+    private final boolean skipTests;
+
+    /**
+     * Tests selected by test impact analysis, or null if tests were skipped or all tests ran
+     */
+    private final Set<String> impactedTests;
+
+    /**
+     * Duration in milliseconds of each task of the build, by task path, empty if the build tool does not report tasks
+     */
+    private final Map<String, Long> taskDurations;
+
+    public BuildStepResult(boolean successful, boolean skipTests, Set<String> impactedTests, Map<String, Long> taskDurations) {
+        this.successful = successful;
+        this.skipTests = skipTests;
+        this.impactedTests = impactedTests != null ? Collections.unmodifiableSet(impactedTests) : null;
+        this.taskDurations = Collections.unmodifiableMap(taskDurations);
+    }
+}
@@ -0,0 +1,31 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.ta.jam.utils.MavenCoords;
+
+import lombok.Getter;
+
+/**
+ * Dependencies added to the application by a dependencies step, the payload of its progress and finished events
+ */
+@Getter
+public class DependencyChange {
+
+    /**
+     * Maven coordinates added to the build configuration
+     */
+    private final List<MavenCoords> remoteDependencies;
+
+    /**
+     * Local files copied into the application and added to the build configuration
+     */
+    private final List<String> localDependencies;
+
+    public DependencyChange(List<MavenCoords> remoteDependencies, List<String> localDependencies) {
+        this.remoteDependencies = Collections.unmodifiableList(remoteDependencies);
+        this.localDependencies = Collections.unmodifiableList(localDependencies);
+    }
+}
@@ -0,0 +1,75 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+import com.ibm.ta.jam.MigrationStep;
+
+import lombok.Getter;
+
+/**
+ * Progress of a migration step run by {@link com.ibm.ta.jam.Jam#runStep}
+ */
+@Getter
+public class JamEvent {
+
+    public enum Type {
+        STEP_STARTED,
+        /**
+         * Part of a step is done, e.g. the remote dependencies were added
+         */
+        STEP_PROGRESS,
+        STEP_FINISHED,
+        /**
+         * The step was not successful or threw an exception
+         */
+        STEP_FAILED
+    }
+
+    private final Type type;
+
+    /**
+     * Application directory of the Jam session the step ran on
+     */
+    private final String applicationDir;
+
+    private final MigrationStep step;
+
+    private final long timeMillis = System.currentTimeMillis();
+
+    /**
+     * Time since the step started, or 0 for STEP_STARTED events
+     */
+    private final long durationMillis;
+
+    /**
+     * What happened, or null
+     */
+    private final String message;
+
+    /**
+     * Result of the step, or null. A {@link BuildStepResult} for builds, a
+     * {@link com.ibm.ta.jam.recipe.RecipeRunResult} for recipes and a {@link DependencyChange} for dependencies.
+     */
+    private final Object payload;
+
+    public JamEvent(Type type, String applicationDir, MigrationStep step, long durationMillis, String message, Object payload) {
+        this.type = type;
+        this.applicationDir = applicationDir;
+        this.step = step;
+        this.durationMillis = durationMillis;
+        this.message = message;
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(type.name()).append(' ').append(step.getName())
+            .append(" for ").append(applicationDir);
+        if (type != Type.STEP_STARTED) {
+            summary.append(" after ").append(durationMillis).append("ms");
+        }
+        if (message != null) {
+            summary.append(" - ").append(message);
+        }
+        return summary.toString();
+    }
+}
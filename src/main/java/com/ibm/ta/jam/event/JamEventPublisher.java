@@ -0,0 +1,57 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+import org.tinylog.Logger;
+
+/**
+ * Publishes Jam events as a {@link Flow.Publisher}, for consumers that react to progress asynchronously. Add it to
+ * one or more Jam sessions with {@link com.ibm.ta.jam.Jam#addListener}. Events are delivered to each subscriber on
+ * the executor, so a slow subscriber never holds up a step. Events for a subscriber whose buffer is full are
+ * dropped rather than waited for.
+ */
+public class JamEventPublisher implements JamListener, Flow.Publisher<JamEvent>, AutoCloseable {
+
+    private final SubmissionPublisher<JamEvent> publisher;
+
+    /**
+     * Create a JamEventPublisher delivering on the common pool with the default buffer
+     */
+    public JamEventPublisher() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * Create a JamEventPublisher
+     * @param executor delivers events to subscribers
+     * @param bufferSize maximum number of events buffered for each subscriber
+     */
+    public JamEventPublisher(Executor executor, int bufferSize) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    @Override
+    public void onEvent(JamEvent event) {
+        publisher.offer(event, (subscriber, dropped) -> {
+            Logger.warn("Event subscriber is not keeping up, dropped event: " + dropped);
+            return false;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super JamEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Complete the subscriptions once the buffered events are delivered
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,13 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+/**
+ * Receives the events of the migration steps a Jam runs. Steps can run at the same time, so events can arrive on
+ * several threads at once. Events are delivered on the thread running the step, so listeners should return quickly,
+ * or hand events to a {@link JamEventPublisher}.
+ */
+@FunctionalInterface
+public interface JamListener {
+
+    void onEvent(JamEvent event);
+}
@@ -0,0 +1,265 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.ibm.ta.jam.utils.JsonUtils;
+
+/**
+ * Counters and histograms recorded by JAM, exported in the Prometheus text format or as JSON. Metrics are JVM wide,
+ * so a migration plan or the daemon adds up all of its Jam sessions. Recording only updates adders and atomic
+ * bucket counts, so it is cheap enough for every call on a hot path.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    /**
+     * Upper bounds in seconds of the duration buckets, from single file operations to long builds
+     */
+    public static final double[] DURATION_BUCKETS = {0.005, 0.025, 0.1, 0.5, 1, 5, 15, 60, 300, 1200};
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final Map<String, String> help = new ConcurrentHashMap<>();
+
+    /**
+     * Get the registry JAM records its metrics in
+     */
+    public static MetricsRegistry get() {
+        return GLOBAL;
+    }
+
+    /**
+     * Get a counter, creating it on first use
+     * @param name metric name
+     * @param description what the metric counts
+     * @param labels label names and values, alternating
+     * @return the counter
+     */
+    public Counter counter(String name, String description, String... labels) {
+        help.putIfAbsent(name, description);
+        return counters.computeIfAbsent(key(name, labels), key -> new Counter(name, labels));
+    }
+
+    /**
+     * Get a histogram, creating it on first use
+     * @param name metric name
+     * @param description what the metric measures
+     * @param buckets upper bounds of the buckets, in increasing order
+     * @param labels label names and values, alternating
+     * @return the histogram
+     */
+    public Histogram histogram(String name, String description, double[] buckets, String... labels) {
+        help.putIfAbsent(name, description);
+        return histograms.computeIfAbsent(key(name, labels), key -> new Histogram(name, labels, buckets));
+    }
+
+    /**
+     * Remove all metrics
+     */
+    public void clear() {
+        counters.clear();
+        histograms.clear();
+        help.clear();
+    }
+
+    private static String key(String name, String[] labels) {
+        return name + formatLabels(labels, null, null);
+    }
+
+    /**
+     * Format labels as {name="value",...}, with an optional extra label, or an empty string if there are none
+     */
+    private static String formatLabels(String[] labels, String extraName, String extraValue) {
+        if (labels.length == 0 && extraName == null) {
+            return "";
+        }
+        StringBuilder formatted = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) {
+                formatted.append(',');
+            }
+            formatted.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+        }
+        if (extraName != null) {
+            if (labels.length > 0) {
+                formatted.append(',');
+            }
+            formatted.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+        return formatted.append('}').toString();
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? String.valueOf((long)bound) : String.valueOf(bound);
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        String lastName = null;
+        for (Counter counter : new TreeMap<>(counters).values()) {
+            if (!counter.name.equals(lastName)) {
+                appendHeader(text, counter.name, "counter");
+                lastName = counter.name;
+            }
+            text.append(counter.name).append(formatLabels(counter.labels, null, null)).append(' ').append(counter.get()).append('\n');
+        }
+        for (Histogram histogram : new TreeMap<>(histograms).values()) {
+            if (!histogram.name.equals(lastName)) {
+                appendHeader(text, histogram.name, "histogram");
+                lastName = histogram.name;
+            }
+            long cumulative = 0;
+            for (int i = 0; i < histogram.buckets.length; i++) {
+                cumulative += histogram.bucketCounts.get(i);
+                text.append(histogram.name).append("_bucket")
+                    .append(formatLabels(histogram.labels, "le", formatBound(histogram.buckets[i])))
+                    .append(' ').append(cumulative).append('\n');
+            }
+            long count = histogram.getCount();
+            text.append(histogram.name).append("_bucket").append(formatLabels(histogram.labels, "le", "+Inf")).append(' ').append(count).append('\n');
+            text.append(histogram.name).append("_sum").append(formatLabels(histogram.labels, null, null)).append(' ').append(histogram.getSum()).append('\n');
+            text.append(histogram.name).append("_count").append(formatLabels(histogram.labels, null, null)).append(' ').append(count).append('\n');
+        }
+        return text.toString();
+    }
+
+    private void appendHeader(StringBuilder text, String name, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help.getOrDefault(name, name)).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Write the metrics as a single JSON document
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":[");
+        boolean first = true;
+        for (Counter counter : new TreeMap<>(counters).values()) {
+            json.append(first ? "" : ",").append("{\"name\":").append(JsonUtils.quote(counter.name))
+                .append(",\"labels\":").append(labelsToJson(counter.labels))
+                .append(",\"value\":").append(counter.get()).append('}');
+            first = false;
+        }
+        json.append("],\"histograms\":[");
+        first = true;
+        for (Histogram histogram : new TreeMap<>(histograms).values()) {
+            json.append(first ? "" : ",").append("{\"name\":").append(JsonUtils.quote(histogram.name))
+                .append(",\"labels\":").append(labelsToJson(histogram.labels))
+                .append(",\"count\":").append(histogram.getCount())
+                .append(",\"sum\":").append(histogram.getSum())
+                .append(",\"buckets\":{");
+            for (int i = 0; i < histogram.buckets.length; i++) {
+                json.append(i > 0 ? "," : "").append(JsonUtils.quote(formatBound(histogram.buckets[i])))
+                    .append(':').append(histogram.bucketCounts.get(i));
+            }
+            json.append("}}");
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String labelsToJson(String[] labels) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            json.append(i > 0 ? "," : "").append(JsonUtils.quote(labels[i])).append(':').append(JsonUtils.quote(labels[i + 1]));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Write the metrics to a file, as JSON if the file name ends with .json and in the Prometheus text format
+     * otherwise, e.g. for the node exporter textfile collector
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        String content = file.getFileName().toString().endsWith(".json") ? toJson() : toPrometheus();
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Monotonic count of events or amounts, e.g. bytes copied
+     */
+    public static class Counter {
+        private final String name;
+        private final String[] labels;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String[] labels) {
+            this.name = name;
+            this.labels = labels.clone();
+        }
+
+        public void increment(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Distribution of observed values, e.g. durations, in fixed buckets
+     */
+    public static class Histogram {
+        private final String name;
+        private final String[] labels;
+        private final double[] buckets;
+        /**
+         * Observations in each bucket, not cumulative, values above the last bound are only in the count
+         */
+        private final AtomicLongArray bucketCounts;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(String name, String[] labels, double[] buckets) {
+            this.name = name;
+            this.labels = labels.clone();
+            this.buckets = buckets.clone();
+            this.bucketCounts = new AtomicLongArray(buckets.length);
+        }
+
+        public void observe(double value) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (value <= buckets[i]) {
+                    bucketCounts.incrementAndGet(i);
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+    }
+}
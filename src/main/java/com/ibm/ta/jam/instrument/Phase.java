@@ -0,0 +1,162 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+/**
+ * Timed unit of work on one of JAM's hot paths, such as a Maven invocation or a pom write. Closing the phase records
+ * its duration and outcome in the MetricsRegistry:
+ * <pre>
+ * try (Phase phase = Phase.start(Phase.MAVEN_INVOCATION)) {
+ *     return phase.result(invoker.execute(request).getExitCode() == 0);
+ * }
+ * </pre>
+ * A phase closed without a result, e.g. because an exception was thrown, is recorded with the error outcome.
+ * When tracing is on, each phase is also a span named after the phase, and when Java Flight Recorder is recording,
+ * a {@link PhaseEvent} for the application set with {@link #forApplication(String)}.
+ */
+public class Phase implements AutoCloseable {
+
+    public static final String BUNDLE_EXTRACT = "bundle_extract";
+    public static final String POM_PARSE = "pom_parse";
+    public static final String POM_WRITE = "pom_write";
+    public static final String MAVEN_INVOCATION = "maven_invocation";
+    public static final String GRADLE_INVOCATION = "gradle_invocation";
+    public static final String RECIPE_RUN = "recipe_run";
+    public static final String DEPENDENCY_COPY = "dependency_copy";
+    public static final String BACKUP = "backup";
+
+    public static final String DURATION_METRIC = "jam_phase_duration_seconds";
+    public static final String BYTES_METRIC = "jam_phase_bytes_total";
+
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String ERROR = "error";
+
+    private final String name;
+
+    private final long startNanos = System.nanoTime();
+
+    private final Span span;
+
+    private final PhaseEvent event = new PhaseEvent();
+
+    /**
+     * Directory of the application the phases started on this thread work on
+     */
+    private static final ThreadLocal<String> applicationDir = new ThreadLocal<>();
+
+    private String outcome = ERROR;
+
+    private long bytes;
+
+    private Phase(String name) {
+        this.name = name;
+        this.span = Tracer.get().startSpan(name);
+        event.begin();
+    }
+
+    /**
+     * Start timing a phase
+     * @param name name of the phase, one of the constants of this class
+     * @return the running phase, close it when the work is done
+     */
+    public static Phase start(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Set the application that phases started on this thread work on, until the returned scope is closed
+     * @param dir the application directory
+     */
+    public static ApplicationScope forApplication(String dir) {
+        ApplicationScope scope = new ApplicationScope(applicationDir.get());
+        applicationDir.set(dir);
+        return scope;
+    }
+
+    /**
+     * Wrap a task so its phases are for this thread's application and its spans are children of this thread's
+     * current span, on whichever thread runs it
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        String dir = applicationDir.get();
+        Callable<T> traced = Tracer.get().propagate(task);
+        return () -> {
+            try (ApplicationScope scope = forApplication(dir)) {
+                return traced.call();
+            }
+        };
+    }
+
+    /**
+     * Restores the application of the thread when closed
+     */
+    public static class ApplicationScope implements AutoCloseable {
+        private final String previous;
+
+        private ApplicationScope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            applicationDir.set(previous);
+        }
+    }
+
+    /**
+     * Record the outcome of the phase
+     * @param successful true if the work succeeded
+     * @return successful, so the result can be returned directly
+     */
+    public boolean result(boolean successful) {
+        outcome = successful ? SUCCESS : FAILURE;
+        return successful;
+    }
+
+    /**
+     * Count bytes read or written by the phase
+     */
+    public void addBytes(long count) {
+        bytes += count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the span of the phase, to add attributes or child spans
+     */
+    public Span getSpan() {
+        return span;
+    }
+
+    @Override
+    public void close() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        MetricsRegistry metrics = MetricsRegistry.get();
+        metrics.histogram(DURATION_METRIC, "Duration of JAM phases", MetricsRegistry.DURATION_BUCKETS,
+            "phase", name, "outcome", outcome).observe(seconds);
+        if (bytes > 0) {
+            metrics.counter(BYTES_METRIC, "Bytes copied or extracted by JAM phases", "phase", name).increment(bytes);
+            span.setAttribute("jam.bytes", bytes);
+        }
+        if (!outcome.equals(SUCCESS)) {
+            span.setError(outcome);
+        }
+        span.close();
+        event.end();
+        if (event.shouldCommit()) {
+            String dir = applicationDir.get();
+            event.phase = name;
+            event.application = dir != null ? new File(dir).getName() : null;
+            event.applicationDir = dir;
+            event.bytes = bytes;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
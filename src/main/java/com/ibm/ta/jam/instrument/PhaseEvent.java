@@ -0,0 +1,40 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a {@link Phase}, so JAM's own work shows on the same timeline as GC, I/O and the
+ * threads of the JVM. The event duration is the duration of the phase.
+ */
+@Name("com.ibm.ta.jam.Phase")
+@Label("JAM Phase")
+@Category("JAM")
+@Description("Bundle extraction, pom read or write, build invocation, recipe run or file copy")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Application")
+    @Description("Name of the application directory")
+    String application;
+
+    @Label("Application Directory")
+    String applicationDir;
+
+    @Label("Bytes")
+    @Description("Bytes read, written or extracted by the phase")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+}
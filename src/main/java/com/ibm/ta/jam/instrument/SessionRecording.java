@@ -0,0 +1,94 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.utils.IOUtils;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Java Flight Recorder recording of one Jam session, written to a file when the session closes. Uses the default
+ * JFR settings, which are meant for continuous use in production, with the JAM phase events enabled.
+ */
+public class SessionRecording implements AutoCloseable {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final int PATH_HASH_LENGTH = 8;
+
+    private final Recording recording;
+
+    private final Path file;
+
+    private SessionRecording(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    /**
+     * Start recording a session
+     * @param directory directory the recording is written to, as {application}-{path hash}-{timestamp}-{id}.jfr.
+     * The hash of the application path tells apart applications in directories of the same name, and the recording
+     * id sessions of the same application started in the same second.
+     * @param applicationDir directory of the application the session migrates
+     * @return the recording, or null if it cannot be started
+     */
+    public static SessionRecording start(Path directory, Path applicationDir) {
+        String application = applicationDir.getFileName() != null ? applicationDir.getFileName().toString() : "application";
+        try {
+            Files.createDirectories(directory);
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("JAM " + application);
+            recording.enable(PhaseEvent.class);
+            recording.start();
+            Path file = directory.resolve(getFileName(application, applicationDir, recording.getId()));
+            Logger.debug("Started flight recording for " + application);
+            return new SessionRecording(recording, file);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            Logger.warn("Unable to start flight recording for " + application + ": " + e.getMessage());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+    }
+
+    static String getFileName(String application, Path applicationDir, long recordingId) {
+        String pathHash = IOUtils.sha256(applicationDir.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8))
+            .substring(0, PATH_HASH_LENGTH);
+        return application + "-" + pathHash + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "-" + recordingId + ".jfr";
+    }
+
+    /**
+     * Stop the recording and write it to its file, later calls do nothing
+     */
+    @Override
+    public void close() {
+        if (recording.getState() == RecordingState.CLOSED) {
+            return;
+        }
+        try {
+            recording.stop();
+            recording.dump(file);
+            Logger.info("Flight recording written to " + file);
+        } catch (IOException | IllegalStateException e) {
+            Logger.warn("Unable to write flight recording " + file + ": " + e.getMessage());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        } finally {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ibm.ta.jam.utils.JsonUtils;
+
+/**
+ * Timed operation in a trace, created by the {@link Tracer}. A span ends when it is closed, and is then exported
+ * with its parent, attributes and status. When tracing is off the tracer hands out {@link #NOOP}, which records
+ * nothing.
+ */
+public class Span implements AutoCloseable {
+
+    /**
+     * Span that records nothing, used when tracing is off
+     */
+    public static final Span NOOP = new Span(null, null, null, null, null, 0, false);
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startEpochNanos;
+    private long endEpochNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private String errorMessage;
+
+    /**
+     * True if the span is current on the thread that started it until it ends
+     */
+    private final boolean scoped;
+
+    /**
+     * Span that was current on the thread before this one, restored when this span ends
+     */
+    private Span previous;
+
+    Span(Tracer tracer, String traceId, String spanId, String parentSpanId, String name, long startEpochNanos, boolean scoped) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startEpochNanos = startEpochNanos;
+        this.scoped = scoped;
+    }
+
+    static long nowEpochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    String getTraceId() {
+        return traceId;
+    }
+
+    String getSpanId() {
+        return spanId;
+    }
+
+    boolean isScoped() {
+        return scoped;
+    }
+
+    Span getPrevious() {
+        return previous;
+    }
+
+    void setPrevious(Span previous) {
+        this.previous = previous;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    /**
+     * Set an attribute, exported as a string, integer, double or boolean value depending on its type
+     * @return this span
+     */
+    public synchronized Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Mark the span as failed
+     * @param message why the operation failed
+     */
+    public synchronized void setError(String message) {
+        if (tracer != null) {
+            errorMessage = message;
+        }
+    }
+
+    @Override
+    public void close() {
+        end(nowEpochNanos());
+    }
+
+    /**
+     * End the span at a given time, for operations timed by another component
+     */
+    public void end(long epochNanos) {
+        if (tracer == null) {
+            return;
+        }
+        synchronized (this) {
+            if (endEpochNanos != 0) {
+                return;
+            }
+            endEpochNanos = epochNanos;
+        }
+        tracer.ended(this);
+    }
+
+    /**
+     * Write the span as an OTLP JSON span
+     */
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{\"traceId\":\"").append(traceId)
+            .append("\",\"spanId\":\"").append(spanId).append('"');
+        if (parentSpanId != null) {
+            json.append(",\"parentSpanId\":\"").append(parentSpanId).append('"');
+        }
+        // Kind 1 is SPAN_KIND_INTERNAL, 64 bit integers are strings in OTLP JSON
+        json.append(",\"name\":").append(JsonUtils.quote(name))
+            .append(",\"kind\":1")
+            .append(",\"startTimeUnixNano\":\"").append(startEpochNanos)
+            .append("\",\"endTimeUnixNano\":\"").append(endEpochNanos)
+            .append("\",\"attributes\":[");
+        boolean first = true;
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            json.append(first ? "" : ",").append("{\"key\":").append(JsonUtils.quote(attribute.getKey()))
+                .append(",\"value\":").append(attributeValueToJson(attribute.getValue())).append('}');
+            first = false;
+        }
+        json.append("],\"status\":");
+        if (errorMessage != null) {
+            // Status code 2 is STATUS_CODE_ERROR
+            json.append("{\"code\":2,\"message\":").append(JsonUtils.quote(errorMessage)).append('}');
+        } else {
+            json.append("{}");
+        }
+        return json.append('}').toString();
+    }
+
+    private static String attributeValueToJson(Object value) {
+        if (value instanceof Boolean) {
+            return "{\"boolValue\":" + value + "}";
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return "{\"intValue\":\"" + value + "\"}";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return "{\"doubleValue\":" + value + "}";
+        }
+        return "{\"stringValue\":" + JsonUtils.quote(String.valueOf(value)) + "}";
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + spanId;
+    }
+}
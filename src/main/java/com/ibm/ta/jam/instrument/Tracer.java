@@ -0,0 +1,285 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tinylog.Logger;
+
+/**
+ * Records spans of JAM's work and writes them to a local file in the OTLP JSON format, one batch of spans per line
+ * as written by the OpenTelemetry collector file exporter, so tracing UIs can load them offline.
+ * <p>
+ * A span started with {@link #startSpan(String)} becomes the current span of the thread until it is closed, and
+ * spans started meanwhile on that thread are its children. Work handed to another thread keeps its parent with
+ * {@link #propagate(Callable)} or by passing the parent to {@link #startSpan(String, Span)}. Spans with no parent
+ * are children of the default parent, e.g. a span covering the whole CLI run, so concurrent applications of a
+ * migration plan show up side by side in one trace.
+ * <p>
+ * Tracing is off until {@link #enable(Path)} is called, until then the tracer only hands out {@link Span#NOOP}.
+ */
+public class Tracer {
+
+    private static final Tracer GLOBAL = new Tracer();
+
+    /**
+     * Finished spans are written to the file in batches of this size, and when the tracer is flushed
+     */
+    private static final int FLUSH_SPANS = 1000;
+
+    private static final String SERVICE_NAME = "jam";
+
+    private static final String SCOPE_NAME = "com.ibm.ta.jam";
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+
+    private final Queue<Span> finished = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    private volatile Path file;
+
+    private volatile Span defaultParent;
+
+    Tracer() {
+    }
+
+    /**
+     * Get the tracer JAM records its spans with
+     */
+    public static Tracer get() {
+        return GLOBAL;
+    }
+
+    /**
+     * Start recording spans
+     * @param file the file finished spans are appended to
+     */
+    public void enable(Path file) {
+        this.file = file;
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Set the parent of spans started with no current span, null for each of them to start a new trace
+     */
+    public void setDefaultParent(Span defaultParent) {
+        this.defaultParent = defaultParent;
+    }
+
+    /**
+     * Get the current span of this thread
+     * @return the current span, or null if there is none
+     */
+    public Span current() {
+        return current.get();
+    }
+
+    /**
+     * Start a span that is a child of the current span, or of the default parent if there is none. The span is the
+     * current span of this thread until it is closed, close it on the same thread.
+     * @param name name of the operation
+     * @return the span, {@link Span#NOOP} when tracing is off
+     */
+    public Span startSpan(String name) {
+        if (!isEnabled()) {
+            return Span.NOOP;
+        }
+        return startSpan(name, parentOfNewSpan());
+    }
+
+    /**
+     * Start a span that is a child of the given span. The span is the current span of this thread until it is
+     * closed, close it on the same thread.
+     * @param name name of the operation
+     * @param parent the parent span, null or {@link Span#NOOP} to start a new trace
+     * @return the span, {@link Span#NOOP} when tracing is off
+     */
+    public Span startSpan(String name, Span parent) {
+        if (!isEnabled()) {
+            return Span.NOOP;
+        }
+        Span span = newSpan(name, parent, Span.nowEpochNanos(), true);
+        span.setPrevious(current.get());
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Start a span that is a child of the current span, or of the default parent if there is none, without making
+     * it the current span. For operations that end on another thread, e.g. a Jam session.
+     * @param name name of the operation
+     * @return the span, {@link Span#NOOP} when tracing is off
+     */
+    public Span startDetachedSpan(String name) {
+        if (!isEnabled()) {
+            return Span.NOOP;
+        }
+        return newSpan(name, parentOfNewSpan(), Span.nowEpochNanos(), false);
+    }
+
+    /**
+     * Start a span at a given time without making it the current span. For operations timed by another
+     * component, end it with {@link Span#end(long)}.
+     * @param name name of the operation
+     * @param parent the parent span, null or {@link Span#NOOP} to start a new trace
+     * @param startEpochNanos when the operation started, in nanoseconds since the epoch
+     * @return the span, {@link Span#NOOP} when tracing is off
+     */
+    public Span startDetachedSpan(String name, Span parent, long startEpochNanos) {
+        if (!isEnabled()) {
+            return Span.NOOP;
+        }
+        return newSpan(name, parent, startEpochNanos, false);
+    }
+
+    private Span parentOfNewSpan() {
+        Span parent = current.get();
+        return parent != null ? parent : defaultParent;
+    }
+
+    private Span newSpan(String name, Span parent, long startEpochNanos, boolean scoped) {
+        boolean hasParent = parent != null && parent.isRecording();
+        String traceId = hasParent ? parent.getTraceId() : randomHex(16);
+        return new Span(this, traceId, randomHex(8), hasParent ? parent.getSpanId() : null, name, startEpochNanos, scoped);
+    }
+
+    private static String randomHex(int bytes) {
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", random.nextInt(256)));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Called by a span when it ends
+     */
+    void ended(Span span) {
+        if (span.isScoped() && current.get() == span) {
+            current.set(span.getPrevious());
+        }
+        finished.add(span);
+        if (finishedCount.incrementAndGet() >= FLUSH_SPANS) {
+            flush();
+        }
+    }
+
+    /**
+     * Wrap a task so it runs with this thread's current span as its current span, on whichever thread runs it
+     */
+    public <T> Callable<T> propagate(Callable<T> task) {
+        if (!isEnabled()) {
+            return task;
+        }
+        Span parent = current.get();
+        return () -> {
+            Span previous = current.get();
+            current.set(parent);
+            try {
+                return task.call();
+            } finally {
+                current.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Wrap an object so each call through the interface is recorded as a span named after the interface and method.
+     * A call that throws is marked as failed. A boolean result is only recorded as an attribute, as it does not
+     * always mean success, e.g. hasLibertyDevPlugin, so callers mark the calls that failed.
+     * @param type the interface to trace
+     * @param target the object to wrap
+     * @param attributes attribute names and values, alternating, set on each span
+     * @return the wrapped object, or the target itself when tracing is off
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T traced(Class<T> type, T target, Object... attributes) {
+        if (!isEnabled()) {
+            return target;
+        }
+        return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            try (Span span = startSpan(type.getSimpleName() + "." + method.getName())) {
+                for (int i = 0; i + 1 < attributes.length; i += 2) {
+                    span.setAttribute(String.valueOf(attributes[i]), attributes[i + 1]);
+                }
+                try {
+                    Object result = method.invoke(target, args);
+                    if (result instanceof Boolean) {
+                        span.setAttribute("jam.result", result);
+                    }
+                    return result;
+                } catch (InvocationTargetException e) {
+                    span.setError(e.getCause().toString());
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    /**
+     * Append the finished spans to the file
+     */
+    public synchronized void flush() {
+        Path target = file;
+        if (target == null) {
+            return;
+        }
+        List<Span> spans = new ArrayList<>();
+        Span span;
+        while ((span = finished.poll()) != null) {
+            finishedCount.decrementAndGet();
+            spans.add(span);
+        }
+        if (spans.isEmpty()) {
+            return;
+        }
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(toJson(spans));
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            Logger.warn("Unable to write " + spans.size() + " spans to trace file " + target + ": " + e.getMessage());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Write spans as an OTLP JSON TracesData document
+     */
+    static String toJson(List<Span> spans) {
+        StringBuilder json = new StringBuilder("{\"resourceSpans\":[{\"resource\":{\"attributes\":[")
+            .append("{\"key\":\"service.name\",\"value\":{\"stringValue\":\"").append(SERVICE_NAME).append("\"}}]},")
+            .append("\"scopeSpans\":[{\"scope\":{\"name\":\"").append(SCOPE_NAME).append("\"},\"spans\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            json.append(i > 0 ? "," : "").append(spans.get(i).toJson());
+        }
+        return json.append("]}]}]}").toString();
+    }
+}
@@ -0,0 +1,114 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.tinylog.Logger;
+
+/**
+ * Measures the memory and CPU used by the builds JAM forks, the descendant processes of the JAM JVM, and reports them
+ * to a ResourceBudget. Resident memory and available host memory are read from /proc, so memory is only measured on
+ * Linux. CPU is measured from the CPU time of the processes between samples.
+ */
+public class BuildResourceMonitor implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+
+    private static final Path PROC = Path.of("/proc");
+    private static final String RSS_FIELD = "VmRSS:";
+    private static final String MEM_AVAILABLE_FIELD = "MemAvailable:";
+
+    private final ResourceBudget budget;
+
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * CPU time of each process at the last sample, keyed by pid
+     */
+    private Map<Long, Duration> lastCpuTimes = new HashMap<>();
+
+    private long lastSampleNanos = System.nanoTime();
+
+    private BuildResourceMonitor(ResourceBudget budget) {
+        this.budget = budget;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jam-build-resource-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start measuring the builds, until the monitor is closed
+     * @param budget the budget to report measurements to
+     * @return the running monitor
+     */
+    public static BuildResourceMonitor start(ResourceBudget budget) {
+        BuildResourceMonitor monitor = new BuildResourceMonitor(budget);
+        monitor.sampler.scheduleWithFixedDelay(monitor::sample, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return monitor;
+    }
+
+    private void sample() {
+        try {
+            List<ProcessHandle> builds = ProcessHandle.current().descendants().collect(Collectors.toList());
+            long memoryKb = 0;
+            Duration cpuTime = Duration.ZERO;
+            Map<Long, Duration> cpuTimes = new HashMap<>();
+            for (ProcessHandle build : builds) {
+                memoryKb += Math.max(readKb(PROC.resolve(String.valueOf(build.pid())).resolve("status"), RSS_FIELD), 0);
+                Duration processCpuTime = build.info().totalCpuDuration().orElse(null);
+                if (processCpuTime != null) {
+                    cpuTimes.put(build.pid(), processCpuTime);
+                    // Only count the CPU time since the last sample, new processes are counted from the next sample
+                    Duration lastCpuTime = lastCpuTimes.get(build.pid());
+                    if (lastCpuTime != null) {
+                        cpuTime = cpuTime.plus(processCpuTime.minus(lastCpuTime));
+                    }
+                }
+            }
+            long now = System.nanoTime();
+            double cpus = (double)cpuTime.toNanos() / Math.max(now - lastSampleNanos, 1);
+            lastCpuTimes = cpuTimes;
+            lastSampleNanos = now;
+
+            long availableKb = readKb(PROC.resolve("meminfo"), MEM_AVAILABLE_FIELD);
+            budget.recordMeasurement(memoryKb / 1024, cpus, availableKb < 0 ? -1 : availableKb / 1024);
+        } catch (RuntimeException e) {
+            // A failed sample only delays the next update of the estimate
+            Logger.debug("Unable to measure build resources: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a field in kB from a /proc file
+     * @return the value, or -1 if it cannot be read, e.g. the process has ended or /proc does not exist
+     */
+    private static long readKb(Path procFile, String field) {
+        try {
+            for (String line : Files.readAllLines(procFile)) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.JamOptions;
+
+/**
+ * Migrates the applications in a migration plan concurrently. Up to a maximum number of applications are in progress
+ * at once, and their build steps are admitted against a shared ResourceBudget whose estimate of a build follows the
+ * measured memory and CPU of the running builds. Steps that only change files, such as adding the server.xml or
+ * dependencies, run without waiting, so they fill the gaps between builds.
+ */
+public class FleetScheduler {
+
+    private final JamOptions options;
+
+    private final ResourceBudget budget;
+
+    private final int maxConcurrentApps;
+
+    /**
+     * Create the FleetScheduler
+     * @param options options for the Jam session of each application
+     * @param budget budget for the builds of all applications
+     * @param maxConcurrentApps maximum number of applications in progress at once
+     */
+    public FleetScheduler(JamOptions options, ResourceBudget budget, int maxConcurrentApps) {
+        this.options = options;
+        this.budget = budget;
+        this.maxConcurrentApps = maxConcurrentApps;
+    }
+
+    /**
+     * Migrate all applications in the plan
+     * @param plan the migration plan
+     * @return the result for each application, in plan order
+     */
+    public List<PlanResult> run(MigrationPlan plan) {
+        List<MigrationPlan.Entry> entries = plan.getEntries();
+        PlanRunner runner = new PlanRunner(options, budget);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(maxConcurrentApps, entries.size())));
+        List<PlanResult> results = new ArrayList<>();
+        try (BuildResourceMonitor monitor = BuildResourceMonitor.start(budget)) {
+            List<Future<PlanResult>> futures = new ArrayList<>();
+            for (MigrationPlan.Entry entry : entries) {
+                futures.add(executor.submit(() -> {
+                    PlanResult result = runner.run(entry);
+                    Logger.info(result);
+                    Logger.debug(budget);
+                    return result;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(getResult(entries.get(i), futures.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static PlanResult getResult(MigrationPlan.Entry entry, Future<PlanResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            PlanResult result = new PlanResult(entry.getName());
+            result.setStatus(PlanResult.Status.FAILED);
+            result.setMessage("Interrupted");
+            return result;
+        } catch (ExecutionException e) {
+            PlanResult result = new PlanResult(entry.getName());
+            result.setStatus(PlanResult.Status.FAILED);
+            result.setMessage(e.getCause().toString());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+public class InvalidPlanException extends Exception {
+    public InvalidPlanException(String statement){
+        super(statement);
+    }
+}
@@ -0,0 +1,174 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.Yaml;
+
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.utils.MavenCoords;
+
+import lombok.Getter;
+
+/**
+ * Plan for migrating a set of applications without user interaction, read from a YAML or JSON file. Each application
+ * gives the answers the CLI would otherwise prompt for:
+ * <pre>
+ * defaults:
+ *   steps: [build, server-config, dependencies, recipes, compile, liberty-plugin]
+ *   skipTests: true
+ * applications:
+ *   - name: modresorts
+ *     applicationDir: /apps/modresorts
+ *     migrationBundle: /bundles/modresorts.ear_migrationBundle.zip
+ *     recipes: [org.openrewrite.java.liberty.ServerName]
+ *     dependencies:
+ *       acme-util.jar: {coordinates: "com.acme:acme-util:1.0"}
+ *       legacy.jar: {path: /libs/legacy.jar}
+ * </pre>
+ * Values in defaults apply to every application that does not set them. Steps run in the order given. Recipes are
+ * all recipes in the bundle when not given, and dependencies without a resolution are skipped.
+ */
+@Getter
+public class MigrationPlan {
+
+    private static final String DEFAULTS = "defaults";
+    private static final String APPLICATIONS = "applications";
+    private static final String NAME = "name";
+    private static final String APPLICATION_DIR = "applicationDir";
+    private static final String MIGRATION_BUNDLE = "migrationBundle";
+    private static final String STEPS = "steps";
+    private static final String SKIP_TESTS = "skipTests";
+    private static final String RECIPES = "recipes";
+    private static final String DEPENDENCIES = "dependencies";
+    private static final String COORDINATES = "coordinates";
+    private static final String PATH = "path";
+
+    private static final List<MigrationStep> DEFAULT_STEPS = Arrays.asList(MigrationStep.BUILD, MigrationStep.SERVER_CONFIG,
+        MigrationStep.DEPENDENCIES, MigrationStep.RECIPES, MigrationStep.LIBERTY_PLUGIN);
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Migration of one application in the plan
+     */
+    @Getter
+    public static class Entry {
+        private String name;
+        private String applicationDir;
+        private String migrationBundle;
+        private List<MigrationStep> steps;
+        private boolean skipTests;
+        /**
+         * Recipes to run, or null to run all recipes in the migration bundle
+         */
+        private List<String> recipes;
+        /**
+         * Maven coordinates for dependencies found in the application, keyed by dependency name
+         */
+        private Map<String, MavenCoords> remoteDependencies = new LinkedHashMap<>();
+        /**
+         * Paths of local files for dependencies found in the application, keyed by dependency name
+         */
+        private Map<String, String> localDependencies = new LinkedHashMap<>();
+    }
+
+    /**
+     * Create the MigrationPlan by reading a plan file
+     * @param planPath path to the YAML or JSON plan file
+     * @throws InvalidPlanException when the plan cannot be read or is not valid
+     */
+    public MigrationPlan(String planPath) throws InvalidPlanException {
+        Map<String, Object> plan;
+        try (InputStream in = Files.newInputStream(Path.of(planPath))) {
+            // JSON is a subset of YAML, so the YAML parser reads JSON plans as well
+            plan = new Yaml().load(in);
+        } catch (IOException | RuntimeException e) {
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            throw new InvalidPlanException("Unable to read migration plan: " + planPath);
+        }
+        if (plan == null) {
+            throw new InvalidPlanException("Migration plan is empty: " + planPath);
+        }
+        try {
+            initialize(plan);
+        } catch (ClassCastException e) {
+            throw new InvalidPlanException("Migration plan has a value of the wrong type: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initialize(Map<String, Object> plan) throws InvalidPlanException {
+        Map<String, Object> defaults = (Map<String, Object>)plan.getOrDefault(DEFAULTS, Collections.emptyMap());
+        List<Map<String, Object>> applications = (List<Map<String, Object>>)plan.get(APPLICATIONS);
+        if (applications == null || applications.isEmpty()) {
+            throw new InvalidPlanException("Migration plan has no applications");
+        }
+        for (Map<String, Object> application : applications) {
+            Map<String, Object> values = new LinkedHashMap<>(defaults);
+            values.putAll(application);
+            entries.add(toEntry(values));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry toEntry(Map<String, Object> values) throws InvalidPlanException {
+        Entry entry = new Entry();
+        entry.applicationDir = (String)values.get(APPLICATION_DIR);
+        entry.migrationBundle = (String)values.get(MIGRATION_BUNDLE);
+        if (entry.applicationDir == null || entry.migrationBundle == null) {
+            throw new InvalidPlanException("Each application in the migration plan needs " + APPLICATION_DIR + " and " + MIGRATION_BUNDLE);
+        }
+        entry.name = (String)values.getOrDefault(NAME, Path.of(entry.applicationDir).getFileName().toString());
+
+        List<String> stepNames = (List<String>)values.get(STEPS);
+        if (stepNames == null) {
+            entry.steps = DEFAULT_STEPS;
+        } else {
+            entry.steps = new ArrayList<>();
+            for (String stepName : stepNames) {
+                MigrationStep step = MigrationStep.fromName(stepName);
+                if (step == null) {
+                    throw new InvalidPlanException("Unknown step " + stepName + " for application " + entry.name);
+                }
+                if (step == MigrationStep.DEV_MODE) {
+                    // Dev mode runs until it is stopped, so the plan would never finish
+                    throw new InvalidPlanException("Step " + stepName + " cannot run in a migration plan, for application " + entry.name);
+                }
+                entry.steps.add(step);
+            }
+        }
+        entry.skipTests = (Boolean)values.getOrDefault(SKIP_TESTS, Boolean.TRUE);
+        entry.recipes = (List<String>)values.get(RECIPES);
+
+        Map<String, Map<String, String>> dependencies = (Map<String, Map<String, String>>)values.getOrDefault(DEPENDENCIES, Collections.emptyMap());
+        for (Map.Entry<String, Map<String, String>> dependency : dependencies.entrySet()) {
+            String coordinates = dependency.getValue().get(COORDINATES);
+            String path = dependency.getValue().get(PATH);
+            if (coordinates != null) {
+                String[] parts = coordinates.split(":");
+                if (parts.length != 3) {
+                    throw new InvalidPlanException("Coordinates for " + dependency.getKey() + " must be groupId:artifactId:version");
+                }
+                entry.remoteDependencies.put(dependency.getKey(), new MavenCoords(parts[1], parts[0], parts[2]));
+            } else if (path != null) {
+                entry.localDependencies.put(dependency.getKey(), path);
+            } else {
+                throw new InvalidPlanException("Dependency " + dependency.getKey() + " needs " + COORDINATES + " or " + PATH);
+            }
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,76 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.utils.JsonUtils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result of migrating one application in a migration plan
+ */
+@Getter
+@Setter(AccessLevel.PACKAGE)
+public class PlanResult {
+
+    public enum Status {
+        /**
+         * All steps ran successfully
+         */
+        SUCCEEDED,
+        /**
+         * A step failed, later steps did not run
+         */
+        FAILED,
+        /**
+         * The application directory or migration bundle is not valid, no steps ran
+         */
+        INVALID
+    }
+
+    private final String name;
+
+    private Status status = Status.SUCCEEDED;
+
+    /**
+     * Step that failed, or null if no step failed
+     */
+    private MigrationStep failedStep;
+
+    private String message;
+
+    private long wallTimeMillis;
+
+    PlanResult(String name) {
+        this.name = name;
+    }
+
+    public boolean isSuccessful() {
+        return status == Status.SUCCEEDED;
+    }
+
+    /**
+     * Create a single line JSON representation of the result
+     */
+    public String toJson() {
+        return "{\"name\":" + JsonUtils.quote(name)
+            + ",\"status\":" + JsonUtils.quote(status.name())
+            + ",\"failedStep\":" + JsonUtils.quote(failedStep != null ? failedStep.getName() : null)
+            + ",\"message\":" + JsonUtils.quote(message)
+            + ",\"wallTimeMillis\":" + wallTimeMillis + "}";
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(name).append(": ").append(status);
+        if (failedStep != null) {
+            summary.append(" at step ").append(failedStep.getName());
+        }
+        if (message != null) {
+            summary.append(" - ").append(message);
+        }
+        return summary.append(" (").append(wallTimeMillis).append("ms)").toString();
+    }
+}
@@ -0,0 +1,149 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.InitializationException;
+import com.ibm.ta.jam.InvalidApplicationDirectoryException;
+import com.ibm.ta.jam.InvalidMigrationBundleException;
+import com.ibm.ta.jam.Jam;
+import com.ibm.ta.jam.JamOptions;
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepInputs;
+import com.ibm.ta.jam.SubsystemInitializationException;
+import com.ibm.ta.jam.utils.MavenCoords;
+
+/**
+ * Runs a migration plan. Applications are migrated one after another, each with its own Jam session. A failed step
+ * stops the migration of that application, the remaining applications still run. Applications can also be migrated
+ * concurrently by a {@link FleetScheduler}, which runs each application with {@link #run(MigrationPlan.Entry)}.
+ */
+public class PlanRunner {
+
+    private final JamOptions options;
+
+    /**
+     * Budget that build steps hold a lease on while they run, or null if builds are not limited
+     */
+    private final ResourceBudget budget;
+
+    /**
+     * Create the PlanRunner
+     * @param options options for the Jam session of each application
+     */
+    public PlanRunner(JamOptions options) {
+        this(options, null);
+    }
+
+    /**
+     * Create the PlanRunner
+     * @param options options for the Jam session of each application
+     * @param budget budget that build steps hold a lease on while they run, or null if builds are not limited
+     */
+    public PlanRunner(JamOptions options, ResourceBudget budget) {
+        this.options = options;
+        this.budget = budget;
+    }
+
+    /**
+     * Migrate all applications in the plan
+     * @param plan the migration plan
+     * @return the result for each application, in plan order
+     */
+    public List<PlanResult> run(MigrationPlan plan) {
+        List<PlanResult> results = new ArrayList<>();
+        for (MigrationPlan.Entry entry : plan.getEntries()) {
+            PlanResult result = run(entry);
+            Logger.info(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Migrate one application in the plan
+     * @param entry the plan entry for the application
+     * @return the result for the application
+     */
+    public PlanResult run(MigrationPlan.Entry entry) {
+        PlanResult result = new PlanResult(entry.getName());
+        long start = System.currentTimeMillis();
+        Logger.info("Migrating " + entry.getName() + " from " + entry.getApplicationDir());
+
+        Jam jam = null;
+        try {
+            // Jam initializes the build tool and bundle on first use, within the first step that needs them
+            jam = new Jam(entry.getApplicationDir(), entry.getMigrationBundle(), options);
+            StepInputs inputs = toStepInputs(jam, entry);
+            for (MigrationStep step : entry.getSteps()) {
+                Logger.info("Running step " + step.getName() + " for " + entry.getName());
+                boolean stepSucceeded;
+                try (ResourceBudget.Lease lease = acquire(step.isBuild())) {
+                    stepSucceeded = jam.runStep(step, inputs);
+                }
+                if (!stepSucceeded) {
+                    result.setStatus(PlanResult.Status.FAILED);
+                    result.setFailedStep(step);
+                    break;
+                }
+            }
+        } catch (InvalidApplicationDirectoryException | InvalidMigrationBundleException | InitializationException
+                | SubsystemInitializationException e) {
+            result.setStatus(PlanResult.Status.INVALID);
+            result.setMessage(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setStatus(PlanResult.Status.FAILED);
+            result.setMessage("Interrupted while waiting for resources");
+        } catch (RuntimeException e) {
+            result.setStatus(PlanResult.Status.FAILED);
+            result.setMessage(e.toString());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        } finally {
+            if (jam != null) {
+                jam.close();
+            }
+        }
+        result.setWallTimeMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Acquire a lease on the budget for a build
+     * @return the lease, or null if the work is not a build or builds are not limited
+     */
+    private ResourceBudget.Lease acquire(boolean build) throws InterruptedException {
+        return build && budget != null ? budget.acquireBuild() : null;
+    }
+
+    /**
+     * Get the answers for the steps from the plan entry. Dependencies without a resolution in the plan are skipped,
+     * the application may fail to start until they are added.
+     */
+    private static StepInputs toStepInputs(Jam jam, MigrationPlan.Entry entry) {
+        StepInputs inputs = new StepInputs();
+        inputs.setSkipTests(entry.isSkipTests());
+        inputs.setRecipes(entry.getRecipes());
+        List<MavenCoords> remoteDependencies = new ArrayList<>();
+        List<String> localDependencies = new ArrayList<>();
+        if (entry.getSteps().contains(MigrationStep.DEPENDENCIES)) {
+            for (String dependency : jam.getAllLibDependencies()) {
+                if (entry.getRemoteDependencies().containsKey(dependency)) {
+                    remoteDependencies.add(entry.getRemoteDependencies().get(dependency));
+                } else if (entry.getLocalDependencies().containsKey(dependency)) {
+                    localDependencies.add(entry.getLocalDependencies().get(dependency));
+                } else {
+                    Logger.warn("No resolution in the plan for dependency " + dependency + ". Application may fail to start or function");
+                }
+            }
+        }
+        inputs.setRemoteDependencies(remoteDependencies);
+        inputs.setLocalDependencies(localDependencies);
+        return inputs;
+    }
+}
@@ -0,0 +1,178 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import org.tinylog.Logger;
+
+/**
+ * Memory and CPU budget shared by concurrent migrations. Each build step holds a lease for the estimated cost of a
+ * build while it runs, and waits until the budget has room for it. Steps that only change files do not need a lease.
+ * The estimate starts from a default and follows the resources measured for running builds, rising to the highest
+ * measurement and decaying slowly when builds use less.
+ */
+public class ResourceBudget {
+
+    public static final String MEMORY_MB_PROPERTY = "jam.fleet.memoryMb";
+    public static final String CPUS_PROPERTY = "jam.fleet.cpus";
+    public static final String BUILD_MEMORY_MB_PROPERTY = "jam.fleet.buildMemoryMb";
+    public static final String BUILD_CPUS_PROPERTY = "jam.fleet.buildCpus";
+
+    private static final long DEFAULT_BUILD_MEMORY_MB = 1024;
+    private static final double DEFAULT_BUILD_CPUS = 2;
+
+    /**
+     * Share of the physical memory used for builds by default, the rest is left for JAM and the host
+     */
+    private static final double DEFAULT_MEMORY_SHARE = 0.75;
+
+    /**
+     * Weight of a lower measurement in the estimate, higher measurements replace the estimate
+     */
+    private static final double DECAY_WEIGHT = 0.1;
+
+    private final long memoryMb;
+    private final double cpus;
+
+    private long usedMemoryMb;
+    private double usedCpus;
+    private int leases;
+
+    private long buildMemoryMb;
+    private double buildCpus;
+
+    /**
+     * Memory available on the host as last measured, or -1 if not known
+     */
+    private long availableMemoryMb = -1;
+
+    /**
+     * Create a ResourceBudget
+     * @param memoryMb memory all builds together may use
+     * @param cpus processors all builds together may use
+     * @param buildMemoryMb initial estimate of the memory of one build
+     * @param buildCpus initial estimate of the processors of one build
+     */
+    public ResourceBudget(long memoryMb, double cpus, long buildMemoryMb, double buildCpus) {
+        this.memoryMb = memoryMb;
+        this.cpus = cpus;
+        this.buildMemoryMb = buildMemoryMb;
+        this.buildCpus = buildCpus;
+    }
+
+    /**
+     * Create a ResourceBudget for the host JAM runs on. The budget and initial estimates can be set with the
+     * jam.fleet system properties, by default builds may use three quarters of the physical memory and all processors.
+     */
+    public static ResourceBudget forHost() {
+        long defaultMemoryMb = (long)(getPhysicalMemoryMb() * DEFAULT_MEMORY_SHARE);
+        ResourceBudget budget = new ResourceBudget(
+            Long.getLong(MEMORY_MB_PROPERTY, defaultMemoryMb),
+            Double.parseDouble(System.getProperty(CPUS_PROPERTY, String.valueOf(Runtime.getRuntime().availableProcessors()))),
+            Long.getLong(BUILD_MEMORY_MB_PROPERTY, DEFAULT_BUILD_MEMORY_MB),
+            Double.parseDouble(System.getProperty(BUILD_CPUS_PROPERTY, String.valueOf(DEFAULT_BUILD_CPUS))));
+        Logger.debug(budget);
+        return budget;
+    }
+
+    /**
+     * Wait until the budget has room for a build, then hold its estimated cost until the lease is closed. A build is
+     * always admitted when no other build holds a lease, so a build larger than the budget still runs, on its own.
+     * @return the lease, close it when the build has finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized Lease acquireBuild() throws InterruptedException {
+        while (leases > 0 && !hasRoomFor(buildMemoryMb, buildCpus)) {
+            wait();
+        }
+        Lease lease = new Lease(buildMemoryMb, buildCpus);
+        usedMemoryMb += lease.memoryMb;
+        usedCpus += lease.cpus;
+        leases++;
+        return lease;
+    }
+
+    private boolean hasRoomFor(long leaseMemoryMb, double leaseCpus) {
+        if (usedMemoryMb + leaseMemoryMb > memoryMb || usedCpus + leaseCpus > cpus) {
+            return false;
+        }
+        // Builds that were just admitted may not have allocated their memory yet, so the budget is checked as well
+        return availableMemoryMb < 0 || leaseMemoryMb <= availableMemoryMb;
+    }
+
+    private synchronized void release(Lease lease) {
+        usedMemoryMb -= lease.memoryMb;
+        usedCpus -= lease.cpus;
+        leases--;
+        notifyAll();
+    }
+
+    /**
+     * Record a measurement of the resources used by the running builds, to update the estimate of one build
+     * @param buildsMemoryMb memory used by all running builds
+     * @param buildsCpus processors used by all running builds
+     * @param hostAvailableMemoryMb memory available on the host, or -1 if not known
+     */
+    public synchronized void recordMeasurement(long buildsMemoryMb, double buildsCpus, long hostAvailableMemoryMb) {
+        availableMemoryMb = hostAvailableMemoryMb;
+        if (leases > 0 && buildsMemoryMb > 0) {
+            long measuredMemoryMb = buildsMemoryMb / leases;
+            buildMemoryMb = measuredMemoryMb > buildMemoryMb ? measuredMemoryMb
+                : Math.round(buildMemoryMb * (1 - DECAY_WEIGHT) + measuredMemoryMb * DECAY_WEIGHT);
+            double measuredCpus = buildsCpus / leases;
+            buildCpus = measuredCpus > buildCpus ? measuredCpus : buildCpus * (1 - DECAY_WEIGHT) + measuredCpus * DECAY_WEIGHT;
+        }
+        notifyAll();
+    }
+
+    public synchronized long getBuildMemoryMb() {
+        return buildMemoryMb;
+    }
+
+    public synchronized double getBuildCpus() {
+        return buildCpus;
+    }
+
+    public synchronized int getLeases() {
+        return leases;
+    }
+
+    private static long getPhysicalMemoryMb() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean)os).getTotalPhysicalMemorySize() / (1024 * 1024);
+        }
+        return Runtime.getRuntime().maxMemory() / (1024 * 1024);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Resource budget: %d/%dMB, %.1f/%.1f processors in use by %d builds, a build is estimated at %dMB and %.1f processors",
+            usedMemoryMb, memoryMb, usedCpus, cpus, leases, buildMemoryMb, buildCpus);
+    }
+
+    /**
+     * Cost of a running build held against the budget
+     */
+    public class Lease implements AutoCloseable {
+        private final long memoryMb;
+        private final double cpus;
+        private boolean closed;
+
+        private Lease(long memoryMb, double cpus) {
+            this.memoryMb = memoryMb;
+            this.cpus = cpus;
+        }
+
+        @Override
+        public void close() {
+            synchronized (ResourceBudget.this) {
+                if (!closed) {
+                    closed = true;
+                    release(this);
+                }
+            }
+        }
+    }
+}
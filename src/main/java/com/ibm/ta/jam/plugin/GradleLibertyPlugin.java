@@ -0,0 +1,48 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plugin;
+
+/**
+ * Model of the Gradle Liberty plugin
+ */
+public class GradleLibertyPlugin implements BuildToolPlugin {
+
+	public final static String LIBERTY_GRADLE_PLUGIN_ARTIFACT_ID = "liberty-gradle-plugin";
+	public final static String LIBERTY_GRADLE_PLUGIN_GROUP_ID = "io.openliberty.tools";
+	public final static String LIBERTY_GRADLE_PLUGIN_VERSION = "3.8";
+	public final static String LIBERTY_GRADLE_PLUGIN_ID = "io.openliberty.tools.gradle.Liberty";
+	public final static String LIBERTY_GRADLE_PLUGIN_SHORT_ID = "liberty";
+
+	/**
+	 * Build directory relative location of the Liberty shared library directory that dependencies are copied to
+	 */
+	public final static String LIBERTY_GLOBAL_LIB_DIR = "wlp/usr/shared/config/lib/global";
+
+	public final static String LIBERTY_PLUGIN_CLASSPATH_GROOVY =
+		"    repositories {\n" +
+		"        mavenCentral()\n" +
+		"    }\n" +
+		"    dependencies {\n" +
+		"        classpath '%s:%s:%s'\n" +
+		"    }\n";
+	public final static String LIBERTY_PLUGIN_CLASSPATH_KOTLIN =
+		"    repositories {\n" +
+		"        mavenCentral()\n" +
+		"    }\n" +
+		"    dependencies {\n" +
+		"        classpath(\"%s:%s:%s\")\n" +
+		"    }\n";
+	public final static String LIBERTY_PLUGIN_APPLY_GROOVY = "apply plugin: '%s'\n";
+	public final static String LIBERTY_PLUGIN_APPLY_KOTLIN = "apply(plugin = \"%s\")\n";
+
+	public String getArtifactId() {
+		return LIBERTY_GRADLE_PLUGIN_ARTIFACT_ID;
+	}
+
+	public String getGroupId() {
+		return LIBERTY_GRADLE_PLUGIN_GROUP_ID;
+	}
+
+	public String getVersion() {
+		return LIBERTY_GRADLE_PLUGIN_VERSION;
+	}
+}
@@ -1,59 +1,195 @@
 // (C) Copyright IBM Corp. 2024
 package com.ibm.ta.jam.plugin;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.tinylog.Logger;
 
 import com.ibm.ta.jam.utils.MavenCoords;
 
-//TODO remove if not needed
+/**
+ * Model of the Gradle Rewrite plugin, read from the plugin configuration in the migration bundle (recipes.gradle)
+ * {@snippet
+    plugins {
+        id 'java'
+        id 'maven-publish'
+        id 'org.openrewrite.rewrite' version '6.1.25'
+    }
+
+    rewrite {
+        activeRecipe(
+            // Getting the server name on Liberty
+            'org.openrewrite.java.liberty.ServerName',
+            // Use the default InitialContext JNDI properties
+            'org.openrewrite.java.liberty.RemoveWas2LibertyNonPortableJndiLookup',
+        )
+    }
+
+    dependencies {
+            rewrite('org.openrewrite.recipe:rewrite-liberty:1.0.0')
+    }
+    }
+ * The plugin is not added to the application build script. Its coordinates are used to apply it from an init script.
+ */
 public class GradleRewritePlugin implements RewritePlugin {
+    public final static String GRADLE_REWRITE_PLUGIN_ID = "org.openrewrite.rewrite";
+    public final static String GRADLE_REWRITE_PLUGIN_GROUP_ID = "org.openrewrite";
+    public final static String GRADLE_REWRITE_PLUGIN_ARTIFACT_ID = "plugin";
+
+    private final static Pattern PLUGIN_VERSION_PATTERN = Pattern.compile(
+        "id\\s*\\(?\\s*['\"]" + Pattern.quote(GRADLE_REWRITE_PLUGIN_ID) + "['\"]\\s*\\)?\\s*version\\s*\\(?\\s*['\"]([^'\"]+)['\"]");
+    private final static Pattern ACTIVE_RECIPE_PATTERN = Pattern.compile("activeRecipe\\s*\\(([^)]*)\\)", Pattern.DOTALL);
+    private final static Pattern LINE_COMMENT_PATTERN = Pattern.compile("//[^\\n]*");
+    private final static Pattern QUOTED_PATTERN = Pattern.compile("['\"]([^'\"]+)['\"]");
+    private final static Pattern REWRITE_DEPENDENCY_PATTERN = Pattern.compile(
+        "rewrite\\s*\\(?\\s*['\"]([^:'\"]+):([^:'\"]+):([^'\"]+)['\"]");
+
+    /**
+     * Version of the rewrite gradle plugin
+     */
+    private String version;
+
+    /**
+     * list of dependencies described in the plugin
+     */
+    private List<MavenCoords> dependencies = new ArrayList<>();
+
+    /**
+     * List of active recipes described in the plugin
+     */
+    private List<String> activeRecipes = new ArrayList<>();
+
+    /**
+     * Create the plugin object from the plugin config (recipes.gradle)
+     * @param rewritePluginConfigPath full path to the plugin in the migration bundle (recipes.gradle)
+     * @throws PluginInitializationException when fail to initialize the plugin values
+     */
+    public GradleRewritePlugin(String rewritePluginConfigPath) throws PluginInitializationException {
+        String config;
+        try {
+            config = Files.readString(Path.of(rewritePluginConfigPath));
+        } catch (IOException | NullPointerException e) {
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            throw new PluginInitializationException("Unable to read Gradle rewrite plugin configuration: " + rewritePluginConfigPath);
+        }
+
+        if (!initialize(config)) {
+            throw new PluginInitializationException("Exception initializing Plugin in GradleRewritePlugin");
+        }
+    }
 
+    /**
+     * Get the artifactId for the plugin
+     */
     @Override
     public String getArtifactId() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getArtifactId'");
+        return GRADLE_REWRITE_PLUGIN_ARTIFACT_ID;
     }
 
+    /**
+     * Get the groupId for the plugin
+     */
     @Override
     public String getGroupId() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getGroupId'");
+        return GRADLE_REWRITE_PLUGIN_GROUP_ID;
     }
 
+    /**
+     * Get the version for the plugin
+     */
     @Override
     public String getVersion() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getVersion'");
+        return version;
     }
 
+    /**
+     * Get the list of dependencies in the plugin - expect the rewrite-liberty to be listed
+     */
     @Override
     public List<MavenCoords> getDependencies() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getDependencies'");
+        return dependencies;
     }
 
+    /**
+     * Get the list of active recipes listed in the plugin
+     */
+    @Override
+    public List<String> getActiveRecipes() {
+        return activeRecipes;
+    }
+
+    /**
+     * Get artifactId of liberty-rewrite (Listed as rewrite dependency in the plugin configuration)
+     */
     @Override
     public String getRewriteLibertyArtifactId() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRewriteLibertyArtifactId'");
+        return RewritePlugin.REWRITE_LIBERTY_ARTIFACT_ID;
     }
 
+    /**
+     * Get groupId of liberty-rewrite (Listed as rewrite dependency in the plugin configuration)
+     */
     @Override
     public String getRewriteLibertyGroupId() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRewriteLibertyGroupId'");
+        return getRewriteLibertyCoords().getGroupId();
     }
 
+    /**
+     * Get version of liberty-rewrite (Listed as rewrite dependency in the plugin configuration)
+     */
     @Override
     public String getRewriteLibertyVersion() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRewriteLibertyVersion'");
+        return getRewriteLibertyCoords().getVersion();
     }
 
-    @Override
-    public List<String> getActiveRecipes() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getActiveRecipes'");
+    private MavenCoords getRewriteLibertyCoords() {
+        for (MavenCoords coords : dependencies) {
+            if (coords.getArtifactId().equals(RewritePlugin.REWRITE_LIBERTY_ARTIFACT_ID)) {
+                return coords;
+            }
+        }
+        throw new RuntimeException("Liberty rewrite dependency not found in Rewrite plugin");
+    }
+
+    /**
+     * Initialize the version, activeRecipes and dependencies from the plugin configuration
+     * @param config contents of recipes.gradle
+     * @return a boolean indicating if the initialization was successful or not
+     */
+    private boolean initialize(String config) {
+        Matcher versionMatcher = PLUGIN_VERSION_PATTERN.matcher(config);
+        if (!versionMatcher.find()) {
+            Logger.error("Rewrite plugin " + GRADLE_REWRITE_PLUGIN_ID + " with a version not found in plugin configuration");
+            return false;
+        }
+        version = versionMatcher.group(1);
+
+        Matcher activeRecipeMatcher = ACTIVE_RECIPE_PATTERN.matcher(config);
+        while (activeRecipeMatcher.find()) {
+            String recipeArgs = LINE_COMMENT_PATTERN.matcher(activeRecipeMatcher.group(1)).replaceAll("");
+            Matcher recipeMatcher = QUOTED_PATTERN.matcher(recipeArgs);
+            while (recipeMatcher.find()) {
+                activeRecipes.add(recipeMatcher.group(1));
+            }
+        }
+
+        Matcher dependencyMatcher = REWRITE_DEPENDENCY_PATTERN.matcher(config);
+        while (dependencyMatcher.find()) {
+            dependencies.add(new MavenCoords(dependencyMatcher.group(2), dependencyMatcher.group(1), dependencyMatcher.group(3)));
+        }
+
+        if (activeRecipes.size() == 0) {
+            Logger.warn("No activeRecipes found in plugin configuration");
+        }
+
+        return true;
     }
-    
 }
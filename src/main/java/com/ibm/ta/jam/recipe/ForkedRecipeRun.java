@@ -0,0 +1,101 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.utils.SourceSnapshot;
+
+/**
+ * Measures a recipe run in a forked build of the rewrite plugin. The build runs all recipes in one pass, so the
+ * result has a single entry for the rewrite.yml recipe, with the files changed found by comparing snapshots of
+ * the source directories and the build configuration files, so changes to the pom.xml or build scripts are found
+ * as well as changes to sources. The snapshot after the run only hashes files whose size or modification time
+ * changed. Line counts are not known.
+ */
+class ForkedRecipeRun {
+
+    private ForkedRecipeRun() {
+    }
+
+    /**
+     * Run recipes in a forked build and measure the run
+     * @param recipeName name of the recipe declared in the rewrite.yml
+     * @param buildTool BuildTool object, used to find the application directory
+     * @param dryRun true if the build does not change sources, so there are no changes to count
+     * @param run runs the build and returns if it succeeded
+     * @return the result of the run
+     */
+    static RecipeRunResult run(String recipeName, BuildTool buildTool, boolean dryRun, BooleanSupplier run) {
+        RecipeRunResult runResult = new RecipeRunResult(recipeName, buildTool.getBuildToolType().name().toLowerCase());
+        Path applicationDir = Path.of(buildTool.getBuildToolConfiguration()).getParent();
+        List<Path> sourceDirs = buildTool.getSourceDirectories();
+        List<Path> snapshotPaths = dryRun ? null : getSnapshotPaths(buildTool, sourceDirs);
+        SourceSnapshot before = snapshotPaths != null ? takeSnapshot(applicationDir, snapshotPaths, null) : null;
+
+        long start = System.currentTimeMillis();
+        runResult.setSuccessful(run.getAsBoolean());
+        runResult.setWallTimeMillis(System.currentTimeMillis() - start);
+
+        RecipeRunResult.RecipeStats stats = runResult.addRecipe(recipeName);
+        stats.setWallTimeMillis(runResult.getWallTimeMillis());
+        if (before != null) {
+            SourceSnapshot after = takeSnapshot(applicationDir, snapshotPaths, before);
+            if (after != null) {
+                stats.setFilesScanned(countSources(before, sourceDirs));
+                Set<Path> changed = after.changedSince(before);
+                stats.setFilesChanged(changed.size());
+                for (Path source : changed) {
+                    runResult.addChangedSource(after.getRootDir().resolve(source));
+                }
+            }
+        }
+        Logger.debug(runResult);
+        return runResult;
+    }
+
+    /**
+     * Get the paths recipes can change, the source directories and the build configuration files
+     * @return the paths, or null if the build configuration files cannot be found
+     */
+    private static List<Path> getSnapshotPaths(BuildTool buildTool, List<Path> sourceDirs) {
+        try {
+            List<Path> paths = new ArrayList<>(sourceDirs);
+            paths.addAll(buildTool.getBuildConfigurationFiles());
+            return paths;
+        } catch (IOException e) {
+            Logger.debug("Unable to find the build configuration files, files changed by recipes are not counted: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static SourceSnapshot takeSnapshot(Path applicationDir, List<Path> paths, SourceSnapshot previous) {
+        try {
+            return SourceSnapshot.take(applicationDir, paths, previous);
+        } catch (IOException e) {
+            Logger.debug("Unable to snapshot the application sources, files changed by recipes are not counted: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Count the files of a snapshot in the source directories, the sources the recipes scanned
+     */
+    private static int countSources(SourceSnapshot snapshot, List<Path> sourceDirs) {
+        int sources = 0;
+        for (Path file : snapshot.getHashes().keySet()) {
+            Path absoluteFile = snapshot.getRootDir().resolve(file);
+            if (sourceDirs.stream().anyMatch(sourceDir -> absoluteFile.startsWith(sourceDir.toAbsolutePath().normalize()))) {
+                sources++;
+            }
+        }
+        return sources;
+    }
+}
@@ -1,48 +1,177 @@
 // (C) Copyright IBM Corp. 2024
 package com.ibm.ta.jam.recipe;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.Yaml;
 
+import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.bundle.MigrationMetadata;
 import com.ibm.ta.jam.plugin.GradleRewritePlugin;
+import com.ibm.ta.jam.plugin.PluginInitializationException;
 import com.ibm.ta.jam.plugin.RewritePlugin;
 
+/**
+ * Model for RecipeAutomation in JAM for Gradle applications. Recipes run through an init script generated by the
+ * GradleBuildTool, so the application build script is never edited or backed up.
+ */
 public class GradleRecipeAutomation implements RecipeAutomation {
-    private Map<String, Object> recipeListYaml;
+
+    /**
+     * Full path to the rewrite plugin configuration from migration bundle (recipes.gradle)
+     */
+    private String rewritePluginConfigPath;
+
+    /**
+     * Full path to the rewrite.yml from migration bundle
+     */
+    private String rewriteYamlPath;
+
+    /**
+     * Model of the RewritePlugin for Gradle
+     */
     private GradleRewritePlugin rewritePlugin;
 
+    /**
+     * Map representing the data in the rewrite.yml
+     */
+    private Map<String, Object> rewriteYaml;
+
+    /**
+     * Build tool object used to interface the Plugin with the build tool
+     */
+    private BuildTool buildTool;
+
+    /**
+     * Metadata from the migration bundle used to scope recipes to the affected sources, null to run unscoped
+     */
+    private MigrationMetadata migrationMetadata;
+
+    /**
+     * Maximum number of projects to run recipes on concurrently, where the build tool supports it
+     */
+    private int workers = 1;
+
+    /**
+     * Create and initialize the GradleRecipeAutomation object
+     * @param rewritePluginConfigPath full path to the rewrite plugin configuration (recipes.gradle)
+     * @param rewriteYamlPath full path to the rewrite.yml from migration bundle
+     * @param buildTool BuildTool object
+     * @throws RecipeAutomationInitializationException when the plugin configuration or rewrite.yml cannot be read
+     */
+    public GradleRecipeAutomation(String rewritePluginConfigPath, String rewriteYamlPath, BuildTool buildTool) throws RecipeAutomationInitializationException {
+        this(rewritePluginConfigPath, rewriteYamlPath, buildTool, null);
+    }
+
+    /**
+     * Create and initialize the GradleRecipeAutomation object, scoping recipes to the sources named in the metadata
+     * @param rewritePluginConfigPath full path to the rewrite plugin configuration (recipes.gradle)
+     * @param rewriteYamlPath full path to the rewrite.yml from migration bundle
+     * @param buildTool BuildTool object
+     * @param migrationMetadata metadata from the migration bundle, or null to run recipes on all sources
+     * @throws RecipeAutomationInitializationException when the plugin configuration or rewrite.yml cannot be read
+     */
+    public GradleRecipeAutomation(String rewritePluginConfigPath, String rewriteYamlPath, BuildTool buildTool, MigrationMetadata migrationMetadata) throws RecipeAutomationInitializationException {
+        this.rewritePluginConfigPath = rewritePluginConfigPath;
+        this.rewriteYamlPath = rewriteYamlPath;
+        this.buildTool = buildTool;
+        this.migrationMetadata = migrationMetadata;
+        if (!initialize()) {
+            throw new RecipeAutomationInitializationException("GradleRecipeAutomation could not be initialized");
+        }
+    }
+
+    /**
+     * Get all recipes from the rewrite.yml
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public List<String> getAllRecipes() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getAllRecipes'");
+        return (List<String>)rewriteYaml.get(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME);
+    }
+
+    /**
+     * Run recipes that are already selected and scoped in a forked build of the rewrite plugin
+     */
+    @Override
+    public RecipeRunResult runScopedRecipes(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer dryRunPatch) {
+        return ForkedRecipeRun.run((String)rewriteYaml.get(0).get(REWRITE_YAML_RECIPE_NAME), buildTool, dryRunPatch != null, () -> {
+            if (dryRunPatch != null) {
+                return buildTool.dryRunRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources, dryRunPatch);
+            }
+            return buildTool.runRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources, workers);
+        });
     }
 
     /**
-     * Run one or more recipes from available recipes
+     * Get the build tool recipes run with
      */
     @Override
-    public boolean runRecipes(List<String> recipes) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'runRecipes'");
+    public String getRunMode() {
+        return buildTool.getBuildToolType().name().toLowerCase();
     }
 
+    /**
+     * Get the metadata from the migration bundle used to scope recipes
+     */
+    @Override
+    public MigrationMetadata getMigrationMetadata() {
+        return migrationMetadata;
+    }
+
+    /**
+     * Get the Map representing the rewriteYaml
+     */
     @Override
     public Map<String, Object> getRewriteYaml() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRewriteYaml'");
+        return rewriteYaml;
     }
 
+    /**
+     * Get the RewritePlugin object
+     */
     @Override
     public RewritePlugin getRewritePlugin() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRewritePlugin'");
+        return rewritePlugin;
     }
 
-    @Override
-    public boolean runAllRecipes() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'runAllRecipes'");
+    /**
+     * Set the maximum number of projects to run recipes on concurrently, where the build tool supports it
+     * @param workers the number of concurrent recipe runs
+     */
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
     }
-}
 
+    /**
+     * Initialise the rewritePlugin and the rewriteYaml
+     * @return a boolean indicating if the initialization was succesful or not
+     */
+    private boolean initialize() {
+        try {
+            rewritePlugin = new GradleRewritePlugin(rewritePluginConfigPath);
+        } catch (PluginInitializationException pe) {
+            Logger.error("RewritePlugin could not be initialized.");
+            return false;
+        }
+
+        try (InputStream inputStream = new FileInputStream(new File(rewriteYamlPath))) {
+            rewriteYaml = new Yaml().load(inputStream);
+            return true;
+        } catch (IOException e) {
+            Logger.error("Rewrite Yaml file could not be read: " + rewriteYamlPath);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+    }
+}
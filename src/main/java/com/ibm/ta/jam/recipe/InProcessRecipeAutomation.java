@@ -0,0 +1,112 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.bundle.MigrationMetadata;
+import com.ibm.ta.jam.plugin.RewritePlugin;
+
+/**
+ * RecipeAutomation that runs recipes with the OpenRewrite engine inside the JAM JVM, instead of forking a build
+ * of the rewrite plugin. The rewrite.yml and rewrite plugin configuration are read by the build tool specific
+ * RecipeAutomation, this class replaces how the recipes are run.
+ */
+public class InProcessRecipeAutomation implements RecipeAutomation {
+
+    /**
+     * Build tool specific RecipeAutomation that provides the rewrite.yml and rewrite plugin configuration
+     */
+    private RecipeAutomation recipeAutomation;
+
+    /**
+     * Engine used to parse the application and run recipes
+     */
+    private RewriteEngine rewriteEngine;
+
+    /**
+     * Metadata from the migration bundle used to scope recipes to the affected sources, null to run unscoped
+     */
+    private MigrationMetadata migrationMetadata;
+
+    /**
+     * Create the InProcessRecipeAutomation object
+     * @param recipeAutomation build tool specific RecipeAutomation for the migration bundle
+     * @param applicationDir root directory of the application
+     * @param buildTool BuildTool object
+     * @param migrationMetadata metadata from the migration bundle, or null to run recipes on all sources
+     */
+    public InProcessRecipeAutomation(RecipeAutomation recipeAutomation, String applicationDir, BuildTool buildTool, MigrationMetadata migrationMetadata) {
+        this.recipeAutomation = recipeAutomation;
+        this.rewriteEngine = new RewriteEngine(applicationDir, buildTool);
+        this.migrationMetadata = migrationMetadata;
+        checkRewriteLibertyVersion();
+    }
+
+    /**
+     * Get all recipes from the rewrite.yml
+     */
+    @Override
+    public List<String> getAllRecipes() {
+        return recipeAutomation.getAllRecipes();
+    }
+
+    /**
+     * Run recipes that are already selected and scoped with the in-process engine. Only the affected sources are
+     * parsed, the preconditions of the scoped recipes narrow that further per recipe.
+     */
+    @Override
+    public RecipeRunResult runScopedRecipes(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer dryRunPatch) {
+        if (dryRunPatch != null) {
+            return rewriteEngine.dryRun(rewriteYaml, affectedSources, dryRunPatch);
+        }
+        return rewriteEngine.run(rewriteYaml, affectedSources);
+    }
+
+    @Override
+    public String getRunMode() {
+        return RewriteEngine.RUN_MODE;
+    }
+
+    /**
+     * Get the metadata from the migration bundle used to scope recipes
+     */
+    @Override
+    public MigrationMetadata getMigrationMetadata() {
+        return migrationMetadata;
+    }
+
+    /**
+     * Get the Map representing the rewriteYaml
+     */
+    @Override
+    public Map<String, Object> getRewriteYaml() {
+        return recipeAutomation.getRewriteYaml();
+    }
+
+    /**
+     * Get the RewritePlugin object
+     */
+    @Override
+    public RewritePlugin getRewritePlugin() {
+        return recipeAutomation.getRewritePlugin();
+    }
+
+    /**
+     * The recipes run in-process come from the rewrite-liberty version JAM is built with, not the version
+     * requested by the migration bundle. Warn when the two differ.
+     */
+    private void checkRewriteLibertyVersion() {
+        RewritePlugin rewritePlugin = getRewritePlugin();
+        String bundleVersion = rewritePlugin != null ? rewritePlugin.getRewriteLibertyVersion() : null;
+        String engineVersion = RewriteEngine.getRewriteLibertyVersion();
+        if (bundleVersion != null && engineVersion != null && !bundleVersion.equals(engineVersion)) {
+            Logger.warn("Migration bundle requests rewrite-liberty " + bundleVersion + ", recipes will run in-process with version " + engineVersion);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.openrewrite.SourceFile;
+import org.tinylog.Logger;
+
+/**
+ * Session scoped cache of parsed LSTs, keyed by source path and validated by a hash of the source content.
+ * A source only needs to be parsed again when its content changes, so follow-up recipe runs in the same Jam
+ * session only pay for the recipe visitors.
+ *
+ * Memory use is bounded by the total size of the cached sources. When the bound is exceeded the least recently
+ * used entries are evicted and will be parsed again on their next use. All entries are dropped when the compile
+ * classpath changes, as type attribution of every LST depends on it.
+ */
+public class LstCache {
+
+    /**
+     * System property to override the maximum total size in bytes of the sources whose LSTs are cached
+     */
+    public static final String MAX_SOURCE_BYTES_PROPERTY = "jam.lst.cache.maxSourceBytes";
+
+    /**
+     * An LST takes roughly ten to twenty times the memory of its source, so this keeps the cache to a few hundred MB
+     */
+    private static final long DEFAULT_MAX_SOURCE_BYTES = 32L * 1024 * 1024;
+
+    private final long maxSourceBytes;
+
+    /**
+     * Entries in access order, the eldest entry is the least recently used
+     */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sourceBytes;
+
+    private String classpathHash;
+
+    private int hits;
+
+    private int misses;
+
+    private static class Entry {
+        private final String contentHash;
+        private final long size;
+        private final SourceFile sourceFile;
+
+        private Entry(String contentHash, long size, SourceFile sourceFile) {
+            this.contentHash = contentHash;
+            this.size = size;
+            this.sourceFile = sourceFile;
+        }
+    }
+
+    public LstCache() {
+        this(Long.getLong(MAX_SOURCE_BYTES_PROPERTY, DEFAULT_MAX_SOURCE_BYTES));
+    }
+
+    /**
+     * Create the LstCache
+     * @param maxSourceBytes maximum total size in bytes of the sources whose LSTs are cached
+     */
+    public LstCache(long maxSourceBytes) {
+        this.maxSourceBytes = maxSourceBytes;
+    }
+
+    /**
+     * Check the cached LSTs were parsed with the given classpath, and drop them all if not
+     * @param newClasspathHash hash of the compile classpath about to be used for parsing
+     */
+    public synchronized void validateClasspath(String newClasspathHash) {
+        if (classpathHash != null && !classpathHash.equals(newClasspathHash) && !entries.isEmpty()) {
+            Logger.debug("Compile classpath changed, dropping " + entries.size() + " cached LSTs");
+            clear();
+        }
+        classpathHash = newClasspathHash;
+    }
+
+    /**
+     * Get the cached LST for a source
+     * @param sourcePath path of the source relative to the application directory
+     * @param contentHash hash of the current content of the source
+     * @return the cached LST, or null if there is none or the source content has changed
+     */
+    public synchronized SourceFile get(Path sourcePath, String contentHash) {
+        Entry entry = entries.get(sourcePath);
+        if (entry == null || !entry.contentHash.equals(contentHash)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.sourceFile;
+    }
+
+    /**
+     * Cache the LST for a source, evicting least recently used entries if the cache is over its bound
+     * @param sourcePath path of the source relative to the application directory
+     * @param contentHash hash of the content the LST was parsed from or printed to
+     * @param size size in bytes of the source content
+     * @param sourceFile the LST
+     */
+    public synchronized void put(Path sourcePath, String contentHash, long size, SourceFile sourceFile) {
+        remove(sourcePath);
+        if (size > maxSourceBytes) {
+            return;
+        }
+        entries.put(sourcePath, new Entry(contentHash, size, sourceFile));
+        sourceBytes += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (sourceBytes > maxSourceBytes && eldest.hasNext()) {
+            sourceBytes -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Remove the cached LST for a source
+     * @param sourcePath path of the source relative to the application directory
+     */
+    public synchronized void remove(Path sourcePath) {
+        Entry entry = entries.remove(sourcePath);
+        if (entry != null) {
+            sourceBytes -= entry.size;
+        }
+    }
+
+    /**
+     * Remove the cached LSTs of sources that no longer exist
+     * @param sourcePaths paths of all current sources relative to the application directory
+     */
+    public synchronized void retainAll(Collection<Path> sourcePaths) {
+        Set<Path> current = new HashSet<>(sourcePaths);
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Entry> entry = it.next();
+            if (!current.contains(entry.getKey())) {
+                sourceBytes -= entry.getValue().size;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop all cached LSTs
+     */
+    public synchronized void clear() {
+        entries.clear();
+        sourceBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LstCache[entries=" + entries.size() + ", sourceBytes=" + sourceBytes + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+}
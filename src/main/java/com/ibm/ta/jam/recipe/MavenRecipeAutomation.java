@@ -5,15 +5,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 import org.tinylog.Logger;
 import org.yaml.snakeyaml.Yaml;
 
 import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.bundle.MigrationMetadata;
 import com.ibm.ta.jam.plugin.MavenRewritePlugin;
 import com.ibm.ta.jam.plugin.PluginInitializationException;
 import com.ibm.ta.jam.plugin.RewritePlugin;
@@ -50,6 +52,16 @@ public class MavenRecipeAutomation implements RecipeAutomation {
      */
     private BuildTool buildTool;
 
+    /**
+     * Metadata from the migration bundle used to scope recipes to the affected sources, null to run unscoped
+     */
+    private MigrationMetadata migrationMetadata;
+
+    /**
+     * Maximum number of modules to run recipes on concurrently, 1 runs recipes over the whole reactor in one build
+     */
+    private int workers = 1;
+
     /**
      * Create and initialize the MavenRecipeAutomation object
      * @param rewritePluginConfigPath full path to the rewrite plugin configuration (recipes.pom)
@@ -57,9 +69,21 @@ public class MavenRecipeAutomation implements RecipeAutomation {
      * @param buildTool BuildTool object
      */
     public MavenRecipeAutomation(String rewritePluginConfigPath, String rewriteYamlPath, BuildTool buildTool) {
+        this(rewritePluginConfigPath, rewriteYamlPath, buildTool, null);
+    }
+
+    /**
+     * Create and initialize the MavenRecipeAutomation object, scoping recipes to the sources named in the metadata
+     * @param rewritePluginConfigPath full path to the rewrite plugin configuration (recipes.pom)
+     * @param rewriteYamlPath full path to the rewrite.yml from migration bundle
+     * @param buildTool BuildTool object
+     * @param migrationMetadata metadata from the migration bundle, or null to run recipes on all sources
+     */
+    public MavenRecipeAutomation(String rewritePluginConfigPath, String rewriteYamlPath, BuildTool buildTool, MigrationMetadata migrationMetadata) {
         this.rewritePluginConfigPath = rewritePluginConfigPath;
         this.rewriteYamlPath = rewriteYamlPath;
         this.buildTool = buildTool;
+        this.migrationMetadata = migrationMetadata;
         initialize();
     }
 
@@ -72,43 +96,35 @@ public class MavenRecipeAutomation implements RecipeAutomation {
         return (ArrayList<String>)rewriteYaml.get("recipeList");
     }
 
-
-    //TODO: Change recipes form strings to object - as recipes might have parameters in future
     /**
-     * Run the given set of recipes
+     * Run recipes that are already selected and scoped in a forked build of the rewrite plugin
      */
     @Override
-    public boolean runRecipes(List<String> recipes) {
-        List<String> availableRecipes = getAllRecipes();
-        List<String> recipesToRun = new ArrayList<>();
-        Map<String, Object> newRewriteYaml;
-        // Check all recipes exist in available recipes
-        for (String recipe : recipes) {
-            if (!availableRecipes.contains(recipe)) {
-                Logger.warn("Recipe not found in available recipes: " + recipe);
-            } else {
-                recipesToRun.add(recipe);
-            }
-        }
-        if (recipesToRun.size() == 0) {
-            Logger.warn("No valid recipes to run");
-            return false;
-        } else {
-            newRewriteYaml = new HashMap<String, Object>(rewriteYaml);
-            newRewriteYaml.put(REWRITE_RECIPE_LIST_NAME, recipesToRun);
-        }
-
+    public RecipeRunResult runScopedRecipes(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer dryRunPatch) {
         // TODO: Understand if we need to merge to existing plugin in build config if it exists, or if we can always run rewrite externally from rewrite.yml
         // The preferred option is to run from rewrite.yml as its less disruptive to the build environment
-        return buildTool.runRecipesFromRewriteYaml(newRewriteYaml, rewritePlugin);
+        return ForkedRecipeRun.run((String)rewriteYaml.get(0).get(REWRITE_YAML_RECIPE_NAME), buildTool, dryRunPatch != null, () -> {
+            if (dryRunPatch != null) {
+                return buildTool.dryRunRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources, dryRunPatch);
+            }
+            return buildTool.runRecipesFromRewriteYaml(rewriteYaml, rewritePlugin, affectedSources, workers);
+        });
+    }
+
+    /**
+     * Get the build tool recipes run with
+     */
+    @Override
+    public String getRunMode() {
+        return buildTool.getBuildToolType().name().toLowerCase();
     }
 
     /**
-     * Run all recipes that we have in the rewriteYaml
+     * Get the metadata from the migration bundle used to scope recipes
      */
     @Override
-    public boolean runAllRecipes() {
-        return runRecipes(getAllRecipes());
+    public MigrationMetadata getMigrationMetadata() {
+        return migrationMetadata;
     }
 
     /**
@@ -127,6 +143,14 @@ public class MavenRecipeAutomation implements RecipeAutomation {
         return rewriteYaml;
     }
 
+    /**
+     * Set the maximum number of modules of a multi-module project to run recipes on concurrently
+     * @param workers the number of concurrent module builds, 1 runs recipes over the whole reactor in one build
+     */
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
     /**
      * Initialise the rewritePlugin and the rewriteYaml
      * @return a boolean indicating if the initialization was succesful or not
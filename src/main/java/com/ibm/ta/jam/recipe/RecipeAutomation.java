@@ -1,9 +1,16 @@
 // (C) Copyright IBM Corp. 2024
 package com.ibm.ta.jam.recipe;
 
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.bundle.MigrationMetadata;
 import com.ibm.ta.jam.plugin.RewritePlugin;
 
 
@@ -13,11 +20,83 @@ public interface RecipeAutomation {
 
     List<String> getAllRecipes();
 
-    boolean runRecipes(List<String> recipes);
+    //TODO: Change recipes form strings to object - as recipes might have parameters in future
+    /**
+     * Run the given set of recipes
+     */
+    default RecipeRunResult runRecipes(List<String> recipes) {
+        return runRecipes(recipes, null);
+    }
+
+    /**
+     * Run all recipes that we have in the rewriteYaml
+     */
+    default RecipeRunResult runAllRecipes() {
+        return runRecipes(getAllRecipes());
+    }
+
+    /**
+     * Produce a patch of the changes the given set of recipes would make, without modifying the application
+     */
+    default RecipeRunResult dryRunRecipes(List<String> recipes, Writer patch) {
+        return runRecipes(recipes, patch);
+    }
+
+    /**
+     * Produce a patch of the changes all recipes in the rewriteYaml would make, without modifying the application
+     */
+    default RecipeRunResult dryRunAllRecipes(Writer patch) {
+        return dryRunRecipes(getAllRecipes(), patch);
+    }
 
-    boolean runAllRecipes();
+    /**
+     * Run the given set of recipes, or dry run them when a patch writer is given. Recipes that are not in the
+     * rewriteYaml are skipped, the rest are scoped to the sources named in the migration metadata.
+     */
+    default RecipeRunResult runRecipes(List<String> recipes, Writer dryRunPatch) {
+        List<String> availableRecipes = getAllRecipes();
+        List<String> recipesToRun = new ArrayList<>();
+        // Check all recipes exist in available recipes
+        for (String recipe : recipes) {
+            if (!availableRecipes.contains(recipe)) {
+                Logger.warn("Recipe not found in available recipes: " + recipe);
+            } else {
+                recipesToRun.add(recipe);
+            }
+        }
+        if (recipesToRun.isEmpty()) {
+            Logger.warn("No valid recipes to run");
+            return new RecipeRunResult((String)getRewriteYaml().get(REWRITE_YAML_RECIPE_NAME), getRunMode());
+        }
+
+        Map<String, Object> newRewriteYaml = new HashMap<String, Object>(getRewriteYaml());
+        newRewriteYaml.put(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME, recipesToRun);
+        List<Map<String, Object>> scopedRewriteYaml = RecipeScoping.scope(newRewriteYaml, getMigrationMetadata());
+        Set<String> affectedSources = RecipeScoping.getAffectedSources(newRewriteYaml, getMigrationMetadata());
+        return runScopedRecipes(scopedRewriteYaml, affectedSources, dryRunPatch);
+    }
+
+    /**
+     * Run recipes that are already selected and scoped, or dry run them when a patch writer is given
+     * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+     * @param affectedSources Java sources the recipes can change, relative to a source directory, or null if they can
+     * change any source
+     * @param dryRunPatch writer the changes are written to as a patch, or null to change the application
+     */
+    RecipeRunResult runScopedRecipes(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer dryRunPatch);
 
     Map<String, Object> getRewriteYaml();
 
     RewritePlugin getRewritePlugin();
+
+    /**
+     * Get the metadata from the migration bundle used to scope recipes to the affected sources
+     * @return the metadata, or null to run recipes on all sources
+     */
+    MigrationMetadata getMigrationMetadata();
+
+    /**
+     * Get how recipes are run, as reported in a {@link RecipeRunResult}, e.g. maven or in-process
+     */
+    String getRunMode();
 }
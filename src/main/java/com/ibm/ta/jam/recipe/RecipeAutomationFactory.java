@@ -3,22 +3,68 @@ package com.ibm.ta.jam.recipe;
 
 import org.tinylog.Logger;
 
+import com.ibm.ta.jam.JamOptions;
 import com.ibm.ta.jam.build.BuildTool;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
 import com.ibm.ta.jam.bundle.ExpandedBundle;
+import com.ibm.ta.jam.bundle.InvalidBundleException;
+import com.ibm.ta.jam.bundle.MigrationMetadata;
 
 public class RecipeAutomationFactory {
 
     public static RecipeAutomation getRecipeAutomation(ExpandedBundle expandedBundle, BuildTool buildTool) 
             throws UnsupportedOperationException, RecipeAutomationInitializationException {
+        return getRecipeAutomation(expandedBundle, buildTool, getMigrationMetadata(expandedBundle), 1);
+    }
+
+    private static RecipeAutomation getRecipeAutomation(ExpandedBundle expandedBundle, BuildTool buildTool, MigrationMetadata migrationMetadata, int workers)
+            throws UnsupportedOperationException, RecipeAutomationInitializationException {
         if (buildTool.getBuildToolType() == BuildToolType.MAVEN) {
             Logger.debug("Getting MavenRewritePlugin");
-            return new MavenRecipeAutomation(expandedBundle.getRewritePluginConfigPath(), expandedBundle.getRewriteYamlPath(), buildTool);
+            MavenRecipeAutomation recipeAutomation = new MavenRecipeAutomation(expandedBundle.getRewritePluginConfigPath(), expandedBundle.getRewriteYamlPath(), buildTool, migrationMetadata);
+            recipeAutomation.setWorkers(workers);
+            return recipeAutomation;
         } else if (buildTool.getBuildToolType() == BuildToolType.GRADLE) {
             Logger.debug("Getting GradleRewritePlugin");
-            return new GradleRecipeAutomation();
+            GradleRecipeAutomation recipeAutomation = new GradleRecipeAutomation(expandedBundle.getGradleRewritePluginConfigPath(), expandedBundle.getRewriteYamlPath(), buildTool, migrationMetadata);
+            recipeAutomation.setWorkers(workers);
+            return recipeAutomation;
         } else {
             throw new UnsupportedOperationException("Unknown build tool type. Supported types are MAVEN and GRADLE");
         }
     }
+
+    /**
+     * Get the RecipeAutomation for the application, configured by the Jam options
+     * @param applicationDir root directory of the application
+     * @param expandedBundle the expanded migration bundle
+     * @param buildTool BuildTool object for the application
+     * @param options options of the Jam session, e.g. to run recipes in-process or concurrently per module
+     */
+    public static RecipeAutomation getRecipeAutomation(String applicationDir, ExpandedBundle expandedBundle, BuildTool buildTool, JamOptions options)
+            throws UnsupportedOperationException, RecipeAutomationInitializationException {
+        MigrationMetadata migrationMetadata = getMigrationMetadata(expandedBundle);
+        RecipeAutomation recipeAutomation = getRecipeAutomation(expandedBundle, buildTool, migrationMetadata, options.getRecipeWorkers());
+        if (options.isInProcessRecipes()) {
+            Logger.debug("Running recipes in-process");
+            return new InProcessRecipeAutomation(recipeAutomation, applicationDir, buildTool, migrationMetadata);
+        }
+        return recipeAutomation;
+    }
+
+    /**
+     * Read the metadata from the migration bundle. Recipes run on all sources when there is no usable metadata.
+     */
+    private static MigrationMetadata getMigrationMetadata(ExpandedBundle expandedBundle) {
+        if (expandedBundle.getMetadataPath() == null) {
+            Logger.debug("Migration bundle has no metadata, recipes will not be scoped");
+            return null;
+        }
+        try {
+            return new MigrationMetadata(expandedBundle.getMetadataPath());
+        } catch (InvalidBundleException e) {
+            Logger.warn(e.getMessage() + ". Recipes will not be scoped.");
+            return null;
+        }
+    }
 }
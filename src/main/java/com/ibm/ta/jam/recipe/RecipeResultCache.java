@@ -0,0 +1,349 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.utils.IOUtils;
+import com.ibm.ta.jam.utils.JamUtils;
+
+import lombok.Getter;
+
+/**
+ * Persistent cache of recipe results, keyed by the hash of a source and the hash of the recipe that ran on it.
+ * The recipe hash covers the rewrite.yml, the rewrite-liberty version, the compile classpath and the Java version of
+ * the parser, so a new recipe, a new version of the recipes or a change to the type attribution of the sources never
+ * reuses old results. Sources that are unchanged since an earlier run are answered from the cache
+ * instead of being parsed and visited again.
+ *
+ * Each entry is a file named after the key, with an extension for the outcome. Entries for changed sources hold
+ * the content the recipe produced. Files a recipe generates or moves cannot be attributed to a single source, so a
+ * run that creates files is also stored as a run entry, keyed by the hashes of all its sources, holding every file
+ * it changed, created or deleted.
+ *
+ * The total size of the cache is bounded. When the bound is exceeded the least recently used entries are evicted.
+ */
+public class RecipeResultCache {
+
+    private static final String CACHE_DIR_NAME = "recipe-results";
+
+    private static final String RUN_EXTN = ".run";
+
+    private static final String TEMP_EXTN = ".tmp";
+
+    /**
+     * System property to override the maximum total size in bytes of the cache
+     */
+    public static final String MAX_BYTES_PROPERTY = "jam.recipe.cache.maxBytes";
+
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Size counted for every entry on top of its content, so the empty entries of unchanged sources are bounded too
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+
+    /**
+     * What running a recipe did to a source
+     */
+    public enum Outcome {
+        UNCHANGED,
+        CHANGED,
+        DELETED,
+        CREATED
+    }
+
+    /**
+     * A cached recipe result
+     */
+    @Getter
+    public static class CachedResult {
+        private final Outcome outcome;
+
+        /**
+         * Content the recipe produced, only set for CHANGED
+         */
+        private final byte[] content;
+
+        private CachedResult(Outcome outcome, byte[] content) {
+            this.outcome = outcome;
+            this.content = content;
+        }
+    }
+
+    /**
+     * A file changed, created or deleted by a recipe run
+     */
+    @Getter
+    public static class FileChange {
+        private final Outcome outcome;
+
+        /**
+         * Path of the file relative to the application directory
+         */
+        private final Path path;
+
+        /**
+         * Content the recipe produced, null for DELETED
+         */
+        private final byte[] content;
+
+        public FileChange(Outcome outcome, Path path, byte[] content) {
+            this.outcome = outcome;
+            this.path = path;
+            this.content = content;
+        }
+    }
+
+    private final File cacheDir;
+
+    private final long maxBytes;
+
+    public RecipeResultCache() {
+        this(new File(JamUtils.getCacheDir(), CACHE_DIR_NAME));
+    }
+
+    /**
+     * Create the RecipeResultCache
+     * @param cacheDir directory holding the cache entries
+     */
+    public RecipeResultCache(File cacheDir) {
+        this(cacheDir, Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Create the RecipeResultCache
+     * @param cacheDir directory holding the cache entries
+     * @param maxBytes maximum total size in bytes of the cache entries
+     */
+    public RecipeResultCache(File cacheDir, long maxBytes) {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Compute the hash identifying a recipe run
+     * @param rewriteYaml the rewrite.yml the recipe is declared in
+     * @param rewriteLibertyVersion version of rewrite-liberty providing the recipes
+     * @param classpathHash hash of the compile classpath the sources are parsed with
+     * @param javaVersion Java version of the parser
+     * @return the hash as a lower case hex string
+     */
+    public static String recipeHash(String rewriteYaml, String rewriteLibertyVersion, String classpathHash, String javaVersion) {
+        return IOUtils.sha256((rewriteYaml + "\u0000" + rewriteLibertyVersion + "\u0000" + classpathHash + "\u0000" + javaVersion)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compute the hash identifying the sources of a recipe run
+     * @param sourceHashes hash of the content of each source, by path relative to the application directory
+     * @return the hash as a lower case hex string
+     */
+    public static String sourcesHash(Map<Path, String> sourceHashes) {
+        StringBuilder sources = new StringBuilder();
+        sourceHashes.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(source -> sources.append(toCachePath(source.getKey())).append('\u0000').append(source.getValue()).append('\n'));
+        return IOUtils.sha256(sources.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the cached result of a recipe on a source
+     * @param sourceHash hash of the source content the recipe ran on
+     * @param recipeHash hash of the recipe
+     * @return the cached result, or null if the recipe has not run on this source content
+     */
+    public CachedResult get(String sourceHash, String recipeHash) {
+        String key = key(sourceHash, recipeHash);
+        try {
+            for (Outcome outcome : Outcome.values()) {
+                Path entry = getEntry(key, outcome);
+                if (Files.isRegularFile(entry)) {
+                    CachedResult result = new CachedResult(outcome, outcome == Outcome.CHANGED ? Files.readAllBytes(entry) : null);
+                    touch(entry);
+                    return result;
+                }
+            }
+        } catch (IOException e) {
+            Logger.debug("Unable to read recipe result cache entry " + key + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Store the result of a recipe on a source. Failing to store is not an error, the recipe will run on the
+     * source again next time.
+     * @param sourceHash hash of the source content the recipe ran on
+     * @param recipeHash hash of the recipe
+     * @param outcome what the recipe did to the source
+     * @param content content the recipe produced, only used for CHANGED
+     */
+    public void put(String sourceHash, String recipeHash, Outcome outcome, byte[] content) {
+        write(getEntry(key(sourceHash, recipeHash), outcome), outcome == Outcome.CHANGED ? content : new byte[0]);
+    }
+
+    /**
+     * Get the files changed, created and deleted by an earlier run of a recipe on exactly the same sources
+     * @param sourcesHash hash of all sources the recipe ran on, see {@link #sourcesHash(Map)}
+     * @param recipeHash hash of the recipe
+     * @return the changes, or null if no run that created files is cached for these sources
+     */
+    public List<FileChange> getRun(String sourcesHash, String recipeHash) {
+        Path entry = getRunEntry(sourcesHash, recipeHash);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(entry); DataInputStream data = new DataInputStream(in)) {
+            int count = data.readInt();
+            List<FileChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Outcome outcome = Outcome.valueOf(data.readUTF());
+                Path path = Path.of(data.readUTF());
+                int length = data.readInt();
+                byte[] content = null;
+                if (length >= 0) {
+                    content = new byte[length];
+                    data.readFully(content);
+                }
+                changes.add(new FileChange(outcome, path, content));
+            }
+            touch(entry);
+            return changes;
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.debug("Unable to read recipe result cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the files changed, created and deleted by a run of a recipe. Failing to store is not an error, the recipe
+     * will run on the sources again next time.
+     * @param sourcesHash hash of all sources the recipe ran on, see {@link #sourcesHash(Map)}
+     * @param recipeHash hash of the recipe
+     * @param changes every file the run changed, created or deleted
+     */
+    public void putRun(String sourcesHash, String recipeHash, List<FileChange> changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeInt(changes.size());
+            for (FileChange change : changes) {
+                data.writeUTF(change.getOutcome().name());
+                data.writeUTF(toCachePath(change.getPath()));
+                data.writeInt(change.getContent() == null ? -1 : change.getContent().length);
+                if (change.getContent() != null) {
+                    data.write(change.getContent());
+                }
+            }
+        } catch (IOException e) {
+            // Not thrown when writing to memory
+            throw new IllegalStateException(e);
+        }
+        write(getRunEntry(sourcesHash, recipeHash), bytes.toByteArray());
+    }
+
+    /**
+     * Evict the least recently used entries until the cache is within its size bound
+     */
+    public void trim() {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(cacheDir.toPath())) {
+            entries = files.filter(file -> !file.getFileName().toString().endsWith(TEMP_EXTN)).collect(Collectors.toList());
+        } catch (IOException e) {
+            return;
+        }
+
+        Map<Path, Long> sizes = new HashMap<>();
+        Map<Path, Long> lastUsed = new HashMap<>();
+        long total = 0;
+        for (Path entry : entries) {
+            try {
+                long size = Files.size(entry) + ENTRY_OVERHEAD_BYTES;
+                lastUsed.put(entry, Files.getLastModifiedTime(entry).toMillis());
+                sizes.put(entry, size);
+                total += size;
+            } catch (IOException e) {
+                // Removed by a concurrent trim
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Path> leastRecentlyUsed = new ArrayList<>(sizes.keySet());
+        leastRecentlyUsed.sort(Comparator.comparing(lastUsed::get));
+        int evicted = 0;
+        for (Path entry : leastRecentlyUsed) {
+            if (total <= maxBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry);
+                total -= sizes.get(entry);
+                evicted++;
+            } catch (IOException e) {
+                Logger.debug("Unable to evict recipe result cache entry " + entry + ": " + e.getMessage());
+            }
+        }
+        Logger.debug("Evicted " + evicted + " recipe result cache entries");
+    }
+
+    private void write(Path entry, byte[] content) {
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            // Write to a temporary file and move it into place so concurrent runs never read a partial entry
+            Path tempFile = Files.createTempFile(cacheDir.toPath(), CACHE_DIR_NAME, TEMP_EXTN);
+            Files.write(tempFile, content);
+            Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.warn("Unable to store recipe result in cache: " + entry);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Mark an entry as recently used, the modification time orders entries for eviction
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects which entries are evicted first
+        }
+    }
+
+    private static String toCachePath(Path path) {
+        return path.toString().replace(File.separatorChar, '/');
+    }
+
+    private static String key(String sourceHash, String recipeHash) {
+        return IOUtils.sha256((sourceHash + recipeHash).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path getEntry(String key, Outcome outcome) {
+        return new File(cacheDir, key + "." + outcome.name().toLowerCase()).toPath();
+    }
+
+    private Path getRunEntry(String sourcesHash, String recipeHash) {
+        return new File(cacheDir, key(sourcesHash, recipeHash) + RUN_EXTN).toPath();
+    }
+}
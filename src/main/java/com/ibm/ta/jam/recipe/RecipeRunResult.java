@@ -0,0 +1,180 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.ibm.ta.jam.utils.JsonUtils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result of running a set of recipes, with timings and change counts for each recipe. Results can be appended
+ * to a log file as JSON lines, one run per line, to compare recipe cost across runs and applications.
+ */
+@Getter
+@Setter(AccessLevel.PACKAGE)
+public class RecipeRunResult {
+
+    /**
+     * Value of the line counts when they are not known, e.g. when recipes run in a forked build
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Name of the recipe declared in the rewrite.yml that groups the recipes that ran
+     */
+    private final String recipeName;
+
+    /**
+     * How the recipes ran, e.g. in-process, maven or gradle
+     */
+    private final String mode;
+
+    private final long startTimeMillis = System.currentTimeMillis();
+
+    private boolean successful;
+
+    private long wallTimeMillis;
+
+    @Getter(AccessLevel.NONE)
+    private final List<RecipeStats> recipeStats = new ArrayList<>();
+
+    /**
+     * Absolute paths of the sources the recipes changed, added or deleted. Not included in the JSON representation.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<Path> changedSources = new TreeSet<>();
+
+    /**
+     * Timings and change counts for one recipe
+     */
+    @Getter
+    @Setter(AccessLevel.PACKAGE)
+    public static class RecipeStats {
+        private final String recipe;
+        private long wallTimeMillis;
+        private int filesScanned;
+        private int filesChanged;
+        private int linesAdded = UNKNOWN;
+        private int linesRemoved = UNKNOWN;
+
+        RecipeStats(String recipe) {
+            this.recipe = recipe;
+        }
+
+        private String toJson() {
+            return "{\"recipe\":" + JsonUtils.quote(recipe)
+                + ",\"wallTimeMillis\":" + wallTimeMillis
+                + ",\"filesScanned\":" + filesScanned
+                + ",\"filesChanged\":" + filesChanged
+                + ",\"linesAdded\":" + linesAdded
+                + ",\"linesRemoved\":" + linesRemoved + "}";
+        }
+    }
+
+    RecipeRunResult(String recipeName, String mode) {
+        this.recipeName = recipeName;
+        this.mode = mode;
+    }
+
+    /**
+     * Add the stats for a recipe and return them to be filled in
+     */
+    RecipeStats addRecipe(String recipe) {
+        RecipeStats stats = new RecipeStats(recipe);
+        recipeStats.add(stats);
+        return stats;
+    }
+
+    /**
+     * Get the stats for each recipe, in the order the recipes ran
+     */
+    public List<RecipeStats> getRecipeStats() {
+        return Collections.unmodifiableList(recipeStats);
+    }
+
+    /**
+     * Record a source the recipes changed, added or deleted
+     */
+    void addChangedSource(Path source) {
+        changedSources.add(source);
+    }
+
+    /**
+     * Get the absolute paths of the sources the recipes changed, added or deleted, in sorted order
+     */
+    public Set<Path> getChangedSources() {
+        return Collections.unmodifiableSet(changedSources);
+    }
+
+    /**
+     * Get the total number of files changed by all recipes
+     */
+    public int getFilesChanged() {
+        return recipeStats.stream().mapToInt(RecipeStats::getFilesChanged).sum();
+    }
+
+    /**
+     * Create a single line JSON representation of the result
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"recipeName\":").append(JsonUtils.quote(recipeName))
+            .append(",\"mode\":").append(JsonUtils.quote(mode))
+            .append(",\"startTime\":").append(JsonUtils.quote(Instant.ofEpochMilli(startTimeMillis).toString()))
+            .append(",\"successful\":").append(successful)
+            .append(",\"wallTimeMillis\":").append(wallTimeMillis)
+            .append(",\"recipes\":[");
+        for (int i = 0; i < recipeStats.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(recipeStats.get(i).toJson());
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Append the result to a JSON lines log file, creating the file if needed
+     * @param logFile the log file
+     * @throws IOException if the log file cannot be written
+     */
+    public void appendTo(Path logFile) throws IOException {
+        if (logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(toJson());
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Recipe run ").append(recipeName).append(successful ? " succeeded" : " failed")
+            .append(" in ").append(wallTimeMillis).append("ms");
+        for (RecipeStats stats : recipeStats) {
+            summary.append(System.lineSeparator()).append("  ").append(stats.getRecipe())
+                .append(": ").append(stats.getWallTimeMillis()).append("ms, ")
+                .append(stats.getFilesChanged()).append("/").append(stats.getFilesScanned()).append(" files changed");
+            if (stats.getLinesAdded() != UNKNOWN) {
+                summary.append(", +").append(stats.getLinesAdded()).append(" -").append(stats.getLinesRemoved()).append(" lines");
+            }
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,189 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.bundle.MigrationMetadata;
+
+/**
+ * Scopes the recipes in a rewrite.yml to the sources where the migration bundle metadata reports occurrences of
+ * their rule. Each scoped recipe is wrapped in its own declarative recipe with a FindSourceFiles precondition, so
+ * the recipe visitors only run on the affected files instead of the whole source tree.
+ *
+ * type: specs.openrewrite.org/v1beta/recipe
+ * name: com.ibm.testRecipe.ServerName
+ * preconditions:
+ *   - org.openrewrite.FindSourceFiles:
+ *       filePattern: '**&#47;com/acme/modres/WeatherServlet.java'
+ * recipeList:
+ *   - org.openrewrite.java.liberty.ServerName
+ */
+public class RecipeScoping {
+
+    private static final String JAVA_EXTN = ".java";
+
+    public static final String FIND_SOURCE_FILES_RECIPE = "org.openrewrite.FindSourceFiles";
+    public static final String REWRITE_YAML_TYPE = "type";
+    public static final String REWRITE_YAML_PRECONDITIONS = "preconditions";
+
+    private RecipeScoping() {
+    }
+
+    /**
+     * Create the documents of a rewrite.yml that runs the recipes scoped to their affected sources
+     * @param rewriteYaml a Map representing the rewrite.yml, whose recipeList holds the recipes to run
+     * @param metadata metadata from the migration bundle, or null to run all recipes unscoped
+     * @return the rewrite.yml documents, the first declares the recipe to activate
+     */
+    public static List<Map<String, Object>> scope(Map<String, Object> rewriteYaml, MigrationMetadata metadata) {
+        if (metadata == null) {
+            return Collections.singletonList(rewriteYaml);
+        }
+
+        String recipeName = (String)rewriteYaml.get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
+        Map<String, Object> rootRecipe = new LinkedHashMap<>(rewriteYaml);
+        List<String> rootRecipeList = new ArrayList<>();
+        List<Map<String, Object>> documents = new ArrayList<>();
+        documents.add(rootRecipe);
+
+        for (String recipe : getRecipeList(rewriteYaml)) {
+            Set<String> sources = metadata.getAffectedSources(recipe);
+            if (sources == null) {
+                Logger.debug("No occurrences in metadata, running unscoped: " + recipe);
+                rootRecipeList.add(recipe);
+                continue;
+            }
+            Logger.debug("Scoping " + recipe + " to " + sources);
+
+            String scopedName = recipeName + "." + recipe.substring(recipe.lastIndexOf('.') + 1);
+            Map<String, Object> scopedRecipe = new LinkedHashMap<>();
+            scopedRecipe.put(REWRITE_YAML_TYPE, rewriteYaml.get(REWRITE_YAML_TYPE));
+            scopedRecipe.put(RecipeAutomation.REWRITE_YAML_RECIPE_NAME, scopedName);
+            scopedRecipe.put(REWRITE_YAML_PRECONDITIONS, Collections.singletonList(
+                Collections.singletonMap(FIND_SOURCE_FILES_RECIPE, Collections.singletonMap("filePattern", toFilePattern(sources)))));
+            scopedRecipe.put(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME, Collections.singletonList(recipe));
+            documents.add(scopedRecipe);
+            rootRecipeList.add(scopedName);
+        }
+        rootRecipe.put(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME, rootRecipeList);
+        return documents;
+    }
+
+    /**
+     * Get all sources the recipes in a rewrite.yml can change
+     * @param rewriteYaml a Map representing the rewrite.yml, whose recipeList holds the recipes to run
+     * @param metadata metadata from the migration bundle, or null
+     * @return paths of the affected sources relative to a source directory, or null if any recipe runs unscoped
+     */
+    public static Set<String> getAffectedSources(Map<String, Object> rewriteYaml, MigrationMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        Set<String> affectedSources = new TreeSet<>();
+        for (String recipe : getRecipeList(rewriteYaml)) {
+            Set<String> sources = metadata.getAffectedSources(recipe);
+            if (sources == null) {
+                return null;
+            }
+            affectedSources.addAll(sources);
+        }
+        return affectedSources;
+    }
+
+    /**
+     * Create the exclusions for a forked rewrite run, so the rewrite plugin does not parse Java sources the scoped
+     * recipes cannot change. Source directories and packages without affected sources are excluded as a whole to keep
+     * the list short, other sources are excluded one by one. Non-Java files are never excluded as recipes may change
+     * build and server configuration.
+     * @param rootDir root directory of the application, the exclusions are relative to it
+     * @param sourceDirs Java source directories of the application
+     * @param affectedSources paths of the affected sources relative to a source directory, or null if any recipe runs unscoped
+     * @return globs of the sources to exclude, empty if all sources need to be parsed
+     */
+    public static List<String> getExclusions(Path rootDir, List<Path> sourceDirs, Set<String> affectedSources) {
+        List<String> exclusions = new ArrayList<>();
+        if (affectedSources == null) {
+            return exclusions;
+        }
+        Path root = rootDir.toAbsolutePath().normalize();
+        try {
+            for (Path sourceDir : sourceDirs) {
+                Path dir = sourceDir.toAbsolutePath().normalize();
+                Set<Path> affectedDirs = new HashSet<>();
+                for (String source : affectedSources) {
+                    Path sourceFile = dir.resolve(source).normalize();
+                    if (sourceFile.startsWith(dir) && Files.isRegularFile(sourceFile)) {
+                        for (Path parent = sourceFile.getParent(); parent.startsWith(dir); parent = parent.getParent()) {
+                            affectedDirs.add(parent);
+                        }
+                    }
+                }
+                addExclusions(root, dir, dir, affectedDirs, affectedSources, exclusions);
+            }
+        } catch (IOException e) {
+            Logger.warn("Unable to list application sources, recipes run on all sources: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        // The build tools take the exclusions as a comma separated list, paths with a comma are parsed rather than excluded
+        exclusions.removeIf(exclusion -> exclusion.contains(","));
+        Logger.debug("Excluding " + exclusions.size() + " source paths from the recipe run");
+        return exclusions;
+    }
+
+    private static void addExclusions(Path rootDir, Path sourceDir, Path dir, Set<Path> affectedDirs, Set<String> affectedSources,
+        List<String> exclusions) throws IOException {
+        if (!affectedDirs.contains(dir)) {
+            exclusions.add(toGlob(rootDir.relativize(dir)) + (dir.equals(rootDir) ? "" : "/") + "**" + JAVA_EXTN);
+            return;
+        }
+        List<Path> children;
+        try (Stream<Path> list = Files.list(dir)) {
+            children = list.sorted().collect(Collectors.toList());
+        }
+        for (Path child : children) {
+            if (Files.isDirectory(child)) {
+                addExclusions(rootDir, sourceDir, child, affectedDirs, affectedSources, exclusions);
+            } else if (child.toString().endsWith(JAVA_EXTN)
+                && !affectedSources.contains(sourceDir.relativize(child).toString().replace(File.separatorChar, '/'))) {
+                exclusions.add(toGlob(rootDir.relativize(child)));
+            }
+        }
+    }
+
+    /**
+     * Convert a relative path to a glob matching just that path
+     */
+    private static String toGlob(Path path) {
+        return path.toString().replace(File.separatorChar, '/').replaceAll("([*?\\[\\]{}])", "\\\\$1");
+    }
+
+    /**
+     * Create a glob matching the sources in any source directory
+     */
+    static String toFilePattern(Set<String> sources) {
+        if (sources.size() == 1) {
+            return "**/" + sources.iterator().next();
+        }
+        return "**/{" + String.join(",", sources) + "}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> getRecipeList(Map<String, Object> rewriteYaml) {
+        return (List<String>)rewriteYaml.get(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME);
+    }
+}
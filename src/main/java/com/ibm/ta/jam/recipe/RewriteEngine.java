@@ -0,0 +1,614 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.config.Environment;
+import org.openrewrite.config.YamlResourceLoader;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.java.JavaParser;
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.Yaml;
+
+import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.build.CompileClasspath;
+import com.ibm.ta.jam.utils.IOUtils;
+
+/**
+ * Runs OpenRewrite recipes inside the JAM JVM. Sources are parsed into LSTs (lossless semantic trees) with the
+ * project's compile classpath, the recipe declared in the rewrite.yml is applied, and changed sources are written back.
+ * The recipes themselves come from the rewrite-liberty version JAM is built with.
+ */
+public class RewriteEngine {
+
+    public static final String RUN_MODE = "in-process";
+
+    /**
+     * Java version of the parser, JavaParser.fromJavaVersion() picks the parser for the running JVM
+     */
+    private static final String PARSER_JAVA_VERSION = System.getProperty("java.specification.version");
+
+    private static final String REWRITE_LIBERTY_POM_PROPERTIES = "META-INF/maven/org.openrewrite.recipe/rewrite-liberty/pom.properties";
+
+    /**
+     * Root directory of the application, source paths in the LSTs are relative to it
+     */
+    private final Path baseDir;
+
+    /**
+     * Build tool used to discover source directories and the compile classpath
+     */
+    private final BuildTool buildTool;
+
+    /**
+     * LSTs parsed in this session, reused by later recipe runs while the source content is unchanged
+     */
+    private final LstCache lstCache = new LstCache();
+
+    /**
+     * Compile classpath, resolved again only when the build configuration changes as it needs a run of the build tool
+     */
+    private final CompileClasspath compileClasspath;
+
+    /**
+     * Results of earlier recipe runs, shared across sessions
+     */
+    private final RecipeResultCache resultCache = new RecipeResultCache();
+
+    /**
+     * Create the RewriteEngine for an application
+     * @param applicationDir root directory of the application
+     * @param buildTool BuildTool object for the application
+     */
+    public RewriteEngine(String applicationDir, BuildTool buildTool) {
+        this.baseDir = Path.of(applicationDir).toAbsolutePath().normalize();
+        this.buildTool = buildTool;
+        this.compileClasspath = new CompileClasspath(baseDir, buildTool);
+    }
+
+    /**
+     * Parse the application sources and run the recipe declared in the given rewrite.yml against them. The recipe
+     * does not run again on sources it already ran on with the same content and compile classpath, their results are
+     * answered from the recipe result cache instead.
+     * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+     * @param affectedSources paths relative to a source directory of the only sources to parse, or null for all sources
+     * @return the result of the run, with timings and change counts for each recipe in the recipeList
+     */
+    public RecipeRunResult run(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources) {
+        return run(rewriteYaml, affectedSources, null);
+    }
+
+    /**
+     * Parse the application sources and run the recipe declared in the given rewrite.yml against them, writing the
+     * changes as a unified diff instead of to the sources. The recipe result cache is not used, as it holds the
+     * recipe output rather than the diff.
+     * @param rewriteYaml the documents of the rewrite.yml to run, the first declares the recipe that is activated
+     * @param affectedSources paths relative to a source directory of the only sources to parse, or null for all sources
+     * @param patch writer the diff is streamed to, one source at a time
+     * @return the result of the run, with timings and change counts for each recipe in the recipeList
+     */
+    public RecipeRunResult dryRun(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer patch) {
+        return run(rewriteYaml, affectedSources, patch);
+    }
+
+    private RecipeRunResult run(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, Writer dryRunPatch) {
+        String recipeName = (String)rewriteYaml.get(0).get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
+        Logger.debug("Start in-process recipe " + (dryRunPatch != null ? "dry run" : "run") + " of " + recipeName + " for " + baseDir);
+        RecipeRunResult runResult = new RecipeRunResult(recipeName, RUN_MODE);
+        long start = System.currentTimeMillis();
+        runResult.setSuccessful(runRecipes(rewriteYaml, affectedSources, runResult, dryRunPatch));
+        runResult.setWallTimeMillis(System.currentTimeMillis() - start);
+        Logger.debug(runResult);
+        Logger.debug("Finish in-process recipe run of " + recipeName);
+        return runResult;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean runRecipes(List<Map<String, Object>> rewriteYaml, Set<String> affectedSources, RecipeRunResult runResult,
+            Writer dryRunPatch) {
+        String recipeName = (String)rewriteYaml.get(0).get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME);
+        List<String> recipeList = (List<String>)rewriteYaml.get(0).get(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME);
+
+        List<Throwable> errors = new ArrayList<>();
+        ExecutionContext ctx = new InMemoryExecutionContext(t -> {
+            Logger.warn("Error running recipe: " + t.getMessage());
+            errors.add(t);
+        });
+
+        Map<Path, String> sourceHashes = new LinkedHashMap<>();
+        List<RecipeResultCache.FileChange> changes = new ArrayList<>();
+        int changedFromCache = 0;
+        String recipeHash;
+        String sourcesHash;
+        List<SourceFile> sourceFiles;
+        try {
+            // Type attribution depends on the compile classpath and the parser, so results are only reused for the same ones
+            List<Path> classpath = compileClasspath.get();
+            String classpathHash = hashClasspath(classpath);
+            recipeHash = RecipeResultCache.recipeHash(new Yaml().dumpAll(rewriteYaml.iterator()), getRewriteLibertyVersion(),
+                classpathHash, PARSER_JAVA_VERSION);
+
+            List<Path> javaSources = findJavaSources(affectedSources);
+            Map<Path, String> allSourceHashes = new LinkedHashMap<>();
+            for (Path javaSource : javaSources) {
+                allSourceHashes.put(baseDir.relativize(javaSource.toAbsolutePath().normalize()), IOUtils.sha256(javaSource));
+            }
+            if (affectedSources == null) {
+                lstCache.retainAll(allSourceHashes.keySet());
+            }
+
+            // A run that created files is only cached as a whole, for exactly the same sources
+            sourcesHash = RecipeResultCache.sourcesHash(allSourceHashes);
+            List<RecipeResultCache.FileChange> cachedRun = dryRunPatch == null ? resultCache.getRun(sourcesHash, recipeHash) : null;
+            if (cachedRun != null) {
+                for (RecipeResultCache.FileChange change : cachedRun) {
+                    applyCachedChange(change);
+                    runResult.addChangedSource(baseDir.resolve(change.getPath()));
+                }
+                Logger.info("Recipes changed " + cachedRun.size() + " files (cached)");
+                return true;
+            }
+
+            List<RecipeResultCache.FileChange> cachedChanges = new ArrayList<>();
+            for (Map.Entry<Path, String> source : allSourceHashes.entrySet()) {
+                RecipeResultCache.CachedResult cached = dryRunPatch == null ? resultCache.get(source.getValue(), recipeHash) : null;
+                if (cached == null) {
+                    sourceHashes.put(source.getKey(), source.getValue());
+                } else {
+                    cachedChanges.add(new RecipeResultCache.FileChange(cached.getOutcome(), source.getKey(), cached.getContent()));
+                }
+            }
+            Logger.debug(cachedChanges.size() + " of " + javaSources.size() + " sources answered from the recipe result cache");
+
+            // Every source is parsed, so types declared in the sources answered from the cache are still attributed
+            // in those the recipes run on. The cache only saves running the recipes.
+            if (!sourceHashes.isEmpty()) {
+                sourceFiles = parse(javaSources, classpath, classpathHash, ctx).stream()
+                    .filter(sourceFile -> sourceHashes.containsKey(sourceFile.getSourcePath()))
+                    .collect(Collectors.toList());
+            } else {
+                sourceFiles = Collections.emptyList();
+            }
+
+            for (RecipeResultCache.FileChange change : cachedChanges) {
+                if (applyCachedChange(change)) {
+                    runResult.addChangedSource(baseDir.resolve(change.getPath()));
+                    changes.add(change);
+                    changedFromCache++;
+                }
+            }
+            if (sourceHashes.isEmpty()) {
+                Logger.info("Recipes changed " + changedFromCache + " of " + javaSources.size() + " source files");
+                return true;
+            }
+        } catch (IOException e) {
+            Logger.error("Unable to read application sources");
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+
+        // Only load the recipes once they are known to be needed, scanning the classpath for recipes is slow
+        Environment environment;
+        try {
+            environment = loadEnvironment(rewriteYaml);
+        } catch (RuntimeException e) {
+            Logger.error("Unable to load recipe " + recipeName + ": " + e.getMessage());
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+
+        // Run each recipe in the recipeList in turn, on the output of the one before, so each can be timed and its changes counted
+        Map<String, String> scopedRecipes = getScopedRecipes(rewriteYaml);
+        List<SourceFile> current = sourceFiles;
+        for (String recipe : recipeList) {
+            RecipeRunResult.RecipeStats stats = runResult.addRecipe(scopedRecipes.getOrDefault(recipe, recipe));
+            long start = System.currentTimeMillis();
+            List<Result> results;
+            try {
+                RecipeRun recipeRun = environment.activateRecipes(recipe).run(new InMemoryLargeSourceSet(current), ctx);
+                results = recipeRun.getChangeset().getAllResults();
+            } catch (RuntimeException e) {
+                Logger.error("Unable to run recipe " + recipe + ": " + e.getMessage());
+                if (Logger.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+                return false;
+            }
+            stats.setWallTimeMillis(System.currentTimeMillis() - start);
+            stats.setFilesScanned(current.size());
+            stats.setFilesChanged(results.size());
+            countChangedLines(results.stream().map(Result::diff).collect(Collectors.toList()), stats);
+            current = applyResults(current, results);
+        }
+
+        if (dryRunPatch != null) {
+            try {
+                int changed = writePatch(sourceFiles, current, dryRunPatch);
+                Logger.info("Recipes would change " + changed + " of " + sourceFiles.size() + " source files");
+            } catch (IOException e) {
+                Logger.error("Unable to write recipe patch");
+                if (Logger.isDebugEnabled()) {
+                    e.printStackTrace();
+                }
+                return false;
+            }
+            return errors.isEmpty();
+        }
+
+        int changed;
+        try {
+            changed = writeChanges(sourceFiles, current, changes, runResult);
+        } catch (IOException e) {
+            Logger.error("Unable to write recipe results");
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+
+        // A failed run may not have visited every source, so only cache the results of a clean run
+        if (errors.isEmpty()) {
+            cacheResults(sourceHashes, sourcesHash, recipeHash, changes);
+        }
+
+        Logger.info("Recipes changed " + (changed + changedFromCache) + " of " + (sourceFiles.size() + changedFromCache) + " source files");
+        return errors.isEmpty();
+    }
+
+    /**
+     * Map the names of the recipes generated to scope a recipe to the name of the recipe they wrap
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getScopedRecipes(List<Map<String, Object>> rewriteYaml) {
+        Map<String, String> scopedRecipes = new HashMap<>();
+        for (Map<String, Object> document : rewriteYaml.subList(1, rewriteYaml.size())) {
+            List<String> recipeList = (List<String>)document.get(MavenRecipeAutomation.REWRITE_RECIPE_LIST_NAME);
+            if (recipeList != null && recipeList.size() == 1) {
+                scopedRecipes.put((String)document.get(RecipeAutomation.REWRITE_YAML_RECIPE_NAME), recipeList.get(0));
+            }
+        }
+        return scopedRecipes;
+    }
+
+    /**
+     * Count the lines added and removed by recipe results from their unified diffs. Only lines in hunks are counted,
+     * the ---/+++ file headers before the first @@ of each file are not, while a changed line such as --i; is.
+     * @param diffs unified diff of each result
+     * @param stats the stats the counts are set on
+     */
+    static void countChangedLines(List<String> diffs, RecipeRunResult.RecipeStats stats) {
+        int added = 0;
+        int removed = 0;
+        for (String diff : diffs) {
+            boolean inHunk = false;
+            for (String line : diff.split("\\R")) {
+                if (line.startsWith("diff ")) {
+                    inHunk = false;
+                } else if (line.startsWith("@@")) {
+                    inHunk = true;
+                } else if (inHunk && line.startsWith("+")) {
+                    added++;
+                } else if (inHunk && line.startsWith("-")) {
+                    removed++;
+                }
+            }
+        }
+        stats.setLinesAdded(added);
+        stats.setLinesRemoved(removed);
+    }
+
+    /**
+     * Replace the sources changed by a recipe with the recipe output
+     */
+    private static List<SourceFile> applyResults(List<SourceFile> sourceFiles, List<Result> results) {
+        Map<UUID, Result> resultsByBefore = new HashMap<>();
+        List<SourceFile> generated = new ArrayList<>();
+        for (Result result : results) {
+            if (result.getBefore() == null) {
+                generated.add(result.getAfter());
+            } else {
+                resultsByBefore.put(result.getBefore().getId(), result);
+            }
+        }
+        List<SourceFile> after = new ArrayList<>();
+        for (SourceFile sourceFile : sourceFiles) {
+            Result result = resultsByBefore.get(sourceFile.getId());
+            if (result == null) {
+                after.add(sourceFile);
+            } else if (result.getAfter() != null) {
+                after.add(result.getAfter());
+            }
+        }
+        after.addAll(generated);
+        return after;
+    }
+
+    /**
+     * Store the results of a clean run in the recipe result cache. Files created by a recipe, whether generated or
+     * moved, cannot be attributed to the source they came from, so a run that created files is stored as a whole
+     * and its sources are not cached one by one.
+     * @param sourceHashes hash of each source the recipes ran on, by path relative to the application directory
+     * @param sourcesHash hash of all sources of the run, including those answered from the cache
+     * @param recipeHash hash of the recipe
+     * @param changes every file changed, created or deleted by the run, including those answered from the cache
+     */
+    private void cacheResults(Map<Path, String> sourceHashes, String sourcesHash, String recipeHash, List<RecipeResultCache.FileChange> changes) {
+        if (changes.stream().anyMatch(change -> change.getOutcome() == RecipeResultCache.Outcome.CREATED)) {
+            resultCache.putRun(sourcesHash, recipeHash, changes);
+        } else {
+            Map<Path, RecipeResultCache.FileChange> changesByPath = new HashMap<>();
+            for (RecipeResultCache.FileChange change : changes) {
+                changesByPath.put(change.getPath(), change);
+            }
+            for (Map.Entry<Path, String> source : sourceHashes.entrySet()) {
+                RecipeResultCache.FileChange change = changesByPath.get(source.getKey());
+                if (change == null) {
+                    resultCache.put(source.getValue(), recipeHash, RecipeResultCache.Outcome.UNCHANGED, null);
+                } else {
+                    resultCache.put(source.getValue(), recipeHash, change.getOutcome(), change.getContent());
+                }
+            }
+        }
+        resultCache.trim();
+    }
+
+    /**
+     * Apply a cached recipe result to a file
+     * @return true if the file was changed, created or deleted
+     */
+    private boolean applyCachedChange(RecipeResultCache.FileChange change) throws IOException {
+        Path file = baseDir.resolve(change.getPath());
+        switch (change.getOutcome()) {
+            case CHANGED:
+            case CREATED:
+                Files.createDirectories(file.getParent());
+                Files.write(file, change.getContent());
+                Logger.debug("Recipe " + change.getOutcome().name().toLowerCase() + " " + change.getPath() + " (cached)");
+                return true;
+            case DELETED:
+                Files.deleteIfExists(file);
+                lstCache.remove(change.getPath());
+                Logger.debug("Recipe deleted " + change.getPath() + " (cached)");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Hash the compile classpath, each entry by path, size and modification time so a jar replaced in place, such as
+     * a Liberty lib copied again, is a change too
+     * @param classpath the compile classpath
+     * @return the hash as a lower case hex string
+     */
+    static String hashClasspath(List<Path> classpath) throws IOException {
+        StringBuilder entries = new StringBuilder();
+        for (Path entry : classpath) {
+            entries.append(entry).append('\u0000');
+            if (Files.isRegularFile(entry)) {
+                entries.append(Files.size(entry)).append('\u0000').append(Files.getLastModifiedTime(entry).toMillis());
+            }
+            entries.append('\n');
+        }
+        return IOUtils.sha256(entries.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the version of rewrite-liberty that the in-process recipes come from
+     * @return the version, or null if it cannot be determined
+     */
+    public static String getRewriteLibertyVersion() {
+        try (InputStream in = RewriteEngine.class.getClassLoader().getResourceAsStream(REWRITE_LIBERTY_POM_PROPERTIES)) {
+            if (in == null) {
+                return null;
+            }
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Load the recipes declared in the rewrite.yml. Recipes referenced in their recipeLists are found on the JAM classpath.
+     */
+    private Environment loadEnvironment(List<Map<String, Object>> rewriteYaml) {
+        byte[] yamlBytes = new Yaml().dumpAll(rewriteYaml.iterator()).getBytes(StandardCharsets.UTF_8);
+        return Environment.builder()
+            .scanRuntimeClasspath()
+            .load(new YamlResourceLoader(new ByteArrayInputStream(yamlBytes), URI.create("jam:" + RecipeAutomation.REWRITE_YAML_FILE_NAME), new Properties()))
+            .build();
+    }
+
+    /**
+     * Get the LSTs for Java sources. Sources whose content is unchanged since they were last parsed come from the
+     * LST cache, the rest are parsed with the project's compile classpath.
+     * @param javaSources the sources to parse
+     * @param classpath the compile classpath
+     * @param classpathHash hash of the compile classpath, the cached LSTs are dropped when it changes
+     */
+    List<SourceFile> parse(List<Path> javaSources, List<Path> classpath, String classpathHash, ExecutionContext ctx) throws IOException {
+        lstCache.validateClasspath(classpathHash);
+
+        List<Path> relativePaths = new ArrayList<>();
+        Map<Path, SourceFile> lsts = new HashMap<>();
+        Map<Path, byte[]> toParse = new LinkedHashMap<>();
+        for (Path javaSource : javaSources) {
+            Path relativePath = baseDir.relativize(javaSource.toAbsolutePath().normalize());
+            relativePaths.add(relativePath);
+            byte[] content = Files.readAllBytes(javaSource);
+            SourceFile cached = lstCache.get(relativePath, IOUtils.sha256(content));
+            if (cached != null) {
+                lsts.put(relativePath, cached);
+            } else {
+                toParse.put(relativePath, content);
+            }
+        }
+
+        if (!toParse.isEmpty()) {
+            Logger.debug("Parsing " + toParse.size() + " of " + javaSources.size() + " Java sources with " + classpath.size() + " classpath entries");
+            JavaParser parser = JavaParser.fromJavaVersion()
+                .classpath(classpath)
+                .logCompilationWarningsAndErrors(false)
+                .build();
+            List<Path> parsePaths = toParse.keySet().stream().map(baseDir::resolve).collect(Collectors.toList());
+            parser.parse(parsePaths, baseDir, ctx).forEach(sourceFile -> {
+                byte[] content = toParse.get(sourceFile.getSourcePath());
+                if (content != null) {
+                    lstCache.put(sourceFile.getSourcePath(), IOUtils.sha256(content), content.length, sourceFile);
+                }
+                lsts.put(sourceFile.getSourcePath(), sourceFile);
+            });
+        }
+        Logger.debug(lstCache);
+
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        for (Path relativePath : relativePaths) {
+            SourceFile sourceFile = lsts.get(relativePath);
+            if (sourceFile != null) {
+                sourceFiles.add(sourceFile);
+            }
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * Find the Java sources in the source directories of the application
+     * @param affectedSources paths relative to a source directory of the only sources to find, or null for all sources
+     */
+    List<Path> findJavaSources(Set<String> affectedSources) throws IOException {
+        List<Path> javaSources = new ArrayList<>();
+        for (Path sourceDir : buildTool.getSourceDirectories()) {
+            if (affectedSources != null) {
+                for (String affectedSource : affectedSources) {
+                    Path javaSource = sourceDir.resolve(affectedSource);
+                    if (Files.isRegularFile(javaSource)) {
+                        javaSources.add(javaSource);
+                    }
+                }
+                continue;
+            }
+            try (Stream<Path> paths = Files.walk(sourceDir)) {
+                paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".java"))
+                    .forEach(javaSources::add);
+            }
+        }
+        return javaSources;
+    }
+
+    /**
+     * Write the changes made by the recipes back to the application: changed sources are overwritten, deleted sources
+     * removed, and moved or generated sources written to their new location. The LST cache is updated with the recipe
+     * output so the next run does not need to parse the changed sources again.
+     * @param before the sources before the recipes ran
+     * @param after the sources after the recipes ran
+     * @param changes the files changed, created and deleted are added to it, a moved source is deleted and created
+     * @param runResult the result of the run, the paths of the changed sources are added to it
+     * @return the number of sources changed
+     */
+    private int writeChanges(List<SourceFile> before, List<SourceFile> after, List<RecipeResultCache.FileChange> changes,
+            RecipeRunResult runResult) throws IOException {
+        Map<UUID, SourceFile> afterById = new LinkedHashMap<>();
+        for (SourceFile sourceFile : after) {
+            afterById.put(sourceFile.getId(), sourceFile);
+        }
+
+        int changed = 0;
+        for (SourceFile beforeSource : before) {
+            SourceFile afterSource = afterById.remove(beforeSource.getId());
+            if (afterSource == beforeSource) {
+                continue;
+            }
+            changed++;
+            Path beforePath = beforeSource.getSourcePath();
+            runResult.addChangedSource(baseDir.resolve(beforePath));
+            if (afterSource == null || !beforePath.equals(afterSource.getSourcePath())) {
+                Files.deleteIfExists(baseDir.resolve(beforePath));
+                lstCache.remove(beforePath);
+                changes.add(new RecipeResultCache.FileChange(RecipeResultCache.Outcome.DELETED, beforePath, null));
+            }
+            if (afterSource != null) {
+                runResult.addChangedSource(baseDir.resolve(afterSource.getSourcePath()));
+                byte[] content = writeSource(afterSource);
+                changes.add(new RecipeResultCache.FileChange(beforePath.equals(afterSource.getSourcePath())
+                    ? RecipeResultCache.Outcome.CHANGED : RecipeResultCache.Outcome.CREATED, afterSource.getSourcePath(), content));
+            }
+        }
+        for (SourceFile generated : afterById.values()) {
+            runResult.addChangedSource(baseDir.resolve(generated.getSourcePath()));
+            changes.add(new RecipeResultCache.FileChange(RecipeResultCache.Outcome.CREATED, generated.getSourcePath(), writeSource(generated)));
+            changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * Write the changes made by the recipes as a unified diff, leaving the application unchanged. Each source is
+     * diffed against its state before the first recipe, so a source changed by several recipes has a single diff.
+     * @param before the sources before the recipes ran
+     * @param after the sources after the recipes ran
+     * @param patch writer the diff is written to
+     * @return the number of sources changed
+     */
+    private static int writePatch(List<SourceFile> before, List<SourceFile> after, Writer patch) throws IOException {
+        Map<UUID, SourceFile> afterById = new LinkedHashMap<>();
+        for (SourceFile sourceFile : after) {
+            afterById.put(sourceFile.getId(), sourceFile);
+        }
+
+        int changed = 0;
+        for (SourceFile beforeSource : before) {
+            SourceFile afterSource = afterById.remove(beforeSource.getId());
+            if (afterSource != beforeSource) {
+                patch.write(new Result(beforeSource, afterSource, Collections.emptyList()).diff());
+                changed++;
+            }
+        }
+        for (SourceFile generated : afterById.values()) {
+            patch.write(new Result(null, generated, Collections.emptyList()).diff());
+            changed++;
+        }
+        patch.flush();
+        return changed;
+    }
+
+    private byte[] writeSource(SourceFile sourceFile) throws IOException {
+        Path path = baseDir.resolve(sourceFile.getSourcePath());
+        Charset charset = sourceFile.getCharset() != null ? sourceFile.getCharset() : StandardCharsets.UTF_8;
+        Files.createDirectories(path.getParent());
+        byte[] content = sourceFile.printAll().getBytes(charset);
+        Files.write(path, content);
+        lstCache.put(sourceFile.getSourcePath(), IOUtils.sha256(content), content.length, sourceFile);
+        Logger.debug("Recipe changed " + sourceFile.getSourcePath());
+        return content;
+    }
+}
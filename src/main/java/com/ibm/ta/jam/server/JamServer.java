@@ -0,0 +1,566 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.tinylog.Logger;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import com.ibm.ta.jam.InitializationException;
+import com.ibm.ta.jam.InvalidApplicationDirectoryException;
+import com.ibm.ta.jam.InvalidMigrationBundleException;
+import com.ibm.ta.jam.Jam;
+import com.ibm.ta.jam.JamOptions;
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepInputs;
+import com.ibm.ta.jam.SubsystemInitializationException;
+import com.ibm.ta.jam.build.GradleConnectionPool;
+import com.ibm.ta.jam.instrument.MetricsRegistry;
+import com.ibm.ta.jam.utils.JamUtils;
+import com.ibm.ta.jam.utils.JsonUtils;
+import com.ibm.ta.jam.utils.MavenCoords;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Daemon hosting Jam sessions in one long running JVM, with a JSON API on localhost. Requests skip JVM, CLI and
+ * Maven discovery startup, and the caches of each session stay warm between jobs. The API is:
+ * <pre>
+ * POST   /sessions                 {"applicationDir": "...", "migrationBundle": "..."}, returns the session id.
+ *                                  An open session for the same application and bundle is reused
+ * GET    /sessions                 open sessions
+ * GET    /sessions/{id}            the session, with the dependencies and recipes in its migration bundle
+ * DELETE /sessions/{id}            close the session once its jobs have finished
+ * POST   /sessions/{id}/jobs       {"steps": ["build", ...], "skipTests": true, "recipes": [...],
+ *                                  "remoteDependencies": ["groupId:artifactId:version"], "localDependencies": ["/path"]},
+ *                                  returns the job id. Steps run as in {@link Jam#runSteps}
+ * GET    /jobs/{id}                job state and the status of each step
+ * GET    /jobs/{id}/events         job progress streamed as JSON lines until the job finishes
+ * GET    /metrics                  metrics of all sessions in the Prometheus text format, or as JSON with ?format=json
+ * POST   /shutdown                 stop the daemon once running and queued jobs have finished
+ * </pre>
+ * The daemon only listens on the loopback address. Requests need an Authorization: Bearer header with the token the
+ * daemon writes to a file only the user can read, see {@link #getTokenFile()}, and a loopback Host header, so web
+ * pages cannot reach the API through DNS rebinding. POST requests need a Content-Type of application/json, which
+ * browsers do not send cross-origin without a preflight. Only the most recent finished jobs are kept.
+ */
+public class JamServer implements AutoCloseable {
+
+    private static final String JSON = "application/json";
+    private static final String JSON_LINES = "application/x-ndjson";
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+
+    private static final String BEARER = "Bearer ";
+
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Host names a request to the loopback address can be made to, other names are sent by DNS rebinding
+     */
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    /**
+     * Number of finished jobs kept for clients to query, older finished jobs are removed
+     */
+    static final int MAX_FINISHED_JOBS = 100;
+
+    /**
+     * Request bodies are small JSON documents, this guards against reading an unbounded body
+     */
+    private static final int MAX_BODY_CODE_POINTS = 1024 * 1024;
+
+    private final HttpServer server;
+
+    private final JamOptions options;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Handles requests, streaming events holds a thread for as long as the client listens
+     */
+    private final ExecutorService requestExecutor;
+
+    /**
+     * Runs the steps of all jobs that can run at the same time
+     */
+    private final ExecutorService stepExecutor;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private final String token;
+
+    private final Path tokenFile;
+
+    /**
+     * Create the JamServer
+     * @param port port to listen on, 0 to pick a free port
+     * @param options options for the Jam session of each application
+     * @throws IOException if the port cannot be bound or the token file cannot be written
+     */
+    public JamServer(int port, JamOptions options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        this.tokenFile = new File(JamUtils.getCacheDir(), "daemon-" + getPort() + ".token").toPath();
+        try {
+            writeTokenFile(tokenFile, token);
+        } catch (IOException e) {
+            server.stop(0);
+            throw e;
+        }
+        this.requestExecutor = Executors.newCachedThreadPool(daemonThreads("jam-server-request"));
+        this.stepExecutor = Executors.newCachedThreadPool(daemonThreads("jam-server-step"));
+        server.setExecutor(requestExecutor);
+        server.createContext("/sessions", exchange -> handle(exchange, this::handleSessions));
+        server.createContext("/jobs", exchange -> handle(exchange, this::handleJobs));
+        server.createContext("/metrics", exchange -> handle(exchange, this::handleMetrics));
+        server.createContext("/shutdown", exchange -> handle(exchange, this::handleShutdown));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void start() {
+        server.start();
+        Logger.info("JAM daemon listening on http://localhost:" + getPort() + ", the bearer token is in " + tokenFile);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Get the file holding the bearer token requests must present. Only the user running the daemon can read it,
+     * and it is removed when the daemon stops.
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Write the token to a new file that only the owner can read and write
+     */
+    private static void writeTokenFile(Path tokenFile, String token) throws IOException {
+        Files.createDirectories(tokenFile.getParent());
+        Files.deleteIfExists(tokenFile);
+        try {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system, restrict the file to the owner as far as it allows
+            File file = Files.createFile(tokenFile).toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        Files.writeString(tokenFile, token);
+    }
+
+    /**
+     * Wait until the daemon is stopped with /shutdown or {@link #close()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stop the daemon, closing all sessions once their running and queued jobs have finished
+     */
+    @Override
+    public synchronized void close() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        server.stop(0);
+        List<Session> closing = new ArrayList<>(sessions.values());
+        sessions.clear();
+        for (Session session : closing) {
+            session.close();
+        }
+        try {
+            for (Session session : closing) {
+                session.awaitClosed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        requestExecutor.shutdownNow();
+        stepExecutor.shutdown();
+        GradleConnectionPool.closeAll();
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            Logger.warn("Unable to remove the daemon token file " + tokenFile + ": " + e.getMessage());
+        }
+        stopped.countDown();
+    }
+
+    //
+    // Routing
+    //
+
+    private interface Handler {
+        void handle(HttpExchange exchange, List<String> path) throws RequestException, IOException;
+    }
+
+    /**
+     * Request that cannot be served, answered with the given HTTP status and an error message
+     */
+    private static class RequestException extends Exception {
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try {
+            authorize(exchange);
+            // Path segments after the context, e.g. [id, jobs] for /sessions/{id}/jobs
+            String context = exchange.getHttpContext().getPath();
+            List<String> path = Arrays.stream(exchange.getRequestURI().getPath().substring(context.length()).split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .collect(Collectors.toList());
+            handler.handle(exchange, path);
+        } catch (RequestException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (SubsystemInitializationException e) {
+            sendError(exchange, 422, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            Logger.error("Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+            if (Logger.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Check the request comes from a client of this user through the loopback address
+     */
+    private void authorize(HttpExchange exchange) throws RequestException {
+        if (!isLoopbackHost(exchange.getRequestHeaders().getFirst("Host"))) {
+            throw new RequestException(403, "Requests must be made to localhost");
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith(BEARER)
+            || !MessageDigest.isEqual(authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new RequestException(401, "Requests need the bearer token from " + tokenFile);
+        }
+        if (exchange.getRequestMethod().equals("POST")) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType == null || !contentType.split(";")[0].trim().equalsIgnoreCase(JSON)) {
+                throw new RequestException(415, "POST requests must have a Content-Type of " + JSON);
+            }
+        }
+    }
+
+    static boolean isLoopbackHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String name = host.trim().toLowerCase();
+        int port = name.lastIndexOf(':');
+        if (port > name.lastIndexOf(']')) {
+            name = name.substring(0, port);
+        }
+        return LOOPBACK_HOSTS.contains(name);
+    }
+
+    private void handleSessions(HttpExchange exchange, List<String> path) throws RequestException, IOException {
+        String method = exchange.getRequestMethod();
+        if (path.isEmpty() && method.equals("POST")) {
+            createSession(exchange);
+        } else if (path.isEmpty() && method.equals("GET")) {
+            List<String> ids = new ArrayList<>(sessions.keySet());
+            Collections.sort(ids);
+            send(exchange, 200, JSON, "{\"sessions\":" + JsonUtils.array(ids) + "}");
+        } else if (path.size() == 1 && method.equals("GET")) {
+            send(exchange, 200, JSON, getSession(path.get(0)).toJson());
+        } else if (path.size() == 1 && method.equals("DELETE")) {
+            Session session = sessions.remove(path.get(0));
+            if (session == null) {
+                throw new RequestException(404, "No session " + path.get(0));
+            }
+            session.close();
+            send(exchange, 204, JSON, null);
+        } else if (path.size() == 2 && path.get(1).equals("jobs") && method.equals("POST")) {
+            submitJob(exchange, getSession(path.get(0)));
+        } else {
+            throw new RequestException(404, "No resource " + method + " " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void handleJobs(HttpExchange exchange, List<String> path) throws RequestException, IOException {
+        String method = exchange.getRequestMethod();
+        if (path.size() == 1 && method.equals("GET")) {
+            send(exchange, 200, JSON, getJob(path.get(0)).toJson());
+        } else if (path.size() == 2 && path.get(1).equals("events") && method.equals("GET")) {
+            streamEvents(exchange, getJob(path.get(0)));
+        } else {
+            throw new RequestException(404, "No resource " + method + " " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange, List<String> path) throws RequestException, IOException {
+        if (!path.isEmpty() || !exchange.getRequestMethod().equals("GET")) {
+            throw new RequestException(404, "No resource " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+        }
+        if ("format=json".equals(exchange.getRequestURI().getQuery())) {
+            send(exchange, 200, JSON, MetricsRegistry.get().toJson());
+        } else {
+            send(exchange, 200, PROMETHEUS_TEXT, MetricsRegistry.get().toPrometheus());
+        }
+    }
+
+    private void handleShutdown(HttpExchange exchange, List<String> path) throws RequestException, IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw new RequestException(405, "Use POST to shut down the daemon");
+        }
+        send(exchange, 202, JSON, "{}");
+        // Stop from another thread, stopping the server waits for this exchange to finish
+        new Thread(this::close, "jam-server-shutdown").start();
+    }
+
+    //
+    // Sessions and jobs
+    //
+
+    private void createSession(HttpExchange exchange) throws RequestException, IOException {
+        Map<String, Object> body = readBody(exchange);
+        // Real paths, so the same application or bundle named through a different path reuses the session
+        String applicationDir = toRealPath(getString(body, "applicationDir", true));
+        String migrationBundle = toRealPath(getString(body, "migrationBundle", true));
+        synchronized (sessions) {
+            for (Session session : sessions.values()) {
+                if (session.getApplicationDir().equals(applicationDir) && session.getMigrationBundle().equals(migrationBundle)) {
+                    send(exchange, 200, JSON, "{\"id\":" + JsonUtils.quote(session.getId()) + "}");
+                    return;
+                }
+            }
+            Jam jam;
+            try {
+                jam = new Jam(applicationDir, migrationBundle, options);
+            } catch (InvalidApplicationDirectoryException | InvalidMigrationBundleException | InitializationException e) {
+                throw new RequestException(422, e.getMessage());
+            }
+            Session session = new Session("session-" + ids.incrementAndGet(), applicationDir, migrationBundle, jam);
+            sessions.put(session.getId(), session);
+            Logger.info("Opened session " + session.getId() + " for " + applicationDir);
+            send(exchange, 201, JSON, "{\"id\":" + JsonUtils.quote(session.getId()) + "}");
+        }
+    }
+
+    private void submitJob(HttpExchange exchange, Session session) throws RequestException, IOException {
+        Map<String, Object> body = readBody(exchange);
+        List<MigrationStep> steps = new ArrayList<>();
+        for (String stepName : getStrings(body, "steps")) {
+            MigrationStep step = MigrationStep.fromName(stepName);
+            if (step == null) {
+                throw new RequestException(400, "Unknown step " + stepName);
+            }
+            if (step == MigrationStep.DEV_MODE) {
+                throw new RequestException(400, "Step " + stepName + " runs until it is stopped, so it cannot run in the daemon");
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty()) {
+            throw new RequestException(400, "Job has no steps");
+        }
+
+        StepInputs inputs = new StepInputs();
+        Object skipTests = body.get("skipTests");
+        if (skipTests != null) {
+            if (!(skipTests instanceof Boolean)) {
+                throw new RequestException(400, "skipTests must be true or false");
+            }
+            inputs.setSkipTests((Boolean)skipTests);
+        }
+        if (body.containsKey("recipes")) {
+            inputs.setRecipes(getStrings(body, "recipes"));
+        }
+        for (String coordinates : getStrings(body, "remoteDependencies")) {
+            String[] parts = coordinates.split(":");
+            if (parts.length != 3) {
+                throw new RequestException(400, "Coordinates " + coordinates + " must be groupId:artifactId:version");
+            }
+            inputs.getRemoteDependencies().add(new MavenCoords(parts[1], parts[0], parts[2]));
+        }
+        inputs.getLocalDependencies().addAll(getStrings(body, "localDependencies"));
+
+        Job job = new Job("job-" + ids.incrementAndGet(), session.getId(), steps);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        session.submit(job, steps, inputs, stepExecutor);
+        send(exchange, 202, JSON, "{\"id\":" + JsonUtils.quote(job.getId()) + "}");
+    }
+
+    /**
+     * Remove the oldest finished jobs beyond {@link #MAX_FINISHED_JOBS}. Clients still streaming the events of
+     * a removed job keep receiving them.
+     */
+    private void evictFinishedJobs() {
+        List<Job> finished = jobs.values().stream()
+            .filter(job -> job.getFinishTimeMillis() > 0)
+            .sorted(Comparator.comparingLong(Job::getFinishTimeMillis))
+            .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private static String toRealPath(String path) throws RequestException {
+        try {
+            return Path.of(path).toRealPath().toString();
+        } catch (IOException | InvalidPathException e) {
+            throw new RequestException(422, "No such file or directory " + path);
+        }
+    }
+
+    private void streamEvents(HttpExchange exchange, Job job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+        // Length 0 sends the response chunked, so events reach the client as they happen
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            int seen = 0;
+            while (!job.isFinished(seen)) {
+                List<String> events = job.awaitEvents(seen);
+                for (String event : events) {
+                    writer.write(event);
+                    writer.write('\n');
+                }
+                writer.flush();
+                seen += events.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Session getSession(String id) throws RequestException {
+        Session session = sessions.get(id);
+        if (session == null) {
+            throw new RequestException(404, "No session " + id);
+        }
+        return session;
+    }
+
+    private Job getJob(String id) throws RequestException {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new RequestException(404, "No job " + id);
+        }
+        return job;
+    }
+
+    //
+    // JSON
+    //
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(HttpExchange exchange) throws RequestException {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(MAX_BODY_CODE_POINTS);
+        try (InputStream in = exchange.getRequestBody()) {
+            // JSON is a subset of YAML, so the YAML parser reads the JSON body as well
+            Object body = new Yaml(loaderOptions).load(in);
+            if (!(body instanceof Map)) {
+                throw new RequestException(400, "Request body must be a JSON object");
+            }
+            return (Map<String, Object>)body;
+        } catch (IOException | RuntimeException e) {
+            throw new RequestException(400, "Unable to read request body: " + e.getMessage());
+        }
+    }
+
+    private static String getString(Map<String, Object> body, String key, boolean required) throws RequestException {
+        Object value = body.get(key);
+        if (value == null && required) {
+            throw new RequestException(400, "Request needs " + key);
+        }
+        if (value != null && !(value instanceof String)) {
+            throw new RequestException(400, key + " must be a string");
+        }
+        return (String)value;
+    }
+
+    private static List<String> getStrings(Map<String, Object> body, String key) throws RequestException {
+        Object value = body.get(key);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (!(value instanceof List) || !((List<?>)value).stream().allMatch(String.class::isInstance)) {
+            throw new RequestException(400, key + " must be a list of strings");
+        }
+        return ((List<?>)value).stream().map(String.class::cast).collect(Collectors.toList());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            send(exchange, status, JSON, "{\"error\":" + JsonUtils.quote(message) + "}");
+        } catch (IOException e) {
+            // The client has gone, or the response was already started
+            Logger.debug("Unable to send error response: " + e.getMessage());
+        }
+    }
+}
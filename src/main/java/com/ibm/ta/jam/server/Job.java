@@ -0,0 +1,160 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.server;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepGraph;
+import com.ibm.ta.jam.recipe.RecipeRunResult;
+import com.ibm.ta.jam.utils.JsonUtils;
+
+/**
+ * Steps submitted to run on a daemon session. Progress is kept as a list of JSON events, so clients can poll the
+ * job status or stream the events as they happen.
+ */
+public class Job {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        FINISHED
+    }
+
+    /**
+     * How long a wait for events blocks before checking again, so a waiting client thread is not stuck
+     */
+    private static final long EVENT_WAIT_MILLIS = 1000;
+
+    private final String id;
+
+    private final String sessionId;
+
+    private final List<MigrationStep> steps;
+
+    private State state = State.QUEUED;
+
+    private final Map<MigrationStep, StepGraph.Status> statuses = new EnumMap<>(MigrationStep.class);
+
+    /**
+     * Progress of the job, each a single line JSON object
+     */
+    private final List<String> events = new ArrayList<>();
+
+    private String recipeRun;
+
+    private long startTimeMillis;
+
+    private long wallTimeMillis;
+
+    private long finishTimeMillis;
+
+    Job(String id, String sessionId, List<MigrationStep> steps) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.steps = steps;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    synchronized void started() {
+        state = State.RUNNING;
+        startTimeMillis = System.currentTimeMillis();
+        addEvent("jobStarted", null, "");
+    }
+
+    synchronized void stepStarted(MigrationStep step) {
+        addEvent("stepStarted", step, "");
+    }
+
+    synchronized void stepFinished(MigrationStep step, boolean succeeded, long durationMillis) {
+        StepGraph.Status status = succeeded ? StepGraph.Status.SUCCEEDED : StepGraph.Status.FAILED;
+        statuses.put(step, status);
+        addEvent("stepFinished", step, ",\"status\":" + JsonUtils.quote(status.name()) + ",\"durationMillis\":" + durationMillis);
+    }
+
+    /**
+     * Record the end of the job
+     * @param stepStatuses the status of each step, including the steps that were skipped
+     * @param recipeRunResult result of the last recipe run in the session, or null if there was none
+     */
+    synchronized void finished(Map<MigrationStep, StepGraph.Status> stepStatuses, RecipeRunResult recipeRunResult) {
+        for (Map.Entry<MigrationStep, StepGraph.Status> status : stepStatuses.entrySet()) {
+            if (status.getValue() == StepGraph.Status.SKIPPED) {
+                addEvent("stepSkipped", status.getKey(), "");
+            }
+        }
+        statuses.putAll(stepStatuses);
+        recipeRun = recipeRunResult != null ? recipeRunResult.toJson() : null;
+        finishTimeMillis = System.currentTimeMillis();
+        wallTimeMillis = finishTimeMillis - startTimeMillis;
+        state = State.FINISHED;
+        addEvent("jobFinished", null, ",\"wallTimeMillis\":" + wallTimeMillis + ",\"recipeRun\":" + recipeRun);
+    }
+
+    private void addEvent(String type, MigrationStep step, String fields) {
+        events.add("{\"job\":" + JsonUtils.quote(id)
+            + ",\"event\":" + JsonUtils.quote(type)
+            + ",\"time\":" + JsonUtils.quote(Instant.now().toString())
+            + (step != null ? ",\"step\":" + JsonUtils.quote(step.getName()) : "")
+            + fields + "}");
+        notifyAll();
+    }
+
+    /**
+     * Wait for events after the ones a client has already seen
+     * @param from number of events already seen
+     * @return the new events, empty if there are none yet or the job has finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized List<String> awaitEvents(int from) throws InterruptedException {
+        if (events.size() <= from && state != State.FINISHED) {
+            wait(EVENT_WAIT_MILLIS);
+        }
+        return new ArrayList<>(events.subList(Math.min(from, events.size()), events.size()));
+    }
+
+    /**
+     * Get when the job finished
+     * @return the time in milliseconds since the epoch, or 0 if the job has not finished
+     */
+    synchronized long getFinishTimeMillis() {
+        return finishTimeMillis;
+    }
+
+    /**
+     * True if the job has finished and a client that has seen the given number of events has seen them all
+     */
+    synchronized boolean isFinished(int seen) {
+        return state == State.FINISHED && seen >= events.size();
+    }
+
+    /**
+     * Create a single line JSON representation of the job
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(JsonUtils.quote(id))
+            .append(",\"session\":").append(JsonUtils.quote(sessionId))
+            .append(",\"state\":").append(JsonUtils.quote(state.name()))
+            .append(",\"steps\":{");
+        for (int i = 0; i < steps.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            StepGraph.Status status = statuses.get(steps.get(i));
+            json.append(JsonUtils.quote(steps.get(i).getName())).append(':').append(JsonUtils.quote(status != null ? status.name() : null));
+        }
+        json.append('}');
+        if (state == State.FINISHED) {
+            json.append(",\"wallTimeMillis\":").append(wallTimeMillis)
+                .append(",\"recipeRun\":").append(recipeRun);
+        }
+        return json.append('}').toString();
+    }
+}
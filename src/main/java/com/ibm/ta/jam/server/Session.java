@@ -0,0 +1,115 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.tinylog.Logger;
+
+import com.ibm.ta.jam.Jam;
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepGraph;
+import com.ibm.ta.jam.StepInputs;
+import com.ibm.ta.jam.utils.JsonUtils;
+
+/**
+ * A Jam session hosted by the daemon for one application. The session lives until it is closed, so the build tool,
+ * unzipped bundle, parsed LSTs and recipe results it caches stay warm between jobs. Jobs on a session run one after
+ * another, as they change the same application.
+ */
+class Session implements AutoCloseable {
+
+    private final String id;
+
+    private final String applicationDir;
+
+    private final String migrationBundle;
+
+    private final Jam jam;
+
+    private final ExecutorService jobs;
+
+    Session(String id, String applicationDir, String migrationBundle, Jam jam) {
+        this.id = id;
+        this.applicationDir = applicationDir;
+        this.migrationBundle = migrationBundle;
+        this.jam = jam;
+        this.jobs = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jam-session-" + id);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getApplicationDir() {
+        return applicationDir;
+    }
+
+    String getMigrationBundle() {
+        return migrationBundle;
+    }
+
+    /**
+     * Queue a job that runs the given steps on the session
+     * @param job the job to run
+     * @param steps the steps to run
+     * @param inputs answers the steps need
+     * @param stepExecutor runs the steps of the job that can run at the same time
+     */
+    void submit(Job job, List<MigrationStep> steps, StepInputs inputs, Executor stepExecutor) {
+        jobs.execute(() -> {
+            job.started();
+            Map<MigrationStep, StepGraph.Status> statuses = new StepGraph(steps).run(step -> {
+                job.stepStarted(step);
+                long start = System.currentTimeMillis();
+                boolean succeeded = false;
+                try {
+                    succeeded = jam.runStep(step, inputs);
+                    return succeeded;
+                } finally {
+                    job.stepFinished(step, succeeded, System.currentTimeMillis() - start);
+                }
+            }, stepExecutor);
+            // The last recipe run of the session is only this job's if its recipe step ran
+            StepGraph.Status recipes = statuses.get(MigrationStep.RECIPES);
+            job.finished(statuses, recipes != null && recipes != StepGraph.Status.SKIPPED ? jam.getLastRecipeRunResult() : null);
+            Logger.info("Job " + job.getId() + " on session " + id + " finished: " + statuses);
+        });
+    }
+
+    /**
+     * Create a single line JSON representation of the session, with what the migration bundle holds
+     */
+    String toJson() {
+        return "{\"id\":" + JsonUtils.quote(id)
+            + ",\"applicationDir\":" + JsonUtils.quote(applicationDir)
+            + ",\"migrationBundle\":" + JsonUtils.quote(migrationBundle)
+            + ",\"dependencies\":" + JsonUtils.array(jam.getAllLibDependencies())
+            + ",\"recipes\":" + JsonUtils.array(jam.getAllAvailableRecipes()) + "}";
+    }
+
+    /**
+     * Close the session once its queued jobs have finished
+     */
+    @Override
+    public void close() {
+        jobs.execute(jam::close);
+        jobs.shutdown();
+    }
+
+    /**
+     * Wait until the session has closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitClosed() throws InterruptedException {
+        jobs.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+}
@@ -2,12 +2,22 @@
 package com.ibm.ta.jam.utils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.tinylog.Logger;
 
+import com.ibm.ta.jam.instrument.Phase;
+
 public class IOUtils {
 
     public static boolean isValidDirectory(String directory) {
@@ -65,4 +75,90 @@ public class IOUtils {
 			return false;
 		}
 	}
+
+	/**
+	 * Backup a file using a numbered backup scheme (...bak.1 ...bak.2 etc)
+	 * @param file path of file to be backed up
+	 * @return the path to the backup
+	 * @throws IOException when backup fails
+	 */
+	public static String backupFile(String file) throws IOException {
+		Logger.debug("Start make backup of: " + file);
+
+		int backupNumber = 1;
+		String backupFileName = file + ".bak." + backupNumber;
+		File backupFile = new File(backupFileName);
+		while (backupFile.exists()) {
+			backupNumber++;
+			backupFileName = file + ".bak." + backupNumber;
+			backupFile = new File(backupFileName);
+		}
+
+		try (Phase phase = Phase.start(Phase.BACKUP)) {
+			FileUtils.copyFile(new File(file), backupFile);
+			phase.addBytes(backupFile.length());
+			phase.result(true);
+		}
+		Logger.debug("Finish make backup of: " + file);
+		return backupFileName;
+	}
+
+	/**
+	 * Compute the SHA-256 hash of a file's content
+	 * @param file the file to hash
+	 * @return the hash as a lower case hex string
+	 * @throws IOException if the file cannot be read
+	 */
+	public static String sha256(Path file) throws IOException {
+		return sha256(Files.readAllBytes(file));
+	}
+
+	/**
+	 * Compute the SHA-256 hash of some content
+	 * @param content the bytes to hash
+	 * @return the hash as a lower case hex string
+	 */
+	public static String sha256(byte[] content) {
+		MessageDigest digest = newSha256Digest();
+		digest.update(content);
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Compute a single SHA-256 hash over the names and contents of a list of files. Files that do not exist contribute
+	 * only their name, so adding or removing a file changes the hash.
+	 * @param baseDir directory the file names are made relative to
+	 * @param files the files to hash, in a stable order
+	 * @return the hash as a lower case hex string
+	 * @throws IOException if a file cannot be read
+	 */
+	public static String sha256(Path baseDir, List<Path> files) throws IOException {
+		MessageDigest digest = newSha256Digest();
+		for (Path file : files) {
+			digest.update(baseDir.relativize(file).toString().replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			if (Files.isRegularFile(file)) {
+				digest.update(Files.readAllBytes(file));
+			}
+			digest.update((byte) 0);
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest newSha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
 }
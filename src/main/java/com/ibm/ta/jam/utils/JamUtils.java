@@ -12,6 +12,25 @@ import org.tinylog.Logger;
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;;
 
 public class JamUtils {
+
+    /**
+     * System property that overrides the location of the JAM cache directory
+     */
+    public static final String CACHE_DIR_PROPERTY = "jam.cache.dir";
+
+    /**
+     * Get the directory where JAM keeps data that is reused across sessions, such as cached build tool results.
+     * Defaults to .jam/cache in the user home directory, and can be overridden with the jam.cache.dir system property.
+     * @return the cache directory, which may not exist yet
+     */
+    public static File getCacheDir() {
+        String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (cacheDir != null && !cacheDir.isBlank()) {
+            return new File(cacheDir);
+        }
+        return new File(System.getProperty("user.home") + File.separator + ".jam" + File.separator + "cache");
+    }
+
     
     public static BuildToolType getBuildToolType(String applicationDir) {
         if (new File(applicationDir + File.separator + "pom.xml").exists()) {
@@ -20,6 +39,9 @@ public class JamUtils {
         } else if (new File(applicationDir + File.separator + "build.gradle").exists()) {
             Logger.info("Detected build.gradle, setting build tool type to \"gradle\"");
             return GRADLE;
+        } else if (new File(applicationDir + File.separator + "build.gradle.kts").exists()) {
+            Logger.info("Detected build.gradle.kts, setting build tool type to \"gradle\"");
+            return GRADLE;
         } else {
             Logger.info("Known build config files not found, so returning UNKNOWN build tool type");
             return UNKNOWN;
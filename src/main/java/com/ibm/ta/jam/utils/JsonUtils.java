@@ -0,0 +1,71 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import java.util.Collection;
+
+/**
+ * Helpers for writing JSON. JAM only writes small, flat documents, so they are built as strings rather than
+ * pulling in a JSON library.
+ */
+public class JsonUtils {
+
+    private JsonUtils() {
+    }
+
+    /**
+     * Quote and escape a string as a JSON string value
+     * @param value the string to quote, may be null
+     * @return the JSON string, or the JSON null literal if value is null
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder(value.length() + 2);
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+        return json.toString();
+    }
+
+    /**
+     * Write strings as a JSON array of string values
+     * @param values the strings to write
+     * @return the JSON array
+     */
+    public static String array(Collection<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (String value : values) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(quote(value));
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,49 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * Value created on first use and reused after that. Safe to use from several threads, the value is only created
+ * once. If creating the value throws, nothing is kept and the next call tries again.
+ */
+public class Lazy<T> {
+
+    private Supplier<T> supplier;
+
+    private volatile T value;
+
+    public Lazy(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Get the value, creating it if this is the first use
+     * @return the value
+     */
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = supplier.get();
+                    if (result == null) {
+                        throw new IllegalStateException("Lazy value cannot be null");
+                    }
+                    value = result;
+                    // Let go of what the supplier captured
+                    supplier = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * True if the value has been created
+     */
+    public boolean isInitialized() {
+        return value != null;
+    }
+}
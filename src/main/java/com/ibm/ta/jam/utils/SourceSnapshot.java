@@ -0,0 +1,198 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Snapshot of the content hashes of the files in a directory tree. Comparing two snapshots gives the files
+ * that were added, changed or deleted in between, e.g. by a recipe run.
+ *
+ * A snapshot taken after an earlier one only hashes the files whose size or modification time changed. Files
+ * modified after the earlier snapshot started are always hashed again, as their modification time may not tell
+ * apart changes made within the same tick.
+ */
+public class SourceSnapshot {
+
+    /**
+     * Directories that hold tool state rather than application sources, skipped wherever they are
+     */
+    private static final Set<String> IGNORED_DIRS = Set.of(".git", ".gradle", ".idea", "node_modules");
+
+    /**
+     * Directories that hold build output, only skipped at the root of a module. Elsewhere they are ordinary
+     * directories, such as the com/acme/build package.
+     */
+    private static final Set<String> BUILD_OUTPUT_DIRS = Set.of("target", "build");
+
+    /**
+     * Build configuration files that make their directory the root of a module
+     */
+    private static final Set<String> MODULE_FILES = Set.of("pom.xml", "build.gradle", "build.gradle.kts");
+
+    private static class Entry {
+        private final String hash;
+        private final long size;
+        private final long modifiedMillis;
+
+        private Entry(String hash, long size, long modifiedMillis) {
+            this.hash = hash;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+    }
+
+    private final Path rootDir;
+
+    private final Map<Path, Entry> entries;
+
+    /**
+     * Time the snapshot started, files modified before it are hashed with their final content
+     */
+    private final long startMillis;
+
+    private SourceSnapshot(Path rootDir, Map<Path, Entry> entries, long startMillis) {
+        this.rootDir = rootDir;
+        this.entries = entries;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Take a snapshot of a directory tree, skipping the build output directories of its modules
+     * @param rootDir root of the directory tree
+     * @return the snapshot
+     * @throws IOException if a file cannot be read
+     */
+    public static SourceSnapshot take(Path rootDir) throws IOException {
+        return take(rootDir, null);
+    }
+
+    /**
+     * Take a snapshot of a directory tree, reusing the hashes of an earlier snapshot for unmodified files
+     * @param rootDir root of the directory tree
+     * @param previous an earlier snapshot of the same directory tree, or null to hash every file
+     * @return the snapshot
+     * @throws IOException if a file cannot be read
+     */
+    public static SourceSnapshot take(Path rootDir, SourceSnapshot previous) throws IOException {
+        return take(rootDir, List.of(rootDir), previous);
+    }
+
+    /**
+     * Take a snapshot of some of the files and directory trees under a root directory
+     * @param rootDir root directory, the paths of the files in the snapshot are relative to it
+     * @param paths files and directories to include, relative to the root directory or absolute. Paths that do not
+     * exist are skipped.
+     * @param previous an earlier snapshot of the same paths, or null to hash every file
+     * @return the snapshot
+     * @throws IOException if a file cannot be read
+     */
+    public static SourceSnapshot take(Path rootDir, Collection<Path> paths, SourceSnapshot previous) throws IOException {
+        Path root = rootDir.toAbsolutePath().normalize();
+        long startMillis = System.currentTimeMillis();
+        Map<Path, Entry> entries = new HashMap<>();
+        for (Path path : paths) {
+            Path start = root.resolve(path).normalize();
+            if (Files.isDirectory(start)) {
+                walk(root, start, previous, entries);
+            } else if (Files.isRegularFile(start)) {
+                add(root, start, Files.readAttributes(start, BasicFileAttributes.class), previous, entries);
+            }
+        }
+        return new SourceSnapshot(root, entries, startMillis);
+    }
+
+    private static void walk(Path root, Path start, SourceSnapshot previous, Map<Path, Entry> entries) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(start)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String name = dir.getFileName().toString();
+                if (IGNORED_DIRS.contains(name) || (BUILD_OUTPUT_DIRS.contains(name) && isModuleRoot(root, dir.getParent()))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile()) {
+                    add(root, file, attrs, previous, entries);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void add(Path root, Path file, BasicFileAttributes attrs, SourceSnapshot previous, Map<Path, Entry> entries) throws IOException {
+        Path relativePath = root.relativize(file);
+        long size = attrs.size();
+        long modifiedMillis = attrs.lastModifiedTime().toMillis();
+        Entry earlier = previous != null ? previous.entries.get(relativePath) : null;
+        if (earlier != null && earlier.size == size && earlier.modifiedMillis == modifiedMillis && modifiedMillis < previous.startMillis) {
+            entries.put(relativePath, earlier);
+        } else {
+            entries.put(relativePath, new Entry(IOUtils.sha256(file), size, modifiedMillis));
+        }
+    }
+
+    /**
+     * Check if a directory is the root of a module, the root of the snapshot or a directory with a build configuration
+     */
+    private static boolean isModuleRoot(Path root, Path dir) {
+        return dir.equals(root) || MODULE_FILES.stream().anyMatch(moduleFile -> Files.isRegularFile(dir.resolve(moduleFile)));
+    }
+
+    /**
+     * Get the files that were added, changed or deleted since an earlier snapshot of the same directory tree
+     * @param before the earlier snapshot
+     * @return paths relative to the root directory, in sorted order
+     */
+    public Set<Path> changedSince(SourceSnapshot before) {
+        Set<Path> changed = new TreeSet<>();
+        for (Map.Entry<Path, Entry> file : entries.entrySet()) {
+            Entry earlier = before.entries.get(file.getKey());
+            if (earlier == null || !file.getValue().hash.equals(earlier.hash)) {
+                changed.add(file.getKey());
+            }
+        }
+        for (Path file : before.entries.keySet()) {
+            if (!entries.containsKey(file)) {
+                changed.add(file);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Get the content hash of each file, keyed by its path relative to the root directory
+     */
+    public Map<Path, String> getHashes() {
+        Map<Path, String> hashes = new HashMap<>();
+        for (Map.Entry<Path, Entry> file : entries.entrySet()) {
+            hashes.put(file.getKey(), file.getValue().hash);
+        }
+        return Collections.unmodifiableMap(hashes);
+    }
+
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
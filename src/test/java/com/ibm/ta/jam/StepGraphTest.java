@@ -0,0 +1,96 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StepGraphTest {
+
+    private static final List<MigrationStep> ALL_ACTIONS = Arrays.asList(MigrationStep.BUILD, MigrationStep.SERVER_CONFIG,
+        MigrationStep.DEPENDENCIES, MigrationStep.RECIPES, MigrationStep.LIBERTY_PLUGIN);
+
+    private ExecutorService executor;
+
+	@BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+	@AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void dependencies() {
+        StepGraph graph = new StepGraph(ALL_ACTIONS);
+
+        assertTrue(graph.getDependencies(MigrationStep.BUILD).isEmpty());
+        // server.xml is only read by builds
+        assertEquals(EnumSet.of(MigrationStep.BUILD), graph.getDependencies(MigrationStep.SERVER_CONFIG));
+        // The plugin is added before dependencies, as Maven dependencies go in its copyDependencies
+        assertEquals(EnumSet.of(MigrationStep.BUILD, MigrationStep.LIBERTY_PLUGIN), graph.getDependencies(MigrationStep.DEPENDENCIES));
+        // Recipes read and change the build config, but not server.xml
+        assertEquals(EnumSet.of(MigrationStep.BUILD, MigrationStep.LIBERTY_PLUGIN, MigrationStep.DEPENDENCIES),
+            graph.getDependencies(MigrationStep.RECIPES));
+        assertFalse(graph.getDependencies(MigrationStep.LIBERTY_PLUGIN).contains(MigrationStep.SERVER_CONFIG));
+    }
+
+    @Test
+    public void independentStepsRunConcurrently() {
+        assertRunConcurrently(MigrationStep.SERVER_CONFIG, MigrationStep.LIBERTY_PLUGIN);
+    }
+
+    @Test
+    public void serverConfigIsAddedDuringTheRecipeRun() {
+        assertRunConcurrently(MigrationStep.SERVER_CONFIG, MigrationStep.RECIPES);
+    }
+
+    private void assertRunConcurrently(MigrationStep first, MigrationStep second) {
+        StepGraph graph = new StepGraph(Arrays.asList(first, second));
+        // Each step waits for the other to start, so they only both finish if they run at the same time
+        CountDownLatch started = new CountDownLatch(2);
+        Map<MigrationStep, StepGraph.Status> statuses = graph.run(step -> {
+            started.countDown();
+            try {
+                return started.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }, executor);
+
+        assertEquals(StepGraph.Status.SUCCEEDED, statuses.get(first));
+        assertEquals(StepGraph.Status.SUCCEEDED, statuses.get(second));
+    }
+
+    @Test
+    public void failedStepSkipsDependents() {
+        StepGraph graph = new StepGraph(ALL_ACTIONS);
+        Map<MigrationStep, StepGraph.Status> statuses = graph.run(step -> {
+            if (step == MigrationStep.DEPENDENCIES) {
+                throw new IllegalStateException("Unable to write build config");
+            }
+            return true;
+        }, executor);
+
+        assertEquals(StepGraph.Status.SUCCEEDED, statuses.get(MigrationStep.BUILD));
+        assertEquals(StepGraph.Status.SUCCEEDED, statuses.get(MigrationStep.SERVER_CONFIG));
+        assertEquals(StepGraph.Status.SUCCEEDED, statuses.get(MigrationStep.LIBERTY_PLUGIN));
+        assertEquals(StepGraph.Status.FAILED, statuses.get(MigrationStep.DEPENDENCIES));
+        assertEquals(StepGraph.Status.SKIPPED, statuses.get(MigrationStep.RECIPES));
+    }
+}
@@ -0,0 +1,201 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.MigrationStep.Resource;
+
+public class StepJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path appDir;
+
+    private Path journalFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        appDir = tempDir.resolve("app");
+        journalFile = tempDir.resolve("journal.jsonl");
+        write("pom.xml", "<project/>");
+        write("src/main/java/Hello.java", "class Hello {}");
+    }
+
+    @Test
+    public void completedStepsAreCompleteInALaterSession() throws IOException {
+        new StepJournal(appDir, journalFile).completed(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD), Collections.emptySet());
+
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        assertTrue(journal.isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+        assertFalse(journal.isComplete(MigrationStep.BUILD, "other inputs", fingerprint(MigrationStep.BUILD)));
+        assertFalse(journal.isComplete(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES)));
+    }
+
+    @Test
+    public void startedStepsAreIncomplete() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES), Collections.emptySet());
+        journal.started(MigrationStep.RECIPES, fingerprint(MigrationStep.RECIPES));
+
+        assertFalse(new StepJournal(appDir, journalFile).isComplete(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES)));
+    }
+
+    @Test
+    public void changesOutsideTheJournaledStepsInvalidateSteps() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD), Collections.emptySet());
+        journal.completed(MigrationStep.SERVER_CONFIG, "inputs", fingerprint(MigrationStep.SERVER_CONFIG), Collections.emptySet());
+
+        write("src/main/java/Hello.java", "class Hello { int changed; }");
+
+        journal = new StepJournal(appDir, journalFile);
+        assertFalse(journal.isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+        assertTrue(journal.isComplete(MigrationStep.SERVER_CONFIG, "inputs", fingerprint(MigrationStep.SERVER_CONFIG)));
+    }
+
+    @Test
+    public void changesByLaterStepsKeepEarlierStepsValid() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD), Collections.emptySet());
+        journal.started(MigrationStep.RECIPES, fingerprint(MigrationStep.RECIPES));
+        write("src/main/java/Hello.java", "class Hello { int migrated; }");
+        journal.completed(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES), Collections.emptySet());
+
+        assertTrue(new StepJournal(appDir, journalFile).isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+    }
+
+    @Test
+    public void changesOutsideTheJournaledStepsBeforeALaterStepInvalidateSteps() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD), Collections.emptySet());
+        write("src/main/java/Hello.java", "class Hello { int changed; }");
+        // The recipes step fingerprints the change it did not make
+        journal.started(MigrationStep.RECIPES, fingerprint(MigrationStep.RECIPES));
+        journal.completed(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES), Collections.emptySet());
+
+        journal = new StepJournal(appDir, journalFile);
+        assertFalse(journal.isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+        assertTrue(journal.isComplete(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES)));
+    }
+
+    @Test
+    public void recordsTheFilesAStepChanged() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.started(MigrationStep.RECIPES, fingerprint(MigrationStep.RECIPES));
+        write("src/main/java/Hello.java", "class Hello { int migrated; }");
+        journal.completed(MigrationStep.RECIPES, "inputs", fingerprint(MigrationStep.RECIPES),
+            Arrays.asList(appDir.resolve("src/main/java/Hello.java"), appDir.resolve("pom.xml")));
+
+        journal = new StepJournal(appDir, journalFile);
+        assertEquals(Arrays.asList(appDir.toAbsolutePath().resolve("src/main/java/Hello.java"), appDir.toAbsolutePath().resolve("pom.xml")),
+            journal.getChangedFiles(MigrationStep.RECIPES));
+        assertTrue(journal.getChangedFiles(MigrationStep.COMPILE).isEmpty());
+
+        journal.started(MigrationStep.RECIPES, fingerprint(MigrationStep.RECIPES));
+        assertTrue(journal.getChangedFiles(MigrationStep.RECIPES).isEmpty());
+    }
+
+    @Test
+    public void rerunningAStepInvalidatesTheStepsThatDependOnIt() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.LIBERTY_PLUGIN, "inputs", fingerprint(MigrationStep.LIBERTY_PLUGIN), Collections.emptySet());
+        journal.completed(MigrationStep.DEPENDENCIES, "inputs", fingerprint(MigrationStep.DEPENDENCIES), Collections.emptySet());
+        journal.completed(MigrationStep.SERVER_CONFIG, "inputs", fingerprint(MigrationStep.SERVER_CONFIG), Collections.emptySet());
+        journal.started(MigrationStep.LIBERTY_PLUGIN, fingerprint(MigrationStep.LIBERTY_PLUGIN));
+        journal.completed(MigrationStep.LIBERTY_PLUGIN, "inputs", fingerprint(MigrationStep.LIBERTY_PLUGIN), Collections.emptySet());
+
+        journal = new StepJournal(appDir, journalFile);
+        assertFalse(journal.isComplete(MigrationStep.DEPENDENCIES, "inputs", fingerprint(MigrationStep.DEPENDENCIES)));
+        assertTrue(journal.isComplete(MigrationStep.SERVER_CONFIG, "inputs", fingerprint(MigrationStep.SERVER_CONFIG)));
+    }
+
+    @Test
+    public void keepsOnlyTheLastRunOfEachStep() throws IOException {
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        journal.completed(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD), Collections.emptySet());
+        journal.started(MigrationStep.LIBERTY_PLUGIN, fingerprint(MigrationStep.LIBERTY_PLUGIN));
+        write("pom.xml", "<project><plugin/></project>");
+        journal.completed(MigrationStep.LIBERTY_PLUGIN, "inputs", fingerprint(MigrationStep.LIBERTY_PLUGIN), Collections.emptySet());
+        for (int session = 0; session < 3; session++) {
+            journal = new StepJournal(appDir, journalFile);
+            journal.started(MigrationStep.LIBERTY_PLUGIN, fingerprint(MigrationStep.LIBERTY_PLUGIN));
+            write("pom.xml", "<project><plugin version=\"" + session + "\"/></project>");
+            journal.completed(MigrationStep.LIBERTY_PLUGIN, "inputs", fingerprint(MigrationStep.LIBERTY_PLUGIN), Collections.emptySet());
+        }
+
+        assertEquals(3, Files.readAllLines(journalFile).size());
+        journal = new StepJournal(appDir, journalFile);
+        assertTrue(journal.isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+        assertTrue(journal.isComplete(MigrationStep.LIBERTY_PLUGIN, "inputs", fingerprint(MigrationStep.LIBERTY_PLUGIN)));
+
+        write("pom.xml", "<project/>");
+        assertFalse(journal.isComplete(MigrationStep.BUILD, "inputs", fingerprint(MigrationStep.BUILD)));
+    }
+
+    @Test
+    public void fingerprintsOnlyModifiedFilesAgain() throws IOException {
+        Set<Resource> resources = EnumSet.of(Resource.BUILD_CONFIG, Resource.SOURCES);
+        StepJournal journal = new StepJournal(appDir, journalFile);
+        assertEquals(StepJournal.fingerprintResources(appDir, resources), journal.fingerprintResources(resources));
+
+        write("src/main/java/Hello.java", "class Hello { }");
+        Files.setLastModifiedTime(appDir.resolve("src/main/java/Hello.java"), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertEquals(StepJournal.fingerprintResources(appDir, resources), journal.fingerprintResources(resources));
+    }
+
+    @Test
+    public void fingerprintsEachPartOfTheApplication() throws IOException {
+        Set<Resource> resources = EnumSet.of(Resource.BUILD_CONFIG, Resource.SOURCES, Resource.LIBS, Resource.SERVER_CONFIG);
+        Map<Resource, String> before = StepJournal.fingerprintResources(appDir, resources);
+
+        write("src/main/liberty/config/server.xml", "<server/>");
+        write("pom.xml.bak.1", "<project/>");
+        write("target/classes/Hello.class", "compiled");
+        Map<Resource, String> after = StepJournal.fingerprintResources(appDir, resources);
+
+        assertNotEquals(before.get(Resource.SERVER_CONFIG), after.get(Resource.SERVER_CONFIG));
+        assertEquals(before.get(Resource.BUILD_CONFIG), after.get(Resource.BUILD_CONFIG));
+        assertEquals(before.get(Resource.SOURCES), after.get(Resource.SOURCES));
+        assertEquals(before.get(Resource.LIBS), after.get(Resource.LIBS));
+    }
+
+    @Test
+    public void fingerprintsStepInputs() throws IOException {
+        StepInputs inputs = new StepInputs();
+        String allRecipes = StepJournal.fingerprintInputs(MigrationStep.RECIPES, inputs, "bundle");
+        inputs.setRecipes(Arrays.asList("org.openrewrite.java.migrate.Java8toJava11"));
+
+        assertNotEquals(allRecipes, StepJournal.fingerprintInputs(MigrationStep.RECIPES, inputs, "bundle"));
+        assertNotEquals(allRecipes, StepJournal.fingerprintInputs(MigrationStep.RECIPES, new StepInputs(), "new bundle"));
+        assertEquals(StepJournal.fingerprintInputs(MigrationStep.COMPILE, inputs, "bundle"),
+            StepJournal.fingerprintInputs(MigrationStep.COMPILE, new StepInputs(), "new bundle"));
+    }
+
+    private Map<Resource, String> fingerprint(MigrationStep step) throws IOException {
+        return StepJournal.fingerprintResources(appDir, StepJournal.getFingerprintedResources(step));
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = appDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
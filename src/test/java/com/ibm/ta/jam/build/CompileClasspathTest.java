@@ -0,0 +1,100 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.app.Application;
+
+public class CompileClasspathTest {
+
+    private static final String POM =
+        "<project>\n" +
+        "    <modelVersion>4.0.0</modelVersion>\n" +
+        "    <groupId>com.example</groupId>\n" +
+        "    <artifactId>app</artifactId>\n" +
+        "    <version>1.0</version>\n" +
+        "    <packaging>war</packaging>\n" +
+        "%s" +
+        "</project>\n";
+
+    @TempDir
+    Path tempDir;
+
+    private int resolved;
+
+    private CompileClasspath compileClasspath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.writeString(tempDir.resolve("pom.xml"), String.format(POM, ""));
+        MavenBuildTool buildTool = new MavenBuildTool(tempDir.toString()) {
+            @Override
+            public List<Path> getCompileClasspath() {
+                resolved++;
+                return Arrays.asList(Path.of("lib-" + resolved + ".jar"));
+            }
+        };
+        compileClasspath = new CompileClasspath(tempDir, buildTool);
+    }
+
+    @Test
+    public void reusesTheClasspathForAnUnchangedConfiguration() {
+        List<Path> classpath = compileClasspath.get();
+
+        assertSame(classpath, compileClasspath.get());
+        assertEquals(1, resolved);
+    }
+
+    @Test
+    public void resolvesAgainWhenThePomChanges() throws IOException {
+        compileClasspath.get();
+        Files.writeString(tempDir.resolve("pom.xml"), String.format(POM,
+            "    <dependencies>\n" +
+            "        <dependency>\n" +
+            "            <groupId>commons-io</groupId>\n" +
+            "            <artifactId>commons-io</artifactId>\n" +
+            "            <version>2.15.1</version>\n" +
+            "        </dependency>\n" +
+            "    </dependencies>\n"));
+
+        assertEquals(Arrays.asList(Path.of("lib-2.jar")), compileClasspath.get());
+        compileClasspath.get();
+        assertEquals(2, resolved);
+    }
+
+    @Test
+    public void resolvesAgainWhenAModulePomChanges() throws IOException {
+        Files.writeString(tempDir.resolve("pom.xml"), String.format(POM, "    <modules>\n        <module>web</module>\n    </modules>\n"));
+        Files.createDirectories(tempDir.resolve("web"));
+        Files.writeString(tempDir.resolve("web/pom.xml"), String.format(POM, ""));
+        compileClasspath.get();
+
+        Files.writeString(tempDir.resolve("web/pom.xml"), String.format(POM, "    <!-- changed -->\n"));
+
+        compileClasspath.get();
+        assertEquals(2, resolved);
+    }
+
+    @Test
+    public void resolvesAgainWhenLibertyLibsChange() throws IOException {
+        compileClasspath.get();
+        Path libDir = tempDir.resolve(Application.RELATIVE_LIB_DIR);
+        Files.createDirectories(libDir);
+        Files.writeString(libDir.resolve("local.jar"), "jar");
+
+        compileClasspath.get();
+        compileClasspath.get();
+        assertEquals(2, resolved);
+    }
+}
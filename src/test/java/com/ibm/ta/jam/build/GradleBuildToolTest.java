@@ -0,0 +1,165 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.utils.MavenCoords;
+
+public class GradleBuildToolTest {
+
+    private static final String GROOVY_SCRIPT =
+        "// apply plugin: 'liberty'\n" +
+        "apply plugin: 'war'\n" +
+        "\n" +
+        "dependencies {\n" +
+        "    implementation 'commons-io:commons-io:2.7'\n" +
+        "}\n";
+
+    private static final String KOTLIN_SCRIPT =
+        "plugins {\n" +
+        "    war\n" +
+        "}\n";
+
+    private static final List<MavenCoords> REMOTE_DEPENDENCIES = Arrays.asList(
+        new MavenCoords("commons-io", "commons-io", "2.7"),
+        new MavenCoords("json", "org.json", "20231013"));
+
+    @TempDir
+    Path tempDir;
+
+    private GradleBuildTool buildTool;
+
+    @AfterEach
+    public void tearDown() {
+        if (buildTool != null) {
+            buildTool.close();
+        }
+    }
+
+    @Test
+    public void detectsTheScriptDsl() throws IOException {
+        Files.writeString(tempDir.resolve("build.gradle.kts"), KOTLIN_SCRIPT);
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertEquals(tempDir.resolve("build.gradle.kts").toString(), buildTool.getBuildToolConfiguration());
+
+        Files.writeString(tempDir.resolve("build.gradle"), GROOVY_SCRIPT);
+        GradleBuildTool groovyBuildTool = new GradleBuildTool(tempDir.toString());
+        assertEquals(tempDir.resolve("build.gradle").toString(), groovyBuildTool.getBuildToolConfiguration());
+        groovyBuildTool.close();
+    }
+
+    @Test
+    public void addsTheLibertyPluginOnce() throws IOException {
+        Files.writeString(tempDir.resolve("build.gradle"), GROOVY_SCRIPT);
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        // A commented out apply does not count
+        assertFalse(buildTool.hasLibertyDevPlugin());
+        assertTrue(buildTool.addLibertyDevPlugin());
+        assertTrue(buildTool.hasLibertyDevPlugin());
+        assertTrue(buildTool.addLibertyDevPlugin());
+
+        String script = Files.readString(tempDir.resolve("build.gradle"));
+        assertTrue(script.startsWith("buildscript {\n"));
+        assertEquals(1, count(script, "classpath 'io.openliberty.tools:liberty-gradle-plugin:"));
+        assertEquals(1, count(script, "\napply plugin: 'liberty'\n"));
+    }
+
+    @Test
+    public void addsTheLibertyPluginToAKotlinScript() throws IOException {
+        Files.writeString(tempDir.resolve("build.gradle.kts"), "buildscript {\n}\n" + KOTLIN_SCRIPT);
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertTrue(buildTool.addLibertyDevPlugin());
+
+        String script = Files.readString(tempDir.resolve("build.gradle.kts"));
+        assertEquals(1, count(script, "buildscript {"));
+        assertTrue(script.contains("classpath(\"io.openliberty.tools:liberty-gradle-plugin:"));
+        assertTrue(script.contains("apply(plugin = \"liberty\")"));
+        assertTrue(buildTool.hasLibertyDevPlugin());
+    }
+
+    @Test
+    public void addsRemoteDependenciesThatAreNotInTheScript() throws IOException {
+        Files.writeString(tempDir.resolve("build.gradle"), GROOVY_SCRIPT);
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertTrue(buildTool.addRemoteDependencies(REMOTE_DEPENDENCIES));
+        assertTrue(buildTool.addRemoteDependencies(REMOTE_DEPENDENCIES));
+
+        String script = Files.readString(tempDir.resolve("build.gradle"));
+        assertEquals(1, count(script, "commons-io:commons-io:2.7"));
+        assertEquals(1, count(script, "    implementation 'org.json:json:20231013'\n"));
+        assertEquals(1, count(script, "    jamLibertyLib 'org.json:json:20231013'\n"));
+        assertEquals(1, count(script, "tasks.register('jamCopyLibertyLibs', Copy)"));
+    }
+
+    @Test
+    public void addsRemoteDependenciesToAKotlinScript() throws IOException {
+        Files.writeString(tempDir.resolve("build.gradle.kts"), KOTLIN_SCRIPT);
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertTrue(buildTool.addRemoteDependencies(REMOTE_DEPENDENCIES));
+
+        String script = Files.readString(tempDir.resolve("build.gradle.kts"));
+        assertTrue(script.contains("    \"implementation\"(\"org.json:json:20231013\")\n"));
+        assertTrue(script.contains("val jamLibertyLib by configurations.creating\n"));
+        assertTrue(script.contains("tasks.register<Copy>(\"jamCopyLibertyLibs\")"));
+    }
+
+    @Test
+    public void runsABuild() throws IOException {
+        Files.writeString(tempDir.resolve("settings.gradle"), "rootProject.name = 'app'\n");
+        Files.writeString(tempDir.resolve("build.gradle"), "tasks.register('hello') {\n}\n");
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertTrue(buildTool.runBuild(Arrays.asList("hello", "--offline")));
+        assertTrue(buildTool.getLastBuildResult().isSuccessful());
+        assertEquals(Arrays.asList("hello"), buildTool.getLastBuildResult().getTasks());
+        assertTrue(buildTool.getLastBuildResult().getTaskDurations().containsKey(":hello"));
+        // Task timings are also available through the BuildTool interface Jam uses
+        assertEquals(buildTool.getLastBuildResult().getTaskDurations(), ((BuildTool)buildTool).getLastBuildTaskDurations());
+    }
+
+    @Test
+    public void reportsAFailedBuild() throws IOException {
+        Files.writeString(tempDir.resolve("settings.gradle"), "rootProject.name = 'app'\n");
+        Files.writeString(tempDir.resolve("build.gradle"), "tasks.register('fail') {\n    doLast { throw new GradleException('failed') }\n}\n");
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertFalse(buildTool.runBuild(Arrays.asList("fail", "--offline")));
+        assertFalse(buildTool.getLastBuildResult().isSuccessful());
+    }
+
+    @Test
+    public void failsWithoutABuildScript() {
+        buildTool = new GradleBuildTool(tempDir.toString());
+
+        assertFalse(buildTool.backupBuildConfig());
+        assertFalse(buildTool.hasLibertyDevPlugin());
+        assertFalse(buildTool.addLibertyDevPlugin());
+        assertFalse(buildTool.addRemoteDependencies(REMOTE_DEPENDENCIES));
+        assertFalse(buildTool.addLocalDependencies(Arrays.asList("lib/local.jar")));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,31 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GradleConnectionPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void requiresAnAcquiredProject() {
+        assertThrows(IllegalStateException.class, () -> GradleConnectionPool.getConnection(tempDir.toString()));
+    }
+
+    @Test
+    public void doesNotReopenAReleasedProject() {
+        GradleConnectionPool.acquire(tempDir.toString());
+        GradleConnectionPool.release(tempDir.toString());
+
+        // A connection opened now would never be released
+        assertThrows(IllegalStateException.class, () -> GradleConnectionPool.getConnection(tempDir.toString()));
+        // Nor does the failed call pool the project
+        assertThrows(IllegalStateException.class, () -> GradleConnectionPool.getConnection(tempDir.toString()));
+    }
+}
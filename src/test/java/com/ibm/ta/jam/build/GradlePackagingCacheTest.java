@@ -0,0 +1,118 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.app.ApplicationFactory.ApplicationType;
+import com.ibm.ta.jam.utils.IOUtils;
+import com.ibm.ta.jam.utils.JamUtils;
+
+public class GradlePackagingCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path appDir;
+
+    private String previousCacheDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        previousCacheDir = System.getProperty(JamUtils.CACHE_DIR_PROPERTY);
+        System.setProperty(JamUtils.CACHE_DIR_PROPERTY, tempDir.resolve("cache").toString());
+        appDir = tempDir.resolve("app");
+        Files.createDirectories(appDir);
+        Files.writeString(appDir.resolve("settings.gradle"), "rootProject.name = 'app'\n");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (previousCacheDir == null) {
+            System.clearProperty(JamUtils.CACHE_DIR_PROPERTY);
+        } else {
+            System.setProperty(JamUtils.CACHE_DIR_PROPERTY, previousCacheDir);
+        }
+    }
+
+    @Test
+    public void storesPackagingTypesByHash() throws IOException {
+        assertNull(GradlePackagingCache.get("hash1"));
+
+        GradlePackagingCache.put("hash1", ApplicationType.WAR);
+        GradlePackagingCache.put("hash2", ApplicationType.EAR);
+
+        assertEquals(ApplicationType.WAR, GradlePackagingCache.get("hash1"));
+        assertEquals(ApplicationType.EAR, GradlePackagingCache.get("hash2"));
+
+        // Entries the current version does not know are ignored
+        Files.writeString(tempDir.resolve("cache").resolve("gradle-packaging.properties"), "hash1=JAR\n");
+        assertNull(GradlePackagingCache.get("hash1"));
+    }
+
+    @Test
+    public void usesTheCachedTypeForUnchangedBuildScripts() throws IOException {
+        Files.writeString(appDir.resolve("build.gradle"), "apply plugin: 'war'\n");
+        // A type Gradle would not report shows the answer came from the cache
+        GradlePackagingCache.put(hashBuildScripts("build.gradle", "settings.gradle"), ApplicationType.EAR);
+        assertEquals(ApplicationType.EAR, getPackagingType());
+
+        // Scripts in build output are not build scripts of the application
+        Files.createDirectories(appDir.resolve("build/tmp"));
+        Files.writeString(appDir.resolve("build/tmp/generated.gradle"), "// generated\n");
+        assertEquals(ApplicationType.EAR, getPackagingType());
+    }
+
+    @Test
+    public void hashesTheScriptsOfSubprojects() throws IOException {
+        Files.writeString(appDir.resolve("build.gradle"), "apply plugin: 'war'\n");
+        Files.createDirectories(appDir.resolve("web"));
+        Files.writeString(appDir.resolve("web/build.gradle.kts"), "plugins {\n    war\n}\n");
+        String hash = hashBuildScripts("build.gradle", "settings.gradle", "web/build.gradle.kts");
+        assertNotEquals(hashBuildScripts("build.gradle", "settings.gradle"), hash);
+
+        GradlePackagingCache.put(hash, ApplicationType.EAR);
+        assertEquals(ApplicationType.EAR, getPackagingType());
+    }
+
+    @Test
+    public void queriesAndCachesThePackagingType() throws IOException {
+        Files.writeString(appDir.resolve("build.gradle"), "apply plugin: 'war'\n");
+
+        assertEquals(ApplicationType.WAR, getPackagingType());
+        assertEquals(ApplicationType.WAR, GradlePackagingCache.get(hashBuildScripts("build.gradle", "settings.gradle")));
+    }
+
+    @Test
+    public void doesNotCacheAFailedQuery() throws IOException {
+        Files.writeString(appDir.resolve("build.gradle"), "apply plugin: 'no-such-plugin'\n");
+
+        assertEquals(ApplicationType.UNKNOWN, getPackagingType());
+        assertNull(GradlePackagingCache.get(hashBuildScripts("build.gradle", "settings.gradle")));
+    }
+
+    private ApplicationType getPackagingType() {
+        GradleBuildTool buildTool = new GradleBuildTool(appDir.toString());
+        try {
+            return buildTool.getPackagingType();
+        } finally {
+            buildTool.close();
+        }
+    }
+
+    private String hashBuildScripts(String... scripts) throws IOException {
+        return IOUtils.sha256(appDir, Arrays.stream(scripts).map(appDir::resolve).collect(Collectors.toList()));
+    }
+}
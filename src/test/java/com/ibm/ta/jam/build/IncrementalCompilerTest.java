@@ -0,0 +1,68 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalCompilerTest {
+
+    private Path sourceDir;
+    private Path weather;
+    private Path servlet;
+    private Path client;
+
+    @BeforeEach
+	void setUp() {
+        try {
+            sourceDir = Files.createTempDirectory("jam-compile-test-").toAbsolutePath().normalize();
+            Files.createDirectories(sourceDir.resolve("com/acme"));
+            Files.createDirectories(sourceDir.resolve("com/other"));
+            weather = sourceDir.resolve("com/acme/Weather.java");
+            servlet = sourceDir.resolve("com/acme/Servlet.java");
+            client = sourceDir.resolve("com/other/Client.java");
+            Files.writeString(weather, "package com.acme; public class Weather { public String name() { return \"sun\"; } }");
+            Files.writeString(servlet, "package com.acme; class Servlet { String name = new Weather().name(); }");
+            Files.writeString(client, "package com.other; import com.acme.Weather; class Client { Weather weather; }");
+            Files.writeString(sourceDir.resolve("com/other/Unrelated.java"), "package com.other; class Unrelated { String weather; }");
+        } catch (IOException e) {
+            fail("Unable to create test sources");
+        }
+    }
+
+	@AfterEach
+	void tearDown() {
+        FileUtils.deleteQuietly(sourceDir.toFile());
+	}
+
+    @Test
+    public void findDependents() throws IOException {
+        Set<Path> dependents = IncrementalCompiler.findDependents(List.of(sourceDir), Set.of(weather));
+        assertEquals(Set.of(servlet, client), dependents);
+    }
+
+    @Test
+    public void compile() throws IOException {
+        IncrementalCompiler compiler = new IncrementalCompiler(List.of(sourceDir), Collections.emptyList());
+        assertTrue(compiler.compile(Set.of(weather)));
+
+        // Servlet is not changed, but no longer compiles against the changed Weather
+        Files.writeString(weather, "package com.acme; public class Weather { }");
+        assertFalse(compiler.compile(Set.of(weather)));
+        assertEquals(1, compiler.getDiagnostics().size());
+        assertTrue(compiler.getDiagnostics().get(0).getSource().getName().endsWith("Servlet.java"));
+    }
+}
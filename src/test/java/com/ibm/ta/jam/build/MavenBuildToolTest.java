@@ -2,14 +2,22 @@
 package com.ibm.ta.jam.build;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ibm.ta.jam.build.BuildToolFactory.BuildToolType;
 import com.ibm.ta.jam.bundle.ExpandedBundle;
@@ -25,6 +33,19 @@ public class MavenBuildToolTest {
     private final String MAVEN_MODERATE_APP_LOCATION = "src/test/resources/moderateApp/source";
     private final String MAVEN_MODERATE_APP_NAME = "modresorts";
     private final String MODERATE_BUNDLE_LOCATION = "src/test/resources/moderateApp/bundle/modresorts.ear_migrationBundle.zip";
+
+    private static final String POM =
+        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+        "    <modelVersion>4.0.0</modelVersion>\n" +
+        "    <groupId>com.ibm.ta.test</groupId>\n" +
+        "    <artifactId>%s</artifactId>\n" +
+        "    <version>1.0</version>\n" +
+        "    <packaging>%s</packaging>\n" +
+        "%s" +
+        "</project>\n";
+
+    @TempDir
+    Path tempDir;
     
     private String mavenAppDir;
     private String gradleAppDir;
@@ -66,6 +87,79 @@ public class MavenBuildToolTest {
         assertEquals(buildSysType, BuildToolType.GRADLE);
     }
 
+    @Test
+    public void findsModulesAndSourceDirectories() throws IOException {
+        Path appDir = tempDir.resolve("app");
+        writePom(appDir, "app", "pom",
+            "    <modules>\n        <module>web</module>\n        <module>ejb</module>\n        <module>missing</module>\n    </modules>\n");
+        writePom(appDir.resolve("web"), "web", "war", "");
+        Files.createDirectories(appDir.resolve("web/src/main/java"));
+        writePom(appDir.resolve("ejb"), "ejb", "pom",
+            "    <modules>\n        <module>../web</module>\n        <module>impl</module>\n    </modules>\n");
+        writePom(appDir.resolve("ejb/impl"), "impl", "jar",
+            "    <build>\n        <sourceDirectory>${project.basedir}/src/java</sourceDirectory>\n    </build>\n");
+        Files.createDirectories(appDir.resolve("ejb/impl/src/java"));
+
+        MavenBuildTool buildTool = new MavenBuildTool(appDir.toString());
+
+        // Modules are found once, in pom order, and listed modules without a pom.xml are skipped
+        assertEquals(Arrays.asList(appDir, appDir.resolve("web"), appDir.resolve("ejb"), appDir.resolve("ejb/impl")),
+            buildTool.getModuleDirectories());
+        // Only existing source directories are returned
+        assertEquals(Arrays.asList(appDir.resolve("web/src/main/java"), appDir.resolve("ejb/impl/src/java")),
+            buildTool.getSourceDirectories());
+    }
+
+    @Test
+    public void resolvesTheCompileClasspath() throws IOException {
+        Path appDir = tempDir.resolve("app");
+        writePom(appDir, "app", "jar",
+            "    <dependencies>\n" +
+            "        <dependency>\n" +
+            "            <groupId>commons-io</groupId>\n" +
+            "            <artifactId>commons-io</artifactId>\n" +
+            "            <version>2.15.1</version>\n" +
+            "        </dependency>\n" +
+            "        <dependency>\n" +
+            "            <groupId>org.junit.jupiter</groupId>\n" +
+            "            <artifactId>junit-jupiter-api</artifactId>\n" +
+            "            <version>5.10.2</version>\n" +
+            "            <scope>test</scope>\n" +
+            "        </dependency>\n" +
+            "    </dependencies>\n");
+        Files.createDirectories(appDir.resolve("target/classes"));
+
+        List<Path> classpath = new MavenBuildTool(appDir.toString()).getCompileClasspath();
+
+        assertTrue(classpath.stream().anyMatch(entry -> entry.getFileName().toString().equals("commons-io-2.15.1.jar")), classpath.toString());
+        assertTrue(classpath.stream().noneMatch(entry -> entry.getFileName().toString().startsWith("junit-jupiter-api")), classpath.toString());
+        assertTrue(classpath.contains(appDir.resolve("target/classes")));
+        try (Stream<Path> files = Files.list(appDir.resolve("target"))) {
+            assertEquals(Arrays.asList(appDir.resolve("target/classes")), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void resolvesNoClasspathWhenTheBuildFails() throws IOException {
+        Path appDir = tempDir.resolve("app");
+        writePom(appDir, "app", "jar",
+            "    <dependencies>\n" +
+            "        <dependency>\n" +
+            "            <groupId>com.ibm.ta.test</groupId>\n" +
+            "            <artifactId>does-not-exist</artifactId>\n" +
+            "            <version>1.0</version>\n" +
+            "        </dependency>\n" +
+            "    </dependencies>\n");
 
-    // TODO: implement more tests
+        assertEquals(Arrays.asList(), new MavenBuildTool(appDir.toString()).getCompileClasspath());
+        // Resolving the classpath never writes into the application
+        try (Stream<Path> files = Files.walk(appDir)) {
+            assertEquals(Arrays.asList(appDir, appDir.resolve("pom.xml")), files.sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static void writePom(Path moduleDir, String artifactId, String packaging, String content) throws IOException {
+        Files.createDirectories(moduleDir);
+        Files.writeString(moduleDir.resolve("pom.xml"), String.format(POM, artifactId, packaging, content));
+    }
 }
@@ -0,0 +1,93 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestImpactIndexTest {
+
+    private Path sourceDir;
+    private Path testClassesDir;
+    private Path classesDir;
+
+    @BeforeEach
+	void setUp() {
+        try {
+            sourceDir = Files.createTempDirectory("jam-test-impact-src-").toAbsolutePath().normalize();
+            testClassesDir = Files.createTempDirectory("jam-test-impact-classes-");
+            classesDir = Files.createTempDirectory("jam-test-impact-main-");
+            Files.createDirectories(sourceDir.resolve("com/acme"));
+            writeSource("Weather", "public class Weather { public String name() { return \"sun\"; } }");
+            writeSource("Logout", "public class Logout { }");
+            writeSource("WeatherTest", "public class WeatherTest { void test() { new Weather().name(); } }");
+            writeSource("Fixture", "public class Fixture { static Weather[] weather() { return new Weather[0]; } }");
+            writeSource("ServletTest", "public class ServletTest { Runnable test = () -> Fixture.weather(); }");
+            writeSource("LogoutTest", "public class LogoutTest { Logout logout; }");
+            writeSource("Forecast", "public class Forecast { Weather weather; }");
+            writeSource("ForecastTest", "public class ForecastTest { Forecast forecast; }");
+        } catch (IOException e) {
+            fail("Unable to create test sources");
+        }
+        int rc = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", testClassesDir.toString(),
+            sourceDir.resolve("com/acme/Weather.java").toString(), sourceDir.resolve("com/acme/Logout.java").toString(),
+            sourceDir.resolve("com/acme/WeatherTest.java").toString(), sourceDir.resolve("com/acme/Fixture.java").toString(),
+            sourceDir.resolve("com/acme/ServletTest.java").toString(), sourceDir.resolve("com/acme/LogoutTest.java").toString(),
+            sourceDir.resolve("com/acme/Forecast.java").toString(), sourceDir.resolve("com/acme/ForecastTest.java").toString());
+        assertEquals(0, rc);
+        // Application classes are in the main class directory
+        try {
+            Files.createDirectories(classesDir.resolve("com/acme"));
+            for (String className : List.of("Weather", "Logout", "Forecast")) {
+                Files.move(testClassesDir.resolve("com/acme/" + className + ".class"), classesDir.resolve("com/acme/" + className + ".class"));
+            }
+        } catch (IOException e) {
+            fail("Unable to move application classes");
+        }
+    }
+
+	@AfterEach
+	void tearDown() {
+        FileUtils.deleteQuietly(sourceDir.toFile());
+        FileUtils.deleteQuietly(testClassesDir.toFile());
+        FileUtils.deleteQuietly(classesDir.toFile());
+	}
+
+    @Test
+    public void selectTests() throws IOException {
+        TestImpactIndex index = TestImpactIndex.build(List.of(testClassesDir), List.of(classesDir));
+
+        Set<String> changedClasses = TestImpactIndex.getChangedClasses(List.of(sourceDir), Set.of(sourceDir.resolve("com/acme/Weather.java")));
+        assertEquals(Set.of("com.acme.Weather"), changedClasses);
+
+        // ServletTest only references Weather through the Fixture test class, ForecastTest through the Forecast class
+        assertEquals(Set.of("com.acme.ForecastTest", "com.acme.ServletTest", "com.acme.WeatherTest"), index.selectTests(changedClasses));
+        assertEquals(Set.of("com.acme.LogoutTest"), index.selectTests(Set.of("com.acme.Logout")));
+        assertTrue(index.selectTests(Set.of("com.acme.Unreferenced")).isEmpty());
+    }
+
+    @Test
+    public void noClassesForOtherChanges() {
+        Path pomXml = sourceDir.getParent().resolve("pom.xml");
+        assertNull(TestImpactIndex.getChangedClasses(List.of(sourceDir), Set.of(sourceDir.resolve("com/acme/Weather.java"), pomXml)));
+        assertNull(TestImpactIndex.getChangedClasses(List.of(sourceDir), Set.of(sourceDir.resolve("com/acme/weather.properties"))));
+    }
+
+    private void writeSource(String className, String body) throws IOException {
+        Files.writeString(sourceDir.resolve("com/acme/" + className + ".java"), "package com.acme; " + body);
+    }
+}
@@ -0,0 +1,66 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.bundle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MigrationMetadataTest {
+
+    private final String MODERATE_BUNDLE_LOCATION = "src/test/resources/moderateApp/bundle/modresorts.ear_migrationBundle.zip";
+
+    private ExpandedBundle expandedBundle;
+
+    @BeforeEach
+	void setUp() {
+        MigrationBundle bundle = new MigrationBundle(new File(MODERATE_BUNDLE_LOCATION));
+        try {
+            expandedBundle = bundle.validateAndUnzip();
+        } catch (InvalidBundleException ibe) {
+            fail("Unable to validate and unzip bundle");
+        }
+    }
+
+	@AfterEach
+	void tearDown() {
+        expandedBundle.cleanUpExpandedBundle();
+	}
+
+    @Test
+    public void affectedSources() {
+        assertTrue(expandedBundle.getMetadataPath().endsWith("metadata.json"));
+
+        MigrationMetadata metadata = null;
+        try {
+            metadata = new MigrationMetadata(expandedBundle.getMetadataPath());
+        } catch (InvalidBundleException e) {
+            fail("Unable to read metadata");
+        }
+
+        Set<String> serverName = metadata.getAffectedSources("org.openrewrite.java.liberty.ServerName");
+        assertEquals(Set.of("com/acme/modres/WeatherServlet.java"), serverName);
+
+        Set<String> ssoCookie = metadata.getAffectedSources("org.openrewrite.java.liberty.WebSphereUnavailableSSOCookieMethod");
+        assertEquals(Set.of("com/acme/modres/LogoutServlet.java"), ssoCookie);
+
+        // Occurrences only in non Java files, and rules not in the metadata, leave the recipe unscoped
+        assertNull(metadata.getAffectedSources("org.openrewrite.java.liberty.ApplicationSecurityRule"));
+        assertNull(metadata.getAffectedSources("org.openrewrite.java.liberty.UnknownRule"));
+    }
+
+    @Test
+    public void toSourcePath() {
+        assertEquals("com/acme/Foo.java", MigrationMetadata.toSourcePath("WEB-INF/classes/com/acme/Foo.class"));
+        assertEquals("com/acme/Foo.java", MigrationMetadata.toSourcePath("WEB-INF/classes/com/acme/Foo$Bar.class"));
+        assertEquals("com/acme/Foo.java", MigrationMetadata.toSourcePath("com/acme/Foo.class"));
+        assertNull(MigrationMetadata.toSourcePath("WEB-INF/web.xml"));
+    }
+}
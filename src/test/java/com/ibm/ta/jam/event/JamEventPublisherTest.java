@@ -0,0 +1,60 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ibm.ta.jam.MigrationStep;
+
+public class JamEventPublisherTest {
+
+    @Test
+    public void deliversEventsToSubscribers() throws Exception {
+        List<JamEvent> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        try (JamEventPublisher publisher = new JamEventPublisher()) {
+            publisher.subscribe(new Flow.Subscriber<JamEvent>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(JamEvent event) {
+                    received.add(event);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(null);
+                }
+            });
+
+            publisher.onEvent(new JamEvent(JamEvent.Type.STEP_STARTED, "/apps/modresorts", MigrationStep.BUILD, 0, null, null));
+            publisher.onEvent(new JamEvent(JamEvent.Type.STEP_FINISHED, "/apps/modresorts", MigrationStep.BUILD, 1200, null,
+                new BuildStepResult(true, true, null, Collections.emptyMap())));
+        }
+        completed.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, received.size());
+        assertEquals(JamEvent.Type.STEP_STARTED, received.get(0).getType());
+        assertEquals(JamEvent.Type.STEP_FINISHED, received.get(1).getType());
+        assertTrue(((BuildStepResult)received.get(1).getPayload()).isSuccessful());
+        assertEquals("STEP_FINISHED build for /apps/modresorts after 1200ms", received.get(1).toString());
+    }
+}
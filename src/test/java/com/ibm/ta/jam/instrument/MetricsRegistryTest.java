@@ -0,0 +1,63 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void countersWithTheSameLabelsAreShared() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        MetricsRegistry.Counter hits = metrics.counter("jam_test_total", "Test counter", "result", "hit");
+        hits.increment(2);
+        metrics.counter("jam_test_total", "Test counter", "result", "hit").increment(3);
+        metrics.counter("jam_test_total", "Test counter", "result", "miss").increment(1);
+
+        assertSame(hits, metrics.counter("jam_test_total", "Test counter", "result", "hit"));
+        assertEquals(5, hits.get());
+        assertEquals("# HELP jam_test_total Test counter\n"
+            + "# TYPE jam_test_total counter\n"
+            + "jam_test_total{result=\"hit\"} 5\n"
+            + "jam_test_total{result=\"miss\"} 1\n", metrics.toPrometheus());
+    }
+
+    @Test
+    public void histogramBucketsAreCumulativeInPrometheusText() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        MetricsRegistry.Histogram histogram = metrics.histogram("jam_test_seconds", "Test histogram", new double[] {0.5, 2}, "phase", "build");
+        histogram.observe(0.25);
+        histogram.observe(1);
+        histogram.observe(10);
+
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE jam_test_seconds histogram\n"));
+        assertTrue(text.contains("jam_test_seconds_bucket{phase=\"build\",le=\"0.5\"} 1\n"));
+        assertTrue(text.contains("jam_test_seconds_bucket{phase=\"build\",le=\"2\"} 2\n"));
+        assertTrue(text.contains("jam_test_seconds_bucket{phase=\"build\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("jam_test_seconds_sum{phase=\"build\"} 11.25\n"));
+        assertTrue(text.contains("jam_test_seconds_count{phase=\"build\"} 3\n"));
+    }
+
+    @Test
+    public void exportsJson() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("jam_test_total", "Test counter", "result", "hit").increment(1);
+        metrics.histogram("jam_test_seconds", "Test histogram", new double[] {1}).observe(0.5);
+
+        assertEquals("{\"counters\":[{\"name\":\"jam_test_total\",\"labels\":{\"result\":\"hit\"},\"value\":1}],"
+            + "\"histograms\":[{\"name\":\"jam_test_seconds\",\"labels\":{},\"count\":1,\"sum\":0.5,\"buckets\":{\"1\":1}}]}",
+            metrics.toJson());
+    }
+
+    @Test
+    public void escapesLabelValues() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("jam_test_total", "Test counter", "recipe", "a\"b").increment(1);
+
+        assertTrue(metrics.toPrometheus().contains("jam_test_total{recipe=\"a\\\"b\"} 1\n"));
+    }
+}
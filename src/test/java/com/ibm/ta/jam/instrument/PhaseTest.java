@@ -0,0 +1,52 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class PhaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void recordsFlightRecorderEventsForTheApplication() throws Exception {
+        Path recordingFile = tempDir.resolve("phase.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PhaseEvent.class);
+            recording.start();
+            try (Phase.ApplicationScope scope = Phase.forApplication("/apps/modresorts");
+                    Phase phase = Phase.start(Phase.BUNDLE_EXTRACT)) {
+                phase.addBytes(2048);
+                phase.result(true);
+            }
+            try (Phase phase = Phase.start(Phase.POM_WRITE)) {
+                phase.result(false);
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+            .filter(event -> event.getEventType().getName().equals("com.ibm.ta.jam.Phase"))
+            .collect(Collectors.toList());
+        assertEquals(2, events.size());
+        assertEquals(Phase.BUNDLE_EXTRACT, events.get(0).getString("phase"));
+        assertEquals("modresorts", events.get(0).getString("application"));
+        assertEquals(2048, events.get(0).getLong("bytes"));
+        assertEquals("success", events.get(0).getString("outcome"));
+        assertEquals(Phase.POM_WRITE, events.get(1).getString("phase"));
+        assertEquals(null, events.get(1).getString("application"));
+        assertEquals("failure", events.get(1).getString("outcome"));
+    }
+}
@@ -0,0 +1,25 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+public class SessionRecordingTest {
+
+    @Test
+    public void namesRecordingsOfApplicationsInSameNamedDirectoriesApart() {
+        // {application}-{path hash}-{date}-{time}-{id}.jfr
+        String[] first = SessionRecording.getFileName("app", Path.of("/work/team-a/app"), 1).split("-");
+        String[] second = SessionRecording.getFileName("app", Path.of("/work/team-b/app"), 2).split("-");
+
+        assertEquals("app", first[0]);
+        assertEquals("1.jfr", first[4]);
+        assertEquals("2.jfr", second[4]);
+        assertNotEquals(first[1], second[1]);
+        assertEquals(first[1], SessionRecording.getFileName("app", Path.of("/work/team-a/app"), 3).split("-")[1]);
+    }
+}
@@ -0,0 +1,111 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.instrument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TracerTest {
+
+    @TempDir
+    Path tempDir;
+
+    public interface Tool {
+        boolean run(String arg);
+    }
+
+    @Test
+    public void recordsNothingUntilEnabled() {
+        Tracer tracer = new Tracer();
+
+        try (Span span = tracer.startSpan("build")) {
+            assertSame(Span.NOOP, span);
+            assertNull(tracer.current());
+        }
+    }
+
+    @Test
+    public void nestsSpansStartedWhileAnotherIsCurrent() throws Exception {
+        Path traceFile = tempDir.resolve("trace.json");
+        Tracer tracer = new Tracer();
+        tracer.enable(traceFile);
+
+        Span session = tracer.startDetachedSpan("Jam session");
+        try (Span step = tracer.startSpan("step build", session)) {
+            assertSame(step, tracer.current());
+            try (Span phase = tracer.startSpan("maven_invocation")) {
+                phase.setAttribute("jam.module", "web").setError("failure");
+            }
+            assertSame(step, tracer.current());
+        }
+        assertNull(tracer.current());
+        session.close();
+        tracer.flush();
+
+        List<String> lines = Files.readAllLines(traceFile, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        String json = lines.get(0);
+        assertTrue(json.startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\""));
+        assertTrue(json.contains("\"name\":\"maven_invocation\""));
+        assertTrue(json.contains("{\"key\":\"jam.module\",\"value\":{\"stringValue\":\"web\"}}"));
+        assertTrue(json.contains("\"status\":{\"code\":2,\"message\":\"failure\"}"));
+        assertEquals(3, json.split("\"traceId\":\"" + spanField(json, "Jam session", "traceId") + "\"").length - 1);
+        assertEquals(spanField(json, "Jam session", "spanId"), spanField(json, "step build", "parentSpanId"));
+        assertEquals(spanField(json, "step build", "spanId"), spanField(json, "maven_invocation", "parentSpanId"));
+    }
+
+    @Test
+    public void propagatesCurrentSpanToOtherThreads() throws Exception {
+        Tracer tracer = new Tracer();
+        tracer.enable(tempDir.resolve("trace.json"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Span parent = tracer.startSpan("recipe_run")) {
+            assertSame(parent, executor.submit(tracer.propagate(tracer::current)).get());
+            assertNull(executor.submit(tracer::current).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void tracesCallsThroughAnInterface() throws Exception {
+        Path traceFile = tempDir.resolve("trace.json");
+        Tracer tracer = new Tracer();
+        tracer.enable(traceFile);
+
+        Tool tool = tracer.traced(Tool.class, arg -> arg.isEmpty(), "jam.build_tool", "MAVEN");
+        assertTrue(tool.run(""));
+        assertFalse(tool.run("x"));
+        tracer.flush();
+
+        String json = Files.readString(traceFile, StandardCharsets.UTF_8);
+        assertEquals(2, json.split("\"name\":\"Tool.run\"").length - 1);
+        assertEquals(2, json.split("\\{\"key\":\"jam.build_tool\",\"value\":\\{\"stringValue\":\"MAVEN\"\\}\\}").length - 1);
+        // A false result is not a failure of the call
+        assertEquals(1, json.split("\\{\"key\":\"jam.result\",\"value\":\\{\"boolValue\":false\\}\\}").length - 1);
+        assertFalse(json.contains("\"message\""));
+    }
+
+    /**
+     * Get a field of the span with the given name from OTLP JSON
+     */
+    private static String spanField(String json, String spanName, String field) {
+        int nameIndex = json.indexOf("\"name\":\"" + spanName + "\"");
+        int spanStart = json.lastIndexOf("{\"traceId\"", nameIndex);
+        String span = json.substring(spanStart, nameIndex);
+        int valueStart = span.indexOf("\"" + field + "\":\"") + field.length() + 4;
+        return span.substring(valueStart, span.indexOf('"', valueStart));
+    }
+}
@@ -0,0 +1,49 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ibm.ta.jam.MigrationStep;
+
+public class MigrationPlanTest {
+
+    private final String PLAN_LOCATION = "src/test/resources/plan/migrationPlan.yml";
+    private final String INVALID_STEP_PLAN_LOCATION = "src/test/resources/plan/invalidStepPlan.json";
+
+    @Test
+    public void entries() throws InvalidPlanException {
+        List<MigrationPlan.Entry> entries = new MigrationPlan(PLAN_LOCATION).getEntries();
+        assertEquals(2, entries.size());
+
+        MigrationPlan.Entry modresorts = entries.get(0);
+        assertEquals("modresorts", modresorts.getName());
+        assertEquals(Arrays.asList(MigrationStep.BUILD, MigrationStep.SERVER_CONFIG, MigrationStep.RECIPES), modresorts.getSteps());
+        assertTrue(modresorts.isSkipTests());
+        assertEquals(Arrays.asList("org.openrewrite.java.liberty.ServerName"), modresorts.getRecipes());
+        assertEquals("com.acme", modresorts.getRemoteDependencies().get("acme-util.jar").getGroupId());
+        assertEquals("acme-util", modresorts.getRemoteDependencies().get("acme-util.jar").getArtifactId());
+        assertEquals("/libs/legacy.jar", modresorts.getLocalDependencies().get("legacy.jar"));
+
+        // Name defaults to the application directory, other values to the plan defaults
+        MigrationPlan.Entry plants = entries.get(1);
+        assertEquals("plantsbywebsphere", plants.getName());
+        assertEquals(Arrays.asList(MigrationStep.DEPENDENCIES, MigrationStep.LIBERTY_PLUGIN), plants.getSteps());
+        assertFalse(plants.isSkipTests());
+        assertNull(plants.getRecipes());
+    }
+
+    @Test
+    public void invalidStep() {
+        InvalidPlanException e = assertThrows(InvalidPlanException.class, () -> new MigrationPlan(INVALID_STEP_PLAN_LOCATION));
+        assertTrue(e.getMessage().contains("deploy"));
+    }
+}
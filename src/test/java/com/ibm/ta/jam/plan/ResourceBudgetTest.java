@@ -0,0 +1,65 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+public class ResourceBudgetTest {
+
+    @Test
+    public void admission() throws Exception {
+        ResourceBudget budget = new ResourceBudget(4096, 4, 1024, 2);
+        ResourceBudget.Lease first = budget.acquireBuild();
+        ResourceBudget.Lease second = budget.acquireBuild();
+        assertEquals(2, budget.getLeases());
+
+        // A third build does not fit the CPU budget until a running build finishes
+        CompletableFuture<ResourceBudget.Lease> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return budget.acquireBuild();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            third.get(200, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Expected, the build is waiting
+        }
+        assertFalse(third.isDone());
+
+        first.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        second.close();
+        assertEquals(0, budget.getLeases());
+    }
+
+    @Test
+    public void oversizedBuildRunsAlone() throws Exception {
+        ResourceBudget budget = new ResourceBudget(512, 1, 1024, 2);
+        try (ResourceBudget.Lease lease = budget.acquireBuild()) {
+            assertEquals(1, budget.getLeases());
+        }
+    }
+
+    @Test
+    public void estimateFollowsMeasurements() throws Exception {
+        ResourceBudget budget = new ResourceBudget(8192, 8, 1024, 2);
+        try (ResourceBudget.Lease first = budget.acquireBuild(); ResourceBudget.Lease second = budget.acquireBuild()) {
+            // Two builds using 3000MB together raise the estimate to 1500MB each
+            budget.recordMeasurement(3000, 2, -1);
+            assertEquals(1500, budget.getBuildMemoryMb());
+
+            // Lower measurements only lower the estimate slowly
+            budget.recordMeasurement(1000, 2, -1);
+            assertTrue(budget.getBuildMemoryMb() < 1500 && budget.getBuildMemoryMb() > 500);
+        }
+    }
+}
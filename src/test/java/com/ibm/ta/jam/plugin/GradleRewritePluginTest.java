@@ -0,0 +1,59 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ibm.ta.jam.bundle.ExpandedBundle;
+import com.ibm.ta.jam.bundle.InvalidBundleException;
+import com.ibm.ta.jam.bundle.MigrationBundle;
+
+public class GradleRewritePluginTest {
+
+    private final String MODERATE_BUNDLE_LOCATION = "src/test/resources/moderateApp/bundle/modresorts.ear_migrationBundle.zip";
+
+    private ExpandedBundle expandedBundle;
+
+    @BeforeEach
+	void setUp() {
+        MigrationBundle bundle = new MigrationBundle(new File(MODERATE_BUNDLE_LOCATION));
+        try {
+            expandedBundle = bundle.validateAndUnzip();
+        } catch (InvalidBundleException ibe) {
+            fail("Unable to validate and unzip bundle");
+        }
+    }
+
+	@AfterEach
+	void tearDown() {
+        expandedBundle.cleanUpExpandedBundle();
+	}
+
+    @Test
+    public void gradleRewritePlugin() {
+        assertTrue(expandedBundle.getGradleRewritePluginConfigPath().endsWith("recipes.gradle"));
+
+        GradleRewritePlugin rewritePlugin = null;
+        try {
+            rewritePlugin = new GradleRewritePlugin(expandedBundle.getGradleRewritePluginConfigPath());
+        } catch (PluginInitializationException e) {
+            fail("Failed to create GradleRewritePlugin");
+        }
+
+        assertEquals(3, rewritePlugin.getActiveRecipes().size());
+        assertTrue(rewritePlugin.getActiveRecipes().contains("org.openrewrite.java.liberty.ServerName"));
+        assertEquals("plugin", rewritePlugin.getArtifactId());
+        assertEquals("org.openrewrite", rewritePlugin.getGroupId());
+        assertEquals("6.1.25", rewritePlugin.getVersion());
+        assertEquals(1, rewritePlugin.getDependencies().size());
+        assertEquals("org.openrewrite.recipe", rewritePlugin.getRewriteLibertyGroupId());
+        assertEquals("1.0.0", rewritePlugin.getRewriteLibertyVersion());
+    }
+}
@@ -0,0 +1,113 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.build.BuildTool;
+import com.ibm.ta.jam.build.MavenBuildTool;
+
+public class ForkedRecipeRunTest {
+
+    private static final String POM =
+        "<project>\n" +
+        "    <modelVersion>4.0.0</modelVersion>\n" +
+        "    <groupId>com.example</groupId>\n" +
+        "    <artifactId>app</artifactId>\n" +
+        "    <version>1.0</version>\n" +
+        "    <packaging>war</packaging>\n" +
+        "</project>\n";
+
+    @TempDir
+    Path appDir;
+
+    private Path sourceDir;
+
+    private BuildTool buildTool;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.writeString(appDir.resolve("pom.xml"), POM);
+        sourceDir = appDir.resolve("src/main/java/com/acme");
+        Files.createDirectories(sourceDir);
+        Files.writeString(sourceDir.resolve("Servlet.java"), "class Servlet {}\n");
+        Files.writeString(sourceDir.resolve("Filter.java"), "class Filter {}\n");
+        Files.writeString(sourceDir.resolve("Old.java"), "class Old {}\n");
+        buildTool = new MavenBuildTool(appDir.toString());
+    }
+
+    @Test
+    public void countsTheFilesTheBuildChanged() {
+        RecipeRunResult runResult = ForkedRecipeRun.run("com.ibm.testRecipe", buildTool, false, () -> {
+            write(sourceDir.resolve("Servlet.java"), "class Servlet { }\n");
+            write(sourceDir.resolve("New.java"), "class New {}\n");
+            delete(sourceDir.resolve("Old.java"));
+            write(appDir.resolve("pom.xml"), POM.replace("1.0", "1.1"));
+            // Only the sources and the build configuration are snapshot
+            write(appDir.resolve("README.md"), "Migrated\n");
+            return true;
+        });
+
+        assertTrue(runResult.isSuccessful());
+        assertEquals("maven", runResult.getMode());
+        assertEquals(1, runResult.getRecipeStats().size());
+        RecipeRunResult.RecipeStats stats = runResult.getRecipeStats().get(0);
+        assertEquals("com.ibm.testRecipe", stats.getRecipe());
+        // The sources scanned, build files are changed by recipes too
+        assertEquals(3, stats.getFilesScanned());
+        assertEquals(4, stats.getFilesChanged());
+        assertEquals(RecipeRunResult.UNKNOWN, stats.getLinesAdded());
+        assertEquals(4, runResult.getFilesChanged());
+        assertEquals(new TreeSet<>(Arrays.asList(sourceDir.resolve("New.java"), sourceDir.resolve("Old.java"), sourceDir.resolve("Servlet.java"),
+            appDir.resolve("pom.xml"))), runResult.getChangedSources());
+    }
+
+    @Test
+    public void reportsAFailedBuild() {
+        RecipeRunResult runResult = ForkedRecipeRun.run("com.ibm.testRecipe", buildTool, false, () -> false);
+
+        assertFalse(runResult.isSuccessful());
+        assertEquals(0, runResult.getFilesChanged());
+    }
+
+    @Test
+    public void doesNotCountChangesOfADryRun() {
+        RecipeRunResult runResult = ForkedRecipeRun.run("com.ibm.testRecipe", buildTool, true, () -> {
+            write(sourceDir.resolve("Servlet.java"), "class Servlet { }\n");
+            return true;
+        });
+
+        assertTrue(runResult.isSuccessful());
+        assertEquals(0, runResult.getRecipeStats().get(0).getFilesScanned());
+        assertEquals(Collections.emptySet(), runResult.getChangedSources());
+    }
+
+    private static void write(Path file, String content) {
+        try {
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
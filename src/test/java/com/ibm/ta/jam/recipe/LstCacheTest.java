@@ -0,0 +1,98 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.SourceFile;
+
+public class LstCacheTest {
+
+    private static final Path A = Path.of("src/main/java/A.java");
+    private static final Path B = Path.of("src/main/java/B.java");
+    private static final Path C = Path.of("src/main/java/C.java");
+
+    @Test
+    public void returnsTheLstForUnchangedContent() {
+        LstCache cache = new LstCache(1000);
+        SourceFile a = sourceFile();
+        cache.put(A, "hash1", 10, a);
+
+        assertSame(a, cache.get(A, "hash1"));
+        assertNull(cache.get(A, "hash2"));
+        assertNull(cache.get(B, "hash1"));
+        assertEquals("LstCache[entries=1, sourceBytes=10, hits=1, misses=2]", cache.toString());
+    }
+
+    @Test
+    public void replacesTheLstOfAChangedSource() {
+        LstCache cache = new LstCache(1000);
+        cache.put(A, "hash1", 10, sourceFile());
+        SourceFile changed = sourceFile();
+        cache.put(A, "hash2", 30, changed);
+
+        assertSame(changed, cache.get(A, "hash2"));
+        assertEquals(1, cache.size());
+        assertEquals(30, cache.getSourceBytes());
+    }
+
+    @Test
+    public void dropsAllLstsWhenTheClasspathChanges() {
+        LstCache cache = new LstCache(1000);
+        cache.validateClasspath("classpath1");
+        cache.put(A, "hash1", 10, sourceFile());
+
+        cache.validateClasspath("classpath1");
+        assertEquals(1, cache.size());
+
+        cache.validateClasspath("classpath2");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getSourceBytes());
+        assertNull(cache.get(A, "hash1"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedLsts() {
+        LstCache cache = new LstCache(100);
+        cache.put(A, "a", 40, sourceFile());
+        cache.put(B, "b", 40, sourceFile());
+        cache.get(A, "a");
+        cache.put(C, "c", 40, sourceFile());
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getSourceBytes());
+        assertNull(cache.get(B, "b"));
+
+        // A source larger than the whole cache is not cached
+        cache.put(B, "b", 200, sourceFile());
+        assertNull(cache.get(B, "b"));
+        assertEquals(80, cache.getSourceBytes());
+    }
+
+    @Test
+    public void removesLstsOfDeletedSources() {
+        LstCache cache = new LstCache(1000);
+        cache.put(A, "a", 10, sourceFile());
+        cache.put(B, "b", 20, sourceFile());
+        cache.put(C, "c", 30, sourceFile());
+
+        cache.retainAll(Arrays.asList(A, C));
+        assertEquals(2, cache.size());
+        assertEquals(40, cache.getSourceBytes());
+
+        cache.remove(A);
+        assertNull(cache.get(A, "a"));
+        assertEquals(30, cache.getSourceBytes());
+    }
+
+    private static SourceFile sourceFile() {
+        return (SourceFile) Proxy.newProxyInstance(LstCacheTest.class.getClassLoader(), new Class<?>[] { SourceFile.class },
+            (proxy, method, args) -> method.getName().equals("equals") ? proxy == args[0] : null);
+    }
+}
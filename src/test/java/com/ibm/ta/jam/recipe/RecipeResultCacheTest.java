@@ -0,0 +1,144 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RecipeResultCacheTest {
+
+    private File cacheDir;
+    private RecipeResultCache cache;
+
+    @BeforeEach
+	void setUp() {
+        try {
+            cacheDir = Files.createTempDirectory("jam-recipe-cache-").toFile();
+        } catch (IOException e) {
+            fail("Unable to create cache directory");
+        }
+        cache = new RecipeResultCache(cacheDir);
+    }
+
+	@AfterEach
+	void tearDown() {
+        FileUtils.deleteQuietly(cacheDir);
+	}
+
+    @Test
+    public void recipeResults() {
+        String recipeHash = RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", "classpath1", "11");
+        byte[] output = "class Foo {}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(cache.get("source1", recipeHash));
+
+        cache.put("source1", recipeHash, RecipeResultCache.Outcome.CHANGED, output);
+        cache.put("source2", recipeHash, RecipeResultCache.Outcome.UNCHANGED, null);
+
+        assertEquals(RecipeResultCache.Outcome.CHANGED, cache.get("source1", recipeHash).getOutcome());
+        assertArrayEquals(output, cache.get("source1", recipeHash).getContent());
+        assertEquals(RecipeResultCache.Outcome.UNCHANGED, cache.get("source2", recipeHash).getOutcome());
+
+        // A new rewrite-liberty version never reuses old results
+        String newVersionHash = RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.5", "classpath1", "11");
+        assertNotEquals(recipeHash, newVersionHash);
+        assertNull(cache.get("source1", newVersionHash));
+
+        // Results survive across cache instances
+        assertEquals(RecipeResultCache.Outcome.CHANGED, new RecipeResultCache(cacheDir).get("source1", recipeHash).getOutcome());
+    }
+
+    @Test
+    public void compileClasspathChangeRunsTheRecipeAgain() throws IOException {
+        Path lib = cacheDir.toPath().resolve("lib/api.jar");
+        Files.createDirectories(lib.getParent());
+        Files.write(lib, new byte[] { 1 });
+        List<Path> classpath = Arrays.asList(lib, cacheDir.toPath().resolve("classes"));
+        String recipeHash = RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", RewriteEngine.hashClasspath(classpath), "11");
+        cache.put("source1", recipeHash, RecipeResultCache.Outcome.UNCHANGED, null);
+        assertEquals(RecipeResultCache.Outcome.UNCHANGED, cache.get("source1",
+            RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", RewriteEngine.hashClasspath(classpath), "11")).getOutcome());
+
+        // A jar replaced in place changes the type attribution of the sources
+        Files.write(lib, new byte[] { 1, 2 });
+        assertNull(cache.get("source1",
+            RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", RewriteEngine.hashClasspath(classpath), "11")));
+
+        // So do a new classpath entry and a parser for another Java version
+        List<Path> newClasspath = Arrays.asList(lib, cacheDir.toPath().resolve("classes"), cacheDir.toPath().resolve("lib/impl.jar"));
+        assertNotEquals(RewriteEngine.hashClasspath(classpath), RewriteEngine.hashClasspath(newClasspath));
+        assertNull(cache.get("source1", RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", "classpath1", "17")));
+    }
+
+    @Test
+    public void runResults() {
+        String recipeHash = RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", "classpath1", "11");
+        Map<Path, String> sources = new HashMap<>();
+        sources.put(Path.of("src/main/java/Foo.java"), "source1");
+        sources.put(Path.of("src/main/java/Bar.java"), "source2");
+        String sourcesHash = RecipeResultCache.sourcesHash(sources);
+        byte[] output = "class Baz {}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(cache.getRun(sourcesHash, recipeHash));
+
+        cache.putRun(sourcesHash, recipeHash, Arrays.asList(
+            new RecipeResultCache.FileChange(RecipeResultCache.Outcome.DELETED, Path.of("src/main/java/Bar.java"), null),
+            new RecipeResultCache.FileChange(RecipeResultCache.Outcome.CREATED, Path.of("src/main/java/Baz.java"), output)));
+
+        List<RecipeResultCache.FileChange> changes = cache.getRun(sourcesHash, recipeHash);
+        assertEquals(2, changes.size());
+        assertEquals(RecipeResultCache.Outcome.DELETED, changes.get(0).getOutcome());
+        assertEquals(Path.of("src/main/java/Bar.java"), changes.get(0).getPath());
+        assertNull(changes.get(0).getContent());
+        assertEquals(RecipeResultCache.Outcome.CREATED, changes.get(1).getOutcome());
+        assertArrayEquals(output, changes.get(1).getContent());
+
+        // A change to any source of the run is a different run
+        sources.put(Path.of("src/main/java/Foo.java"), "source3");
+        assertNull(cache.getRun(RecipeResultCache.sourcesHash(sources), recipeHash));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedResults() throws IOException {
+        String recipeHash = RecipeResultCache.recipeHash("name: com.ibm.testRecipe", "1.1.4", "classpath1", "11");
+        byte[] output = new byte[1000];
+        // Room for two entries of the output size and their overhead
+        RecipeResultCache boundedCache = new RecipeResultCache(cacheDir, 3100);
+
+        boundedCache.put("source1", recipeHash, RecipeResultCache.Outcome.CHANGED, output);
+        boundedCache.put("source2", recipeHash, RecipeResultCache.Outcome.CHANGED, output);
+        boundedCache.trim();
+        assertEquals(2, cacheDir.list().length);
+
+        // Age the entries so their order does not depend on the file system timestamp resolution
+        for (File entry : cacheDir.listFiles()) {
+            Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        }
+        boundedCache.get("source1", recipeHash);
+        boundedCache.put("source3", recipeHash, RecipeResultCache.Outcome.CHANGED, output);
+        boundedCache.trim();
+
+        assertEquals(2, cacheDir.list().length);
+        assertNull(boundedCache.get("source2", recipeHash));
+        assertEquals(RecipeResultCache.Outcome.CHANGED, boundedCache.get("source1", recipeHash).getOutcome());
+        assertEquals(RecipeResultCache.Outcome.CHANGED, boundedCache.get("source3", recipeHash).getOutcome());
+    }
+}
@@ -0,0 +1,56 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RecipeRunResultTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void writesJson() {
+        RecipeRunResult runResult = new RecipeRunResult("com.ibm.\"test\"Recipe", "in-process");
+        runResult.setSuccessful(true);
+        runResult.setWallTimeMillis(1500);
+        RecipeRunResult.RecipeStats stats = runResult.addRecipe("org.openrewrite.java.liberty.ServerName");
+        stats.setWallTimeMillis(1200);
+        stats.setFilesScanned(10);
+        stats.setFilesChanged(2);
+        stats.setLinesAdded(3);
+        stats.setLinesRemoved(1);
+        runResult.addRecipe("org.openrewrite.java.liberty.WebSphereUnavailableSSOCookieMethod");
+
+        String startTime = Instant.ofEpochMilli(runResult.getStartTimeMillis()).toString();
+        assertEquals("{\"recipeName\":\"com.ibm.\\\"test\\\"Recipe\",\"mode\":\"in-process\",\"startTime\":\"" + startTime + "\""
+            + ",\"successful\":true,\"wallTimeMillis\":1500,\"recipes\":["
+            + "{\"recipe\":\"org.openrewrite.java.liberty.ServerName\",\"wallTimeMillis\":1200,\"filesScanned\":10,\"filesChanged\":2,\"linesAdded\":3,\"linesRemoved\":1},"
+            + "{\"recipe\":\"org.openrewrite.java.liberty.WebSphereUnavailableSSOCookieMethod\",\"wallTimeMillis\":0,\"filesScanned\":0,\"filesChanged\":0,\"linesAdded\":-1,\"linesRemoved\":-1}"
+            + "]}", runResult.toJson());
+    }
+
+    @Test
+    public void appendsJsonLines() throws IOException {
+        Path logFile = tempDir.resolve("logs/recipe-runs.jsonl");
+        RecipeRunResult first = new RecipeRunResult("com.ibm.testRecipe", "maven");
+        RecipeRunResult second = new RecipeRunResult("com.ibm.testRecipe", "gradle");
+
+        first.appendTo(logFile);
+        second.appendTo(logFile);
+
+        List<String> lines = Files.readAllLines(logFile);
+        assertEquals(2, lines.size());
+        assertEquals(first.toJson(), lines.get(0));
+        assertTrue(lines.get(1).contains("\"mode\":\"gradle\""));
+    }
+}
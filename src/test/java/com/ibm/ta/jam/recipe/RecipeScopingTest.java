@@ -0,0 +1,86 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RecipeScopingTest {
+
+    @TempDir
+    Path appDir;
+
+    private List<Path> sourceDirs;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path web = appDir.resolve("web/src/main/java");
+        Path ejb = appDir.resolve("ejb/src/main/java");
+        for (String source : Arrays.asList("com/acme/web/Servlet.java", "com/acme/web/Filter.java", "com/acme/web/util/Strings.java",
+                "com/acme/model/Order.java", "com/acme/web/messages.properties")) {
+            write(web.resolve(source));
+        }
+        write(ejb.resolve("com/acme/ejb/OrderBean.java"));
+        sourceDirs = Arrays.asList(web, ejb);
+    }
+
+    @Test
+    public void excludesSourcesTheRecipesCannotChange() {
+        List<String> exclusions = RecipeScoping.getExclusions(appDir, sourceDirs, new TreeSet<>(Arrays.asList("com/acme/web/Servlet.java")));
+
+        assertEquals(Arrays.asList(
+            "web/src/main/java/com/acme/model/**.java",
+            "web/src/main/java/com/acme/web/Filter.java",
+            "web/src/main/java/com/acme/web/util/**.java",
+            "ejb/src/main/java/**.java"), exclusions);
+    }
+
+    @Test
+    public void excludedGlobsMatchOnlyUnaffectedJavaSources() throws IOException {
+        Set<String> affected = new TreeSet<>(Arrays.asList("com/acme/web/Servlet.java", "com/acme/ejb/OrderBean.java"));
+        List<String> exclusions = RecipeScoping.getExclusions(appDir, sourceDirs, affected);
+
+        assertTrue(isExcluded(exclusions, "web/src/main/java/com/acme/web/Filter.java"));
+        assertTrue(isExcluded(exclusions, "web/src/main/java/com/acme/web/util/Strings.java"));
+        assertTrue(isExcluded(exclusions, "web/src/main/java/com/acme/model/Order.java"));
+        assertFalse(isExcluded(exclusions, "web/src/main/java/com/acme/web/Servlet.java"));
+        assertFalse(isExcluded(exclusions, "ejb/src/main/java/com/acme/ejb/OrderBean.java"));
+        assertFalse(isExcluded(exclusions, "web/src/main/java/com/acme/web/messages.properties"));
+        assertFalse(isExcluded(exclusions, "web/pom.xml"));
+    }
+
+    @Test
+    public void excludesNothingForUnscopedRecipes() {
+        assertEquals(Collections.emptyList(), RecipeScoping.getExclusions(appDir, sourceDirs, null));
+    }
+
+    private static boolean isExcluded(List<String> exclusions, String path) {
+        for (String exclusion : exclusions) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + exclusion);
+            if (matcher.matches(Path.of(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "");
+    }
+}
@@ -0,0 +1,60 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.recipe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class RewriteEngineTest {
+
+    private static final String DIFF =
+        "diff --git a/src/main/java/com/acme/Counter.java b/src/main/java/com/acme/Counter.java\n" +
+        "--- a/src/main/java/com/acme/Counter.java\n" +
+        "+++ b/src/main/java/com/acme/Counter.java\n" +
+        "@@ -1,5 +1,5 @@ org.openrewrite.java.liberty.ServerName\n" +
+        " class Counter {\n" +
+        "     void count(int i) {\n" +
+        "---i;\n" +
+        "+++i;\n" +
+        "-        old();\n" +
+        "+        current();\n" +
+        "+        more();\n" +
+        "     }\n";
+
+    @Test
+    public void countsChangedLinesInHunksOnly() {
+        RecipeRunResult.RecipeStats stats = new RecipeRunResult.RecipeStats("org.openrewrite.java.liberty.ServerName");
+
+        RewriteEngine.countChangedLines(Arrays.asList(DIFF, DIFF.replace("Counter", "Timer")), stats);
+
+        assertEquals(6, stats.getLinesAdded());
+        assertEquals(4, stats.getLinesRemoved());
+    }
+
+    @Test
+    public void countsGeneratedAndDeletedFiles() {
+        String generated =
+            "diff --git a/src/main/webapp/WEB-INF/beans.xml b/src/main/webapp/WEB-INF/beans.xml\n" +
+            "new file mode 100644\n" +
+            "--- /dev/null\n" +
+            "+++ b/src/main/webapp/WEB-INF/beans.xml\n" +
+            "@@ -0,0 +1,2 @@\n" +
+            "+<beans>\n" +
+            "+</beans>\n";
+        String deleted =
+            "diff --git a/src/main/java/Old.java b/src/main/java/Old.java\n" +
+            "deleted file mode 100644\n" +
+            "--- a/src/main/java/Old.java\n" +
+            "+++ /dev/null\n" +
+            "@@ -1 +0,0 @@\n" +
+            "-class Old {}\n";
+        RecipeRunResult.RecipeStats stats = new RecipeRunResult.RecipeStats("org.openrewrite.java.liberty.ServerName");
+
+        RewriteEngine.countChangedLines(Arrays.asList(generated, deleted), stats);
+
+        assertEquals(2, stats.getLinesAdded());
+        assertEquals(1, stats.getLinesRemoved());
+    }
+}
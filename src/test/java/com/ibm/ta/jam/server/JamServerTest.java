@@ -0,0 +1,121 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ibm.ta.jam.JamOptions;
+import com.ibm.ta.jam.utils.JamUtils;
+
+public class JamServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String previousCacheDir;
+
+    private JamServer server;
+
+    private String token;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        previousCacheDir = System.getProperty(JamUtils.CACHE_DIR_PROPERTY);
+        System.setProperty(JamUtils.CACHE_DIR_PROPERTY, tempDir.toString());
+        server = new JamServer(0, new JamOptions());
+        server.start();
+        token = Files.readString(server.getTokenFile());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        if (previousCacheDir == null) {
+            System.clearProperty(JamUtils.CACHE_DIR_PROPERTY);
+        } else {
+            System.setProperty(JamUtils.CACHE_DIR_PROPERTY, previousCacheDir);
+        }
+    }
+
+    @Test
+    public void writesTheTokenForTheOwnerOnly() throws IOException {
+        assertTrue(server.getTokenFile().startsWith(tempDir));
+        assertFalse(token.isEmpty());
+        if (Files.getFileStore(server.getTokenFile()).supportsFileAttributeView("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(server.getTokenFile())));
+        }
+
+        Path tokenFile = server.getTokenFile();
+        server.close();
+        assertFalse(Files.exists(tokenFile));
+    }
+
+    @Test
+    public void requiresTheBearerToken() throws IOException {
+        assertEquals(200, request("GET", "localhost:" + server.getPort(), "Bearer " + token, null));
+        assertEquals(401, request("GET", "localhost:" + server.getPort(), null, null));
+        assertEquals(401, request("GET", "localhost:" + server.getPort(), "Bearer wrong", null));
+    }
+
+    @Test
+    public void requiresALoopbackHost() throws IOException {
+        assertEquals(200, request("GET", "127.0.0.1:" + server.getPort(), "Bearer " + token, null));
+        // A name resolving to the loopback address through DNS rebinding
+        assertEquals(403, request("GET", "attacker.example:" + server.getPort(), "Bearer " + token, null));
+
+        assertTrue(JamServer.isLoopbackHost("localhost"));
+        assertTrue(JamServer.isLoopbackHost("[::1]:8080"));
+        assertFalse(JamServer.isLoopbackHost("localhost.attacker.example"));
+        assertFalse(JamServer.isLoopbackHost(null));
+    }
+
+    @Test
+    public void requiresAJsonBody() throws IOException {
+        assertEquals(415, request("POST", "localhost:" + server.getPort(), "Bearer " + token, "text/plain"));
+        // The JSON body is read, the application directory does not exist
+        assertEquals(422, request("POST", "localhost:" + server.getPort(), "Bearer " + token, "application/json; charset=utf-8"));
+    }
+
+    /**
+     * Send a request to /sessions over a plain socket, as HTTP clients do not allow setting the Host header
+     * @return the response status
+     */
+    private int request(String method, String host, String authorization, String contentType) throws IOException {
+        String body = method.equals("POST") ? "{\"applicationDir\": \"/no/app\"}" : "";
+        StringBuilder request = new StringBuilder(method + " /sessions HTTP/1.1\r\n")
+            .append("Host: ").append(host).append("\r\n")
+            .append("Connection: close\r\n")
+            .append("Content-Length: ").append(body.length()).append("\r\n");
+        if (authorization != null) {
+            request.append("Authorization: ").append(authorization).append("\r\n");
+        }
+        if (contentType != null) {
+            request.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        request.append("\r\n").append(body);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            String response = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return Integer.parseInt(response.split(" ", 3)[1]);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ibm.ta.jam.MigrationStep;
+import com.ibm.ta.jam.StepGraph;
+
+public class JobTest {
+
+    @Test
+    public void events() throws Exception {
+        Job job = new Job("job-1", "session-1", Arrays.asList(MigrationStep.BUILD, MigrationStep.RECIPES));
+        job.started();
+        job.stepStarted(MigrationStep.BUILD);
+        job.stepFinished(MigrationStep.BUILD, false, 42);
+
+        List<String> events = job.awaitEvents(0);
+        assertEquals(3, events.size());
+        assertTrue(events.get(2).contains("\"step\":\"build\""));
+        assertTrue(events.get(2).contains("\"status\":\"FAILED\""));
+        assertFalse(job.isFinished(events.size()));
+        assertTrue(job.toJson().contains("\"state\":\"RUNNING\""));
+
+        Map<MigrationStep, StepGraph.Status> statuses = new EnumMap<>(MigrationStep.class);
+        statuses.put(MigrationStep.BUILD, StepGraph.Status.FAILED);
+        statuses.put(MigrationStep.RECIPES, StepGraph.Status.SKIPPED);
+        job.finished(statuses, null);
+
+        // A client that has seen the first events gets the rest, then the job is finished for it
+        events = job.awaitEvents(3);
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).contains("\"event\":\"stepSkipped\""));
+        assertTrue(events.get(1).contains("\"event\":\"jobFinished\""));
+        assertFalse(job.isFinished(3));
+        assertTrue(job.isFinished(5));
+        assertTrue(job.toJson().contains("\"steps\":{\"build\":\"FAILED\",\"recipes\":\"SKIPPED\"}"));
+    }
+}
@@ -0,0 +1,35 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void quotesStrings() {
+        assertEquals("\"com.ibm.testRecipe\"", JsonUtils.quote("com.ibm.testRecipe"));
+        assertEquals("\"\"", JsonUtils.quote(""));
+        assertEquals("null", JsonUtils.quote(null));
+    }
+
+    @Test
+    public void escapesSpecialCharacters() {
+        assertEquals("\"say \\\"hi\\\"\"", JsonUtils.quote("say \"hi\""));
+        assertEquals("\"C:\\\\apps\\\\app\"", JsonUtils.quote("C:\\apps\\app"));
+        assertEquals("\"a\\nb\\r\\tc\"", JsonUtils.quote("a\nb\r\tc"));
+        assertEquals("\"\\u0000\\u001f\"", JsonUtils.quote("\u0000\u001f"));
+        // Characters outside ASCII are valid in JSON strings as they are
+        assertEquals("\"caf\u00e9 \u2713\"", JsonUtils.quote("caf\u00e9 \u2713"));
+    }
+
+    @Test
+    public void writesArrays() {
+        assertEquals("[]", JsonUtils.array(Collections.emptyList()));
+        assertEquals("[\"a\",\"b\\\"c\"]", JsonUtils.array(Arrays.asList("a", "b\"c")));
+    }
+}
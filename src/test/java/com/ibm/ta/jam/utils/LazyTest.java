@@ -0,0 +1,80 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class LazyTest {
+
+    @Test
+    public void createdOnFirstUse() {
+        AtomicInteger creations = new AtomicInteger();
+        Lazy<Object> lazy = new Lazy<>(() -> {
+            creations.incrementAndGet();
+            return new Object();
+        });
+        assertFalse(lazy.isInitialized());
+        assertEquals(0, creations.get());
+
+        Object value = lazy.get();
+        assertTrue(lazy.isInitialized());
+        assertSame(value, lazy.get());
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    public void createdOnceAcrossThreads() {
+        AtomicInteger creations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Lazy<Object> lazy = new Lazy<>(() -> {
+            creations.incrementAndGet();
+            return new Object();
+        });
+
+        List<CompletableFuture<Object>> gets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            gets.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return lazy.get();
+            }));
+        }
+        start.countDown();
+
+        Object value = lazy.get();
+        for (CompletableFuture<Object> get : gets) {
+            assertSame(value, get.join());
+        }
+        assertEquals(1, creations.get());
+    }
+
+    @Test
+    public void failureIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        Lazy<String> lazy = new Lazy<>(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Bundle is not unzipped yet");
+            }
+            return "unzipped";
+        });
+
+        assertThrows(IllegalStateException.class, lazy::get);
+        assertFalse(lazy.isInitialized());
+        assertEquals("unzipped", lazy.get());
+        assertEquals(2, attempts.get());
+    }
+}
@@ -0,0 +1,101 @@
+// (C) Copyright IBM Corp. 2024
+package com.ibm.ta.jam.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SourceSnapshotTest {
+
+    private Path rootDir;
+
+    @BeforeEach
+	void setUp() {
+        try {
+            rootDir = Files.createTempDirectory("jam-snapshot-");
+            Files.createDirectories(rootDir.resolve("src/main/java"));
+            Files.createDirectories(rootDir.resolve("target"));
+            Files.writeString(rootDir.resolve("src/main/java/Changed.java"), "class Changed {}");
+            Files.writeString(rootDir.resolve("src/main/java/Unchanged.java"), "class Unchanged {}");
+            Files.writeString(rootDir.resolve("src/main/java/Deleted.java"), "class Deleted {}");
+        } catch (IOException e) {
+            fail("Unable to create test sources");
+        }
+    }
+
+	@AfterEach
+	void tearDown() {
+        FileUtils.deleteQuietly(rootDir.toFile());
+	}
+
+    @Test
+    public void changedSince() throws IOException {
+        SourceSnapshot before = SourceSnapshot.take(rootDir);
+        assertEquals(3, before.size());
+
+        Files.writeString(rootDir.resolve("src/main/java/Changed.java"), "class Changed { int i; }");
+        Files.delete(rootDir.resolve("src/main/java/Deleted.java"));
+        Files.writeString(rootDir.resolve("src/main/java/Added.java"), "class Added {}");
+        // Build output is not part of the snapshot
+        Files.writeString(rootDir.resolve("target/Output.class"), "output");
+
+        Set<Path> changed = SourceSnapshot.take(rootDir).changedSince(before);
+        assertEquals(Set.of(Path.of("src", "main", "java", "Changed.java"), Path.of("src", "main", "java", "Deleted.java"),
+            Path.of("src", "main", "java", "Added.java")), changed);
+    }
+
+    @Test
+    public void skipsBuildOutputAtModuleRootsOnly() throws IOException {
+        Files.createDirectories(rootDir.resolve("src/main/java/com/acme/build"));
+        Files.createDirectories(rootDir.resolve("web/build"));
+        Files.createDirectories(rootDir.resolve("web/src/main/java/com/acme/target"));
+        Files.writeString(rootDir.resolve("web/build.gradle"), "plugins { id 'war' }");
+        SourceSnapshot before = SourceSnapshot.take(rootDir);
+
+        // Packages named after build output directories are sources
+        Files.writeString(rootDir.resolve("src/main/java/com/acme/build/Foo.java"), "class Foo {}");
+        Files.writeString(rootDir.resolve("web/src/main/java/com/acme/target/Bar.java"), "class Bar {}");
+        // The build output of the root module and of a nested module is not
+        Files.writeString(rootDir.resolve("target/Output.class"), "output");
+        Files.writeString(rootDir.resolve("web/build/Output.class"), "output");
+
+        Set<Path> changed = SourceSnapshot.take(rootDir).changedSince(before);
+        assertEquals(Set.of(Path.of("src", "main", "java", "com", "acme", "build", "Foo.java"),
+            Path.of("web", "src", "main", "java", "com", "acme", "target", "Bar.java")), changed);
+    }
+
+    @Test
+    public void hashesFilesModifiedSinceTheEarlierSnapshot() throws IOException {
+        SourceSnapshot before = SourceSnapshot.take(rootDir);
+
+        // Same size, and possibly the same modification time as before
+        Files.writeString(rootDir.resolve("src/main/java/Changed.java"), "class Cha_ged {}");
+        SourceSnapshot after = SourceSnapshot.take(rootDir, before);
+
+        assertEquals(Set.of(Path.of("src", "main", "java", "Changed.java")), after.changedSince(before));
+        assertEquals(before.getHashes().get(Path.of("src", "main", "java", "Unchanged.java")),
+            after.getHashes().get(Path.of("src", "main", "java", "Unchanged.java")));
+    }
+
+    @Test
+    public void snapshotsTheGivenPathsOnly() throws IOException {
+        Files.writeString(rootDir.resolve("pom.xml"), "<project/>");
+        Files.writeString(rootDir.resolve("README.md"), "app");
+
+        SourceSnapshot snapshot = SourceSnapshot.take(rootDir, List.of(rootDir.resolve("src/main/java"), Path.of("pom.xml"), Path.of("missing.xml")), null);
+
+        assertEquals(Set.of(Path.of("src", "main", "java", "Changed.java"), Path.of("src", "main", "java", "Unchanged.java"),
+            Path.of("src", "main", "java", "Deleted.java"), Path.of("pom.xml")), snapshot.getHashes().keySet());
+    }
+}